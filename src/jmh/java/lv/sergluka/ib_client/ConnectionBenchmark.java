@@ -0,0 +1,70 @@
+package lv.sergluka.ib_client;
+
+import lv.sergluka.ib_client.params.IbClientOptions;
+import lv.sergluka.ib_client.simulator.TwsSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection management latency against {@link TwsSimulator} with zero connection delay, so the numbers show
+ * overhead of the connection state machine itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConnectionBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private TwsSimulator simulator;
+    private IbClient client;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        simulator = new TwsSimulator();
+        client = newClient();
+        client.connect(simulator.getHost(), simulator.getPort(), 0).block(TIMEOUT);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        client.close();
+        simulator.close();
+    }
+
+    /**
+     * Connect to TWS till {@code nextValidId}, confirmation of the connection and disconnect.
+     */
+    @Benchmark
+    public void connectAndDisconnect() {
+        try (IbClient other = newClient()) {
+            other.connect(simulator.getHost(), simulator.getPort(), 1).block(TIMEOUT);
+        }
+    }
+
+    /**
+     * From connection loss at TWS side till the client is connected again.
+     */
+    @Benchmark
+    public Boolean reconnect() throws Exception {
+        Future<Boolean> restored = client.connectionStatus().filter(Boolean::booleanValue).next().toFuture();
+        simulator.dropClients();
+        return restored.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static IbClient newClient() {
+        return new IbClient(new IbClientOptions().connectionDelay(Duration.ZERO));
+    }
+}
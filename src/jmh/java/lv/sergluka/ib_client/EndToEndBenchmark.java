@@ -0,0 +1,169 @@
+package lv.sergluka.ib_client;
+
+import com.ib.client.Contract;
+import com.ib.client.Order;
+import com.ib.client.OrderType;
+import com.ib.client.Types;
+import lv.sergluka.ib_client.params.DispatchOptions;
+import lv.sergluka.ib_client.params.HistoricalPacingOptions;
+import lv.sergluka.ib_client.params.IbClientOptions;
+import lv.sergluka.ib_client.simulator.SimulatorOptions;
+import lv.sergluka.ib_client.simulator.TwsSimulator;
+import lv.sergluka.ib_client.types.IbBar;
+import lv.sergluka.ib_client.types.IbOrder;
+import lv.sergluka.ib_client.types.IbOrderBook;
+import lv.sergluka.ib_client.types.IbTick;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency and throughput of {@link IbClient} against {@link TwsSimulator} over loopback socket.
+ *
+ * <p>Round trip benchmarks measure request-to-result latency: client serialization, TWS API reader, callback
+ * dispatch and completion of the result. Stream benchmarks measure cost per message delivered to a subscriber
+ * while the simulator streams as fast as the client consumes.
+ *
+ * <p>Order throughput benchmarks place a hundred orders in flight at once, either by a request per order or by one
+ * batch, which is written to the socket at once.
+ *
+ * <p>The {@code singleReaderThread} parameter compares dispatch by the socket reader thread with the default
+ * handoff to the processing thread.
+ *
+ * <p>Client and simulator are recreated every iteration, so caches of placed orders don't grow unbounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EndToEndBenchmark {
+
+    private static final int STREAM_MESSAGES = 10_000;
+    private static final int HISTORICAL_BARS = 1_000;
+    private static final int DEPTH_LEVELS = 10;
+    private static final int ORDER_BATCH = 100;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Param({"false", "true"})
+    private boolean singleReaderThread;
+
+    private TwsSimulator simulator;
+    private IbClient client;
+    private Contract contract;
+    private ExecutorService subscriberExecutor;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        simulator = new TwsSimulator(new SimulatorOptions().tickRate(0)
+                                                           .depthRate(0)
+                                                           .depthLevels(DEPTH_LEVELS)
+                                                           .historicalBars(HISTORICAL_BARS));
+        // The simulator has no pacing limits, so it measures the client itself
+        HistoricalPacingOptions pacing = new HistoricalPacingOptions().maxRequests(1, Duration.ZERO)
+                                                                      .maxContractRequests(1, Duration.ZERO)
+                                                                      .identicalRequestInterval(Duration.ZERO);
+        client = new IbClient(new IbClientOptions().connectionDelay(Duration.ZERO)
+                                                   .historicalPacing(pacing)
+                                                   .singleReaderThread(singleReaderThread));
+        client.connect(simulator.getHost(), simulator.getPort(), 0).block(TIMEOUT);
+
+        contract = new Contract();
+        contract.conid(1);
+        contract.symbol("AAPL");
+        contract.secType(Types.SecType.STK);
+        contract.exchange("SMART");
+        contract.currency("USD");
+
+        subscriberExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        client.close();
+        simulator.close();
+        subscriberExecutor.shutdown();
+    }
+
+    @Benchmark
+    public LocalDateTime currentTime() {
+        return client.getCurrentTime().block(TIMEOUT);
+    }
+
+    @Benchmark
+    public IbOrder placeOrder() {
+        return client.placeOrder(contract, order()).block(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_BATCH)
+    public IbOrder placeOrdersOneByOne() {
+        return Flux.range(0, ORDER_BATCH)
+                   .flatMap(i -> client.placeOrder(contract, order()), ORDER_BATCH)
+                   .blockLast(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_BATCH)
+    public IbOrder placeOrdersBatch() {
+        return client.placeOrders(batch -> {
+            for (int i = 0; i < ORDER_BATCH; i++) {
+                batch.add(contract, order());
+            }
+        }).blockLast(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HISTORICAL_BARS)
+    public List<IbBar> historicalBars() {
+        return client.reqHistoricalData(contract, null, 1, IbClient.DurationUnit.Day, IbClient.BarSize.MIN_1,
+                                        IbClient.Type.TRADES, IbClient.TradingHours.Within)
+                     .collectList()
+                     .block(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_MESSAGES)
+    public IbTick marketData() {
+        return client.subscribeOnMarketData(contract).take(STREAM_MESSAGES).blockLast(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_MESSAGES)
+    public IbTick marketDataDispatched() {
+        return client.subscribeOnMarketData(contract)
+                     .take(STREAM_MESSAGES)
+                     .subscriberContext(DispatchOptions.deliverOn(subscriberExecutor))
+                     .blockLast(TIMEOUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_MESSAGES)
+    public IbOrderBook orderBook() {
+        return client.subscribeOnOrderBook(contract, DEPTH_LEVELS).take(STREAM_MESSAGES).blockLast(TIMEOUT);
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.action(Types.Action.BUY);
+        order.orderType(OrderType.LMT);
+        order.totalQuantity(1);
+        order.lmtPrice(1);
+        return order;
+    }
+}
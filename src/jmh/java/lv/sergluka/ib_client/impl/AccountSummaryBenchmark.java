@@ -0,0 +1,91 @@
+package lv.sergluka.ib_client.impl;
+
+import lv.sergluka.ib_client.impl.request.RequestRepository;
+import lv.sergluka.ib_client.types.IbAccountsSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Full account summary request: registration, parsing of all tags of every account and completion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountSummaryBenchmark {
+
+    private static final String[][] TAGS = {
+            {"AccountType", "INDIVIDUAL", ""},
+            {"NetLiquidation", "1011243.55", "USD"},
+            {"TotalCashValue", "998871.02", "USD"},
+            {"SettledCash", "998871.02", "USD"},
+            {"BuyingPower", "6635211.12", "USD"},
+            {"EquityWithLoanValue", "1011243.55", "USD"},
+            {"PreviousEquityWithLoanValue", "1010512.30", "USD"},
+            {"GrossPositionValue", "12372.53", "USD"},
+            {"RegTEquity", "1011243.55", "USD"},
+            {"RegTMargin", "6186.27", "USD"},
+            {"SMA", "1005612.77", "USD"},
+            {"InitMarginReq", "3711.76", "USD"},
+            {"MaintMarginReq", "3093.13", "USD"},
+            {"AvailableFunds", "1007531.79", "USD"},
+            {"ExcessLiquidity", "1008150.42", "USD"},
+            {"Cushion", "0.996941", ""},
+            {"FullInitMarginReq", "3711.76", "USD"},
+            {"FullMaintMarginReq", "3093.13", "USD"},
+            {"FullAvailableFunds", "1007531.79", "USD"},
+            {"FullExcessLiquidity", "1008150.42", "USD"},
+            {"LookAheadInitMarginReq", "3711.76", "USD"},
+            {"LookAheadMaintMarginReq", "3093.13", "USD"},
+            {"LookAheadAvailableFunds", "1007531.79", "USD"},
+            {"LookAheadExcessLiquidity", "1008150.42", "USD"},
+            {"HighestSeverity", "0", ""},
+            {"DayTradesRemaining", "-1", ""},
+            {"Leverage", "0", ""},
+    };
+
+    @Param({"1", "10"})
+    private int accounts;
+
+    private WrapperFixture fixture;
+    private String[] accountNames;
+
+    @Setup
+    public void setUp() {
+        fixture = new WrapperFixture();
+        accountNames = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNames[i] = "DU" + (1_000_000 + i);
+        }
+    }
+
+    @Benchmark
+    public IbAccountsSummary summary() {
+        AtomicReference<IbAccountsSummary> result = new AtomicReference<>();
+        AtomicReference<Integer> requestId = new AtomicReference<>();
+
+        fixture.getRequests().<IbAccountsSummary>builder()
+                .type(RequestRepository.Type.REQ_ACCOUNT_SUMMARY)
+                .register(requestId::set)
+                .subscribe()
+                .subscribe(result::set);
+
+        int id = requestId.get();
+        Wrapper wrapper = fixture.getWrapper();
+        for (String account : accountNames) {
+            for (String[] tag : TAGS) {
+                wrapper.accountSummary(id, account, tag[0], tag[1], tag[2]);
+            }
+        }
+        wrapper.accountSummaryEnd(id);
+        return result.get();
+    }
+}
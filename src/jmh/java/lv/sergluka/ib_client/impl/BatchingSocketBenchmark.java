@@ -0,0 +1,134 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.Contract;
+import com.ib.client.DefaultEWrapper;
+import com.ib.client.EJavaSignal;
+import com.ib.client.Order;
+import com.ib.client.Types;
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Mono;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of sending orders by {@link BatchingSocket}, one write per order versus one write per batch.
+ *
+ * <p>The peer only completes the handshake and drains the socket, so a score is the client side of placement:
+ * encoding and socket writes, without TWS answers, which dominate {@code EndToEndBenchmark} on a single core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BatchingSocketBenchmark {
+
+    private static final int ORDER_BATCH = 100;
+    private static final int SERVER_VERSION = 155;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ServerSocket server;
+    private Thread peer;
+    private BatchingSocket socket;
+    private Contract contract;
+    private Order order;
+    private List<Mono<Void>> batch;
+    private int nextId = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        peer = new Thread(this::drain, "peer");
+        peer.setDaemon(true);
+        peer.start();
+
+        socket = new BatchingSocket(new DefaultEWrapper(), new EJavaSignal(), new OrderLatencyTracker());
+        socket.setAsyncEConnect(false);
+        socket.eConnect(server.getInetAddress().getHostAddress(), server.getLocalPort(), 1);
+        if (!socket.isConnected()) {
+            throw new IllegalStateException("Handshake has failed");
+        }
+
+        contract = new Contract();
+        contract.conid(1);
+        contract.symbol("AAPL");
+        contract.secType(Types.SecType.STK);
+        contract.exchange("SMART");
+        contract.currency("USD");
+
+        order = new Order();
+        order.action(Types.Action.BUY);
+        order.orderType("LMT");
+        order.totalQuantity(1);
+        order.lmtPrice(1);
+
+        batch = new ArrayList<>(ORDER_BATCH);
+        for (int i = 0; i < ORDER_BATCH; i++) {
+            batch.add(Mono.fromRunnable(() -> socket.placeOrder(nextId++, contract, order)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        socket.eDisconnect();
+        server.close();
+        peer.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_BATCH)
+    public void placeOrdersOneByOne() {
+        for (int i = 0; i < ORDER_BATCH; i++) {
+            socket.placeOrder(nextId++, contract, order);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_BATCH)
+    public void placeOrdersBatch() {
+        socket.batch(batch).blockLast();
+    }
+
+    private void drain() {
+        try (Socket client = server.accept()) {
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            DataOutputStream out = new DataOutputStream(client.getOutputStream());
+
+            // "API\0", then the length-prefixed range of client versions
+            in.readFully(new byte[4]);
+            in.readFully(new byte[in.readInt()]);
+
+            // Server version and connection time, the only message without an ID
+            byte[] ack = (SERVER_VERSION + "\0" + "20200101 00:00:00 UTC\0").getBytes(StandardCharsets.US_ASCII);
+            out.writeInt(ack.length);
+            out.write(ack);
+            out.flush();
+
+            InputStream raw = client.getInputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (raw.read(buffer) >= 0) {
+                // Discard
+            }
+        } catch (IOException e) {
+            // Closed at tear down
+        }
+    }
+}
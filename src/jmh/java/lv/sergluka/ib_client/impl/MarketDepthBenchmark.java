@@ -0,0 +1,106 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.Contract;
+import lv.sergluka.ib_client.impl.request.RequestRepository;
+import lv.sergluka.ib_client.types.IbOrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update path of Level II market depth: TWS callback, order book update and publishing.
+ *
+ * <p>The feed keeps the book at {@code depth} levels per side: most updates change a level in place, the rest
+ * insert a new level at random position and delete one, as real books do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MarketDepthBenchmark {
+
+    private static final int TICKER_ID = 1;
+    private static final int CONTRACT_ID = 1000;
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int SIDES = 2;
+    private static final int REPLACE_EVERY = 4;
+
+    @Param({"10", "50"})
+    private int depth;
+
+    // Subscription type: levels as per-update events or the order book
+    @Param({"events", "book"})
+    private String mode;
+
+    private Wrapper wrapper;
+    private IbOrderBook book;
+    private Disposable subscription;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        WrapperFixture fixture = new WrapperFixture();
+        RequestRepository requests = fixture.getRequests();
+        wrapper = fixture.getWrapper();
+
+        Contract contract = new Contract();
+        contract.conid(CONTRACT_ID);
+
+        RequestRepository.Type type = "book".equals(mode) ? RequestRepository.Type.EVENT_ORDER_BOOK
+                                                          : RequestRepository.Type.EVENT_MARKET_DATA_LVL2;
+        subscription = requests.builder()
+                .type(type)
+                .id(TICKER_ID)
+                .userData(contract)
+                .register(id -> fixture.getCache().addOrderBook(id, CONTRACT_ID))
+                .subscribe()
+                .subscribe(blackhole::consume);
+
+        for (int side = 0; side < SIDES; side++) {
+            for (int position = 0; position < depth; position++) {
+                wrapper.updateMktDepth(TICKER_ID, position, INSERT, side, 100.0 + position, 100);
+            }
+        }
+        book = fixture.getCache().getBook(contract);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscription.dispose();
+    }
+
+    @Benchmark
+    public void update() {
+        int sequence = next++;
+        int side = sequence & 1;
+        int position = (sequence >>> 1) % depth;
+        if (sequence % REPLACE_EVERY == 0) {
+            wrapper.updateMktDepth(TICKER_ID, depth - 1, DELETE, side, 0, 0);
+            wrapper.updateMktDepth(TICKER_ID, position, INSERT, side, 100.0 + position, sequence & Short.MAX_VALUE);
+        } else {
+            wrapper.updateMktDepth(TICKER_ID, position, UPDATE, side, 100.0 + position, sequence & Short.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    public double topOfBook() {
+        return book.getSpread() + book.getBestBidSize();
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return book.snapshot();
+    }
+}
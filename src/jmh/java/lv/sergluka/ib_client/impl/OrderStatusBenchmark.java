@@ -0,0 +1,78 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.Contract;
+import com.ib.client.Order;
+import lv.sergluka.ib_client.impl.request.RequestRepository;
+import lv.sergluka.ib_client.types.IbOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order status callbacks: parsing, deduplication against the latest status of the order and publishing.
+ *
+ * <p>TWS repeats the same status several times (on every open order request, on reconnect, for every partial
+ * fill report), so most of the callbacks are duplicates. The {@code history} parameter is number of distinct
+ * statuses the order already has, which doesn't affect the cost since the deduplication is constant-time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderStatusBenchmark {
+
+    private static final int ORDERS = 100;
+    private static final double QUANTITY = 1_000_000;
+    private static final double PRICE = 10.5;
+
+    @Param({"1", "10", "100"})
+    private int history;
+
+    private Wrapper wrapper;
+    private Disposable subscription;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        WrapperFixture fixture = new WrapperFixture();
+        wrapper = fixture.getWrapper();
+
+        subscription = fixture.getRequests().builder()
+                .type(RequestRepository.Type.EVENT_ORDER_STATUS)
+                .register(() -> { })
+                .subscribe()
+                .subscribe(blackhole::consume);
+
+        for (int orderId = 0; orderId < ORDERS; orderId++) {
+            fixture.getCache().addOrder(new IbOrder(orderId, new Contract(), new Order(), null));
+            for (int fill = 0; fill < history; fill++) {
+                status(orderId, fill);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscription.dispose();
+    }
+
+    @Benchmark
+    public void duplicate() {
+        int sequence = next++;
+        status(sequence % ORDERS, (sequence / ORDERS) % history);
+    }
+
+    private void status(int orderId, int fill) {
+        wrapper.orderStatus(orderId, "Submitted", fill, QUANTITY - fill, PRICE, orderId, 0, PRICE, 0, null, 0);
+    }
+}
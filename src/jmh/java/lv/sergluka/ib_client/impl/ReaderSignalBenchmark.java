@@ -0,0 +1,62 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.EReaderSignal;
+import lv.sergluka.ib_client.params.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wake-up latency of {@link IbReader} wait strategies.
+ *
+ * <p>Benchmark thread signals an echo thread and waits for its signal back, so a score is a round trip of two
+ * wake-ups. Spinning strategies need two free cores to be meaningful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReaderSignalBenchmark {
+
+    @Param({"BLOCKING", "YIELDING", "BUSY_SPIN"})
+    private WaitStrategy strategy;
+
+    private EReaderSignal ping;
+    private EReaderSignal pong;
+    private Thread echo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ping = IbReader.newSignal(strategy, false);
+        pong = IbReader.newSignal(strategy, false);
+        echo = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                ping.waitForSignal();
+                pong.issueSignal();
+            }
+        }, "echo");
+        echo.setDaemon(true);
+        echo.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        echo.interrupt();
+        ping.issueSignal();
+        echo.join();
+    }
+
+    @Benchmark
+    public void roundTrip() {
+        ping.issueSignal();
+        pong.waitForSignal();
+    }
+}
@@ -0,0 +1,100 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.TickAttrib;
+import lv.sergluka.ib_client.impl.request.RequestRepository;
+import lv.sergluka.ib_client.types.IbTick;
+import lv.sergluka.ib_client.types.IbTickImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion of market data ticks from TWS callbacks into the cache and subscriptions.
+ *
+ * <p>Run with {@code -prof gc} to see allocation rate per tick. The {@code snapshots} parameter compares publishing
+ * of the live cached tick with publishing of immutable copies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TickIngestionBenchmark {
+
+    private static final int[] PRICE_FIELDS = {
+            IbTickImpl.Types.BID.getValue(),
+            IbTickImpl.Types.ASK.getValue(),
+            IbTickImpl.Types.LAST.getValue(),
+    };
+
+    private static final int[] SIZE_FIELDS = {
+            IbTickImpl.Types.BID_SIZE.getValue(),
+            IbTickImpl.Types.ASK_SIZE.getValue(),
+            IbTickImpl.Types.LAST_SIZE.getValue(),
+    };
+
+    @Param({"100", "5000"})
+    private int tickers;
+
+    // Publish immutable snapshots instead of the live tick
+    @Param({"false", "true"})
+    private boolean snapshots;
+
+    private Wrapper wrapper;
+    private final TickAttrib attrib = new TickAttrib();
+    private final List<Disposable> disposables = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        WrapperFixture fixture = new WrapperFixture();
+        RequestRepository requests = fixture.getRequests();
+        wrapper = fixture.getWrapper();
+
+        for (int i = 0; i < tickers; i++) {
+            RequestRepository.RequestBuilder<IbTick> builder = requests.<IbTick>builder()
+                    .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                    .id(i)
+                    .register(() -> { });
+            if (snapshots) {
+                builder.copyOnPublish(IbTick::snapshot);
+            }
+            disposables.add(builder.subscribe().subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        disposables.forEach(Disposable::dispose);
+        disposables.clear();
+    }
+
+    @Benchmark
+    public void tickPrice() {
+        int sequence = next++;
+        wrapper.tickPrice(sequence % tickers, PRICE_FIELDS[sequence % PRICE_FIELDS.length], sequence, attrib);
+    }
+
+    @Benchmark
+    public void tickSize() {
+        int sequence = next++;
+        wrapper.tickSize(sequence % tickers, SIZE_FIELDS[sequence % SIZE_FIELDS.length], sequence & Short.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void tickGeneric() {
+        int sequence = next++;
+        wrapper.tickGeneric(sequence % tickers, IbTickImpl.Types.HALTED.getValue(), 0);
+    }
+}
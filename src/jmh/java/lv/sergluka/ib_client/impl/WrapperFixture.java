@@ -0,0 +1,48 @@
+package lv.sergluka.ib_client.impl;
+
+import lv.sergluka.ib_client.IbClient;
+import lv.sergluka.ib_client.impl.cache.CacheRepositoryImpl;
+import lv.sergluka.ib_client.impl.request.RequestRepository;
+
+/**
+ * Client internals wired together the same way as {@link IbClient#connect} does, but without a socket.
+ * Request IDs are already initialized as after the connection handshake.
+ *
+ * <p>Benchmarks feed TWS callbacks directly to {@link #getWrapper()} as TWS reader thread would, and subscribe via
+ * {@link #getRequests()} as public API does.
+ */
+public final class WrapperFixture {
+
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final CacheRepositoryImpl cache = new CacheRepositoryImpl();
+    private final RequestRepository requests;
+    private final Wrapper wrapper;
+
+    public WrapperFixture() {
+        IbClient client = new IbClient() {
+            @Override
+            public boolean isConnected() {
+                return true;
+            }
+        };
+        requests = new RequestRepository(client, idGenerator);
+        wrapper = new Wrapper(null, cache, requests, idGenerator, null);
+        wrapper.nextValidId(1);
+    }
+
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public CacheRepositoryImpl getCache() {
+        return cache;
+    }
+
+    public RequestRepository getRequests() {
+        return requests;
+    }
+
+    public Wrapper getWrapper() {
+        return wrapper;
+    }
+}
@@ -0,0 +1,85 @@
+package lv.sergluka.ib_client.impl.request;
+
+import lv.sergluka.ib_client.impl.WrapperFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registration and unregistration of requests while other subscriptions are active.
+ *
+ * <p>{@code subscribeAndDispose} is a subscription cancelled by user, i.e. market data of a contract that is not
+ * needed anymore. {@code requestAndComplete} is a request-response round trip completed by TWS, i.e. contract
+ * details.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestChurnBenchmark {
+
+    @Param({"10", "1000"})
+    private int subscriptions;
+
+    private RequestRepository repository;
+    private Blackhole blackhole;
+    private final List<Disposable> disposables = new ArrayList<>();
+    private final Object data = new Object();
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole newBlackhole) {
+        blackhole = newBlackhole;
+        repository = new WrapperFixture().getRequests();
+
+        for (int i = 0; i < subscriptions; i++) {
+            disposables.add(repository.builder()
+                                    .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                                    .id(-i - 1)
+                                    .register(() -> { })
+                                    .subscribe()
+                                    .subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        disposables.forEach(Disposable::dispose);
+        disposables.clear();
+    }
+
+    @Benchmark
+    public void subscribeAndDispose() {
+        repository.builder()
+                .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                .register(id -> { })
+                .unregister(id -> { })
+                .subscribe()
+                .subscribe(blackhole::consume)
+                .dispose();
+    }
+
+    @Benchmark
+    public void requestAndComplete() {
+        AtomicReference<Integer> requestId = new AtomicReference<>();
+        repository.builder()
+                .type(RequestRepository.Type.REQ_CONTRACT_DETAIL)
+                .register(requestId::set)
+                .subscribe()
+                .subscribe(blackhole::consume);
+
+        repository.onNextAndComplete(RequestRepository.Type.REQ_CONTRACT_DETAIL, requestId.get(), data, true);
+    }
+}
@@ -0,0 +1,68 @@
+package lv.sergluka.ib_client.impl.request;
+
+import lv.sergluka.ib_client.impl.WrapperFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching a TWS callback to its subscription depending on number of active subscriptions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestRepositoryBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    private int subscriptions;
+
+    private RequestRepository repository;
+    private final List<Disposable> disposables = new ArrayList<>();
+    private final Object data = new Object();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        repository = new WrapperFixture().getRequests();
+
+        for (int i = 0; i < subscriptions; i++) {
+            disposables.add(repository.builder()
+                                    .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                                    .id(i)
+                                    .register(() -> { })
+                                    .subscribe()
+                                    .subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        disposables.forEach(Disposable::dispose);
+        disposables.clear();
+    }
+
+    @Benchmark
+    public void dispatch() {
+        int id = next++ % subscriptions;
+        repository.onNext(RequestRepository.Type.EVENT_MARKET_DATA, id, data, true);
+    }
+
+    @Benchmark
+    public Object userData() {
+        int id = next++ % subscriptions;
+        return repository.getUserData(RequestRepository.Type.EVENT_MARKET_DATA, id);
+    }
+}
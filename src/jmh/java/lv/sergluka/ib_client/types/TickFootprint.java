@@ -0,0 +1,52 @@
+package lv.sergluka.ib_client.types;
+
+import com.ib.client.TickAttrib;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Prints retained heap size of a ticker state, empty and populated with a typical set of equity tick types.
+ */
+public final class TickFootprint {
+
+    private static final int TICKER_ID = 1;
+
+    private TickFootprint() {
+    }
+
+    public static void main(String[] args) {
+        IbTickImpl empty = new IbTickImpl();
+        IbTickImpl equity = equityTick();
+
+        System.out.println("Empty tick: " + GraphLayout.parseInstance(empty).totalSize() + " bytes");
+        System.out.println("Equity tick: " + GraphLayout.parseInstance(equity).totalSize() + " bytes");
+        System.out.println(GraphLayout.parseInstance(equity).toFootprint());
+    }
+
+    static IbTickImpl equityTick() {
+        IbTickImpl tick = new IbTickImpl();
+        TickAttrib attrib = new TickAttrib();
+        tick.refreshUpdateTime();
+
+        IbTickImpl.Types[] prices = {
+                IbTickImpl.Types.BID, IbTickImpl.Types.ASK, IbTickImpl.Types.LAST, IbTickImpl.Types.HIGH,
+                IbTickImpl.Types.LOW, IbTickImpl.Types.CLOSE_PRICE, IbTickImpl.Types.OPEN_TICK,
+        };
+        for (IbTickImpl.Types type : prices) {
+            tick.setPriceValue(TICKER_ID, type.getValue(), 100.25, attrib);
+        }
+
+        IbTickImpl.Types[] sizes = {
+                IbTickImpl.Types.BID_SIZE, IbTickImpl.Types.ASK_SIZE, IbTickImpl.Types.LAST_SIZE,
+                IbTickImpl.Types.VOLUME, IbTickImpl.Types.VOLUME_AVERAGE,
+        };
+        for (IbTickImpl.Types type : sizes) {
+            tick.setIntValue(TICKER_ID, type.getValue(), 100);
+        }
+
+        tick.setStringValue(TICKER_ID, IbTickImpl.Types.LAST_TIMESTAMP.getValue(), "1589551111");
+        tick.setStringValue(TICKER_ID, IbTickImpl.Types.BID_EXCHANGE.getValue(), "ARCA");
+        tick.setStringValue(TICKER_ID, IbTickImpl.Types.ASK_EXCHANGE.getValue(), "NYSE");
+        tick.setGenericValue(TICKER_ID, IbTickImpl.Types.HALTED.getValue(), 0);
+        return tick;
+    }
+}
@@ -1,9 +1,12 @@
 package lv.sergluka.ib_client;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
+import lv.sergluka.ib_client.types.IbExecutionReport;
 import lv.sergluka.ib_client.types.IbMarketDepth;
+import lv.sergluka.ib_client.types.IbOrderBook;
 import lv.sergluka.ib_client.types.IbOrder;
 import lv.sergluka.ib_client.types.IbPortfolio;
 import lv.sergluka.ib_client.types.IbPosition;
@@ -12,12 +15,117 @@ import com.ib.client.Contract;
 
 @SuppressWarnings("unused")
 public interface CacheRepository {
+
+    /**
+     * Snapshot of all the orders.
+     *
+     * <p>The snapshot is shared between calls until an order is added, so repeated calls don't copy the orders.
+     * Statuses of the orders are live.
+     *
+     * @return immutable map of orders by ID
+     */
     Map<Integer, IbOrder> getOrders();
 
+    /**
+     * Order by ID.
+     *
+     * @param orderId order ID
+     * @return order, or {@code null} if it is unknown
+     */
+    IbOrder getOrder(int orderId);
+
+    /**
+     * Orders, which are not filled, canceled or inactive.
+     *
+     * @return open orders
+     */
+    Collection<IbOrder> getOpenOrders();
+
+    /**
+     * Orders of the contract.
+     *
+     * @param contract IB contract with ID
+     * @return orders
+     */
+    Collection<IbOrder> getOrders(Contract contract);
+
+    /**
+     * Orders of the account.
+     *
+     * @param account account
+     * @return orders
+     */
+    Collection<IbOrder> getOrders(String account);
+
+    /**
+     * Order by permanent ID, which is assigned by TWS and doesn't change between sessions.
+     *
+     * @param permId permanent ID
+     * @return order, or {@code null} if it is unknown
+     */
+    IbOrder getOrderByPermId(int permId);
+
+    /**
+     * Child orders of the bracket or the other order combination.
+     *
+     * @param parentId order ID of the parent
+     * @return orders
+     */
+    Collection<IbOrder> getChildOrders(int parentId);
+
+    /**
+     * Copy of the order book as a map of levels.
+     *
+     * @param contract IB contract
+     * @return map of levels, empty if there is no order book for the contract
+     *
+     * @deprecated allocates a copy of every level on each call, use {@link #getBook(Contract)}
+     */
+    @Deprecated
     Map<IbMarketDepth.Key, IbMarketDepth> getOrderBook(Contract contract);
 
+    /**
+     * Live order book, updated by TWS reader thread.
+     *
+     * @param contract IB contract
+     * @return order book, or {@code null} if there is no order book for the contract
+     */
+    IbOrderBook getBook(Contract contract);
+
     IbTick getTick(int tickerId);
 
+    /**
+     * Execution report by execution ID.
+     *
+     * @param execId execution ID
+     * @return report, or {@code null} if it is unknown or evicted
+     */
+    IbExecutionReport getExecutionReport(String execId);
+
+    /**
+     * Execution reports of the order, in order of arrival.
+     *
+     * @param orderId order ID
+     * @return reports
+     */
+    List<IbExecutionReport> getExecutionReports(int orderId);
+
+    /**
+     * Execution reports of the contract, in order of arrival.
+     *
+     * @param contract IB contract with ID
+     * @return reports
+     */
+    List<IbExecutionReport> getExecutionReports(Contract contract);
+
+    /**
+     * Execution reports of the account, in order of arrival.
+     *
+     * @param account account
+     * @return reports
+     */
+    List<IbExecutionReport> getExecutionReports(String account);
+
     Collection<IbPortfolio> getPortfolio();
 
     Collection<IbPosition> getPositions();
@@ -1,28 +1,45 @@
 package lv.sergluka.ib_client;
 
+import lv.sergluka.ib_client.impl.AccountLimits;
+import lv.sergluka.ib_client.impl.BatchingSocket;
 import lv.sergluka.ib_client.impl.IbReader;
 import lv.sergluka.ib_client.impl.IdGenerator;
 import lv.sergluka.ib_client.impl.Validators;
 import lv.sergluka.ib_client.impl.Wrapper;
 import lv.sergluka.ib_client.impl.cache.CacheRepositoryImpl;
 import lv.sergluka.ib_client.impl.connection.ConnectionMonitor;
+import lv.sergluka.ib_client.impl.history.HistoricalBarStore;
+import lv.sergluka.ib_client.impl.history.HistoricalRequestPacer;
+import lv.sergluka.ib_client.impl.history.HistoricalTicksPaginator;
+import lv.sergluka.ib_client.impl.marketdata.MarketDataLines;
+import lv.sergluka.ib_client.impl.replay.JournalReplayer;
+import lv.sergluka.ib_client.impl.replay.ReplaySocket;
 import lv.sergluka.ib_client.impl.request.RequestRepository;
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker;
 import lv.sergluka.ib_client.params.AccountsSummaryParams;
+import lv.sergluka.ib_client.params.HistoricalTicksParams;
 import lv.sergluka.ib_client.params.IbClientOptions;
+import lv.sergluka.ib_client.params.OrderBatchParams;
+import lv.sergluka.ib_client.params.ReplayParams;
 import com.ib.client.*;
 import lv.sergluka.ib_client.types.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 @SuppressWarnings({"unused"})
 public class IbClient implements AutoCloseable {
@@ -30,32 +47,61 @@ public class IbClient implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(IbClient.class);
     private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyyMMdd HH:mm:ss");
 
-    private final EmitterProcessor<IbLogRecord> logSubject = EmitterProcessor.create();
-    private final EmitterProcessor<Boolean> connectionStatusSubject = EmitterProcessor.create();
+    // Direct processors don't buffer without subscribers, so publishing never blocks reader and monitor threads
+    private final DirectProcessor<IbLogRecord> logSubject = DirectProcessor.create();
+    private final DirectProcessor<Boolean> connectionStatusSubject = DirectProcessor.create();
 
     private final IdGenerator idGenerator;
     private final RequestRepository requests;
     private final IbClientOptions options;
+    private final HistoricalRequestPacer historicalPacer;
+    private final HistoricalBarStore barStore;
+    private final OrderLatencyTracker orderLatency = new OrderLatencyTracker();
+    private final MarketDataLines marketDataLines;
+    private final MarketDataLines depthLines;
 
     private IbReader reader;
     private Wrapper wrapper;
-    private EClientSocket socket;
+    private BatchingSocket socket;
     private CacheRepositoryImpl cache;
     private ConnectionMonitor connectionMonitor;
+    private JournalReplayer replayer;
 
     public IbClient() {
         this(new IbClientOptions());
     }
 
     public IbClient(IbClientOptions options) {
+        this(options, new AccountLimits(options));
+    }
+
+    // Clients of the same account share the limits
+    IbClient(IbClientOptions options, AccountLimits limits) {
         this.options = options;
         idGenerator = new IdGenerator();
-        requests = new RequestRepository(this, idGenerator);
+        requests = new RequestRepository(this, idGenerator, options.getMetrics(), options.getDispatch());
+        historicalPacer = limits.getHistoricalPacer();
+        barStore = options.getBarStore() != null ? new HistoricalBarStore(options.getBarStore(), options.getTwsZone())
+                                                 : null;
+        marketDataLines = limits.getMarketDataLines();
+        depthLines = limits.getDepthLines();
     }
 
     @Override
     public void close() {
         disconnect();
+        if (barStore != null) {
+            barStore.close();
+        }
+    }
+
+    /**
+     * Latencies of placed orders from {@link #placeOrder} and {@link #cancelOrder} to TWS callbacks.
+     *
+     * @return order latency tracker
+     */
+    public OrderLatencyTracker getOrderLatency() {
+        return orderLatency;
     }
 
     public CacheRepository getCache() {
@@ -100,22 +146,24 @@ public class IbClient implements AutoCloseable {
                 return;
             }
 
-            cache = new CacheRepositoryImpl();
+            cache = new CacheRepositoryImpl(options.getMetrics(), options);
 
             connectionMonitor = new ConnectionMonitor(options.getConnectionDelay()) {
 
                 @Override
                 protected void connectRequest() {
 
-                    EJavaSignal signal = new EJavaSignal();
+                    EReaderSignal signal = IbReader.newSignal(options.getReaderWaitStrategy(),
+                                                              options.isSingleReaderThread());
 
-                    socket = new EClientSocket(wrapper, signal);
+                    socket = new BatchingSocket(wrapper, signal, orderLatency);
                     wrapper.setSocket(socket);
 
                     socket.setAsyncEConnect(false);
                     socket.eConnect(ip, port, connId);
 
-                    reader = new IbReader(socket, signal);
+                    reader = new IbReader(socket, signal, options.getMetrics(), options.getThreadAffinity(),
+                                          options.isSingleReaderThread());
                     reader.start();
                 }
 
@@ -149,7 +197,8 @@ public class IbClient implements AutoCloseable {
                 }
             };
 
-            wrapper = new Wrapper(connectionMonitor, cache, requests, idGenerator, logSubject);
+            wrapper = new Wrapper(connectionMonitor, cache, requests, idGenerator, logSubject,
+                                  options.getMetrics(), options.getTickJournal(), orderLatency);
 
             connectionMonitor.start();
             connectionMonitor.connect();
@@ -158,13 +207,78 @@ public class IbClient implements AutoCloseable {
                    .then();
     }
 
+    /**
+     * Connects to a journal recorded by {@link lv.sergluka.ib_client.journal.MappedTickJournal} instead of TWS.
+     *
+     * <p>Market data subscriptions made after the connection are served by {@link #replay}, which emits to them the
+     * recorded callbacks of the same contracts through the usual pipeline. Snapshots and the other requests fail with
+     * {@link IbExceptions.NotAvailableInReplayError}.
+     *
+     * @param directory journal directory
+     * @return Mono that completes when the client is ready for subscriptions
+     *
+     * @see #replay
+     */
+    public Mono<Void> connectToJournal(Path directory) {
+        Validators.shouldNotBeNull(directory, "Journal directory should be defined");
+
+        return Mono.fromRunnable(() -> {
+            if (isConnected()) {
+                log.warn("Already is connected");
+                return;
+            }
+
+            cache = new CacheRepositoryImpl(options.getMetrics(), options);
+            wrapper = new Wrapper(null, cache, requests, idGenerator, logSubject, options.getMetrics());
+            replayer = new JournalReplayer(directory, wrapper);
+            socket = new ReplaySocket(wrapper, replayer);
+            wrapper.setSocket(socket);
+            wrapper.nextValidId(1);
+
+            log.info("Connected to journal {}", directory);
+            connectionStatusSubject.onNext(true);
+        });
+    }
+
+    /**
+     * Replays the journal, which the client is connected to, to the current market data subscriptions.
+     *
+     * <p>Callbacks are made from a single thread in the recorded order, so the same subscriptions get the same
+     * emissions on every replay. Records of contracts, which aren't subscribed, are skipped, as well as the time
+     * before the first record of the subscribed ones.
+     *
+     * @param params replay speed
+     * @return Mono that completes at the end of the journal
+     *
+     * @see #connectToJournal
+     */
+    public Mono<Void> replay(Consumer<ReplayParams> params) {
+        ReplayParams replayParams = new ReplayParams();
+        params.accept(replayParams);
+        replayParams.validate();
+
+        JournalReplayer current = replayer;
+        if (current == null || !isConnected()) {
+            return Mono.error(new IbExceptions.NotConnectedError());
+        }
+        return current.replay(replayParams.getSpeed());
+    }
+
     /**
      * Disconnects from TWS.
      */
     public void disconnect() {
         log.debug("Disconnecting...");
         requests.close();
-        connectionMonitor.close();
+        if (replayer != null) {
+            replayer.close();
+            replayer = null;
+            socket = null;
+            cache.clear();
+            connectionStatusSubject.onNext(false);
+        } else if (connectionMonitor != null) {
+            connectionMonitor.close();
+        }
         log.info("Disconnected");
     }
 
@@ -176,7 +290,7 @@ public class IbClient implements AutoCloseable {
     public boolean isConnected() {
         return socket != null &&
                socket.isConnected() &&
-               connectionMonitor.status() == ConnectionMonitor.Status.CONNECTED;
+               (replayer != null || connectionMonitor.status() == ConnectionMonitor.Status.CONNECTED);
     }
 
     /**
@@ -305,27 +419,49 @@ public class IbClient implements AutoCloseable {
     /**
      * Get snapshot of market data.
      *
+     * <p>The snapshot occupies a market data line until it is received, with lower priority than subscriptions.
+     *
      * @param contract IB contract
      * @return Mono with snapshot of market data
      *
      * @see IbClient#setMarketDataType
+     * @see lv.sergluka.ib_client.params.MarketDataLineOptions
      * @see <a href=https://interactivebrokers.github.io/tws-api/delayed_data.html>TWS API: Delayed Streaming Data</a>
      * @see
      * <a href=https://interactivebrokers.github.io/tws-api/classIBApi_1_1EClient.html#a7a19258a3a2087c07c1c57b93f659b63>TWS
      * API: reqMarketData</a>
      * @see
-     * <a href=https://interactivebrokers.github.io/tws-api/classIBApi_1_1EClient.html#ae919658c15bceba6b6cf2a1336d0acbf>TWS
-     * API: cancelPositionsMulti</a>
+     * <a href=https://interactivebrokers.github.io/tws-api/classIBApi_1_1EClient.html#af443a1cd993aee33ce67deb7bc39e484>TWS
+     * API: cancelMktData</a>
      */
     public Mono<IbTick> reqMarketData(Contract contract) {
         Validators.shouldNotBeNull(contract, "Contract should be defined");
 
-        return requests.<IbTick>builder()
+        Flux<IbTick> request = requests.<IbTick>builder()
                 .type(RequestRepository.Type.REQ_MARKET_DATA)
                 .register(id -> socket.reqMktData(id, contract, "", true, false, null))
-                .unregister(id -> socket.cancelPositionsMulti(id))
-                .subscribe()
-                .single();
+                .unregister(id -> socket.cancelMktData(id))
+                .subscribe();
+        return marketDataLines.schedule(MarketDataLines.SNAPSHOT_PRIORITY, request).single();
+    }
+
+    /**
+     * Snapshots of market data of many contracts, requested as market data lines become free.
+     *
+     * <p>At most as many snapshots as there are market data lines are requested at once, so a large universe doesn't
+     * fill the queue of lines. Snapshots have lower priority than subscriptions, so subscriptions made during the scan
+     * take the lines released by snapshots first. Errors of snapshots are delayed until the end of the scan.
+     *
+     * @param contracts IB contracts
+     * @return Flux with snapshots of market data in order of arrival
+     *
+     * @see IbClient#reqMarketData
+     */
+    public Flux<IbTick> scanMarketData(Iterable<Contract> contracts) {
+        Validators.shouldNotBeNull(contracts, "Contracts should be defined");
+
+        int lines = options.getMarketDataLines().getLines();
+        return Flux.fromIterable(contracts).flatMapDelayError(this::reqMarketData, lines, 1);
     }
 
     /**
@@ -391,15 +527,43 @@ public class IbClient implements AutoCloseable {
      * TWS API: cancelMktDepth</a>
      */
     public Flux<IbMarketDepth> subscribeOnMarketDepth(Contract contract, int numRows) {
+        return subscribeOnDepth(RequestRepository.Type.EVENT_MARKET_DATA_LVL2, contract, numRows);
+    }
+
+    /**
+     * Subscription to contract order book (Market Depth Level II), which emits the whole book after each update.
+     *
+     * <p>Unlike {@link IbClient#subscribeOnMarketDepth}, levels are not allocated per update: the same live
+     * {@link IbOrderBook} is emitted every time, with O(1) top of book, spread and imbalance queries. Use
+     * {@link IbOrderBook#snapshot()} to keep a consistent copy. Since every emission carries the full state, the
+     * flux can be freely conflated, i.e. with {@code onBackpressureLatest()} or {@code sample()}.
+     *
+     * @param contract IB contract
+     * @param numRows  Order book max depth
+     * @return Flux with the order book
+     *
+     * @see IbClient#subscribeOnMarketDepth
+     */
+    public Flux<IbOrderBook> subscribeOnOrderBook(Contract contract, int numRows) {
+        return subscribeOnDepth(RequestRepository.Type.EVENT_ORDER_BOOK, contract, numRows);
+    }
+
+    private <T> Flux<T> subscribeOnDepth(RequestRepository.Type type, Contract contract, int numRows) {
         Validators.contractWithIdShouldExist(contract);
         Validators.intShouldBePositive(numRows, "Number of rows should be positive");
 
-        return requests.<IbMarketDepth>builder()
-                .type(RequestRepository.Type.EVENT_MARKET_DATA_LVL2)
-                .register(id -> socket.reqMktDepth(id, contract, numRows, false, null))
+        Flux<T> flux = requests.<T>builder()
+                .type(type)
+                .register(id -> {
+                    cache.addOrderBook(id, contract.conid());
+                    options.getTickJournal().onSubscribe(id, contract.conid(), true);
+                    socket.reqMktDepth(id, contract, numRows, false, null);
+                })
                 .unregister(id -> socket.cancelMktDepth(id, false))
+                .release(id -> cache.removeOrderBook(id, contract.conid()))
                 .userData(contract)
                 .subscribe();
+        return depthLines.schedule(MarketDataLines.SUBSCRIPTION_PRIORITY, flux);
     }
 
     /**
@@ -420,11 +584,73 @@ public class IbClient implements AutoCloseable {
     public Flux<IbTick> subscribeOnMarketData(Contract contract) {
         Validators.contractWithIdShouldExist(contract);
 
-        return requests.<IbTick>builder()
-                .type(RequestRepository.Type.EVENT_MARKET_DATA)
-                .register(id -> socket.reqMktData(id, contract, "", false, false, null))
-                .unregister(id -> socket.cancelMktData(id))
+        Flux<IbTick> flux = marketDataRequest(contract).subscribe();
+        return marketDataLines.schedule(MarketDataLines.SUBSCRIPTION_PRIORITY, flux);
+    }
+
+    /**
+     * Subscription to contract ticks (Market Depth Level I), which emits immutable copies of the tick.
+     *
+     * <p>{@link IbClient#subscribeOnMarketData} emits the same cached tick object, which is continuously updated by
+     * TWS reader thread, so a subscriber on another scheduler can see values from different updates. Here every
+     * emission is an {@link IbTick#snapshot()} taken at the moment of publishing, for the cost of a small copy.
+     *
+     * @param contract IB contract
+     * @return Flux with consistent snapshots of contract ticks
+     *
+     * @see IbClient#subscribeOnMarketData
+     */
+    public Flux<IbTick> subscribeOnMarketDataSnapshots(Contract contract) {
+        Validators.contractWithIdShouldExist(contract);
+
+        Flux<IbTick> flux = marketDataRequest(contract)
+                .copyOnPublish(IbTick::snapshot)
+                .subscribe();
+        return marketDataLines.schedule(MarketDataLines.SUBSCRIPTION_PRIORITY, flux);
+    }
+
+    /**
+     * Subscription to contract ticks (Market Depth Level I), which delivers only the latest state of the ticker to a
+     * consumer that can't keep up with the feed.
+     *
+     * <p>Every emission is an immutable {@link IbTick#snapshot()}, so it contains all fields updated so far. When the
+     * consumer has no outstanding demand, newer snapshots replace the pending one instead of being queued, so memory
+     * and latency don't grow with the backlog. Use {@code limitRate(1)} or a custom subscriber for on-demand
+     * delivery.
+     *
+     * @param contract IB contract
+     * @return Flux with the latest ticker state on each request of the consumer
+     *
+     * @see IbClient#subscribeOnMarketDataConflated(Contract, Duration)
+     */
+    public Flux<IbTick> subscribeOnMarketDataConflated(Contract contract) {
+        return subscribeOnMarketDataConflated(contract, Duration.ZERO);
+    }
+
+    /**
+     * Subscription to contract ticks (Market Depth Level I), conflated to at most one emission per window.
+     *
+     * <p>Same as {@link IbClient#subscribeOnMarketDataConflated(Contract)}, but with positive {@code window} updates
+     * are also sampled: the latest state is emitted at the end of every window, if the ticker was updated.
+     *
+     * @param contract IB contract
+     * @param window   conflation window, {@link Duration#ZERO} to emit every update, subject to consumer demand
+     * @return Flux with the latest ticker state
+     */
+    public Flux<IbTick> subscribeOnMarketDataConflated(Contract contract, Duration window) {
+        Validators.contractWithIdShouldExist(contract);
+        Validators.durationShouldNotBeNegative(window, "Conflation window should not be negative");
+
+        Flux<IbTick> flux = marketDataRequest(contract)
+                .copyOnPublish(IbTick::snapshot)
+                .overflowStrategy(FluxSink.OverflowStrategy.LATEST)
                 .subscribe();
+        flux = marketDataLines.schedule(MarketDataLines.SUBSCRIPTION_PRIORITY, flux);
+
+        if (window.isZero()) {
+            return flux;
+        }
+        return flux.sample(window).onBackpressureLatest();
     }
 
     /**
@@ -508,12 +734,13 @@ public class IbClient implements AutoCloseable {
     /**
      * Subscription to connection status to TWS.
      *
-     * <p>As soon connection with TWS is lost or restored, respective status is published
+     * <p>As soon connection with TWS is lost or restored, respective status is published. Changes that happened
+     * before the subscription are not replayed.
      *
      * @return Flux with booleans
      */
     public Flux<Boolean> connectionStatus() {
-        return connectionStatusSubject;
+        return connectionStatusSubject.onBackpressureBuffer();
     }
 
     /**
@@ -530,7 +757,7 @@ public class IbClient implements AutoCloseable {
      * @see IbLogRecord
      */
     public Flux<IbLogRecord> subscribeOnEvent() {
-        return logSubject;
+        return logSubject.onBackpressureBuffer();
     }
 
     /**
@@ -581,11 +808,36 @@ public class IbClient implements AutoCloseable {
         return requests.<IbOrder>builder()
                 .id(order.orderId())
                 .type(RequestRepository.Type.REQ_ORDER_PLACE)
-                .register(id -> socket.placeOrder(id, contract, order))
+                .register(id -> {
+                    orderLatency.onPlace(id, contract, order);
+                    socket.placeOrder(id, contract, order);
+                })
                 .subscribe()
                 .single();
     }
 
+    /**
+     * Places a batch of orders with a single socket write.
+     *
+     * <p>Unlike {@link #placeOrder(Contract, Order)}, IDs of orders without them are reserved as one block, and all
+     * the orders are registered before they are encoded into one buffer, which is written at once.
+     *
+     * @param params builder of the batch
+     * @return Flux with placed orders as they are acknowledged, errors are delayed until all of them are settled
+     */
+    public Flux<IbOrder> placeOrders(Consumer<OrderBatchParams> params) {
+        OrderBatchParams batch = new OrderBatchParams();
+        params.accept(batch);
+        batch.validate();
+        batch.assignIds(idGenerator::nextIds);
+
+        List<Mono<IbOrder>> orders = batch.getItems().stream()
+                                          .map(item -> placeOrder(item.getContract(), item.getOrder()))
+                                          .collect(Collectors.toList());
+        return Flux.defer(() -> isConnected() ? socket.batch(orders)
+                                              : Flux.<IbOrder>error(new IbExceptions.NotConnectedError()));
+    }
+
     /**
      * Cancels an order.
      *
@@ -606,18 +858,18 @@ public class IbClient implements AutoCloseable {
 
         // Checking does order doesn't already filled or canceled
         Mono<Void> preconditions = Mono.create(emitter -> {
-            IbOrder order = cache.getOrders().getOrDefault(orderId, null);
+            IbOrder order = cache.getOrder(orderId);
             if (order == null) {
                 emitter.success();
                 return;
             }
 
             IbOrderStatus lastStatus = order.getLastStatus();
-            if (lastStatus.isFilled()) {
+            if (lastStatus != null && lastStatus.isFilled()) {
                 emitter.error(new IbExceptions.OrderAlreadyFilledError(orderId));
                 return;
             }
-            if (lastStatus.isCanceled()) {
+            if (lastStatus != null && lastStatus.isCanceled()) {
                 log.warn("Order {} already has been canceled", orderId);
                 emitter.success();
                 return;
@@ -629,7 +881,10 @@ public class IbClient implements AutoCloseable {
         Mono<Void> cancelRequest = requests.builder()
                                            .id(orderId)
                                            .type(RequestRepository.Type.REQ_ORDER_CANCEL)
-                                           .register(id -> socket.cancelOrder(id))
+                                           .register(id -> {
+                                               orderLatency.onCancel(id);
+                                               socket.cancelOrder(id);
+                                           })
                                            .subscribe()
                                            .then();
 
@@ -650,11 +905,10 @@ public class IbClient implements AutoCloseable {
      * TWS API: reqGlobalCancel</a>
      */
     public Mono<Void> cancelAll() {
-
-
-        Flux<IbOrder> openedOrder = reqOpenOrders().filter(order -> !order.getLastStatus().isCanceled() &&
-                                                          !order.getLastStatus().isFilled() &&
-                                                          !order.getLastStatus().isInactive());
+        Flux<IbOrder> openedOrder = reqOpenOrders().filter(order -> {
+            IbOrderStatus status = order.getLastStatus();
+            return status == null || !status.isCanceled() && !status.isFilled() && !status.isInactive();
+        });
 
         Flux<IbOrderStatus> cancelAllAndWait = subscribeOnOrderNewStatus()
                 .doOnSubscribe(unused -> socket.reqGlobalCancel())
@@ -723,7 +977,6 @@ public class IbClient implements AutoCloseable {
                 .subscribe();
     }
 
-
     /**
      * Requests for contract descriptions.
      *
@@ -833,6 +1086,66 @@ public class IbClient implements AutoCloseable {
                                   RequestRepository.Type.REQ_HISTORICAL_TRADE, "TRADES");
     }
 
+    /**
+     * Streams historical midpoints of a period of any length.
+     *
+     * <p>Unlike {@link #reqHistoricalMidpoints}, isn't limited by 1000 ticks: the period is downloaded by pages,
+     * ticks of the second shared by two pages are emitted once. Pages are requested as the subscriber consumes
+     * ticks, so the whole period is never held in memory.
+     *
+     * @param contract IB contract
+     * @param params   Consumer with params builder
+     * @return Flux with historical data in time order. Completes as soon IB sends all data of the period.
+     *
+     * @see <a href="https://interactivebrokers.github.io/tws-api/historical_time_and_sales.html">
+     * TWS API: Historical Time and Sales Data</a>
+     * @see #streamHistoricalBidAsks
+     * @see #streamHistoricalTrades
+     */
+    public Flux<HistoricalTick> streamHistoricalMidpoints(Contract contract,
+                                                          Consumer<HistoricalTicksParams> params) {
+        return streamHistoricalTicks(contract, params, HistoricalTick::time,
+                                     RequestRepository.Type.REQ_HISTORICAL_MIDPOINT_TICK, "MIDPOINT");
+    }
+
+    /**
+     * Streams historical ticks of a period of any length.
+     *
+     * @param contract IB contract
+     * @param params   Consumer with params builder
+     * @return Flux with historical data in time order. Completes as soon IB sends all data of the period.
+     *
+     * @see #streamHistoricalMidpoints
+     * @see #reqHistoricalBidAsks
+     */
+    public Flux<HistoricalTickBidAsk> streamHistoricalBidAsks(Contract contract,
+                                                              Consumer<HistoricalTicksParams> params) {
+        return streamHistoricalTicks(contract, params, HistoricalTickBidAsk::time,
+                                     RequestRepository.Type.REQ_HISTORICAL_BID_ASK_TICK, "BID_ASK");
+    }
+
+    /**
+     * Streams historical trades of a period of any length.
+     *
+     * @param contract IB contract
+     * @param params   Consumer with params builder
+     * @return Flux with historical data in time order. Completes as soon IB sends all data of the period.
+     *
+     * @apiNote Forex contracts are forbidden, see {@link #reqHistoricalTrades}.
+     * @see #streamHistoricalMidpoints
+     * @see #reqHistoricalTrades
+     */
+    public Flux<HistoricalTickLast> streamHistoricalTrades(Contract contract,
+                                                           Consumer<HistoricalTicksParams> params) {
+
+        if (contract.secType() == Types.SecType.CASH) {
+            throw new IllegalArgumentException("IB doesn't return historical trades for Forex contracts");
+        }
+
+        return streamHistoricalTicks(contract, params, HistoricalTickLast::time,
+                                     RequestRepository.Type.REQ_HISTORICAL_TRADE, "TRADES");
+    }
+
     /**
      * Request for historical bars (aka candles).
      *
@@ -848,6 +1161,8 @@ public class IbClient implements AutoCloseable {
      * Can emit errors: IbExceptions.NoPermissions on "No market data permissions" message,
      * Exception - for possible unknown messages
      *
+     * @implNote With {@link IbClientOptions#barStore} the bars are served from the persistent cache, only bars after
+     * the last stored one are requested from IB.
      * @see <a href="https://interactivebrokers.github.io/tws-api/historical_bars.html">
      * TWS API: Historical Bar Data</a>
      * @see
@@ -859,21 +1174,13 @@ public class IbClient implements AutoCloseable {
                                          int duration, DurationUnit durationUnit,
                                          BarSize size,
                                          Type type, TradingHours tradingHours) {
-
-        log.debug("Requesting bars: contract={}, endDateTime={}, duration={} {}, size={}, type={}, hours={}",
-                  contract.description(), endDateTime, duration, durationUnit, size, type, tradingHours);
-
-        return requests.<IbBar>builder()
-                .type(RequestRepository.Type.REQ_HISTORICAL_DATA)
-                .register(id -> {
-                    socket.reqHistoricalData(id, contract,
-                                             endDateTime != null ? endDateTime.format(dateTimeFormatter) : null,
-                                             String.format("%d %s", duration, durationUnit.toString()),
-                                             size.toString(), type.toString(),
-                                             tradingHours == TradingHours.Within ? 1 : 0, 1, false,
-                                             null);
-                })
-                .subscribe();
+        if (barStore == null) {
+            return fetchHistoricalData(contract, endDateTime, duration, durationUnit, size, type, tradingHours);
+        }
+        return barStore.request(contract, endDateTime, duration, durationUnit, size, type, tradingHours,
+                                (end, tailDuration, tailUnit) -> fetchHistoricalData(contract, end,
+                                                                                     tailDuration, tailUnit,
+                                                                                     size, type, tradingHours));
     }
 
     /**
@@ -913,7 +1220,11 @@ public class IbClient implements AutoCloseable {
         log.debug("Subscribing to bars: contract={}, size={}, type={}, hours={}",
                   contract.description(), size, type, tradingHours);
 
-        return requests.<IbBar>builder()
+        String pacingKey = pacingKey(contract, type.toString());
+        String identity = String.join(";", pacingKey, "keepUpToDate", String.valueOf(duration),
+                                      durationUnit.toString(), size.toString(), tradingHours.toString());
+
+        Flux<IbBar> request = requests.<IbBar>builder()
                 .type(RequestRepository.Type.EVENT_HISTORICAL_DATA)
                 .register(id -> {
                     socket.reqHistoricalData(id, contract, null,
@@ -924,6 +1235,7 @@ public class IbClient implements AutoCloseable {
                 })
                 .unregister(id -> socket.cancelHistoricalData(id))
                 .subscribe();
+        return historicalPacer.schedule(pacingKey, identity, false, request);
     }
 
     /**
@@ -949,6 +1261,41 @@ public class IbClient implements AutoCloseable {
                 .subscribe();
     }
 
+    private Flux<IbBar> fetchHistoricalData(Contract contract, LocalDateTime endDateTime,
+                                            int duration, DurationUnit durationUnit,
+                                            BarSize size,
+                                            Type type, TradingHours tradingHours) {
+        log.debug("Requesting bars: contract={}, endDateTime={}, duration={} {}, size={}, type={}, hours={}",
+                  contract.description(), endDateTime, duration, durationUnit, size, type, tradingHours);
+
+        String pacingKey = pacingKey(contract, type.toString());
+        String identity = String.join(";", pacingKey, String.valueOf(endDateTime), String.valueOf(duration),
+                                      durationUnit.toString(), size.toString(), tradingHours.toString());
+
+        Flux<IbBar> request = requests.<IbBar>builder()
+                .type(RequestRepository.Type.REQ_HISTORICAL_DATA)
+                .register(id -> {
+                    socket.reqHistoricalData(id, contract,
+                                             endDateTime != null ? endDateTime.format(dateTimeFormatter) : null,
+                                             String.format("%d %s", duration, durationUnit.toString()),
+                                             size.toString(), type.toString(),
+                                             tradingHours == TradingHours.Within ? 1 : 0, 1, false,
+                                             null);
+                })
+                .subscribe();
+        return historicalPacer.schedule(pacingKey, identity, true, request);
+    }
+
+    private RequestRepository.RequestBuilder<IbTick> marketDataRequest(Contract contract) {
+        return requests.<IbTick>builder()
+                .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                .register(id -> {
+                    options.getTickJournal().onSubscribe(id, contract.conid(), false);
+                    socket.reqMktData(id, contract, "", false, false, null);
+                })
+                .unregister(id -> socket.cancelMktData(id));
+    }
+
     private <T> Flux<T> reqHistoricalTicks(Contract contract,
                                            LocalDateTime from,
                                            LocalDateTime to,
@@ -963,15 +1310,48 @@ public class IbClient implements AutoCloseable {
             Validators.intShouldBeInRange(limit, 1, MAX_ALLOWED_TICKS_COUNT);
         }
 
-        return requests.<List<T>>builder()
+        String pacingKey = pacingKey(contract, typeStr);
+        String identity = String.join(";", pacingKey, String.valueOf(from), String.valueOf(to),
+                                      String.valueOf(limit));
+
+        Flux<List<T>> request = requests.<List<T>>builder()
                 .type(type)
                 .register(id -> socket.reqHistoricalTicks(id, contract,
                                                           from != null ? from.format(dateTimeFormatter) : null,
                                                           to != null ? to.format(dateTimeFormatter) : null,
                                                           limit != null ? limit : MAX_ALLOWED_TICKS_COUNT,
                                                           typeStr, 0, true, null))
-                .subscribe()
-                .flatMap(Flux::fromIterable);
+                .subscribe();
+        return historicalPacer.schedule(pacingKey, identity, true, request)
+                              .flatMap(Flux::fromIterable);
+    }
+
+    /**
+     * IB paces historical requests per contract, exchange and data type.
+     */
+    private static String pacingKey(Contract contract, String whatToShow) {
+        return String.join(":", String.valueOf(contract.conid()), contract.symbol(), contract.getSecType(),
+                           contract.exchange(), contract.currency(), whatToShow);
+    }
+
+    private <T> Flux<T> streamHistoricalTicks(Contract contract,
+                                              Consumer<HistoricalTicksParams> params,
+                                              ToLongFunction<T> timeOf,
+                                              RequestRepository.Type type,
+                                              String typeStr) {
+        Validators.shouldNotBeNull(contract, "Contract should be defined");
+
+        HistoricalTicksParams paramsBuilder = new HistoricalTicksParams();
+        params.accept(paramsBuilder);
+
+        paramsBuilder.validate();
+
+        HistoricalTicksPaginator<T> paginator = new HistoricalTicksPaginator<>(
+                paramsBuilder,
+                from -> this.<T>reqHistoricalTicks(contract, from, null, HistoricalTicksPaginator.PAGE_SIZE,
+                                                   type, typeStr).collectList(),
+                timeOf);
+        return paginator.stream();
     }
 
     public enum LogLevel {
@@ -0,0 +1,270 @@
+package lv.sergluka.ib_client;
+
+import com.ib.client.Contract;
+import com.ib.client.Order;
+import lv.sergluka.ib_client.impl.AccountLimits;
+import lv.sergluka.ib_client.impl.Validators;
+import lv.sergluka.ib_client.params.IbClientOptions;
+import lv.sergluka.ib_client.types.IbExecutionReport;
+import lv.sergluka.ib_client.types.IbMarketDepth;
+import lv.sergluka.ib_client.types.IbOrder;
+import lv.sergluka.ib_client.types.IbOrderBook;
+import lv.sergluka.ib_client.types.IbOrderStatus;
+import lv.sergluka.ib_client.types.IbTick;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pool of connections to the same TWS or IB Gateway with distinct client IDs.
+ *
+ * <p>Every connection has its own socket and reader threads, so decoding of market data scales across cores.
+ * Market data and market depth subscriptions are sharded across the connections by contract ID, so all the
+ * subscriptions of a contract share a connection. Orders are pinned to the first connection, the order client,
+ * since TWS reports order statuses to the client ID that placed the order. The other requests can be made via
+ * {@link #getOrderClient()}. Market data lines and historical data pacing are shared by the clients, as IB limits them
+ * per account.
+ *
+ * <pre>{@code
+ * IbClientPool pool = new IbClientPool(4, IbClientOptions::new);
+ * pool.connect("127.0.0.1", 7497, 10).block();   // client IDs 10..13
+ * pool.subscribeOnMarketData(contract).subscribe(...);
+ * pool.placeOrder(contract, order).block();
+ * }</pre>
+ */
+public class IbClientPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IbClientPool.class);
+
+    // Fibonacci hashing: the high bits of the product depend on all the bits of the contract ID
+    private static final long GOLDEN_RATIO = 0x9E3779B9L;
+    private static final long UNSIGNED_INT = 0xFFFFFFFFL;
+
+    private final List<IbClient> clients;
+
+    /**
+     * Creates pool.
+     *
+     * @param size    number of connections
+     * @param options options of every connection. A bar store and a tick journal should be set for one connection
+     *                at most, i.e. {@link #getOrderClient()}, as they aren't shared between clients. Market data
+     *                lines, historical pacing and metrics of the shared limits are taken from the first options
+     */
+    public IbClientPool(int size, Supplier<IbClientOptions> options) {
+        Validators.intShouldBePositive(size, "Pool size should be positive");
+
+        IbClientOptions first = options.get();
+        AccountLimits limits = new AccountLimits(first);
+        List<IbClient> pool = new ArrayList<>(size);
+        pool.add(new IbClient(first, limits));
+        for (int i = 1; i < size; i++) {
+            pool.add(new IbClient(options.get(), limits));
+        }
+        clients = Collections.unmodifiableList(pool);
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(IbClient::close);
+    }
+
+    /**
+     * Connects all the clients.
+     *
+     * @param ip          IP address
+     * @param port        port
+     * @param firstConnId client ID of the order client, the others get the following IDs
+     * @return Mono that completes when all the connections are established
+     */
+    public Mono<Void> connect(String ip, int port, int firstConnId) {
+        Validators.intShouldBePositiveOrZero(firstConnId, "Connection ID should be positive or 0");
+
+        List<Mono<Void>> connections = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            connections.add(clients.get(i).connect(ip, port, firstConnId + i));
+        }
+        return Mono.when(connections)
+                   .doOnSuccess(unused -> log.info("{} connections are established", clients.size()));
+    }
+
+    public void disconnect() {
+        clients.forEach(IbClient::disconnect);
+    }
+
+    /**
+     * Returns connection status.
+     *
+     * @return true if all the clients are connected
+     */
+    public boolean isConnected() {
+        return clients.stream().allMatch(IbClient::isConnected);
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Client of order flow and the requests, which aren't sharded.
+     *
+     * @return the first client
+     */
+    public IbClient getOrderClient() {
+        return clients.get(0);
+    }
+
+    /**
+     * Client, which serves market data of the contract.
+     *
+     * @param contract IB contract with ID
+     * @return client of the contract shard
+     */
+    public IbClient getClient(Contract contract) {
+        Validators.contractWithIdShouldExist(contract);
+        long hash = contract.conid() * GOLDEN_RATIO & UNSIGNED_INT;
+        return clients.get((int) (hash * clients.size() >>> Integer.SIZE));
+    }
+
+    /**
+     * Sets market data type of all the clients.
+     *
+     * @param type market data type
+     * @see IbClient#setMarketDataType
+     */
+    public void setMarketDataType(IbClient.MarketDataType type) {
+        clients.forEach(client -> client.setMarketDataType(type));
+    }
+
+    /**
+     * Snapshot of market data via the client of the contract.
+     *
+     * @see IbClient#reqMarketData
+     */
+    public Mono<IbTick> reqMarketData(Contract contract) {
+        return getClient(contract).reqMarketData(contract);
+    }
+
+    /**
+     * Subscription to contract ticks via the client of the contract.
+     *
+     * @see IbClient#subscribeOnMarketData
+     */
+    public Flux<IbTick> subscribeOnMarketData(Contract contract) {
+        return getClient(contract).subscribeOnMarketData(contract);
+    }
+
+    /**
+     * Subscription to snapshots of contract ticks via the client of the contract.
+     *
+     * @see IbClient#subscribeOnMarketDataSnapshots
+     */
+    public Flux<IbTick> subscribeOnMarketDataSnapshots(Contract contract) {
+        return getClient(contract).subscribeOnMarketDataSnapshots(contract);
+    }
+
+    /**
+     * Subscription to conflated contract ticks via the client of the contract.
+     *
+     * @see IbClient#subscribeOnMarketDataConflated(Contract)
+     */
+    public Flux<IbTick> subscribeOnMarketDataConflated(Contract contract) {
+        return getClient(contract).subscribeOnMarketDataConflated(contract);
+    }
+
+    /**
+     * Subscription to contract ticks sampled by window via the client of the contract.
+     *
+     * @see IbClient#subscribeOnMarketDataConflated(Contract, Duration)
+     */
+    public Flux<IbTick> subscribeOnMarketDataConflated(Contract contract, Duration window) {
+        return getClient(contract).subscribeOnMarketDataConflated(contract, window);
+    }
+
+    /**
+     * Subscription to market depth via the client of the contract.
+     *
+     * @see IbClient#subscribeOnMarketDepth
+     */
+    public Flux<IbMarketDepth> subscribeOnMarketDepth(Contract contract, int numRows) {
+        return getClient(contract).subscribeOnMarketDepth(contract, numRows);
+    }
+
+    /**
+     * Subscription to order book via the client of the contract.
+     *
+     * @see IbClient#subscribeOnOrderBook
+     */
+    public Flux<IbOrderBook> subscribeOnOrderBook(Contract contract, int numRows) {
+        return getClient(contract).subscribeOnOrderBook(contract, numRows);
+    }
+
+    /**
+     * Generates order ID of the order client.
+     *
+     * @see IbClient#nextOrderId
+     */
+    public int nextOrderId() {
+        return getOrderClient().nextOrderId();
+    }
+
+    /**
+     * Places order via the order client.
+     *
+     * @see IbClient#placeOrder
+     */
+    public Mono<IbOrder> placeOrder(Contract contract, Order order) {
+        return getOrderClient().placeOrder(contract, order);
+    }
+
+    /**
+     * Cancels order via the order client.
+     *
+     * @see IbClient#cancelOrder
+     */
+    public Mono<Void> cancelOrder(int orderId) {
+        return getOrderClient().cancelOrder(orderId);
+    }
+
+    /**
+     * Cancels all the orders via the order client.
+     *
+     * @see IbClient#cancelAll
+     */
+    public Mono<Void> cancelAll() {
+        return getOrderClient().cancelAll();
+    }
+
+    /**
+     * Requests open orders via the order client.
+     *
+     * @see IbClient#reqOpenOrders
+     */
+    public Flux<IbOrder> reqOpenOrders() {
+        return getOrderClient().reqOpenOrders();
+    }
+
+    /**
+     * Subscription to order statuses of the order client.
+     *
+     * @see IbClient#subscribeOnOrderNewStatus
+     */
+    public Flux<IbOrderStatus> subscribeOnOrderNewStatus() {
+        return getOrderClient().subscribeOnOrderNewStatus();
+    }
+
+    /**
+     * Subscription to execution reports of the order client.
+     *
+     * @see IbClient#subscribeOnExecutionReport
+     */
+    public Flux<IbExecutionReport> subscribeOnExecutionReport() {
+        return getOrderClient().subscribeOnExecutionReport();
+    }
+}
@@ -104,4 +104,22 @@ public class IbExceptions {
             super(requestId, message);
         }
     }
+
+    public static class MarketDataLinesExceededError extends IbClientError {
+        public MarketDataLinesExceededError(String message) {
+            super(message);
+        }
+    }
+
+    public static class PacingViolationError extends IbClientError {
+        public PacingViolationError(int requestId, String message) {
+            super(requestId, message);
+        }
+    }
+
+    public static class NotAvailableInReplayError extends IbClientError {
+        public NotAvailableInReplayError(String request) {
+            super(String.format("%s is not available in replay", request));
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package lv.sergluka.ib_client.impl;
+
+import lv.sergluka.ib_client.impl.history.HistoricalRequestPacer;
+import lv.sergluka.ib_client.impl.marketdata.MarketDataLines;
+import lv.sergluka.ib_client.params.IbClientOptions;
+import lv.sergluka.ib_client.params.MarketDataLineOptions;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Budgets, which IB allots per account rather than per connection: market data lines and historical data pacing.
+ *
+ * <p>Clients connected to the same account should share the instance, otherwise every client spends the whole
+ * allotment on its own.
+ */
+public class AccountLimits {
+
+    private final MarketDataLines marketDataLines;
+    private final MarketDataLines depthLines;
+    private final HistoricalRequestPacer historicalPacer;
+
+    public AccountLimits(IbClientOptions options) {
+        MarketDataLineOptions lines = options.getMarketDataLines();
+        marketDataLines = new MarketDataLines("market_data", lines.getLines(), lines.getMaxQueued(),
+                                              lines.getRecoveryInterval(), Schedulers.parallel(),
+                                              options.getMetrics());
+        depthLines = new MarketDataLines("market_depth", lines.getDepthLines(), lines.getMaxQueued(),
+                                         lines.getRecoveryInterval(), Schedulers.parallel(), options.getMetrics());
+        historicalPacer = new HistoricalRequestPacer(options.getHistoricalPacing(), Schedulers.parallel(),
+                                                     options.getMetrics());
+    }
+
+    public MarketDataLines getMarketDataLines() {
+        return marketDataLines;
+    }
+
+    public MarketDataLines getDepthLines() {
+        return depthLines;
+    }
+
+    public HistoricalRequestPacer getHistoricalPacer() {
+        return historicalPacer;
+    }
+}
@@ -0,0 +1,135 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.Contract;
+import com.ib.client.EClientSocket;
+import com.ib.client.EMessage;
+import com.ib.client.EReaderSignal;
+import com.ib.client.EWrapper;
+import com.ib.client.Order;
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Socket, which is able to send requests of several subscriptions with a single write.
+ *
+ * <p>TWS API writes every message to the unbuffered socket stream at once. In a batch, messages encoded by the
+ * batching thread are collected into its own buffer, and the buffer is written when all the requests are registered,
+ * so there is one write per batch and other requests don't interleave with it. The socket monitor is held only to
+ * encode a message and to write the buffer, the requests are subscribed without it. Messages of other threads are
+ * written as usual meanwhile, except orders: TWS rejects an order ID, which is not greater than IDs before it, so
+ * orders of other threads wait until the batch is written.
+ */
+public class BatchingSocket extends EClientSocket {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingSocket.class);
+
+    // The code TWS API reports for unsent placeOrder
+    private static final int FAIL_SEND_ORDER = 513;
+
+    private final OrderLatencyTracker orderLatency;
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+    private final Lock orderLock = new ReentrantLock();
+
+    public BatchingSocket(EWrapper wrapper, EReaderSignal signal, OrderLatencyTracker orderLatency) {
+        super(wrapper, signal);
+        this.orderLatency = orderLatency;
+    }
+
+    /**
+     * Subscribes to all the requests at once and sends messages of their registration with a single write.
+     *
+     * <p>Only messages sent by the requests at subscription, in the subscribing thread, are batched. A batch started
+     * inside another one joins it.
+     *
+     * @param requests requests, which send messages at subscription
+     * @param <T>      type of results
+     * @return Flux with results of all the requests as they arrive. Errors are delayed until all requests are settled
+     */
+    public <T> Flux<T> batch(List<? extends Publisher<? extends T>> requests) {
+        return Flux.from(subscriber -> {
+            Flux<T> merged = Flux.fromIterable(requests)
+                                 .<T>flatMapDelayError(request -> request, Math.max(requests.size(), 1), 1);
+            if (batches.get() != null) {
+                merged.subscribe(subscriber);
+                return;
+            }
+
+            Batch batch = new Batch();
+            orderLock.lock();
+            batches.set(batch);
+            try {
+                merged.subscribe(subscriber);
+            } finally {
+                batches.remove();
+                try {
+                    flush(batch);
+                } finally {
+                    orderLock.unlock();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void placeOrder(int id, Contract contract, Order order) {
+        Batch batch = batches.get();
+        if (batch != null) {
+            batch.orders.add(id);
+            super.placeOrder(id, contract, order);
+            return;
+        }
+
+        // Lower IDs of an open batch should reach TWS first
+        orderLock.lock();
+        try {
+            super.placeOrder(id, contract, order);
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    @Override
+    protected void sendMsg(EMessage msg) throws IOException {
+        Batch batch = batches.get();
+        if (batch == null) {
+            super.sendMsg(msg);
+            return;
+        }
+        batch.buffer.write(msg.getRawData());
+    }
+
+    private void flush(Batch batch) {
+        if (batch.buffer.size() == 0) {
+            return;
+        }
+
+        byte[] bytes = batch.buffer.toByteArray();
+        try {
+            // Orders are stamped when they are written, not when they are buffered
+            batch.orders.forEach(orderLatency::onSend);
+            synchronized (this) {
+                super.sendMsg(new EMessage(bytes, bytes.length));
+            }
+        } catch (IOException e) {
+            // The same as TWS API does, when an order isn't sent
+            log.error("Cannot send batch of {} orders: {}", batch.orders.size(), e.getMessage());
+            batch.orders.forEach(id -> error(id, FAIL_SEND_ORDER, "Order Sending Error - " + e));
+            close();
+        }
+    }
+
+    private static final class Batch {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final List<Integer> orders = new ArrayList<>();
+    }
+}
@@ -1,11 +1,25 @@
 package lv.sergluka.ib_client.impl;
 
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.params.ThreadAffinity;
+import lv.sergluka.ib_client.params.WaitStrategy;
 import com.ib.client.EClientSocket;
 import com.ib.client.EJavaSignal;
 import com.ib.client.EReader;
+import com.ib.client.EReaderSignal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
+/**
+ * Reads and dispatches TWS messages.
+ *
+ * <p>By default TWS API {@link EReader} thread reads and decodes messages from the socket to a queue, and the
+ * processing thread dispatches them to the wrapper, when signaled. In single thread mode the reader thread dispatches
+ * every message right after decoding, so there is neither queue hop nor signal handshake, but a slow callback delays
+ * reading of the socket.
+ */
 public class IbReader {
 
     private static final Logger log = LoggerFactory.getLogger(IbReader.class);
@@ -13,26 +27,90 @@ public class IbReader {
     private static final int STOP_TIMEOUT_MS = 1000;
     private static final int WAIT_TIMEOUT_MS = 100;
 
-    private final Thread thread = new Thread(this::processMessages);
-    private final EJavaSignal signal;
+    private static final String READER_THREAD = "EReader";
+    private static final String PROCESSOR_THREAD = "IbReader";
+
+    private final Thread thread;
+    private final EReaderSignal signal;
     private final EClientSocket socket;
+    private final IbMetrics metrics;
+    private final ThreadAffinity affinity;
+    private final boolean singleThread;
 
     private EReader reader;
 
-    public IbReader(EClientSocket socket, EJavaSignal signal) {
+    public IbReader(EClientSocket socket, EReaderSignal signal, IbMetrics metrics) {
+        this(socket, signal, metrics, ThreadAffinity.NONE, false);
+    }
+
+    /**
+     * Creates reader.
+     *
+     * @param signal       signal of the socket, see {@link #newSignal}
+     * @param affinity     hook called on start of the threads
+     * @param singleThread whether to dispatch messages by the reader thread
+     */
+    public IbReader(EClientSocket socket, EReaderSignal signal, IbMetrics metrics, ThreadAffinity affinity,
+                    boolean singleThread) {
         this.socket = socket;
         this.signal = signal;
+        this.metrics = metrics;
+        this.affinity = affinity;
+        this.singleThread = singleThread;
 
-        thread.setName("IbReader");
+        thread = new Thread(() -> {
+            affinity.bind(PROCESSOR_THREAD);
+            processMessages();
+        });
+        thread.setName(PROCESSOR_THREAD);
         thread.setPriority(Thread.MAX_PRIORITY);
     }
 
+    /**
+     * Creates signal between TWS API reader thread and the processing thread.
+     *
+     * @param strategy     how the processing thread waits
+     * @param singleThread whether messages are dispatched by the reader thread, so nobody waits
+     * @return signal for both {@link EClientSocket} and {@link IbReader}
+     */
+    public static EReaderSignal newSignal(WaitStrategy strategy, boolean singleThread) {
+        if (singleThread) {
+            return new InlineSignal();
+        }
+        switch (strategy) {
+            case YIELDING:
+                return new SpinningSignal(true);
+            case BUSY_SPIN:
+                return new SpinningSignal(false);
+            default:
+                return new EJavaSignal();
+        }
+    }
+
     public void start() {
-        reader = new EReader(socket, signal);
+        reader = new EReader(socket, signal) {
+            @Override
+            public void run() {
+                affinity.bind(READER_THREAD);
+                super.run();
+            }
+
+            @Override
+            public boolean putMessageToQueue() throws IOException {
+                boolean result = super.putMessageToQueue();
+                if (singleThread) {
+                    processQueued();
+                }
+                return result;
+            }
+        };
+        reader.setName(READER_THREAD);
         reader.setPriority(Thread.MAX_PRIORITY);
 
         reader.start();
-        thread.start();
+        if (!singleThread) {
+            thread.start();
+        }
     }
 
     public synchronized void close() {
@@ -51,11 +129,7 @@ public class IbReader {
         while (!Thread.interrupted()) {
             if (socket.isConnected()) {
                 signal.waitForSignal();
-                try {
-                    reader.processMsgs();
-                } catch (Exception e) {
-                    log.error("Reader error", e);
-                }
+                processQueued();
             } else {
                 try {
                     Thread.sleep(WAIT_TIMEOUT_MS);
@@ -66,6 +140,16 @@ public class IbReader {
         }
     }
 
+    private void processQueued() {
+        long started = metrics.startTime();
+        try {
+            reader.processMsgs();
+            metrics.onReaderCycle(started);
+        } catch (Exception e) {
+            log.error("Reader error", e);
+        }
+    }
+
     private void stopThread(Thread threadToStop) {
         try {
             threadToStop.join(STOP_TIMEOUT_MS);
@@ -76,4 +160,17 @@ public class IbReader {
             log.warn("Fail to shutdown thread '{}'", threadToStop.getName());
         }
     }
+
+    /**
+     * Signal of single thread mode, where nobody waits for it.
+     */
+    private static final class InlineSignal implements EReaderSignal {
+        @Override
+        public void issueSignal() {
+        }
+
+        @Override
+        public void waitForSignal() {
+        }
+    }
 }
@@ -32,4 +32,13 @@ public class IdGenerator {
 
         return orderId.getAndIncrement();
     }
+
+    // Reserves the number of sequential IDs, returns the first of them
+    public int nextIds(int count) {
+        if (orderId.get() == INVALID_ID) {
+            throw new IllegalStateException("Has no request ID from TWS");
+        }
+
+        return orderId.getAndAdd(count);
+    }
 }
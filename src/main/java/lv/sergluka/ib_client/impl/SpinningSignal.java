@@ -0,0 +1,47 @@
+package lv.sergluka.ib_client.impl;
+
+import com.ib.client.EReaderSignal;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Signal between {@link com.ib.client.EReader} and {@link IbReader} threads, which is awaited by spinning instead of
+ * a monitor wait, so the waiting thread never sleeps.
+ *
+ * <p>Like {@link com.ib.client.EJavaSignal}, signals issued before the wait aren't lost, and a wait is interrupted by
+ * thread interruption.
+ */
+public class SpinningSignal implements EReaderSignal {
+
+    private static final AtomicIntegerFieldUpdater<SpinningSignal> OPEN =
+            AtomicIntegerFieldUpdater.newUpdater(SpinningSignal.class, "open");
+
+    private final boolean yield;
+    private volatile int open;
+
+    /**
+     * Creates signal.
+     *
+     * @param yield whether to yield the core while spinning
+     */
+    public SpinningSignal(boolean yield) {
+        this.yield = yield;
+    }
+
+    @Override
+    public void issueSignal() {
+        open = 1;
+    }
+
+    @Override
+    public void waitForSignal() {
+        while (!OPEN.compareAndSet(this, 1, 0)) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (yield) {
+                Thread.yield();
+            }
+        }
+    }
+}
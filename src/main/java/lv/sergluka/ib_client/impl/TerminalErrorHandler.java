@@ -30,6 +30,8 @@ public abstract class TerminalErrorHandler {
     abstract void onLog(IbLogRecord record);
     abstract void onError();
     abstract void onFatalError();
+    // The request has failed, or the order is rejected
+    abstract void onRequestError(int id);
 
     @SuppressWarnings("MagicNumber")
     public void handle(int id, int code, String message) {
@@ -51,8 +53,12 @@ public abstract class TerminalErrorHandler {
                 type = ErrorType.INFO;
                 break;
 
-            case 161: // Cancel attempted when order is not in a cancellable state
             case 201: // Order rejected
+                onRequestError(id);
+                type = ErrorType.WARN;
+                break;
+
+            case 161: // Cancel attempted when order is not in a cancellable state
             case 399: // Order message error
             case 2103: // Market data farm connection is broken
             case 2105: // A historical data farm is disconnected.
@@ -140,6 +146,7 @@ public abstract class TerminalErrorHandler {
                 break;
             case REQUEST_ERROR:
                 requests.onError(id, exception, false);
+                onRequestError(id);
                 break;
             case DEBUG:
                 log.debug("TWS message: [#{}] {}", code, message);
@@ -170,6 +177,7 @@ public abstract class TerminalErrorHandler {
         final String HISTORICAL_DATA_CANCEL_MSG = "API historical data query cancelled";
         final String HISTORICAL_DATA_NO_PERMISSIONS_MSG = "No market data permissions for";
         final String HISTORICAL_DATA_NO_DATA_MSG = "HMDS query returned no data";
+        final String HISTORICAL_DATA_PACING_MSG = "Historical data request pacing violation";
 
         if (!message.startsWith(HISTORICAL_DATA_MSG)) {
             log.error("Unexpected message for REQ_HISTORICAL_DATA: {}", message);
@@ -186,6 +194,8 @@ public abstract class TerminalErrorHandler {
             requests.onError(null, id, new IbExceptions.NoPermissions(id, messageInfo), true);
         } else if (messageInfo.startsWith(HISTORICAL_DATA_NO_DATA_MSG)) {
             requests.onError(null, id, new IbExceptions.NoDataError(id, messageInfo), true);
+        } else if (messageInfo.startsWith(HISTORICAL_DATA_PACING_MSG)) {
+            requests.onError(null, id, new IbExceptions.PacingViolationError(id, messageInfo), true);
         } else {
             requests.onError(null, id, new IbExceptions.IbClientError(id, message), true);
         }
@@ -2,6 +2,7 @@ package lv.sergluka.ib_client.impl;
 
 import com.ib.client.Contract;
 
+import java.time.Duration;
 import java.util.Collection;
 
 public class Validators {
@@ -36,6 +37,12 @@ public class Validators {
         }
     }
 
+    public static void durationShouldNotBeNegative(Duration duration, String message) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
     public static void contractWithIdShouldExist(Contract contract) {
         shouldNotBeNull(contract, "Contract should be defined");
         if (contract.conid() <= 0) {
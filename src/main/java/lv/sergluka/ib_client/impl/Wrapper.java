@@ -5,6 +5,9 @@ import lv.sergluka.ib_client.impl.cache.CacheRepositoryImpl;
 import lv.sergluka.ib_client.impl.connection.ConnectionMonitor;
 import lv.sergluka.ib_client.impl.request.RequestRepository;
 import lv.sergluka.ib_client.impl.utils.Converter;
+import lv.sergluka.ib_client.journal.TickJournal;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker;
 import lv.sergluka.ib_client.types.*;
 import lv.sergluka.ib_client.utils.PrettyPrinters;
 import com.google.common.base.Splitter;
@@ -28,7 +31,10 @@ public class Wrapper implements EWrapper {
     private final CacheRepositoryImpl cache;
     private final RequestRepository requests;
     private final IdGenerator idGenerator;
-    private Set<String> managedAccounts;
+    private final IbMetrics metrics;
+    private final TickJournal journal;
+    private final OrderLatencyTracker orderLatency;
+    private volatile Set<String> managedAccounts;
     private EClientSocket socket;
 
     public Wrapper(ConnectionMonitor connectionMonitor,
@@ -36,6 +42,37 @@ public class Wrapper implements EWrapper {
                    RequestRepository requests,
                    IdGenerator idGenerator,
                    Subscriber<IbLogRecord> logObserver) {
+        this(connectionMonitor, cache, requests, idGenerator, logObserver, IbMetrics.NOOP);
+    }
+
+    public Wrapper(ConnectionMonitor connectionMonitor,
+                   CacheRepositoryImpl cache,
+                   RequestRepository requests,
+                   IdGenerator idGenerator,
+                   Subscriber<IbLogRecord> logObserver,
+                   IbMetrics metrics) {
+        this(connectionMonitor, cache, requests, idGenerator, logObserver, metrics, TickJournal.NOOP);
+    }
+
+    public Wrapper(ConnectionMonitor connectionMonitor,
+                   CacheRepositoryImpl cache,
+                   RequestRepository requests,
+                   IdGenerator idGenerator,
+                   Subscriber<IbLogRecord> logObserver,
+                   IbMetrics metrics,
+                   TickJournal journal) {
+        this(connectionMonitor, cache, requests, idGenerator, logObserver, metrics, journal,
+             new OrderLatencyTracker());
+    }
+
+    public Wrapper(ConnectionMonitor connectionMonitor,
+                   CacheRepositoryImpl cache,
+                   RequestRepository requests,
+                   IdGenerator idGenerator,
+                   Subscriber<IbLogRecord> logObserver,
+                   IbMetrics metrics,
+                   TickJournal journal,
+                   OrderLatencyTracker orderLatency) {
 
         errorHandler = new TerminalErrorHandler(requests) {
 
@@ -46,6 +83,10 @@ public class Wrapper implements EWrapper {
 
             @Override
             void onError() {
+                if (connectionMonitor == null) {
+                    // Replay has no connection to recover
+                    return;
+                }
                 ConnectionMonitor.Status status = connectionMonitor.status();
                 if (status == ConnectionMonitor.Status.DISCONNECTING ||
                     status == ConnectionMonitor.Status.DISCONNECTED) {
@@ -58,110 +99,148 @@ public class Wrapper implements EWrapper {
 
             @Override
             void onFatalError() {
-                connectionMonitor.disconnect();
+                if (connectionMonitor != null) {
+                    connectionMonitor.disconnect();
+                }
+            }
+
+            @Override
+            void onRequestError(int id) {
+                orderLatency.onError(id);
             }
         };
         this.connectionMonitor = connectionMonitor;
         this.cache = cache;
         this.requests = requests;
         this.idGenerator = idGenerator;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.orderLatency = orderLatency;
     }
 
     @Override
     public void tickPrice(int tickerId, int field, double price, TickAttrib attribs) {
-        if (price == -1) {
-            log.debug("Got absent `tickPrice` for ticker {} and field {}", tickerId, field);
-            return;
-        }
+        long started = metrics.startTime();
+        try {
+            journal.onTickPrice(tickerId, field, price);
+            if (price == -1) {
+                log.debug("Got absent `tickPrice` for ticker {} and field {}", tickerId, field);
+                return;
+            }
 
-        IbTick result = cache.updateTick(tickerId, (tick) ->
-                tick.setPriceValue(tickerId, field, BigDecimal.valueOf(price), attribs));
-        publishNewTick(tickerId, result);
+            IbTickImpl tick = cache.updateTick(tickerId);
+            tick.setPriceValue(tickerId, field, price, attribs);
+            publishNewTick(tickerId, tick);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.TICK_PRICE, started);
+        }
     }
 
     @Override
     public void tickSize(int tickerId, int field, int value) {
-        if (value == -1) {
-            log.debug("Got absent `tickSize` for ticker {} and field {}", tickerId, field);
-            return;
-        }
+        long started = metrics.startTime();
+        try {
+            journal.onTickSize(tickerId, field, value);
+            if (value == -1) {
+                log.debug("Got absent `tickSize` for ticker {} and field {}", tickerId, field);
+                return;
+            }
 
-        IbTick result = cache.updateTick(tickerId, (tick) -> tick.setIntValue(tickerId, field, value));
-        publishNewTick(tickerId, result);
+            IbTickImpl tick = cache.updateTick(tickerId);
+            tick.setIntValue(tickerId, field, value);
+            publishNewTick(tickerId, tick);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.TICK_SIZE, started);
+        }
     }
 
     @Override
     public void tickGeneric(int tickerId, int field, double value) {
-        IbTick result = cache.updateTick(tickerId, (tick) ->
-                tick.setGenericValue(tickerId, field, BigDecimal.valueOf(value)));
-        publishNewTick(tickerId, result);
+        long started = metrics.startTime();
+        try {
+            journal.onTickGeneric(tickerId, field, value);
+            IbTickImpl tick = cache.updateTick(tickerId);
+            tick.setGenericValue(tickerId, field, value);
+            publishNewTick(tickerId, tick);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.TICK_GENERIC, started);
+        }
     }
 
     @Override
     public void tickString(int tickerId, int field, String value) {
-        IbTick result = cache.updateTick(tickerId, (tick) -> tick.setStringValue(tickerId, field, value));
-        publishNewTick(tickerId, result);
+        long started = metrics.startTime();
+        try {
+            journal.onTickString(tickerId, field, value);
+            IbTickImpl tick = cache.updateTick(tickerId);
+            tick.setStringValue(tickerId, field, value);
+            publishNewTick(tickerId, tick);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.TICK_STRING, started);
+        }
     }
 
     @Override
     public void orderStatus(int orderId, String status, double filled, double remaining, double avgFillPrice,
                             int permId, int parentId, double lastFillPrice, int clientId, String whyHeld,
                             double mktCapPrice) {
+        long started = metrics.startTime();
+        try {
+            final IbOrderStatus twsStatus = new IbOrderStatus(orderId, status, filled, remaining, avgFillPrice, permId,
+                                                              parentId, lastFillPrice, clientId, whyHeld, mktCapPrice);
 
-        final IbOrderStatus twsStatus = new IbOrderStatus(orderId,
-                                                          status,
-                                                          BigDecimal.valueOf(filled),
-                                                          BigDecimal.valueOf(remaining),
-                                                          BigDecimal.valueOf(avgFillPrice),
-                                                          permId,
-                                                          parentId,
-                                                          BigDecimal.valueOf(lastFillPrice),
-                                                          clientId,
-                                                          whyHeld,
-                                                          BigDecimal.valueOf(mktCapPrice));
-
-        log.trace("orderStatus: {}", twsStatus);
+            log.trace("orderStatus: {}", twsStatus);
+            orderLatency.onStatus(orderId, twsStatus.getStatus());
 
-        if (cache.addNewStatus(twsStatus)) {
+            if (cache.addNewStatus(twsStatus)) {
 
-            log.info("New order status: {}", twsStatus);
-            requests.onNext(RequestRepository.Type.EVENT_ORDER_STATUS, null, twsStatus, false);
+                log.info("New order status: {}", twsStatus);
+                requests.onNext(RequestRepository.Type.EVENT_ORDER_STATUS, null, twsStatus, false);
 
-            if (twsStatus.isCanceled()) {
-                requests.onNextAndComplete(RequestRepository.Type.REQ_ORDER_CANCEL, orderId, true, false);
-            }
-            if (twsStatus.isFilled()) {
-                requests.onError(RequestRepository.Type.REQ_ORDER_CANCEL, orderId,
-                                 new IbExceptions.OrderAlreadyFilledError(orderId), false);
+                if (twsStatus.isCanceled()) {
+                    requests.onNextAndComplete(RequestRepository.Type.REQ_ORDER_CANCEL, orderId, true, false);
+                }
+                if (twsStatus.isFilled()) {
+                    requests.onError(RequestRepository.Type.REQ_ORDER_CANCEL, orderId,
+                                     new IbExceptions.OrderAlreadyFilledError(orderId), false);
+                }
             }
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.ORDER_STATUS, started);
         }
     }
 
     @Override
     public void openOrder(int orderId, Contract contract, Order order, OrderState state) {
-        IbOrder twsOrder = new IbOrder(orderId, contract, order, state);
+        long started = metrics.startTime();
+        try {
+            orderLatency.onOpenOrder(orderId);
+            IbOrder twsOrder = cache.newOrder(orderId, contract, order, state);
 
-        log.trace("openOrder: requestId={}, contract={}, order={}, orderState={}",
-                  orderId, contract.symbol(), order.orderId(), state.status());
+            log.trace("openOrder: requestId={}, contract={}, order={}, orderState={}",
+                      orderId, contract.symbol(), order.orderId(), state.status());
 
-        if (cache.addOrder(twsOrder)) {
-            log.info("New order: requestId={}, contract={}, order={}, orderState={}",
-                     orderId, contract.symbol(), order.orderId(), state.status());
+            if (cache.addOrder(twsOrder)) {
+                log.info("New order: requestId={}, contract={}, order={}, orderState={}",
+                         orderId, contract.symbol(), order.orderId(), state.status());
 
-            if (!state.status().isActive()) {
-                requests.onError(RequestRepository.Type.REQ_ORDER_PLACE, orderId,
-                                 new IbExceptions.IbClientError("Order is rejected"));
-                return;
-            }
+                if (!state.status().isActive()) {
+                    requests.onError(RequestRepository.Type.REQ_ORDER_PLACE, orderId,
+                                     new IbExceptions.IbClientError("Order is rejected"));
+                    return;
+                }
 
-            requests.onNextAndComplete(RequestRepository.Type.REQ_ORDER_PLACE, orderId, twsOrder, false);
+                requests.onNextAndComplete(RequestRepository.Type.REQ_ORDER_PLACE, orderId, twsOrder, false);
+            }
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.OPEN_ORDER, started);
         }
     }
 
     @Override
     public void openOrderEnd() {
         requests.onNextAndComplete(RequestRepository.Type.REQ_ORDER_LIST, null,
-                                   new ArrayList<>(cache.getOrders().values()), false);
+                                   cache.getOrders().values().asList(), false);
     }
 
     @Override
@@ -173,23 +252,28 @@ public class Wrapper implements EWrapper {
                                 double unrealizedPNL,
                                 double realizedPNL,
                                 String accountName) {
-
-        BigDecimal positionObj = Converter.doubleToBigDecimal("position", position);
-        BigDecimal marketPriceObj = Converter.doubleToBigDecimal("marketPrice", marketPrice);
-        BigDecimal marketValueObj = Converter.doubleToBigDecimal("marketValue", marketValue);
-        BigDecimal averageCostObj = Converter.doubleToBigDecimal("averageCost", averageCost);
-        BigDecimal unrealizedPNLObj = Converter.doubleToBigDecimal("unrealizedPNL", unrealizedPNL);
-        BigDecimal realizedPNLObj = Converter.doubleToBigDecimal("realizedPNL", realizedPNL);
-
-        log.trace("updatePortfolio: contract={}, position={}, marketPrice={}, marketValue={}, averageCost={}, " +
-                  "unrealizedPNL={}, realizedPNL={}, accountName={}",
-                  contract, position, marketPrice, marketValue, averageCost, unrealizedPNL, realizedPNL, accountName);
-
-        IbPortfolio portfolio = new IbPortfolio(contract, positionObj, marketPriceObj, marketValueObj, averageCostObj,
-                                                unrealizedPNLObj, realizedPNLObj, accountName);
-
-        cache.updatePortfolio(portfolio);
-        requests.onNext(RequestRepository.Type.EVENT_PORTFOLIO, null, portfolio, false);
+        long started = metrics.startTime();
+        try {
+            BigDecimal positionObj = Converter.doubleToBigDecimal("position", position);
+            BigDecimal marketPriceObj = Converter.doubleToBigDecimal("marketPrice", marketPrice);
+            BigDecimal marketValueObj = Converter.doubleToBigDecimal("marketValue", marketValue);
+            BigDecimal averageCostObj = Converter.doubleToBigDecimal("averageCost", averageCost);
+            BigDecimal unrealizedPNLObj = Converter.doubleToBigDecimal("unrealizedPNL", unrealizedPNL);
+            BigDecimal realizedPNLObj = Converter.doubleToBigDecimal("realizedPNL", realizedPNL);
+
+            log.trace("updatePortfolio: contract={}, position={}, marketPrice={}, marketValue={}, averageCost={}, " +
+                      "unrealizedPNL={}, realizedPNL={}, accountName={}",
+                      contract, position, marketPrice, marketValue, averageCost, unrealizedPNL, realizedPNL,
+                      accountName);
+
+            IbPortfolio portfolio = new IbPortfolio(contract, positionObj, marketPriceObj, marketValueObj,
+                                                    averageCostObj, unrealizedPNLObj, realizedPNLObj, accountName);
+
+            cache.updatePortfolio(portfolio);
+            requests.onNext(RequestRepository.Type.EVENT_PORTFOLIO, null, portfolio, false);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.PORTFOLIO, started);
+        }
     }
 
     @Override
@@ -204,34 +288,54 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void historicalTicks(int reqId, List<HistoricalTick> ticks, boolean done) {
-        requests.onNext(RequestRepository.Type.REQ_HISTORICAL_MIDPOINT_TICK, reqId, ticks, false);
-        if (done) {
-            requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_MIDPOINT_TICK, reqId, false);
+        long started = metrics.startTime();
+        try {
+            requests.onNext(RequestRepository.Type.REQ_HISTORICAL_MIDPOINT_TICK, reqId, ticks, false);
+            if (done) {
+                requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_MIDPOINT_TICK, reqId, false);
+            }
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.HISTORICAL_TICKS, started);
         }
     }
 
     @Override
     public void historicalTicksBidAsk(int reqId, List<HistoricalTickBidAsk> ticks, boolean done) {
-        requests.onNext(RequestRepository.Type.REQ_HISTORICAL_BID_ASK_TICK, reqId, ticks, true);
-        if (done) {
-            requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_BID_ASK_TICK, reqId, true);
+        long started = metrics.startTime();
+        try {
+            requests.onNext(RequestRepository.Type.REQ_HISTORICAL_BID_ASK_TICK, reqId, ticks, true);
+            if (done) {
+                requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_BID_ASK_TICK, reqId, true);
+            }
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.HISTORICAL_TICKS, started);
         }
     }
 
     @Override
     public void historicalTicksLast(int reqId, List<HistoricalTickLast> ticks, boolean done) {
-        requests.onNext(RequestRepository.Type.REQ_HISTORICAL_TRADE, reqId, ticks, true);
-        if (done) {
-            requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_TRADE, reqId, true);
+        long started = metrics.startTime();
+        try {
+            requests.onNext(RequestRepository.Type.REQ_HISTORICAL_TRADE, reqId, ticks, true);
+            if (done) {
+                requests.onComplete(RequestRepository.Type.REQ_HISTORICAL_TRADE, reqId, true);
+            }
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.HISTORICAL_TICKS, started);
         }
     }
 
     @Override
     public void historicalData(int reqId, Bar bar) {
-        IbBar ibBar = new IbBar(bar);
-        log.trace("historicalData: {}", ibBar);
-        requests.onNext(RequestRepository.Type.REQ_HISTORICAL_DATA, reqId, ibBar, false);
-        requests.onNext(RequestRepository.Type.EVENT_HISTORICAL_DATA, reqId, IbBar.COMPLETE, false);
+        long started = metrics.startTime();
+        try {
+            IbBar ibBar = new IbBar(bar);
+            log.trace("historicalData: {}", ibBar);
+            requests.onNext(RequestRepository.Type.REQ_HISTORICAL_DATA, reqId, ibBar, false);
+            requests.onNext(RequestRepository.Type.EVENT_HISTORICAL_DATA, reqId, IbBar.COMPLETE, false);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.HISTORICAL_DATA, started);
+        }
     }
 
     @Override
@@ -243,9 +347,14 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void historicalDataUpdate(int reqId, Bar bar) {
-        IbBar ibBar = new IbBar(bar);
-        log.trace("historicalDataUpdate: {}", ibBar);
-        requests.onNext(RequestRepository.Type.EVENT_HISTORICAL_DATA, reqId, ibBar, false);
+        long started = metrics.startTime();
+        try {
+            IbBar ibBar = new IbBar(bar);
+            log.trace("historicalDataUpdate: {}", ibBar);
+            requests.onNext(RequestRepository.Type.EVENT_HISTORICAL_DATA, reqId, ibBar, false);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.HISTORICAL_DATA_UPDATE, started);
+        }
     }
 
     @Override
@@ -275,29 +384,41 @@ public class Wrapper implements EWrapper {
                                final int side,
                                final double price,
                                final int size) {
-        log.trace("updateMktDepth: tickerId = {}, position = {}, operation = {}, side = {}, price = {}, size = {}",
-                  tickerId, position, operation, side, price, size);
-
-        handleUpdateMktDepth(tickerId, position, null, operation, side, price, size);
+        long started = metrics.startTime();
+        try {
+            journal.onMarketDepth(tickerId, position, null, operation, side, price, size);
+            log.trace("updateMktDepth: tickerId = {}, position = {}, operation = {}, side = {}, price = {}, size = {}",
+                      tickerId, position, operation, side, price, size);
+
+            handleUpdateMktDepth(tickerId, position, null, operation, side, price, size);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.MARKET_DEPTH, started);
+        }
     }
 
     public void updateMktDepthL2(int tickerId, int position,
                                  String marketMaker, int operation, int side, double price, int size,
                                  boolean isSmartDepth) {
+        long started = metrics.startTime();
+        try {
+            journal.onMarketDepth(tickerId, position, marketMaker, operation, side, price, size);
 
-        log.trace("updateMktDepthL2: tickerId = {}, position = {}, marketMaker = {}, operation = {}, side = {}, " +
-                  "price = {}, size = {}", tickerId, position, marketMaker, operation, side, price, size);
+            log.trace("updateMktDepthL2: tickerId = {}, position = {}, marketMaker = {}, operation = {}, side = {}, " +
+                      "price = {}, size = {}", tickerId, position, marketMaker, operation, side, price, size);
 
-        handleUpdateMktDepth(tickerId, position, marketMaker, operation, side, price, size);
+            handleUpdateMktDepth(tickerId, position, marketMaker, operation, side, price, size);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.MARKET_DEPTH_L2, started);
+        }
     }
 
     @Override
     public void managedAccounts(String accountsList) {
-        // Documentation said that connection fully established after `managedAccounts` and `nextValidId` were called
-        connectionMonitor.confirmConnection();
-
         log.trace("Managed accounts are: {}", accountsList);
         this.managedAccounts = new HashSet<>(Splitter.on(",").splitToList(accountsList));
+
+        // Documentation said that connection fully established after `managedAccounts` and `nextValidId` were called
+        connectionMonitor.confirmConnection();
     }
 
     @Override
@@ -311,13 +432,17 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void execDetails(final int reqId, final Contract contract, final Execution execution) {
+        long started = metrics.startTime();
+        try {
+            IbContract ibContract = new IbContract(contract);
+            IbExecution ibExecution = new IbExecution(execution);
 
-        IbContract ibContract = new IbContract(contract);
-        IbExecution ibExecution = new IbExecution(execution);
-
-        log.trace("execDetails: reqId={}, contract={}, execution={}", reqId, ibContract, ibExecution);
+            log.trace("execDetails: reqId={}, contract={}, execution={}", reqId, ibContract, ibExecution);
 
-        cache.addExecutionReport(ibContract, ibExecution);
+            cache.addExecutionReport(ibContract, ibExecution).ifPresent(this::onExecutionReport);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.EXECUTION, started);
+        }
     }
 
     @Override
@@ -327,17 +452,24 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void commissionReport(final CommissionReport report) {
-        IbCommissionReport commissionReport = new IbCommissionReport(report);
-        log.trace("commissionReport: commissionReport={}", commissionReport);
+        long started = metrics.startTime();
+        try {
+            IbCommissionReport commissionReport = new IbCommissionReport(report);
+            log.trace("commissionReport: commissionReport={}", commissionReport);
+
+            cache.updateExecutionReport(commissionReport).ifPresent(this::onExecutionReport);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.COMMISSION, started);
+        }
+    }
 
-        cache.updateExecutionReport(commissionReport).ifPresent(execReport -> {
-            log.info("Order {} is executed with exec id '{}, total amount: {}, price: {}, commission: {} {}',  ",
-                     execReport.getExecution().getOrderId(), execReport.getExecution().getExecId(),
-                     execReport.getExecution().getCumQty(), execReport.getExecution().getPrice(),
-                     commissionReport.getCommission(), commissionReport.getCurrency());
+    private void onExecutionReport(IbExecutionReport execReport) {
+        log.info("Order {} is executed with exec id '{}, total amount: {}, price: {}, commission: {} {}',  ",
+                 execReport.getExecution().getOrderId(), execReport.getExecution().getExecId(),
+                 execReport.getExecution().getCumQty(), execReport.getExecution().getPrice(),
+                 execReport.getCommission().getCommission(), execReport.getCommission().getCurrency());
 
-            requests.onNext(RequestRepository.Type.EVENT_EXECUTION_INFO, null, execReport, false);
-        });
+        requests.onNext(RequestRepository.Type.EVENT_EXECUTION_INFO, null, execReport, false);
     }
 
     @Override
@@ -445,16 +577,21 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void tickSnapshotEnd(final int tickerId) {
-        log.trace("tickSnapshotEnd({})", tickerId);
+        long started = metrics.startTime();
+        try {
+            log.trace("tickSnapshotEnd({})", tickerId);
+
+            IbTick tick = cache.getTick(tickerId);
+            if (tick == null) {
+                log.info("No ticks for ticker {}", tickerId);
+                requests.onError(tickerId, new IbExceptions.NoDataError(tickerId));
+                return;
+            }
 
-        IbTick tick = cache.getTick(tickerId);
-        if (tick == null) {
-            log.info("No ticks for ticker {}", tickerId);
-            requests.onError(tickerId, new IbExceptions.NoDataError(tickerId));
-            return;
+            requests.onNextAndComplete(null, tickerId, tick, false);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.TICK_SNAPSHOT_END, started);
         }
-
-        requests.onNextAndComplete(null, tickerId, tick, false);
     }
 
     @Override
@@ -464,11 +601,17 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void position(String account, Contract contract, double pos, double avgCost) {
-        log.info("Position change: {}/{},{}/{}", account, contract.conid(), contract.localSymbol(), pos);
-
-        IbPosition position = new IbPosition(account, contract, BigDecimal.valueOf(pos), BigDecimal.valueOf(avgCost));
-        cache.updatePosition(position);
-        requests.onNext(RequestRepository.Type.EVENT_POSITION, null, position, true);
+        long started = metrics.startTime();
+        try {
+            log.info("Position change: {}/{},{}/{}", account, contract.conid(), contract.localSymbol(), pos);
+
+            IbPosition position = new IbPosition(account, contract, BigDecimal.valueOf(pos),
+                                                 BigDecimal.valueOf(avgCost));
+            cache.updatePosition(position);
+            requests.onNext(RequestRepository.Type.EVENT_POSITION, null, position, true);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.POSITION, started);
+        }
     }
 
     @Override
@@ -483,9 +626,13 @@ public class Wrapper implements EWrapper {
                                final String tag,
                                final String value,
                                final String currency) {
-
-        log.trace("accountSummary: reqId = {}, account = {}, {} = {} {}", reqId, account, tag, value, currency);
-        cache.updateAccountsSummary(reqId, account, tag, value, currency);
+        long started = metrics.startTime();
+        try {
+            log.trace("accountSummary: reqId = {}, account = {}, {} = {} {}", reqId, account, tag, value, currency);
+            cache.updateAccountsSummary(reqId, account, tag, value, currency);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.ACCOUNT_SUMMARY, started);
+        }
     }
 
     @Override
@@ -562,13 +709,20 @@ public class Wrapper implements EWrapper {
 
     @Override
     public void error(final int id, final int code, final String message) {
-        errorHandler.handle(id, code, message);
+        long started = metrics.startTime();
+        try {
+            errorHandler.handle(id, code, message);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.ERROR, started);
+        }
     }
 
     @Override
     public void connectionClosed() {
         log.error("TWS closes the connection");
-        connectionMonitor.reconnect();
+        if (connectionMonitor != null) {
+            connectionMonitor.reconnect();
+        }
     }
 
     @Override
@@ -727,26 +881,36 @@ public class Wrapper implements EWrapper {
     }
 
     public void pnl(int reqId, double dailyPnL, double unrealizedPnL, double realizedPnL) {
-        log.trace("pnl: reqId={}, dailyPnL={}, unrealizedPnL={}, realizedPnL={}",
-                  reqId, dailyPnL, unrealizedPnL, realizedPnL);
-
-        IbPnl pnl = new IbPnl(null, BigDecimal.valueOf(dailyPnL), BigDecimal.valueOf(unrealizedPnL),
-                              BigDecimal.valueOf(realizedPnL), null);
-        requests.onNext(RequestRepository.Type.EVENT_ACCOUNT_PNL, reqId, pnl, true);
+        long started = metrics.startTime();
+        try {
+            log.trace("pnl: reqId={}, dailyPnL={}, unrealizedPnL={}, realizedPnL={}",
+                      reqId, dailyPnL, unrealizedPnL, realizedPnL);
+
+            IbPnl pnl = new IbPnl(null, BigDecimal.valueOf(dailyPnL), BigDecimal.valueOf(unrealizedPnL),
+                                  BigDecimal.valueOf(realizedPnL), null);
+            requests.onNext(RequestRepository.Type.EVENT_ACCOUNT_PNL, reqId, pnl, true);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.PNL, started);
+        }
     }
 
     @Override
     public void pnlSingle(int reqId, int pos, double dailyPnL, double unrealizedPnL, double realizedPnL, double value) {
-        log.trace("pnlSingle: reqId={}, pos={}, dailyPnL={}, unrealizedPnL={}, realizedPnL={}, value={}",
-                  reqId, pos, dailyPnL, unrealizedPnL, realizedPnL, value);
-
-        BigDecimal dailyPnLObj = Converter.doubleToBigDecimal("dailyPnL", dailyPnL);
-        BigDecimal unrealizedPnLObj = Converter.doubleToBigDecimal("unrealizedPnL", unrealizedPnL);
-        BigDecimal realizedPnLObj = Converter.doubleToBigDecimal("realizedPnL", realizedPnL);
-        BigDecimal valueObj = Converter.doubleToBigDecimal("value", value);
-
-        IbPnl pnl = new IbPnl(pos, dailyPnLObj, unrealizedPnLObj, realizedPnLObj, valueObj);
-        requests.onNext(RequestRepository.Type.EVENT_CONTRACT_PNL, reqId, pnl, true);
+        long started = metrics.startTime();
+        try {
+            log.trace("pnlSingle: reqId={}, pos={}, dailyPnL={}, unrealizedPnL={}, realizedPnL={}, value={}",
+                      reqId, pos, dailyPnL, unrealizedPnL, realizedPnL, value);
+
+            BigDecimal dailyPnLObj = Converter.doubleToBigDecimal("dailyPnL", dailyPnL);
+            BigDecimal unrealizedPnLObj = Converter.doubleToBigDecimal("unrealizedPnL", unrealizedPnL);
+            BigDecimal realizedPnLObj = Converter.doubleToBigDecimal("realizedPnL", realizedPnL);
+            BigDecimal valueObj = Converter.doubleToBigDecimal("value", value);
+
+            IbPnl pnl = new IbPnl(pos, dailyPnLObj, unrealizedPnLObj, realizedPnLObj, valueObj);
+            requests.onNext(RequestRepository.Type.EVENT_CONTRACT_PNL, reqId, pnl, true);
+        } finally {
+            metrics.onCallback(IbMetrics.Callback.PNL, started);
+        }
     }
 
     @Override
@@ -797,13 +961,25 @@ public class Wrapper implements EWrapper {
     private void handleUpdateMktDepth(int tickerId, int position, String marketMaker, int operation, int side,
                                       double price, int size) {
 
-        Contract contract = (Contract) requests.getUserData(RequestRepository.Type.EVENT_MARKET_DATA_LVL2, tickerId);
-        Objects.requireNonNull(contract);
+        boolean events = requests.contains(RequestRepository.Type.EVENT_MARKET_DATA_LVL2, tickerId);
+        RequestRepository.Type type = events ? RequestRepository.Type.EVENT_MARKET_DATA_LVL2
+                                             : RequestRepository.Type.EVENT_ORDER_BOOK;
 
-        IbMarketDepth orderBookDepth = new IbMarketDepth(contract, position, side, BigDecimal.valueOf(price),
-                                                         size, marketMaker);
-        cache.addMarketDepth(contract, orderBookDepth, IbMarketDepth.Operation.values()[operation]);
+        Contract contract = (Contract) requests.getUserData(type, tickerId);
+        if (contract == null) {
+            return;
+        }
 
-        requests.onNext(RequestRepository.Type.EVENT_MARKET_DATA_LVL2, tickerId, orderBookDepth, true);
+        IbOrderBook book = cache.updateOrderBook(tickerId, position, operation, side, price, size, marketMaker);
+        if (book == null) {
+            return;
+        }
+        if (events) {
+            IbMarketDepth depth = new IbMarketDepth(contract, position, side, BigDecimal.valueOf(price), size,
+                                                    marketMaker);
+            requests.onNext(type, tickerId, depth, true);
+        } else {
+            requests.onNext(type, tickerId, book, true);
+        }
     }
 }
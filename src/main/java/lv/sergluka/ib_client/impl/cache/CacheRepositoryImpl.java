@@ -1,62 +1,131 @@
 package lv.sergluka.ib_client.impl.cache;
 
 import lv.sergluka.ib_client.CacheRepository;
+import lv.sergluka.ib_client.impl.utils.ConcurrentIntMap;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.params.IbClientOptions;
 import lv.sergluka.ib_client.types.*;
 import com.google.common.collect.ImmutableMap;
 import com.ib.client.Contract;
+import com.ib.client.Order;
+import com.ib.client.OrderState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
 
 public class CacheRepositoryImpl implements CacheRepository {
 
     private static final Logger log = LoggerFactory.getLogger(CacheRepositoryImpl.class);
 
-    private final ConcurrentHashMap<Integer, IbOrder> orders = new ConcurrentHashMap<>();
+    private final OrderIndex orders = new OrderIndex();
     private final ConcurrentHashMap<PositionKey, IbPosition> positions = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Integer, IbTickImpl> ticks = new ConcurrentHashMap<>();
+    private final ConcurrentIntMap<IbTickImpl> ticks = new ConcurrentIntMap<>();
     private final ConcurrentHashMap<Integer, IbPortfolio> portfolioContracts = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, IbAccountsSummary> accountSummaries = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, IbExecutionReport> execReports = new ConcurrentHashMap<>();
 
-    private final ConcurrentHashMap<Integer, Map<IbMarketDepth.Key, IbMarketDepth>> orderBooks =
-            new ConcurrentHashMap<>();
+    // Books by ticker ID, and the book of the latest depth subscription by contract ID
+    private final ConcurrentIntMap<IbOrderBook> orderBooks = new ConcurrentIntMap<>();
+    private final ConcurrentIntMap<IbOrderBook> contractBooks = new ConcurrentIntMap<>();
+
+    private final FillStore fills;
+    private final int statusHistory;
+
+    public CacheRepositoryImpl() {
+        this(IbMetrics.NOOP);
+    }
+
+    public CacheRepositoryImpl(IbMetrics metrics) {
+        this(metrics, new IbClientOptions());
+    }
+
+    /**
+     * Creates cache.
+     *
+     * @param metrics metrics sink
+     * @param options options of order status history and fill retention
+     */
+    public CacheRepositoryImpl(IbMetrics metrics, IbClientOptions options) {
+        statusHistory = options.getOrderStatusHistory();
+        fills = new FillStore(options.getMaxFills(), options.getMaxFillAge());
+        metrics.gauge("cache.orders", orders::size);
+        metrics.gauge("cache.open_orders", orders::openSize);
+        metrics.gauge("cache.positions", positions::size);
+        metrics.gauge("cache.ticks", ticks::size);
+        metrics.gauge("cache.portfolio", portfolioContracts::size);
+        metrics.gauge("cache.account_summaries", accountSummaries::size);
+        metrics.gauge("cache.execution_reports", fills::size);
+        metrics.gauge("cache.order_books", orderBooks::size);
+    }
+
+    /**
+     * Creates the order reported by TWS. A reissued order takes over the statuses of the cached instance, as they are
+     * reported separately.
+     *
+     * @return order, which isn't cached yet
+     */
+    public IbOrder newOrder(int orderId, Contract contract, Order order, OrderState state) {
+        IbOrder previous = orders.get(orderId);
+        return previous != null ? new IbOrder(previous, contract, order, state)
+                                : new IbOrder(orderId, contract, order, state, statusHistory);
+    }
 
     public boolean addOrder(IbOrder order) {
+        if (!orders.add(order)) {
+            log.debug("Order {} already has been added", order.getOrderId());
+            return false;
+        }
+        return true;
+    }
 
-        final AtomicReference<Boolean> result = new AtomicReference<>(false);
-        orders.compute(order.getOrderId(), (key, value) -> {
-            if (value != null) {
-                log.debug("Order {} already has been added", order.getOrderId());
-                result.set(false);
-                order.addStatuses(value.getStatuses());
-                return order;
-            }
+    @Override
+    public ImmutableMap<Integer, IbOrder> getOrders() {
+        return orders.getAll();
+    }
 
-            result.set(true);
-            return order;
-        });
+    @Override
+    public IbOrder getOrder(int orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public Collection<IbOrder> getOpenOrders() {
+        return orders.getOpen();
+    }
+
+    @Override
+    public Collection<IbOrder> getOrders(Contract contract) {
+        Objects.requireNonNull(contract, "'contract' parameter is null");
+        if (contract.conid() == 0) {
+            throw new IllegalArgumentException("contract ID is missing");
+        }
+        return orders.getByContract(contract.conid());
+    }
+
+    @Override
+    public Collection<IbOrder> getOrders(String account) {
+        Objects.requireNonNull(account, "'account' parameter is null");
+        return orders.getByAccount(account);
+    }
 
-        return result.get();
+    @Override
+    public IbOrder getOrderByPermId(int permId) {
+        return orders.getByPermId(permId);
     }
 
     @Override
-    public Map<Integer, IbOrder> getOrders() {
-        return ImmutableMap.copyOf(orders);
+    public Collection<IbOrder> getChildOrders(int parentId) {
+        return orders.getByParent(parentId);
     }
 
     public boolean addNewStatus(IbOrderStatus status) {
-        IbOrder order = orders.get(status.getOrderId());
-        if (order == null) {
+        if (orders.get(status.getOrderId()) == null) {
             log.error("Status update for not (yet?) existing order {}: {}", status.getOrderId(), status);
             return false;
         }
 
-        return order.addStatus(status);
+        return orders.addStatus(status);
     }
 
     public void updatePosition(IbPosition position) {
@@ -67,10 +136,12 @@ public class CacheRepositoryImpl implements CacheRepository {
         portfolioContracts.put(portfolio.getContract().conid(), portfolio);
     }
 
-    public IbTick updateTick(int tickerId, Consumer<IbTickImpl> consumer) {
-        IbTickImpl tick = ticks.computeIfAbsent(tickerId, (key) -> new IbTickImpl());
+    public IbTickImpl updateTick(int tickerId) {
+        IbTickImpl tick = ticks.get(tickerId);
+        if (tick == null) {
+            tick = ticks.computeIfAbsent(tickerId, key -> new IbTickImpl());
+        }
         tick.refreshUpdateTime();
-        consumer.accept(tick);
         return tick;
     }
 
@@ -88,13 +159,23 @@ public class CacheRepositoryImpl implements CacheRepository {
     }
 
     @Override
+    @Deprecated
     public Map<IbMarketDepth.Key, IbMarketDepth> getOrderBook(Contract contract) {
+        IbOrderBook book = getBook(contract);
+        if (book == null) {
+            return Collections.emptyMap();
+        }
+        return book.toMap(contract);
+    }
+
+    @Override
+    public IbOrderBook getBook(Contract contract) {
         Objects.requireNonNull(contract, "'contract' parameter is null");
         if (contract.conid() == 0) {
             throw new IllegalArgumentException("contract ID is missing");
         }
 
-        return orderBooks.get(contract.conid());
+        return contractBooks.get(contract.conid());
     }
 
     @Override
@@ -131,50 +212,89 @@ public class CacheRepositoryImpl implements CacheRepository {
         return portfolioContracts.get(contract.conid());
     }
 
-    public void addMarketDepth(Contract contract, IbMarketDepth marketDepth, IbMarketDepth.Operation operation) {
-
-        orderBooks.compute(contract.conid(), (key, value) -> {
-            if (value == null) {
-                value = new HashMap<>();
-            }
-
-            switch (operation) {
-                case INSERT:
-                    log.trace("Market depth is added: {}", marketDepth);
-                    value.put(marketDepth.key(), marketDepth);
-                    break;
-                case UPDATE:
-                    log.trace("Market depth is updated: {}", marketDepth);
-                    value.put(marketDepth.key(), marketDepth);
-                    break;
-                case REMOVE:
-                    log.trace("Market depth is removed: {}", marketDepth);
-                    value.remove(marketDepth.key());
-                    break;
-                default:
-                    throw new IllegalStateException("Unexpected value: " + operation);
-            }
-
-            return value;
-        });
-    }
-
-    public void addExecutionReport(IbContract contract, IbExecution execution) {
-        IbExecutionReport report = execReports.put(execution.getExecId(), new IbExecutionReport(contract, execution));
-        if (report != null) {
-            log.warn("Execution info for '{}' is overwritten", execution.getExecId());
+    /**
+     * Creates an empty order book of the depth subscription. TWS depth operations are positional, so every
+     * subscription builds its own book from scratch, even for the same contract.
+     *
+     * @param tickerId   ticker ID of the subscription
+     * @param contractId contract ID
+     */
+    public void addOrderBook(int tickerId, int contractId) {
+        IbOrderBook book = new IbOrderBook();
+        orderBooks.put(tickerId, book);
+        contractBooks.put(contractId, book);
+    }
+
+    public void removeOrderBook(int tickerId, int contractId) {
+        IbOrderBook book = orderBooks.remove(tickerId);
+        if (book != null) {
+            contractBooks.remove(contractId, book);
         }
     }
 
+    /**
+     * Applies depth update to the order book of the subscription.
+     *
+     * @return order book, or {@code null} if the subscription has no order book
+     */
+    public IbOrderBook updateOrderBook(int tickerId, int position, int operation, int side, double price, long size,
+                                       String marketMaker) {
+        IbOrderBook book = orderBooks.get(tickerId);
+        if (book == null) {
+            return null;
+        }
+
+        if (!book.update(position, operation, side, price, size, marketMaker)) {
+            log.warn("Market depth position {} of ticker {} is out of supported depth", position, tickerId);
+        }
+        return book;
+    }
+
+    /**
+     * Adds execution.
+     *
+     * @param contract  contract of the execution
+     * @param execution execution
+     * @return report, if the commission report has arrived before the execution
+     */
+    public Optional<IbExecutionReport> addExecutionReport(IbContract contract, IbExecution execution) {
+        return fills.addExecution(contract, execution);
+    }
+
+    /**
+     * Adds commission report to its execution.
+     *
+     * @param report commission report
+     * @return report, if the execution has arrived before the commission report
+     */
     public Optional<IbExecutionReport> updateExecutionReport(IbCommissionReport report) {
-        IbExecutionReport execReport = execReports.get(report.getExecId());
-        if (execReport != null) {
-            execReport.setCommission(report);
-        } else {
-            log.warn("Commission report for '{}' without execution report", report.getExecId());
+        return fills.addCommission(report);
+    }
+
+    @Override
+    public IbExecutionReport getExecutionReport(String execId) {
+        Objects.requireNonNull(execId, "'execId' parameter is null");
+        return fills.get(execId);
+    }
+
+    @Override
+    public List<IbExecutionReport> getExecutionReports(int orderId) {
+        return fills.getByOrder(orderId);
+    }
+
+    @Override
+    public List<IbExecutionReport> getExecutionReports(Contract contract) {
+        Objects.requireNonNull(contract, "'contract' parameter is null");
+        if (contract.conid() == 0) {
+            throw new IllegalArgumentException("contract ID is missing");
         }
+        return fills.getByContract(contract.conid());
+    }
 
-        return Optional.ofNullable(execReport);
+    @Override
+    public List<IbExecutionReport> getExecutionReports(String account) {
+        Objects.requireNonNull(account, "'account' parameter is null");
+        return fills.getByAccount(account);
     }
 
     @Override
@@ -184,7 +304,8 @@ public class CacheRepositoryImpl implements CacheRepository {
         ticks.clear();
         portfolioContracts.clear();
         orderBooks.clear();
-        execReports.clear();
+        contractBooks.clear();
+        fills.clear();
 
         log.debug("Cache is cleared");
     }
@@ -0,0 +1,217 @@
+package lv.sergluka.ib_client.impl.cache;
+
+import lv.sergluka.ib_client.types.IbCommissionReport;
+import lv.sergluka.ib_client.types.IbContract;
+import lv.sergluka.ib_client.types.IbExecution;
+import lv.sergluka.ib_client.types.IbExecutionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Execution reports by execution ID, indexed by order ID, contract ID and account, with count and age retention.
+ *
+ * <p>An execution and its commission report are joined in any order of arrival: a commission report, which comes
+ * before its execution, waits for it under the same retention. Reports are evicted in order of arrival when there are
+ * more than the maximal number of them, or when they are older than the maximal age, so memory doesn't grow over long
+ * runs. Updates come from TWS reader thread, so the monitor is uncontended.
+ */
+class FillStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FillStore.class);
+
+    private final int maxFills;
+    private final long maxAge;
+    private final LongSupplier clock;
+
+    private final Map<String, Fill> fills = new HashMap<>();
+    private final Deque<Fill> arrivals = new ArrayDeque<>();
+    private final Map<Integer, Set<String>> byOrder = new HashMap<>();
+    private final Map<Integer, Set<String>> byContract = new HashMap<>();
+    private final Map<String, Set<String>> byAccount = new HashMap<>();
+
+    FillStore(int maxFills, Duration maxAge) {
+        this(maxFills, maxAge, System::nanoTime);
+    }
+
+    FillStore(int maxFills, Duration maxAge, LongSupplier clock) {
+        this.maxFills = maxFills;
+        this.maxAge = maxAge.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Adds execution.
+     *
+     * @param contract  contract of the execution
+     * @param execution execution
+     * @return report joined with the commission report, which arrived before the execution
+     */
+    synchronized Optional<IbExecutionReport> addExecution(IbContract contract, IbExecution execution) {
+        String execId = execution.getExecId();
+        IbExecutionReport report = new IbExecutionReport(contract, execution);
+
+        Fill fill = fills.get(execId);
+        if (fill == null) {
+            add(new Fill(execId, report));
+            return Optional.empty();
+        }
+
+        boolean joined = fill.report == null && fill.commission != null;
+        if (fill.report != null) {
+            log.warn("Execution info for '{}' is overwritten", execId);
+            report.setCommission(fill.report.getCommission());
+        } else {
+            report.setCommission(fill.commission);
+            fill.commission = null;
+        }
+        fill.report = report;
+        index(fill);
+
+        return joined ? Optional.of(report) : Optional.empty();
+    }
+
+    /**
+     * Adds commission report.
+     *
+     * @param commission commission report
+     * @return report of the execution, or empty if the execution hasn't arrived yet
+     */
+    synchronized Optional<IbExecutionReport> addCommission(IbCommissionReport commission) {
+        Fill fill = fills.get(commission.getExecId());
+        if (fill == null) {
+            log.debug("Commission report for '{}' arrived before execution report", commission.getExecId());
+            Fill pending = new Fill(commission.getExecId(), null);
+            pending.commission = commission;
+            add(pending);
+            return Optional.empty();
+        }
+        if (fill.report == null) {
+            fill.commission = commission;
+            return Optional.empty();
+        }
+
+        fill.report.setCommission(commission);
+        return Optional.of(fill.report);
+    }
+
+    synchronized IbExecutionReport get(String execId) {
+        evict();
+        Fill fill = fills.get(execId);
+        return fill == null ? null : fill.report;
+    }
+
+    synchronized List<IbExecutionReport> getByOrder(int orderId) {
+        evict();
+        return resolve(byOrder.get(orderId));
+    }
+
+    synchronized List<IbExecutionReport> getByContract(int conid) {
+        evict();
+        return resolve(byContract.get(conid));
+    }
+
+    synchronized List<IbExecutionReport> getByAccount(String account) {
+        evict();
+        return resolve(byAccount.get(account));
+    }
+
+    synchronized long size() {
+        return fills.size();
+    }
+
+    synchronized void clear() {
+        fills.clear();
+        arrivals.clear();
+        byOrder.clear();
+        byContract.clear();
+        byAccount.clear();
+    }
+
+    private void add(Fill fill) {
+        fill.arrived = clock.getAsLong();
+        fills.put(fill.execId, fill);
+        arrivals.addLast(fill);
+        index(fill);
+        evict();
+    }
+
+    private void evict() {
+        long now = clock.getAsLong();
+        while (!arrivals.isEmpty()
+               && (arrivals.size() > maxFills || now - arrivals.peekFirst().arrived > maxAge)) {
+            Fill fill = arrivals.pollFirst();
+            fills.remove(fill.execId);
+            if (fill.report != null) {
+                IbExecution execution = fill.report.getExecution();
+                unindex(byOrder, execution.getOrderId(), fill.execId);
+                unindex(byContract, fill.report.getContract().getConId(), fill.execId);
+                unindex(byAccount, execution.getAcctNumber(), fill.execId);
+            } else {
+                log.warn("Commission report for '{}' without execution report is evicted", fill.execId);
+            }
+        }
+    }
+
+    private void index(Fill fill) {
+        if (fill.report == null) {
+            return;
+        }
+        IbExecution execution = fill.report.getExecution();
+        byOrder.computeIfAbsent(execution.getOrderId(), key -> new LinkedHashSet<>()).add(fill.execId);
+        byContract.computeIfAbsent(fill.report.getContract().getConId(), key -> new LinkedHashSet<>())
+                  .add(fill.execId);
+        if (execution.getAcctNumber() != null) {
+            byAccount.computeIfAbsent(execution.getAcctNumber(), key -> new LinkedHashSet<>()).add(fill.execId);
+        }
+    }
+
+    private static <K> void unindex(Map<K, Set<String>> index, K key, String execId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = index.get(key);
+        if (ids != null && ids.remove(execId) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private List<IbExecutionReport> resolve(Set<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<IbExecutionReport> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Fill fill = fills.get(id);
+            if (fill != null && fill.report != null) {
+                result.add(fill.report);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static final class Fill {
+        private final String execId;
+        private IbExecutionReport report;
+        private IbCommissionReport commission;
+        private long arrived;
+
+        private Fill(String execId, IbExecutionReport report) {
+            this.execId = execId;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package lv.sergluka.ib_client.impl.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.ib.client.OrderState;
+import lv.sergluka.ib_client.types.IbOrder;
+import lv.sergluka.ib_client.types.IbOrderStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders by ID with secondary indexes of order IDs: open orders, by contract, account, permanent ID and parent.
+ *
+ * <p>Orders are added and updated by TWS reader thread. Lookups by ID are O(1), and index lookups are proportional to
+ * the result. The snapshot of all the orders is rebuilt only when an order was added since the previous snapshot,
+ * status updates don't invalidate it, as statuses are read from the same order instances.
+ */
+class OrderIndex {
+
+    private final ConcurrentHashMap<Integer, IbOrder> orders = new ConcurrentHashMap<>();
+    private final Set<Integer> open = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer, Set<Integer>> byContract = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Integer>> byAccount = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> byParent = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> byPermId = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, ImmutableMap.of());
+
+    /**
+     * Adds the order or replaces the previous instance of it.
+     *
+     * @param order order
+     * @return true if the order is new
+     */
+    boolean add(IbOrder order) {
+        int id = order.getOrderId();
+        IbOrder previous = orders.put(id, order);
+        version.incrementAndGet();
+
+        if (order.getContract() != null && order.getContract().conid() != 0) {
+            byContract.computeIfAbsent(order.getContract().conid(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        if (order.getOrder() != null) {
+            String account = order.getOrder().account();
+            if (account != null && !account.isEmpty()) {
+                byAccount.computeIfAbsent(account, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            if (order.getOrder().parentId() != 0) {
+                byParent.computeIfAbsent(order.getOrder().parentId(), key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            if (order.getOrder().permId() != 0) {
+                byPermId.put(order.getOrder().permId(), id);
+            }
+        }
+        updateOpen(order);
+
+        return previous == null;
+    }
+
+    /**
+     * Adds status to the order.
+     *
+     * @param status order status
+     * @return true if the status is new, false if it is a repetition or the order is unknown
+     */
+    boolean addStatus(IbOrderStatus status) {
+        IbOrder order = orders.get(status.getOrderId());
+        if (order == null || !order.addStatus(status)) {
+            return false;
+        }
+        if (status.getPermId() != 0) {
+            byPermId.putIfAbsent(status.getPermId(), status.getOrderId());
+        }
+        updateOpen(order);
+        return true;
+    }
+
+    IbOrder get(int orderId) {
+        return orders.get(orderId);
+    }
+
+    ImmutableMap<Integer, IbOrder> getAll() {
+        Snapshot current = snapshot;
+        long latest = version.get();
+        if (current.version == latest) {
+            return current.orders;
+        }
+
+        current = new Snapshot(latest, ImmutableMap.copyOf(orders));
+        snapshot = current;
+        return current.orders;
+    }
+
+    Collection<IbOrder> getOpen() {
+        return resolve(open);
+    }
+
+    Collection<IbOrder> getByContract(int conid) {
+        return resolve(byContract.get(conid));
+    }
+
+    Collection<IbOrder> getByAccount(String account) {
+        return resolve(byAccount.get(account));
+    }
+
+    Collection<IbOrder> getByParent(int parentId) {
+        return resolve(byParent.get(parentId));
+    }
+
+    IbOrder getByPermId(int permId) {
+        Integer id = byPermId.get(permId);
+        return id == null ? null : orders.get(id);
+    }
+
+    int size() {
+        return orders.size();
+    }
+
+    int openSize() {
+        return open.size();
+    }
+
+    void clear() {
+        orders.clear();
+        open.clear();
+        byContract.clear();
+        byAccount.clear();
+        byParent.clear();
+        byPermId.clear();
+        version.incrementAndGet();
+    }
+
+    private void updateOpen(IbOrder order) {
+        if (isOpen(order)) {
+            open.add(order.getOrderId());
+        } else {
+            open.remove(order.getOrderId());
+        }
+    }
+
+    private static boolean isOpen(IbOrder order) {
+        IbOrderStatus status = order.getLastStatus();
+        if (status != null) {
+            return status.isActive();
+        }
+        OrderState state = order.getState();
+        return state == null || state.status() == null || state.status().isActive();
+    }
+
+    private Collection<IbOrder> resolve(Set<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<IbOrder> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            IbOrder order = orders.get(id);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final ImmutableMap<Integer, IbOrder> orders;
+
+        private Snapshot(long version, ImmutableMap<Integer, IbOrder> orders) {
+            this.version = version;
+            this.orders = orders;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -31,13 +35,11 @@ public abstract class ConnectionMonitor implements AutoCloseable {
     }
 
     private static final int CLOSE_TIMEOUT_MS = 10_000;
-    private static final int SLEEP_DELAY_MS = 100;
 
     private static final Logger log = LoggerFactory.getLogger(ConnectionMonitor.class);
 
     private final Lock statusLock = new ReentrantLock();
     private final Condition statusCondition = statusLock.newCondition();
-    private final SleepTimer timer = new SleepTimer();
 
     private final Duration connectionDelay;
 
@@ -45,8 +47,10 @@ public abstract class ConnectionMonitor implements AutoCloseable {
     private Status expectedStatus = null;
 
     private AtomicReference<Status> status;
-    private AtomicReference<Command> command;
-    private Thread thread;
+    private AtomicReference<Command> pendingCommand;
+    private ScheduledExecutorService executor;
+    // Accessed only by the monitor thread
+    private ScheduledFuture<?> timer;
 
     protected abstract void connectRequest();
 
@@ -62,12 +66,15 @@ public abstract class ConnectionMonitor implements AutoCloseable {
 
     public void start() {
         status = new AtomicReference<>(Status.UNKNOWN);
-        command = new AtomicReference<>(Command.NONE);
+        pendingCommand = new AtomicReference<>(Command.NONE);
         isConnected = false;
 
-        thread = new Thread(this::run);
-        thread.setName("Connection monitor");
-        thread.start();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Connection monitor");
+            return thread;
+        });
+        executor.execute(() -> setStatus(Status.DISCONNECTED));
 
         try {
             waitForStatus(Status.DISCONNECTED, 1, TimeUnit.MINUTES);
@@ -83,9 +90,11 @@ public abstract class ConnectionMonitor implements AutoCloseable {
         }
         waitForStatus(Status.DISCONNECTED);
 
-        thread.interrupt();
+        executor.shutdownNow();
         try {
-            thread.join(CLOSE_TIMEOUT_MS);
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("Fail to shutdown connection monitor");
+            }
         } catch (InterruptedException e) {
             log.error("Current thread '{}' has been interrupted at shutdown", this);
         }
@@ -95,46 +104,41 @@ public abstract class ConnectionMonitor implements AutoCloseable {
         return status.get();
     }
 
-    public synchronized void connect() {
+    public void connect() {
         setCommand(Command.CONNECT);
     }
 
-    public synchronized void confirmConnection() {
+    public void confirmConnection() {
         setCommand(Command.CONFIRM_CONNECT);
     }
 
-    public synchronized void reconnect() {
+    public void reconnect() {
         setCommand(Command.RECONNECT);
     }
 
     public void disconnect() {
-        if (!thread.isAlive()) {
+        if (executor == null || executor.isShutdown()) {
             throw new IllegalStateException("Thread has not been started");
         }
 
         setCommand(Command.DISCONNECT);
     }
 
-    private void run() {
-        try {
-            setStatus(Status.DISCONNECTED);
-
-            while (!Thread.interrupted()) {
-                Command commandLocal = command.getAndSet(Command.NONE);
-                commandLocal = handleCommand(commandLocal);
+    private void run(Command newCommand) {
+        pendingCommand.compareAndSet(newCommand, Command.NONE);
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
 
-                if (commandLocal == Command.NONE) {
-                    Thread.sleep(SLEEP_DELAY_MS);
-                }
-            }
-        } catch (InterruptedException ignored) {
-            // ignored
+        try {
+            handleCommand(newCommand);
         } catch (Exception e) {
             log.error("Exception in Connection Monitor: {}", e.getMessage(), e);
         }
     }
 
-    private Command handleCommand(Command newCommand) {
+    private void handleCommand(Command newCommand) {
         switch (newCommand) {
 
             case CONNECT:
@@ -147,7 +151,7 @@ public abstract class ConnectionMonitor implements AutoCloseable {
                 disconnectRequest(true);
                 setStatus(Status.DISCONNECTED);
 
-                timer.start(connectionDelay.toMillis(), () -> {
+                schedule(() -> {
                     setStatus(Status.CONNECTING);
                     connectRequest();
                 });
@@ -155,9 +159,9 @@ public abstract class ConnectionMonitor implements AutoCloseable {
                 break;
 
             case CONFIRM_CONNECT:
-                /* Right after connect, an error 507 (Bad Message Length) can occur, so we re-read command
+                /* Right after connect, an error 507 (Bad Message Length) can occur, so we wait a bit
                    to be sure valid connection still persist */
-                timer.start(connectionDelay.toMillis(), () -> {
+                schedule(() -> {
                     setStatus(Status.CONNECTED);
                     afterConnect();
                 });
@@ -170,26 +174,49 @@ public abstract class ConnectionMonitor implements AutoCloseable {
                 setStatus(Status.DISCONNECTED);
                 break;
 
-            case NONE:
-                if (timer.isRunning()) {
-                    setStatus(Status.SLEEP);
-                    if (timer.run()) {
-                        timer.reset();
-                    }
-                }
-                break;
-
             default:
                 throw new IllegalStateException("Unexpected value: " + newCommand);
         }
+    }
 
-        return newCommand;
+    /**
+     * Runs action after connection delay, unless another command comes first.
+     */
+    private void schedule(Runnable action) {
+        long delay = connectionDelay.toNanos();
+        if (delay == 0) {
+            action.run();
+            return;
+        }
+
+        setStatus(Status.SLEEP);
+        timer = executor.schedule(() -> {
+            if (pendingCommand.get() != Command.NONE) {
+                return;
+            }
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("Exception in Connection Monitor: {}", e.getMessage(), e);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
     }
 
-    private void setCommand(Command newCommand) {
-        timer.reset();
-        this.command.set(newCommand);
+    /**
+     * Queues command to the monitor thread. The same command as the last queued and not yet handled one is
+     * ignored, so i.e. an error and "connection closed" notification about the same loss cause one reconnect.
+     */
+    private synchronized void setCommand(Command newCommand) {
         log.debug("Command: {}", newCommand.name());
+        if (pendingCommand.getAndSet(newCommand) == newCommand) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> run(newCommand));
+        } catch (RejectedExecutionException e) {
+            log.warn("Connection monitor is closed, command {} is ignored", newCommand);
+        }
     }
 
     private void setStatus(Status newStatus) {
@@ -0,0 +1,276 @@
+package lv.sergluka.ib_client.impl.history;
+
+import lv.sergluka.ib_client.types.IbBar;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Append-only file of bars of one contract, bar size, type and trading hours, sorted by time.
+ *
+ * <p>Header keeps the start of the period, which bars are complete since. Bars are fixed size records, so ranges
+ * are found by binary search and read straight from the memory-mapped file. Time is stored as TWS local time.
+ * A record partially written on crash is discarded on open.
+ */
+class BarFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x49424252; // "IBBR"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COVERED_FROM_OFFSET = 8;
+
+    private static final int RECORD_SIZE = 64;
+    private static final int TIME_OFFSET = 0;
+    private static final int OPEN_OFFSET = 8;
+    private static final int HIGH_OFFSET = 16;
+    private static final int LOW_OFFSET = 24;
+    private static final int CLOSE_OFFSET = 32;
+    private static final int WAP_OFFSET = 40;
+    private static final int VOLUME_OFFSET = 48;
+    private static final int COUNT_OFFSET = 56;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private long coveredFrom;
+    private int size;
+
+    BarFile(Path path) throws IOException {
+        this.path = path;
+        open();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Start of the period, which all the bars are stored since.
+     */
+    synchronized LocalDateTime getCoveredFrom() {
+        return coveredFrom == Long.MAX_VALUE ? null : toTime(coveredFrom);
+    }
+
+    synchronized LocalDateTime getLastTime() {
+        return size == 0 ? null : toTime(readLong(size - 1, TIME_OFFSET));
+    }
+
+    /**
+     * Appends bars after the last stored one, older bars are ignored.
+     */
+    synchronized void append(List<IbBar> bars) throws IOException {
+        long last = size == 0 ? Long.MIN_VALUE : readLong(size - 1, TIME_OFFSET);
+        ByteBuffer buffer = newBuffer(bars.size());
+        int appended = 0;
+        for (IbBar bar : bars) {
+            long time = toSeconds(bar.getTime());
+            if (time > last) {
+                encode(buffer, bar);
+                last = time;
+                appended++;
+            }
+        }
+        buffer.flip();
+
+        long position = HEADER_SIZE + (long) size * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        size += appended;
+    }
+
+    /**
+     * Atomically replaces content of the file.
+     *
+     * @param from start of the period of the bars
+     * @param bars bars sorted by time
+     */
+    synchronized void replace(LocalDateTime from, List<IbBar> bars) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = newBuffer(bars.size());
+            writeHeader(buffer, toSeconds(from));
+            for (IbBar bar : bars) {
+                encode(buffer, bar);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+
+        channel.close();
+        // Readers keep mapping of the replaced file
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    /**
+     * Reads stored bars lazily from the memory-mapped file.
+     *
+     * @param from start time, inclusive
+     * @param to   end time, exclusive
+     * @return bars sorted by time
+     */
+    synchronized Flux<IbBar> read(LocalDateTime from, LocalDateTime to) {
+        int first = lowerBound(toSeconds(from));
+        int last = lowerBound(toSeconds(to));
+        if (first >= last) {
+            return Flux.empty();
+        }
+
+        MappedByteBuffer buffer = mapping();
+        return Flux.range(first, last - first).map(index -> decode(buffer, index));
+    }
+
+    /**
+     * Finds the start of the period of {@code days} last dates having bars before {@code to}.
+     *
+     * @return time of the first bar of the earliest date, or null if there are fewer dates
+     */
+    synchronized LocalDateTime startOfDays(LocalDateTime to, int days) {
+        int index = lowerBound(toSeconds(to)) - 1;
+        LocalDate date = null;
+        int dates = 0;
+        for (; index >= 0; index--) {
+            LocalDate barDate = toTime(readLong(index, TIME_OFFSET)).toLocalDate();
+            if (!barDate.equals(date)) {
+                if (dates == days) {
+                    break;
+                }
+                date = barDate;
+                dates++;
+            }
+        }
+        return dates < days ? null : toTime(readLong(index + 1, TIME_OFFSET));
+    }
+
+    private void open() throws IOException {
+        mapping = null;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader(header, Long.MAX_VALUE);
+            header.flip();
+            channel.write(header, 0);
+            channel.truncate(HEADER_SIZE);
+            coveredFrom = Long.MAX_VALUE;
+            size = 0;
+            return;
+        }
+
+        while (header.hasRemaining()) {
+            channel.read(header, header.position());
+        }
+        if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+            channel.close();
+            throw new IOException("Unsupported bar file: " + path);
+        }
+        coveredFrom = header.getLong(COVERED_FROM_OFFSET);
+        size = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        channel.truncate(HEADER_SIZE + (long) size * RECORD_SIZE);
+    }
+
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (readLong(middle, TIME_OFFSET) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long readLong(int index, int offset) {
+        return mapping().getLong(HEADER_SIZE + index * RECORD_SIZE + offset);
+    }
+
+    /**
+     * Mapping of all the stored bars. It is immutable, as bars are only appended, so readers can use it without
+     * locking.
+     */
+    private MappedByteBuffer mapping() {
+        long length = HEADER_SIZE + (long) size * RECORD_SIZE;
+        if (mapping == null || mapping.capacity() != length) {
+            try {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return mapping;
+    }
+
+    private static ByteBuffer newBuffer(int bars) {
+        return ByteBuffer.allocate(HEADER_SIZE + bars * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeHeader(ByteBuffer buffer, long from) {
+        buffer.putInt(MAGIC_OFFSET, MAGIC)
+              .putInt(VERSION_OFFSET, VERSION)
+              .putLong(COVERED_FROM_OFFSET, from)
+              .position(HEADER_SIZE);
+    }
+
+    private static void encode(ByteBuffer buffer, IbBar bar) {
+        int start = buffer.position();
+        buffer.putLong(start + TIME_OFFSET, toSeconds(bar.getTime()))
+              .putDouble(start + OPEN_OFFSET, bar.getOpen().doubleValue())
+              .putDouble(start + HIGH_OFFSET, bar.getHigh().doubleValue())
+              .putDouble(start + LOW_OFFSET, bar.getLow().doubleValue())
+              .putDouble(start + CLOSE_OFFSET, bar.getClose().doubleValue())
+              .putDouble(start + WAP_OFFSET, bar.getWap().doubleValue())
+              .putLong(start + VOLUME_OFFSET, bar.getVolume())
+              .putInt(start + COUNT_OFFSET, bar.getCount())
+              .position(start + RECORD_SIZE);
+    }
+
+    private static IbBar decode(ByteBuffer buffer, int index) {
+        int start = HEADER_SIZE + index * RECORD_SIZE;
+        return new IbBar(toTime(buffer.getLong(start + TIME_OFFSET)),
+                         buffer.getDouble(start + OPEN_OFFSET),
+                         buffer.getDouble(start + HIGH_OFFSET),
+                         buffer.getDouble(start + LOW_OFFSET),
+                         buffer.getDouble(start + CLOSE_OFFSET),
+                         buffer.getLong(start + VOLUME_OFFSET),
+                         buffer.getInt(start + COUNT_OFFSET),
+                         buffer.getDouble(start + WAP_OFFSET));
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,342 @@
+package lv.sergluka.ib_client.impl.history;
+
+import com.ib.client.Contract;
+import lv.sergluka.ib_client.IbClient;
+import lv.sergluka.ib_client.types.IbBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of historical bars, one {@link BarFile} per contract, bar size, type and trading hours.
+ *
+ * <p>Stored bars form a continuous period. A request, which starts within the period, is served from the file and
+ * only bars after the last stored one are requested from IB and appended. Otherwise the whole request goes to IB
+ * and the result is merged into the file. The last bar of a request up to now can be unfinished, so it is returned
+ * but isn't stored. Request and bar times are in TWS timezone specified at login, so "now" is taken in it as well.
+ */
+public class HistoricalBarStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricalBarStore.class);
+
+    private static final long SECONDS_PER_DAY = Duration.ofDays(1).getSeconds();
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int DAYS_PER_MONTH = 31;
+
+    // The longest durations in seconds IB accepts for bars shorter than a minute, by bar size in seconds
+    private static final long[][] MAX_SECONDS = {{1, 1800}, {5, 3600}, {15, 14400}, {30, 28800}};
+
+    private final Path directory;
+    private final Clock clock;
+    private final Map<String, BarFile> files = new ConcurrentHashMap<>();
+
+    public HistoricalBarStore(Path directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    /**
+     * Creates the store.
+     *
+     * @param directory directory of bar files
+     * @param zone      TWS timezone specified at login
+     */
+    public HistoricalBarStore(Path directory, ZoneId zone) {
+        this(directory, Clock.system(zone));
+    }
+
+    HistoricalBarStore(Path directory, Clock clock) {
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    @Override
+    public void close() {
+        files.values().forEach(file -> {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.error("Cannot close bar file", e);
+            }
+        });
+        files.clear();
+    }
+
+    /**
+     * Requests bars like {@link IbClient#reqHistoricalData}.
+     *
+     * @param fetcher requests bars from IB with the same contract, bar size, type and trading hours
+     * @return bars sorted by time
+     */
+    public Flux<IbBar> request(Contract contract, LocalDateTime endDateTime,
+                               int duration, IbClient.DurationUnit durationUnit,
+                               IbClient.BarSize size, IbClient.Type type, IbClient.TradingHours tradingHours,
+                               Fetcher fetcher) {
+
+        return Mono.fromCallable(() -> open(contract, size, type, tradingHours))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMapMany(file -> {
+                       Request request = new Request(file, endDateTime, duration, durationUnit, size, fetcher,
+                                                     LocalDateTime.now(clock));
+                       return file.isEmpty() ? request.fetchAll() : request.topUp();
+                   });
+    }
+
+    private BarFile open(Contract contract, IbClient.BarSize size, IbClient.Type type,
+                         IbClient.TradingHours tradingHours) {
+
+        String contractKey = contract.conid() > 0
+                             ? String.valueOf(contract.conid())
+                             : String.join("-", contract.symbol(), contract.getSecType(), contract.exchange(),
+                                           contract.currency());
+        String name = String.join("_", contractKey, size.name(), type.name(), tradingHours.name())
+                            .replaceAll("[^A-Za-z0-9._-]", "_") + ".bars";
+
+        return files.computeIfAbsent(name, key -> {
+            try {
+                Files.createDirectories(directory);
+                return new BarFile(directory.resolve(key));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static long barSeconds(IbClient.BarSize size) {
+        String[] parts = size.toString().split(" ");
+        long count = Long.parseLong(parts[0]);
+        String unit = parts[1];
+        if (unit.startsWith("sec")) {
+            return count;
+        } else if (unit.startsWith("min")) {
+            return Duration.ofMinutes(count).getSeconds();
+        } else if (unit.startsWith("hour")) {
+            return Duration.ofHours(count).getSeconds();
+        } else if (unit.startsWith("day")) {
+            return Duration.ofDays(count).getSeconds();
+        } else if (unit.startsWith("week")) {
+            return Duration.ofDays(count * DAYS_PER_WEEK).getSeconds();
+        }
+        return Duration.ofDays(count * DAYS_PER_MONTH).getSeconds();
+    }
+
+    private static long maxSeconds(long barSeconds) {
+        long max = SECONDS_PER_DAY;
+        for (int i = MAX_SECONDS.length - 1; i >= 0 && barSeconds <= MAX_SECONDS[i][0]; i--) {
+            max = MAX_SECONDS[i][1];
+        }
+        return max;
+    }
+
+    /**
+     * Requests bars from IB.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        Flux<IbBar> fetch(LocalDateTime endDateTime, int duration, IbClient.DurationUnit durationUnit);
+    }
+
+    private static final class Request {
+        private final BarFile file;
+        private final LocalDateTime endDateTime;
+        private final int duration;
+        private final IbClient.DurationUnit durationUnit;
+        private final IbClient.BarSize size;
+        private final Fetcher fetcher;
+        private final boolean live;
+        private final LocalDateTime end;
+
+        private Request(BarFile file, LocalDateTime endDateTime, int duration, IbClient.DurationUnit durationUnit,
+                        IbClient.BarSize size, Fetcher fetcher, LocalDateTime now) {
+            this.file = file;
+            this.endDateTime = endDateTime;
+            this.duration = duration;
+            this.durationUnit = durationUnit;
+            this.size = size;
+            this.fetcher = fetcher;
+
+            live = endDateTime == null || !endDateTime.isBefore(now);
+            end = live ? now : endDateTime;
+        }
+
+        /**
+         * Requests bars after the last stored one, then serves the request from the file if it covers the period.
+         */
+        private Flux<IbBar> topUp() {
+            LocalDateTime start = start();
+            if (start != null && start.isBefore(file.getCoveredFrom())) {
+                return fetchAll();
+            }
+
+            LocalDateTime last = file.getLastTime();
+            long barSeconds = barSeconds(size);
+            long missing = Duration.between(last, end).getSeconds() - barSeconds;
+
+            Mono<List<IbBar>> unfinished;
+            if (live || missing >= barSeconds) {
+                long seconds = Math.max(missing, barSeconds);
+                Flux<IbBar> tail;
+                if (seconds <= SECONDS_PER_DAY && barSeconds < SECONDS_PER_DAY) {
+                    tail = fetchSeconds(seconds, maxSeconds(barSeconds));
+                } else {
+                    // Trading days are never shorter than calendar ones
+                    int days = (int) ((seconds + SECONDS_PER_DAY - 1) / SECONDS_PER_DAY);
+                    tail = fetcher.fetch(endDateTime, days, IbClient.DurationUnit.Day);
+                }
+                unfinished = tail.filter(bar -> bar.getTime().isAfter(last))
+                                 .collectList()
+                                 .publishOn(Schedulers.boundedElastic())
+                                 .map(this::store);
+            } else {
+                unfinished = Mono.just(Collections.emptyList());
+            }
+
+            return unfinished.flatMapMany(bars -> {
+                LocalDateTime covered = coveredStart();
+                if (covered == null) {
+                    log.debug("Bar store doesn't cover the period, requesting all bars");
+                    return fetchAll();
+                }
+                return file.read(covered, end).concatWith(Flux.fromIterable(bars));
+            });
+        }
+
+        /**
+         * Requests bars of the last seconds of the period, split into the longest durations IB accepts for the bar
+         * size, the earliest first.
+         */
+        private Flux<IbBar> fetchSeconds(long seconds, long maxSeconds) {
+            if (seconds <= maxSeconds) {
+                return fetcher.fetch(endDateTime, (int) seconds, IbClient.DurationUnit.Second);
+            }
+
+            List<Flux<IbBar>> chunks = new ArrayList<>();
+            LocalDateTime from = end.minusSeconds(seconds);
+            while (from.plusSeconds(maxSeconds).isBefore(end)) {
+                from = from.plusSeconds(maxSeconds);
+                chunks.add(fetcher.fetch(from, (int) maxSeconds, IbClient.DurationUnit.Second));
+            }
+            chunks.add(fetcher.fetch(endDateTime, (int) Duration.between(from, end).getSeconds(),
+                                     IbClient.DurationUnit.Second));
+            return Flux.concat(chunks).distinct(IbBar::getTime);
+        }
+
+        /**
+         * Requests all bars of the period and merges them into the file.
+         */
+        private Flux<IbBar> fetchAll() {
+            return fetcher.fetch(endDateTime, duration, durationUnit)
+                          .collectList()
+                          .publishOn(Schedulers.boundedElastic())
+                          .flatMapIterable(bars -> {
+                              merge(bars);
+                              return bars;
+                          });
+        }
+
+        /**
+         * Appends finished bars to the file.
+         *
+         * @return unfinished bar, if any
+         */
+        private List<IbBar> store(List<IbBar> bars) {
+            List<IbBar> finished = finished(bars);
+            try {
+                file.append(finished);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bars.subList(finished.size(), bars.size());
+        }
+
+        private void merge(List<IbBar> bars) {
+            List<IbBar> finished = finished(bars);
+            LocalDateTime start = start();
+            if (start == null) {
+                if (finished.isEmpty()) {
+                    return;
+                }
+                start = finished.get(0).getTime();
+            }
+
+            synchronized (file) {
+                try {
+                    LocalDateTime coveredFrom = file.getCoveredFrom();
+                    LocalDateTime last = file.getLastTime();
+                    if (file.isEmpty() || last.isBefore(start)) {
+                        file.replace(start, finished);
+                    } else if (!end.isBefore(coveredFrom)) {
+                        TreeMap<LocalDateTime, IbBar> union = new TreeMap<>();
+                        file.read(coveredFrom, last.plusSeconds(1))
+                            .toStream()
+                            .forEach(bar -> union.put(bar.getTime(), bar));
+                        finished.forEach(bar -> union.put(bar.getTime(), bar));
+                        file.replace(start.isBefore(coveredFrom) ? start : coveredFrom,
+                                     new ArrayList<>(union.values()));
+                    }
+                    // Otherwise the period is before the stored one, and a gap between them can't be stored
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private List<IbBar> finished(List<IbBar> bars) {
+            return live && !bars.isEmpty() ? bars.subList(0, bars.size() - 1) : bars;
+        }
+
+        /**
+         * Start of the requested period, if the file covers it.
+         */
+        private LocalDateTime coveredStart() {
+            LocalDateTime coveredFrom = file.getCoveredFrom();
+            LocalDateTime start = start();
+            if (start != null) {
+                return start.isBefore(coveredFrom) ? null : start;
+            }
+
+            // IB counts days by trading days. The first stored date can be incomplete, unless the file starts with it
+            start = file.startOfDays(end, duration);
+            if (start == null) {
+                return null;
+            }
+            boolean covered = start.equals(coveredFrom)
+                              || start.toLocalDate().isAfter(coveredFrom.toLocalDate());
+            return covered ? start : null;
+        }
+
+        /**
+         * Start of the requested period, or null for days, which are trading days.
+         */
+        private LocalDateTime start() {
+            switch (durationUnit) {
+                case Second:
+                    return end.minusSeconds(duration);
+                case Week:
+                    return end.minusWeeks(duration);
+                case Month:
+                    return end.minusMonths(duration);
+                case Year:
+                    return end.minusYears(duration);
+                default:
+                    return null;
+            }
+        }
+    }
+}
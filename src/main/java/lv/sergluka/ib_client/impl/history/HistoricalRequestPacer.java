@@ -0,0 +1,238 @@
+package lv.sergluka.ib_client.impl.history;
+
+import lv.sergluka.ib_client.IbExceptions;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.params.HistoricalPacingOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues historical data requests to keep them within IB pacing limits.
+ *
+ * <p>A request is sent as soon as it fits into all the sliding windows: the global one, the one of its contract and
+ * the identical request interval, and there is a free slot of concurrent requests. Queue is FIFO, but a request
+ * blocked by its contract limits doesn't block requests of other contracts, so a backfill of many contracts runs
+ * at the global rate. Requests failed with {@link IbExceptions.PacingViolationError} are queued again.
+ */
+public class HistoricalRequestPacer {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricalRequestPacer.class);
+
+    private final HistoricalPacingOptions options;
+    private final Scheduler scheduler;
+    private final long contractPeriod;
+    private final long identicalInterval;
+
+    private final SlidingWindow global;
+    private final Map<String, SlidingWindow> contracts = new HashMap<>();
+    private final Map<String, Long> identical = new HashMap<>();
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private int running;
+    private long pausedUntil;
+    private long wakeUpAt = Long.MAX_VALUE;
+    private Disposable wakeUp;
+
+    public HistoricalRequestPacer(HistoricalPacingOptions options, Scheduler scheduler, IbMetrics metrics) {
+        this.options = options;
+        this.scheduler = scheduler;
+        contractPeriod = options.getContractPeriod().toNanos();
+        identicalInterval = options.getIdenticalInterval().toNanos();
+        global = new SlidingWindow(options.getRequests(), options.getPeriod().toNanos());
+        pausedUntil = now();
+
+        metrics.gauge("historical.queued", this::getQueued);
+        metrics.gauge("historical.running", this::getRunning);
+    }
+
+    /**
+     * Delays subscription to the request until it fits into the limits.
+     *
+     * @param contract  key of the contract and data type
+     * @param identity  key of all the request parameters
+     * @param holdsSlot whether the request occupies a slot of concurrent requests until it terminates. Streaming
+     *                  subscriptions, which never complete, shouldn't
+     * @param request   request, subscription to it sends the request to TWS
+     * @param <T>       item type
+     * @return paced request
+     */
+    public <T> Flux<T> schedule(String contract, String identity, boolean holdsSlot, Flux<T> request) {
+        return schedule(contract, identity, holdsSlot, request, options.getViolationRetries());
+    }
+
+    public synchronized long getQueued() {
+        return queue.size();
+    }
+
+    public synchronized long getRunning() {
+        return running;
+    }
+
+    private <T> Flux<T> schedule(String contract, String identity, boolean holdsSlot, Flux<T> request, int retries) {
+        Flux<T> paced = Flux.defer(() -> {
+            Pending pending = new Pending(contract, identity, holdsSlot);
+            synchronized (this) {
+                queue.add(pending);
+            }
+            drain();
+            return pending.permit.thenMany(request).doFinally(signal -> finish(pending));
+        });
+
+        return paced.onErrorResume(IbExceptions.PacingViolationError.class, e -> {
+            if (retries <= 0) {
+                return Flux.error(e);
+            }
+            log.warn("Pacing violation, request is queued again: {}", e.getMessage());
+            synchronized (this) {
+                pausedUntil = Math.max(pausedUntil, now() + identicalInterval);
+            }
+            return schedule(contract, identity, holdsSlot, request, retries - 1);
+        });
+    }
+
+    private void finish(Pending pending) {
+        synchronized (this) {
+            if (!pending.granted) {
+                queue.remove(pending);
+            } else if (pending.holdsSlot) {
+                running--;
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<Pending> granted = new ArrayList<>();
+
+        synchronized (this) {
+            long now = now();
+            if (wakeUpAt <= now) {
+                wakeUpAt = Long.MAX_VALUE;
+            }
+
+            long next = Long.MAX_VALUE;
+            if (now < pausedUntil) {
+                next = pausedUntil;
+            } else {
+                Iterator<Pending> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    long globalReady = global.readyAt(now);
+                    if (globalReady > now) {
+                        next = globalReady;
+                        break;
+                    }
+
+                    Pending pending = iterator.next();
+                    if (pending.holdsSlot && running >= options.getConcurrentRequests()) {
+                        continue; // Woken up by the request termination
+                    }
+
+                    SlidingWindow contract = contracts.computeIfAbsent(
+                            pending.contract,
+                            key -> new SlidingWindow(options.getContractRequests(), contractPeriod));
+                    long ready = Math.max(contract.readyAt(now), identicalReadyAt(pending.identity, now));
+                    if (ready > now) {
+                        next = Math.min(next, ready);
+                        continue;
+                    }
+
+                    iterator.remove();
+                    global.record(now);
+                    contract.record(now);
+                    identical.put(pending.identity, now);
+                    if (pending.holdsSlot) {
+                        running++;
+                    }
+                    pending.granted = true;
+                    granted.add(pending);
+                }
+            }
+
+            contracts.values().removeIf(window -> window.isIdle(now));
+            identical.values().removeIf(time -> time + identicalInterval <= now);
+
+            if (next < wakeUpAt) {
+                if (wakeUp != null) {
+                    wakeUp.dispose();
+                }
+                wakeUpAt = next;
+                wakeUp = scheduler.schedule(this::drain, next - now, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        for (Pending pending : granted) {
+            pending.permit.onComplete();
+        }
+    }
+
+    private long identicalReadyAt(String identity, long now) {
+        Long last = identical.get(identity);
+        return last == null ? now : last + identicalInterval;
+    }
+
+    private long now() {
+        return scheduler.now(TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Pending {
+        private final String contract;
+        private final String identity;
+        private final boolean holdsSlot;
+        private final MonoProcessor<Void> permit = MonoProcessor.create();
+        private boolean granted;
+
+        private Pending(String contract, String identity, boolean holdsSlot) {
+            this.contract = contract;
+            this.identity = identity;
+            this.holdsSlot = holdsSlot;
+        }
+    }
+
+    /**
+     * Times of the last {@code limit} requests.
+     */
+    private static final class SlidingWindow {
+        private final long[] times;
+        private final long period;
+        private int head;
+        private int count;
+
+        private SlidingWindow(int limit, long period) {
+            this.times = new long[limit];
+            this.period = period;
+        }
+
+        private long readyAt(long now) {
+            if (count < times.length) {
+                return now;
+            }
+            return Math.max(now, times[head] + period);
+        }
+
+        private void record(long now) {
+            if (count < times.length) {
+                times[(head + count) % times.length] = now;
+                count++;
+            } else {
+                times[head] = now;
+                head = (head + 1) % times.length;
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return count == 0 || times[(head + count - 1) % times.length] + period <= now;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package lv.sergluka.ib_client.impl.history;
+
+import lv.sergluka.ib_client.params.HistoricalTicksParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Downloads historical ticks of a long period by pages of {@link #PAGE_SIZE} ticks.
+ *
+ * <p>Period is split to slices of {@link HistoricalTicksParams#getSlice()}. Every slice is downloaded by sequential
+ * pages, each page starts at the second of the last tick of the previous one, because IB has one second resolution.
+ * Ticks of that boundary second, which were emitted already, are skipped. Up to
+ * {@link HistoricalTicksParams#getConcurrency()} slices are downloaded at once, and their ticks are emitted in time
+ * order, so memory usage is bounded by a few pages per slice in flight regardless of the period length.
+ *
+ * @param <T> tick type, i.e. {@link com.ib.client.HistoricalTickLast}
+ */
+public class HistoricalTicksPaginator<T> {
+
+    /**
+     * Maximal number of ticks IB returns per request.
+     */
+    public static final int PAGE_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricalTicksPaginator.class);
+
+    private final HistoricalTicksParams params;
+    private final Function<LocalDateTime, Mono<List<T>>> fetcher;
+    private final ToLongFunction<T> timeOf;
+
+    /**
+     * Creates paginator.
+     *
+     * @param params  validated parameters
+     * @param fetcher requests up to {@link #PAGE_SIZE} ticks starting from the given time in TWS timezone, is
+     *                expected to be paced by {@link HistoricalRequestPacer}
+     * @param timeOf  tick time as UTC epoch seconds
+     */
+    public HistoricalTicksPaginator(HistoricalTicksParams params,
+                                    Function<LocalDateTime, Mono<List<T>>> fetcher,
+                                    ToLongFunction<T> timeOf) {
+        this.params = params;
+        this.fetcher = fetcher;
+        this.timeOf = timeOf;
+    }
+
+    public Flux<T> stream() {
+        ZoneId zone = params.getZone();
+        long from = params.getFrom().atZone(zone).toEpochSecond();
+        long to = params.getTo().atZone(zone).toEpochSecond();
+        long slice = params.getSlice().getSeconds();
+        long slices = (to - from + slice - 1) / slice;
+
+        Flux<Flux<T>> sliceFluxes = Flux.range(0, (int) slices)
+                                        .map(i -> {
+                                            long start = from + i * slice;
+                                            return slice(start, Math.min(start + slice, to));
+                                        });
+        return Flux.mergeSequential(sliceFluxes, params.getConcurrency(), PAGE_SIZE);
+    }
+
+    private Flux<T> slice(long start, long end) {
+        return fetch(new Page<>(start, end, start, 0))
+                .expand(page -> page.last ? Mono.empty() : fetch(page.next()))
+                .concatMapIterable(page -> page.ticks, 1);
+    }
+
+    private Mono<Page<T>> fetch(Page<T> request) {
+        return Mono.defer(() -> fetcher.apply(toLocal(request.start)))
+                   .map(ticks -> request.complete(ticks, timeOf));
+    }
+
+    private LocalDateTime toLocal(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond).atZone(params.getZone()).toLocalDateTime();
+    }
+
+    private static final class Page<T> {
+        private final long start;
+        private final long end;
+        private long boundarySecond;
+        private int boundaryCount;
+        private List<T> ticks = Collections.emptyList();
+        private boolean last;
+
+        private Page(long start, long end, long boundarySecond, int boundaryCount) {
+            this.start = start;
+            this.end = end;
+            this.boundarySecond = boundarySecond;
+            this.boundaryCount = boundaryCount;
+        }
+
+        private Page<T> complete(List<T> received, ToLongFunction<T> timeOf) {
+            ticks = new ArrayList<>(received.size());
+            last = received.size() < PAGE_SIZE;
+
+            int skip = boundaryCount;
+            for (T tick : received) {
+                long time = timeOf.applyAsLong(tick);
+                if (time >= end) {
+                    last = true;
+                    break;
+                }
+                if (time < boundarySecond) {
+                    continue;
+                }
+                if (time == boundarySecond) {
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    boundaryCount++;
+                } else {
+                    boundarySecond = time;
+                    boundaryCount = 1;
+                }
+                ticks.add(tick);
+            }
+            return this;
+        }
+
+        private Page<T> next() {
+            if (ticks.isEmpty()) {
+                // The whole page is a single second, which is already emitted. IB cannot return the rest of it
+                log.warn("More than {} ticks at {}, skipping the rest of the second", PAGE_SIZE,
+                         Instant.ofEpochSecond(boundarySecond));
+                return new Page<>(boundarySecond + 1, end, boundarySecond + 1, 0);
+            }
+            return new Page<>(boundarySecond, end, boundarySecond, boundaryCount);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package lv.sergluka.ib_client.impl.marketdata;
+
+import lv.sergluka.ib_client.IbExceptions;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.params.MarketDataLineOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues market data requests to keep them within the budget of market data lines.
+ *
+ * <p>A request occupies a line from the subscription until it terminates. Requests above the budget wait in a queue
+ * ordered by priority, then by arrival. Requests failed with {@link IbExceptions.MaxNumberOfTickersError} lower the
+ * budget to the lines in use and are queued again, unless they are the only ones. The lowered budget is raised by one
+ * line every recovery interval, until it reaches the configured limit or TWS rejects a request again.
+ *
+ * <p>IB limits lines per account, so all the clients of the account should share the same instance.
+ */
+public class MarketDataLines {
+
+    public static final int SUBSCRIPTION_PRIORITY = 0;
+    public static final int SNAPSHOT_PRIORITY = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataLines.class);
+
+    private final String name;
+    private final int configured;
+    private final int maxQueued;
+    private final long recoveryInterval;
+    private final Scheduler scheduler;
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(
+            Comparator.<Pending>comparingInt(pending -> pending.priority).reversed()
+                      .thenComparingLong(pending -> pending.order));
+    private int limit;
+    private int used;
+    private long arrivals;
+    private Disposable recovery;
+
+    /**
+     * Creates budget.
+     *
+     * @param name      name of the lines in gauges and errors, i.e. "market_data"
+     * @param limit     number of lines
+     * @param maxQueued number of requests waiting for a line
+     * @param recovery  interval, after which the lowered budget is raised by one line
+     * @param scheduler scheduler of the budget recovery
+     * @param metrics   metrics sink
+     */
+    public MarketDataLines(String name, int limit, int maxQueued, Duration recovery, Scheduler scheduler,
+                           IbMetrics metrics) {
+        this.name = name;
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+        this.scheduler = scheduler;
+        configured = limit;
+        recoveryInterval = recovery.toNanos();
+
+        metrics.gauge(name + ".lines", this::getUsed);
+        metrics.gauge(name + ".queued", this::getQueued);
+    }
+
+    /**
+     * Delays subscription to the request until a line is free.
+     *
+     * @param priority priority, if the subscriber context doesn't define {@link MarketDataLineOptions#PRIORITY_KEY}
+     * @param request  request, subscription to it sends the request to TWS
+     * @param <T>      item type
+     * @return request within the budget
+     */
+    public <T> Flux<T> schedule(int priority, Flux<T> request) {
+        return Flux.deferWithContext(context -> {
+            Pending pending;
+            synchronized (this) {
+                if (used >= limit && queue.size() >= maxQueued) {
+                    return Flux.error(new IbExceptions.MarketDataLinesExceededError(
+                            String.format("All %d %s lines are used, %d requests are queued", limit, name,
+                                          queue.size())));
+                }
+                pending = new Pending(context.getOrDefault(MarketDataLineOptions.PRIORITY_KEY, priority), arrivals++);
+                queue.add(pending);
+            }
+            drain();
+
+            return pending.permit
+                    .thenMany(request)
+                    .doFinally(signal -> finish(pending))
+                    .onErrorResume(IbExceptions.MaxNumberOfTickersError.class, e -> {
+                        synchronized (this) {
+                            int others = used - 1;
+                            if (others <= 0) {
+                                return Flux.error(e);
+                            }
+                            limit = Math.min(limit, others);
+                            log.warn("Max number of {} lines is reached, budget is lowered to {}: {}", name, limit,
+                                     e.getMessage());
+                            scheduleRecovery();
+                        }
+                        return schedule(pending.priority, request);
+                    });
+        });
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    public synchronized long getQueued() {
+        return queue.size();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    private void finish(Pending pending) {
+        synchronized (this) {
+            if (pending.granted) {
+                pending.granted = false;
+                used--;
+            } else {
+                queue.remove(pending);
+            }
+        }
+        drain();
+    }
+
+    // Restarts the interval, so the budget isn't raised right after a rejection
+    private void scheduleRecovery() {
+        if (recovery != null) {
+            recovery.dispose();
+        }
+        recovery = scheduler.schedule(this::recover, recoveryInterval, TimeUnit.NANOSECONDS);
+    }
+
+    private void recover() {
+        synchronized (this) {
+            recovery = null;
+            limit++;
+            log.info("Budget of {} lines is raised to {}", name, limit);
+            if (limit < configured) {
+                scheduleRecovery();
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<Pending> granted = new ArrayList<>();
+
+        synchronized (this) {
+            while (used < limit && !queue.isEmpty()) {
+                Pending pending = queue.poll();
+                pending.granted = true;
+                used++;
+                granted.add(pending);
+            }
+        }
+
+        for (Pending pending : granted) {
+            pending.permit.onComplete();
+        }
+    }
+
+    private static final class Pending {
+        private final int priority;
+        private final long order;
+        private final MonoProcessor<Void> permit = MonoProcessor.create();
+        private boolean granted;
+
+        private Pending(int priority, long order) {
+            this.priority = priority;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package lv.sergluka.ib_client.impl.replay;
+
+import com.ib.client.EWrapper;
+import com.ib.client.TickAttrib;
+import lv.sergluka.ib_client.journal.TickJournal;
+import lv.sergluka.ib_client.journal.TickJournalReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds callbacks recorded by {@link lv.sergluka.ib_client.journal.MappedTickJournal} to the wrapper.
+ *
+ * <p>Recorded ticker IDs are bound to contracts by the recorded subscriptions, and contracts are bound to the
+ * current subscriptions made via {@link ReplaySocket}. Records of contracts, which aren't subscribed now, are
+ * skipped. Callbacks are made from a single thread in the recorded order, as TWS reader thread does, so the replay
+ * is deterministic.
+ */
+public class JournalReplayer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayer.class);
+
+    // Tick attributes aren't recorded
+    private static final TickAttrib NO_ATTRIBUTES = new TickAttrib();
+
+    private final Path directory;
+    private final EWrapper wrapper;
+    private final Scheduler scheduler = Schedulers.newSingle("ib-replay");
+    private final Map<Long, Integer> subscriptions = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public JournalReplayer(Path directory, EWrapper wrapper) {
+        this.directory = directory;
+        this.wrapper = wrapper;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.dispose();
+    }
+
+    void subscribe(int tickerId, int conid, boolean depth) {
+        subscriptions.put(key(conid, depth), tickerId);
+    }
+
+    void unsubscribe(int tickerId) {
+        subscriptions.values().remove(tickerId);
+    }
+
+    /**
+     * Replays the whole journal.
+     *
+     * @param speed speed multiplier, infinity to replay without gaps
+     * @return Mono that completes at the end of the journal
+     */
+    public Mono<Void> replay(double speed) {
+        return Mono.<Void>fromCallable(() -> {
+            run(speed);
+            return null;
+        }).subscribeOn(scheduler);
+    }
+
+    private void run(double speed) throws IOException {
+        Map<Integer, Long> recorded = new HashMap<>();
+        long firstTime = 0;
+        long started = 0;
+        long replayed = 0;
+
+        try (TickJournalReader reader = TickJournalReader.open(directory)) {
+            while (!closed && reader.next()) {
+                if (reader.getKind() == TickJournal.Kind.SUBSCRIBE) {
+                    recorded.put(reader.getTickerId(), key(reader.getField(), reader.isDepth()));
+                    continue;
+                }
+
+                Long key = recorded.get(reader.getTickerId());
+                boolean depth = reader.getKind() == TickJournal.Kind.DEPTH;
+                Integer tickerId = key == null || isDepth(key) != depth ? null : subscriptions.get(key);
+                if (tickerId == null) {
+                    continue;
+                }
+
+                if (replayed == 0) {
+                    firstTime = reader.getTime();
+                    started = System.nanoTime();
+                } else {
+                    pause(started + (long) ((reader.getTime() - firstTime) / speed));
+                }
+                dispatch(reader, tickerId);
+                replayed++;
+            }
+        }
+        log.debug("Replayed {} records from {}", replayed, directory);
+    }
+
+    private void dispatch(TickJournalReader reader, int tickerId) {
+        switch (reader.getKind()) {
+            case PRICE:
+                wrapper.tickPrice(tickerId, reader.getField(), reader.getPrice(), NO_ATTRIBUTES);
+                break;
+            case SIZE:
+                wrapper.tickSize(tickerId, reader.getField(), reader.getSize());
+                break;
+            case GENERIC:
+                wrapper.tickGeneric(tickerId, reader.getField(), reader.getPrice());
+                break;
+            case STRING:
+                wrapper.tickString(tickerId, reader.getField(), reader.getText());
+                break;
+            case DEPTH:
+                String marketMaker = reader.getText();
+                if (marketMaker == null) {
+                    wrapper.updateMktDepth(tickerId, reader.getField(), reader.getOperation(), reader.getSide(),
+                                           reader.getPrice(), reader.getSize());
+                } else {
+                    wrapper.updateMktDepthL2(tickerId, reader.getField(), marketMaker, reader.getOperation(),
+                                             reader.getSide(), reader.getPrice(), reader.getSize(), false);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected record: " + reader.getKind());
+        }
+    }
+
+    private void pause(long due) {
+        long delay = due - System.nanoTime();
+        while (delay > 0 && !closed) {
+            LockSupport.parkNanos(delay);
+            delay = due - System.nanoTime();
+        }
+    }
+
+    private static long key(int conid, boolean depth) {
+        return (long) conid << 1 | (depth ? 1 : 0);
+    }
+
+    private static boolean isDepth(long key) {
+        return (key & 1) != 0;
+    }
+}
@@ -0,0 +1,202 @@
+package lv.sergluka.ib_client.impl.replay;
+
+import com.ib.client.Contract;
+import com.ib.client.EJavaSignal;
+import com.ib.client.EMessage;
+import com.ib.client.EWrapper;
+import com.ib.client.Order;
+import com.ib.client.TagValue;
+import lv.sergluka.ib_client.IbExceptions;
+import lv.sergluka.ib_client.impl.BatchingSocket;
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Socket, which is always connected and binds market data subscriptions to {@link JournalReplayer} instead of
+ * sending them to TWS.
+ *
+ * <p>There is no handshake, so TWS API would reject the other requests as sent to an outdated TWS. They are rejected
+ * before that with {@link IbExceptions.NotAvailableInReplayError}, which fails the request at registration. Cancels
+ * of them are no-ops, as nothing is sent.
+ */
+public class ReplaySocket extends BatchingSocket {
+
+    private final JournalReplayer replayer;
+    private volatile boolean connected = true;
+
+    public ReplaySocket(EWrapper wrapper, JournalReplayer replayer) {
+        super(wrapper, new EJavaSignal(), new OrderLatencyTracker());
+        this.replayer = replayer;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void eDisconnect() {
+        connected = false;
+    }
+
+    @Override
+    public void reqMktData(int tickerId, Contract contract, String genericTickList, boolean snapshot,
+                           boolean regulatorySnapshot, List<TagValue> mktDataOptions) {
+        if (snapshot) {
+            throw new IbExceptions.NotAvailableInReplayError("Market data snapshot");
+        }
+        replayer.subscribe(tickerId, contract.conid(), false);
+    }
+
+    @Override
+    public void cancelMktData(int tickerId) {
+        replayer.unsubscribe(tickerId);
+    }
+
+    @Override
+    public void reqMktDepth(int tickerId, Contract contract, int numRows, boolean isSmartDepth,
+                            List<TagValue> mktDepthOptions) {
+        replayer.subscribe(tickerId, contract.conid(), true);
+    }
+
+    @Override
+    public void cancelMktDepth(int tickerId, boolean isSmartDepth) {
+        replayer.unsubscribe(tickerId);
+    }
+
+    @Override
+    public void reqMarketDataType(int marketDataType) {
+        // Journal has the type it was recorded with
+    }
+
+    @Override
+    public void placeOrder(int id, Contract contract, Order order) {
+        throw new IbExceptions.NotAvailableInReplayError("Order placement");
+    }
+
+    @Override
+    public void cancelOrder(int id) {
+        throw new IbExceptions.NotAvailableInReplayError("Order cancel");
+    }
+
+    @Override
+    public void reqGlobalCancel() {
+        throw new IbExceptions.NotAvailableInReplayError("Global cancel");
+    }
+
+    @Override
+    public void reqOpenOrders() {
+        throw new IbExceptions.NotAvailableInReplayError("Open orders");
+    }
+
+    @Override
+    public void reqAutoOpenOrders(boolean autoBind) {
+        throw new IbExceptions.NotAvailableInReplayError("Open orders");
+    }
+
+    @Override
+    public void reqPositions() {
+        throw new IbExceptions.NotAvailableInReplayError("Positions");
+    }
+
+    @Override
+    public void cancelPositions() {
+    }
+
+    @Override
+    public void reqPositionsMulti(int reqId, String account, String modelCode) {
+        throw new IbExceptions.NotAvailableInReplayError("Positions");
+    }
+
+    @Override
+    public void cancelPositionsMulti(int reqId) {
+    }
+
+    @Override
+    public void reqAccountUpdates(boolean subscribe, String acctCode) {
+        if (subscribe) {
+            throw new IbExceptions.NotAvailableInReplayError("Account portfolio");
+        }
+    }
+
+    @Override
+    public void reqAccountSummary(int reqId, String group, String tags) {
+        throw new IbExceptions.NotAvailableInReplayError("Account summary");
+    }
+
+    @Override
+    public void cancelAccountSummary(int reqId) {
+    }
+
+    @Override
+    public void reqPnL(int reqId, String account, String modelCode) {
+        throw new IbExceptions.NotAvailableInReplayError("PnL");
+    }
+
+    @Override
+    public void cancelPnL(int reqId) {
+    }
+
+    @Override
+    public void reqPnLSingle(int reqId, String account, String modelCode, int conId) {
+        throw new IbExceptions.NotAvailableInReplayError("PnL");
+    }
+
+    @Override
+    public void cancelPnLSingle(int reqId) {
+    }
+
+    @Override
+    public void reqContractDetails(int reqId, Contract contract) {
+        throw new IbExceptions.NotAvailableInReplayError("Contract details");
+    }
+
+    @Override
+    public void reqMatchingSymbols(int reqId, String pattern) {
+        throw new IbExceptions.NotAvailableInReplayError("Symbol search");
+    }
+
+    @Override
+    public void reqMarketRule(int marketRuleId) {
+        throw new IbExceptions.NotAvailableInReplayError("Market rule");
+    }
+
+    @Override
+    public void reqMktDepthExchanges() {
+        throw new IbExceptions.NotAvailableInReplayError("Market depth exchanges");
+    }
+
+    @Override
+    public void reqCurrentTime() {
+        throw new IbExceptions.NotAvailableInReplayError("Current time");
+    }
+
+    @Override
+    public void reqHistoricalData(int tickerId, Contract contract, String endDateTime, String durationStr,
+                                  String barSizeSetting, String whatToShow, int useRTH, int formatDate,
+                                  boolean keepUpToDate, List<TagValue> chartOptions) {
+        throw new IbExceptions.NotAvailableInReplayError("Historical data");
+    }
+
+    @Override
+    public void cancelHistoricalData(int tickerId) {
+    }
+
+    @Override
+    public void reqHistoricalTicks(int reqId, Contract contract, String startDateTime, String endDateTime,
+                                   int numberOfTicks, String whatToShow, int useRth, boolean ignoreSize,
+                                   List<TagValue> miscOptions) {
+        throw new IbExceptions.NotAvailableInReplayError("Historical ticks");
+    }
+
+    @Override
+    public void setServerLogLevel(int level) {
+    }
+
+    @Override
+    protected void sendMsg(EMessage msg) throws IOException {
+        throw new IOException("Request is not available in replay");
+    }
+}
@@ -0,0 +1,159 @@
+package lv.sergluka.ib_client.impl.request;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Handoff of items of a subscription from TWS reader thread to the subscriber executor.
+ *
+ * <p>Items are put to a preallocated ring by the single producer, TWS reader thread, so decoding doesn't wait for
+ * the subscriber. If the subscriber falls behind and the ring is full, items go to an unbounded overflow queue until
+ * it catches up, so nothing is lost and the order is kept. Terminal signals are delivered after all the items.
+ *
+ * <p>Drain task is serialized by the work-in-progress counter, so the executor can be multithreaded.
+ */
+final class DispatchRing<T> implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatchRing.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<DispatchRing> TAIL =
+            AtomicLongFieldUpdater.newUpdater(DispatchRing.class, "tail");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<DispatchRing> HEAD =
+            AtomicLongFieldUpdater.newUpdater(DispatchRing.class, "head");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DispatchRing> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(DispatchRing.class, "wip");
+
+    private final Object[] slots;
+    private final int mask;
+    private final Executor executor;
+    private final FluxSink<T> emitter;
+    private final Queue<T> overflow = new ConcurrentLinkedQueue<>();
+
+    // Written only by the producer
+    private volatile long tail;
+    // Written only by the drain task
+    private volatile long head;
+    private volatile int wip;
+    private volatile boolean done;
+    private Throwable error;
+    private boolean terminated;
+
+    /**
+     * Creates ring.
+     *
+     * @param size power of two number of slots
+     */
+    DispatchRing(int size, Executor executor, FluxSink<T> emitter) {
+        slots = new Object[size];
+        mask = size - 1;
+        this.executor = executor;
+        this.emitter = emitter;
+    }
+
+    void onNext(T item) {
+        long current = tail;
+        if (current - head < slots.length && overflow.isEmpty()) {
+            slots[(int) current & mask] = item;
+            TAIL.lazySet(this, current + 1);
+        } else {
+            overflow.offer(item);
+        }
+        schedule();
+    }
+
+    void onComplete() {
+        done = true;
+        schedule();
+    }
+
+    void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        schedule();
+    }
+
+    /**
+     * Number of items waiting for delivery.
+     *
+     * <p>Counts the overflow queue in linear time, so it is for metrics only.
+     */
+    long size() {
+        return Math.max(0, tail - head) + overflow.size();
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        do {
+            drain();
+            missed = WIP.addAndGet(this, -missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        while (!terminated) {
+            if (emitter.isCancelled()) {
+                clear();
+                return;
+            }
+
+            boolean finished = done;
+            T item = poll();
+            if (item != null) {
+                emitter.next(item);
+            } else if (finished) {
+                terminated = true;
+                if (error == null) {
+                    emitter.complete();
+                } else {
+                    emitter.error(error);
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        long current = head;
+        if (current != tail) {
+            int index = (int) current & mask;
+            T item = (T) slots[index];
+            slots[index] = null;
+            HEAD.lazySet(this, current + 1);
+            return item;
+        }
+        return overflow.poll();
+    }
+
+    private void clear() {
+        while (poll() != null) {
+            // Drop items of the cancelled subscription
+        }
+    }
+
+    private void schedule() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            log.error("Dispatch executor rejected delivery, subscriber is disconnected", e);
+            WIP.lazySet(this, 0);
+            emitter.error(e);
+        }
+    }
+}
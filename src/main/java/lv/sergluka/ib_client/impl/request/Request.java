@@ -3,18 +3,32 @@ package lv.sergluka.ib_client.impl.request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 class Request<T> {
 
     private static final Logger log = LoggerFactory.getLogger(Request.class);
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<Request> PUBLISHED =
+            AtomicLongFieldUpdater.newUpdater(Request.class, "published");
+
     private final FluxSink<T> emitter;
     private final RequestKey key;
     private final Consumer<Integer> registrationFn;
     private final Consumer<Integer> unregistrationFn;
     private final Object userData;
+    private final UnaryOperator<T> publishFn;
+    private final DispatchRing<T> ring;
+
+    private volatile long demanded;
+    // Written only by the reader thread, so the ordered store is enough
+    private volatile long published;
 
     @Override
     public String toString() {
@@ -31,13 +45,33 @@ class Request<T> {
             RequestKey key,
             Consumer<Integer> registrationFn,
             Consumer<Integer> unregistrationFn,
-            Object userData) {
+            Object userData,
+            UnaryOperator<T> publishFn) {
+        this(emitter, key, registrationFn, unregistrationFn, userData, publishFn, null, 0);
+    }
+
+    /**
+     * Creates request.
+     *
+     * @param executor executor of the subscriber, or null to deliver by TWS reader thread
+     * @param ringSize size of the ring of items queued for the executor
+     */
+    Request(FluxSink<T> emitter,
+            RequestKey key,
+            Consumer<Integer> registrationFn,
+            Consumer<Integer> unregistrationFn,
+            Object userData,
+            UnaryOperator<T> publishFn,
+            Executor executor,
+            int ringSize) {
 
         this.emitter = emitter;
         this.key = key;
         this.registrationFn = registrationFn;
         this.unregistrationFn = unregistrationFn;
         this.userData = userData;
+        this.publishFn = publishFn;
+        ring = executor == null ? null : new DispatchRing<>(ringSize, executor, emitter);
     }
 
     void unregister() {
@@ -52,11 +86,21 @@ class Request<T> {
     }
 
     void onNext(T data) {
-        emitter.next(data);
+        PUBLISHED.lazySet(this, published + 1);
+        T item = publishFn == null ? data : publishFn.apply(data);
+        if (ring == null) {
+            emitter.next(item);
+        } else {
+            ring.onNext(item);
+        }
     }
 
     void onComplete() {
-        emitter.complete();
+        if (ring == null) {
+            emitter.complete();
+        } else {
+            ring.onComplete();
+        }
     }
 
     void onError(Throwable throwable) {
@@ -64,7 +108,36 @@ class Request<T> {
             log.error("TWS reports an error for already disposed request {}: {}", this, throwable.getMessage());
             return;
         }
-        emitter.error(throwable);
+        if (ring == null) {
+            emitter.error(throwable);
+        } else {
+            ring.onError(throwable);
+        }
+    }
+
+    /**
+     * Accumulates demand of the subscriber, {@code request(n)} calls are serialized by Reactive Streams.
+     */
+    void addDemand(long count) {
+        demanded = Operators.addCap(demanded, count);
+    }
+
+    /**
+     * Number of published items which the subscriber hasn't requested yet, i.e. are buffered by the sink.
+     */
+    long getBacklog() {
+        return Math.max(0, published - demanded);
+    }
+
+    /**
+     * Number of items waiting for the subscriber executor.
+     */
+    long getQueued() {
+        return ring == null ? 0 : ring.size();
+    }
+
+    RequestKey getKey() {
+        return key;
     }
 
     Object getUserData() {
@@ -0,0 +1,172 @@
+package lv.sergluka.ib_client.impl.request;
+
+import lv.sergluka.ib_client.impl.utils.ConcurrentIntMap;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Dispatch index of active requests.
+ *
+ * <p>Requests with ID are kept in an int-keyed map. The same ID can be shared by requests of different types
+ * (i.e. order placement and order cancel both use order ID), so every ID refers to a tiny array of requests,
+ * the most recently registered first. Requests without ID (event streams like order statuses or positions)
+ * are allowed once per type and are kept in a table indexed by type ordinal.
+ *
+ * <p>Lookups are lock-free and don't depend on number of active requests. Modifications are serialized.
+ */
+final class RequestIndex {
+
+    private static final Request<?>[] EMPTY = new Request<?>[0];
+
+    private final ConcurrentIntMap<Request<?>[]> byId = new ConcurrentIntMap<>();
+    private final AtomicReferenceArray<Request<?>> byType =
+            new AtomicReferenceArray<>(RequestRepository.Type.values().length);
+
+    /**
+     * Finds request by ID.
+     *
+     * @param type request type, or {@code null} to match any type with given ID
+     * @param id   request ID
+     * @return request or {@code null}
+     */
+    Request<?> get(RequestRepository.Type type, int id) {
+        Request<?>[] requests = byId.get(id);
+        if (requests == null) {
+            return null;
+        }
+
+        if (type == null) {
+            return requests[0];
+        }
+
+        for (Request<?> request : requests) {
+            if (request.getKey().getType() == type) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds request without ID.
+     *
+     * @param type request type
+     * @return request or {@code null}
+     */
+    Request<?> get(RequestRepository.Type type) {
+        return byType.get(type.ordinal());
+    }
+
+    synchronized boolean add(Request<?> request) {
+        RequestKey key = request.getKey();
+        if (key.getId() == null) {
+            return byType.compareAndSet(key.getType().ordinal(), null, request);
+        }
+
+        int id = key.getId();
+        Request<?>[] existing = byId.get(id);
+        if (existing == null) {
+            existing = EMPTY;
+        }
+
+        for (Request<?> other : existing) {
+            if (other.getKey().getType() == key.getType()) {
+                return false;
+            }
+        }
+
+        Request<?>[] updated = new Request<?>[existing.length + 1];
+        updated[0] = request;
+        System.arraycopy(existing, 0, updated, 1, existing.length);
+        byId.put(id, updated);
+        return true;
+    }
+
+    synchronized boolean remove(Request<?> request) {
+        RequestKey key = request.getKey();
+        if (key.getId() == null) {
+            return byType.compareAndSet(key.getType().ordinal(), request, null);
+        }
+
+        int id = key.getId();
+        Request<?>[] existing = byId.get(id);
+        if (existing == null) {
+            return false;
+        }
+
+        int position = -1;
+        for (int i = 0; i < existing.length; i++) {
+            if (existing[i] == request) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            return false;
+        }
+
+        if (existing.length == 1) {
+            byId.remove(id);
+            return true;
+        }
+
+        Request<?>[] updated = new Request<?>[existing.length - 1];
+        System.arraycopy(existing, 0, updated, 0, position);
+        System.arraycopy(existing, position + 1, updated, position, updated.length - position);
+        byId.put(id, updated);
+        return true;
+    }
+
+    void forEach(Consumer<Request<?>> consumer) {
+        byId.forEach(requests -> {
+            for (Request<?> request : requests) {
+                consumer.accept(request);
+            }
+        });
+
+        for (int i = 0; i < byType.length(); i++) {
+            Request<?> request = byType.get(i);
+            if (request != null) {
+                consumer.accept(request);
+            }
+        }
+    }
+
+    long count(RequestRepository.Type type) {
+        long[] result = new long[1];
+        forEach(request -> {
+            if (request.getKey().getType() == type) {
+                result[0]++;
+            }
+        });
+        return result[0];
+    }
+
+    long backlog(RequestRepository.Type type) {
+        long[] result = new long[1];
+        forEach(request -> {
+            if (request.getKey().getType() == type) {
+                result[0] += request.getBacklog();
+            }
+        });
+        return result[0];
+    }
+
+    long queued(RequestRepository.Type type) {
+        long[] result = new long[1];
+        forEach(request -> {
+            if (request.getKey().getType() == type) {
+                result[0] += request.getQueued();
+            }
+        });
+        return result[0];
+    }
+
+    synchronized void clear() {
+        byId.clear();
+        for (int i = 0; i < byType.length(); i++) {
+            byType.set(i, null);
+        }
+    }
+}
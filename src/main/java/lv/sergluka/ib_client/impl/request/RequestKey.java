@@ -30,12 +30,12 @@ public class RequestKey {
         }
 
         RequestKey typeKey = (RequestKey) obj;
-        return (type == null || type == typeKey.type) && Objects.equals(id, typeKey.id);
+        return type == typeKey.type && Objects.equals(id, typeKey.id);
     }
 
     @Override
     public int hashCode() {
-        return 0;
+        return Objects.hash(type, id);
     }
 
     @Override
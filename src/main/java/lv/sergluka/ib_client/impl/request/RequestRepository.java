@@ -3,31 +3,51 @@ package lv.sergluka.ib_client.impl.request;
 import lv.sergluka.ib_client.IbClient;
 import lv.sergluka.ib_client.IbExceptions;
 import lv.sergluka.ib_client.impl.IdGenerator;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+import lv.sergluka.ib_client.params.DispatchOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public class RequestRepository implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(RequestRepository.class);
     private final IbClient client;
     private final IdGenerator idGenerator;
+    private final IbMetrics metrics;
+    private final DispatchOptions dispatch;
 
-    private final Map<RequestKey, Request> requests = new ConcurrentHashMap<>();
+    private final RequestIndex requests = new RequestIndex();
 
     public RequestRepository(IbClient client, IdGenerator idGenerator) {
+        this(client, idGenerator, IbMetrics.NOOP);
+    }
+
+    public RequestRepository(IbClient client, IdGenerator idGenerator, IbMetrics metrics) {
+        this(client, idGenerator, metrics, new DispatchOptions());
+    }
+
+    public RequestRepository(IbClient client, IdGenerator idGenerator, IbMetrics metrics, DispatchOptions dispatch) {
         this.client = client;
         this.idGenerator = idGenerator;
+        this.metrics = metrics;
+        this.dispatch = dispatch;
+
+        for (Type type : Type.values()) {
+            metrics.gauge("requests.live." + type, () -> requests.count(type));
+            metrics.gauge("requests.backlog." + type, () -> requests.backlog(type));
+            metrics.gauge("requests.queued." + type, () -> requests.queued(type));
+        }
     }
 
     @Override
     public void close() {
-        requests.values().forEach(Request::unregister);
+        requests.forEach(Request::unregister);
         requests.clear();
         log.debug("RequestRepository is closed");
     }
@@ -37,11 +57,33 @@ public class RequestRepository implements AutoCloseable {
     }
 
     public <T> void onNext(Type type, Integer reqId, T data, Boolean shouldExists) {
-        get(type, reqId, shouldExists).ifPresent(request -> request.onNext(data));
+        Request<T> request = get(type, reqId, shouldExists);
+        if (request != null) {
+            metrics.onMessage(request.getKey().getType().name());
+            request.onNext(data);
+        }
+    }
+
+    /**
+     * Allocation-free variant of {@link #onNext(Type, Integer, Object, Boolean)} for high-rate callbacks.
+     */
+    public <T> void onNext(Type type, int reqId, T data, boolean shouldExists) {
+        @SuppressWarnings("unchecked")
+        Request<T> request = (Request<T>) requests.get(type, reqId);
+        if (request == null) {
+            logMissing(type, reqId, shouldExists);
+            return;
+        }
+        metrics.onMessage(type.name());
+        request.onNext(data);
     }
 
     public void onError(Type type, Integer reqId, Throwable throwable, Boolean shouldExists) {
-        get(type, reqId, shouldExists).ifPresent(request -> request.onError(throwable));
+        Request<?> request = get(type, reqId, shouldExists);
+        if (request != null) {
+            requests.remove(request);
+            request.onError(throwable);
+        }
     }
 
     public void onError(Type type, Integer reqId, Throwable throwable) {
@@ -49,48 +91,70 @@ public class RequestRepository implements AutoCloseable {
     }
 
     public void onError(Integer reqId, Throwable throwable) {
-        get(null, reqId, true).ifPresent(request -> request.onError(throwable));
+        onError(null, reqId, throwable, true);
     }
 
     public void onError(Integer reqId, Throwable throwable, Boolean shouldExists) {
-        get(null, reqId, shouldExists).ifPresent(request -> request.onError(throwable));
+        onError(null, reqId, throwable, shouldExists);
     }
 
     public void onComplete(Type type, Integer reqId, Boolean shouldExists) {
-        get(type, reqId, shouldExists).ifPresent(Request::onComplete);
+        Request<?> request = get(type, reqId, shouldExists);
+        if (request != null) {
+            requests.remove(request);
+            request.onComplete();
+        }
     }
 
     public <T> void onNextAndComplete(Type type, Integer reqId, T data, Boolean shouldExists) {
-        get(type, reqId, shouldExists).ifPresent(request -> {
+        Request<T> request = get(type, reqId, shouldExists);
+        if (request != null) {
+            requests.remove(request);
+            metrics.onMessage(request.getKey().getType().name());
             request.onNext(data);
             request.onComplete();
-        });
+        }
+    }
+
+    public boolean contains(Type type, int reqId) {
+        return requests.get(type, reqId) != null;
     }
 
     public Object getUserData(Type type, int reqId) {
-        return get(type, reqId, true).map(Request::getUserData).orElse(null);
+        Request<?> request = get(type, reqId, true);
+        if (request == null) {
+            return null;
+        }
+        return request.getUserData();
     }
 
-    private <T> Optional<Request<T>> get(Type type, Integer reqId, Boolean shouldExists) {
-        @SuppressWarnings("unchecked")
-        Request<T> request = requests.get(new RequestKey(type, reqId));
+    private <T> Request<T> get(Type type, Integer reqId, Boolean shouldExists) {
+        Request<T> request = find(type, reqId);
         if (request == null) {
-            if (shouldExists) {
-                log.error("Cannot find request '{}' id={}", type, reqId);
-            } else {
-                log.trace("Cannot find request '{}' id={}", type, reqId);
-            }
+            logMissing(type, reqId, shouldExists);
         }
-        return Optional.ofNullable(request);
+        return request;
     }
 
-    private void remove(RequestKey key) {
-        Request<?> prev = requests.remove(key);
-        if (prev == null) {
-            throw new IllegalArgumentException(String.format("Unknown request: %s", key));
+    private void logMissing(Type type, Integer reqId, boolean shouldExists) {
+        if (shouldExists) {
+            log.error("Cannot find request '{}' id={}", type, reqId);
+        } else {
+            log.trace("Cannot find request '{}' id={}", type, reqId);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> Request<T> find(Type type, Integer reqId) {
+        if (reqId != null) {
+            return (Request<T>) requests.get(type, reqId);
+        }
+        if (type != null) {
+            return (Request<T>) requests.get(type);
+        }
+        return null;
+    }
+
     public enum Type {
         EVENT_CONTRACT_PNL,
         EVENT_ACCOUNT_PNL,
@@ -99,6 +163,7 @@ public class RequestRepository implements AutoCloseable {
         EVENT_ORDER_STATUS,
         EVENT_MARKET_DATA,
         EVENT_MARKET_DATA_LVL2,
+        EVENT_ORDER_BOOK,
         EVENT_PORTFOLIO,
         EVENT_HISTORICAL_DATA,
         EVENT_EXECUTION_INFO,
@@ -122,7 +187,10 @@ public class RequestRepository implements AutoCloseable {
         private RequestRepository.Type type;
         private Consumer<Integer> register;
         private Consumer<Integer> unregister;
+        private Consumer<Integer> release;
         private Object userData;
+        private UnaryOperator<T> publish;
+        private FluxSink.OverflowStrategy overflowStrategy = FluxSink.OverflowStrategy.BUFFER;
         private boolean withId = false;
         private Integer id;
 
@@ -159,11 +227,45 @@ public class RequestRepository implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Function releasing local state of the request, is called on dispose whether connection is alive or not.
+         *
+         * @param newRelease release function, accepts request ID
+         * @return this builder
+         */
+        public RequestBuilder<T> release(Consumer<Integer> newRelease) {
+            this.release = newRelease;
+            return this;
+        }
+
         public RequestBuilder<T> userData(Object data) {
             this.userData = data;
             return this;
         }
 
+        /**
+         * Function applied by TWS reader thread to every item before it is passed to the subscriber, i.e. to
+         * publish an immutable copy of a mutable cached object.
+         *
+         * @param newPublish copy function
+         * @return this builder
+         */
+        public RequestBuilder<T> copyOnPublish(UnaryOperator<T> newPublish) {
+            this.publish = newPublish;
+            return this;
+        }
+
+        /**
+         * Backpressure strategy of the subscription, {@link FluxSink.OverflowStrategy#BUFFER} by default.
+         *
+         * @param newStrategy strategy
+         * @return this builder
+         */
+        public RequestBuilder<T> overflowStrategy(FluxSink.OverflowStrategy newStrategy) {
+            this.overflowStrategy = newStrategy;
+            return this;
+        }
+
         public RequestBuilder<T> id(int newId) {
             this.id = newId;
             withId = true;
@@ -191,22 +293,29 @@ public class RequestRepository implements AutoCloseable {
                 }
 
                 RequestKey key = new RequestKey(type, requestId);
-                Request<T> request = new Request<>(emitter, key, register, unregister, userData);
+                Executor executor = emitter.currentContext()
+                                           .getOrDefault(DispatchOptions.EXECUTOR_KEY, dispatch.getExecutor());
+                Request<T> request = new Request<>(emitter, key, register, unregister, userData, publish,
+                                                   executor, dispatch.getRingSize());
 
                 if (!client.isConnected()) {
                     emitter.error(new IbExceptions.NotConnectedError());
                     return;
                 }
 
-                Request<?> old = requests.putIfAbsent(key, request);
-                if (old != null) {
+                if (!requests.add(request)) {
                     log.error("Duplicated request: {}", key);
                     emitter.error(new IbExceptions.DuplicatedRequestError(key));
                     return;
                 }
 
+                emitter.onRequest(request::addDemand);
                 emitter.onDispose(() -> {
-                    remove(key);
+                    // Completed requests are already removed, so the same request can be repeated at once
+                    requests.remove(request);
+                    if (release != null) {
+                        release.accept(requestId);
+                    }
                     if (client.isConnected()) {
                         log.debug("Unregister from {}", request);
                         request.unregister();
@@ -217,7 +326,7 @@ public class RequestRepository implements AutoCloseable {
 
                 request.register();
                 log.info("Register to {}", request);
-            });
+            }, overflowStrategy);
         }
     }
 }
@@ -0,0 +1,238 @@
+package lv.sergluka.ib_client.impl.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Open addressing hash map with primitive {@code int} keys.
+ *
+ * <p>Reads are lock-free and allocation-free, so the map can be queried from the TWS reader thread on every
+ * callback. Writes are serialized and replace whole slots, so a reader always observes a consistent entry.
+ *
+ * @param <V> value type
+ */
+public class ConcurrentIntMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int HASH_SHIFT = 16;
+
+    // Sentinel for removed entries, so probing continues past them
+    private static final Node<?> TOMBSTONE = new Node<>(0, null);
+
+    private volatile AtomicReferenceArray<Node<V>> table;
+    private int size;
+    private int tombstones;
+
+    public ConcurrentIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentIntMap(int expectedSize) {
+        table = new AtomicReferenceArray<>(tableSizeFor(expectedSize));
+    }
+
+    public V get(int key) {
+        AtomicReferenceArray<Node<V>> tab = table;
+        int mask = tab.length() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            Node<V> node = tab.get(index);
+            if (node == null) {
+                return null;
+            }
+            if (node != TOMBSTONE && node.key == key) {
+                return node.value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public synchronized V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+
+        int index = find(table, key);
+        if (index >= 0) {
+            V prev = table.get(index).value;
+            table.set(index, new Node<>(key, value));
+            return prev;
+        }
+
+        insert(key, value);
+        return null;
+    }
+
+    public synchronized V putIfAbsent(int key, V value) {
+        V prev = get(key);
+        if (prev != null) {
+            return prev;
+        }
+
+        return put(key, value);
+    }
+
+    public synchronized V computeIfAbsent(int key, IntFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(int key) {
+        int index = find(table, key);
+        if (index < 0) {
+            return null;
+        }
+
+        V prev = table.get(index).value;
+        table.set(index, (Node<V>) TOMBSTONE);
+        size--;
+        tombstones++;
+        return prev;
+    }
+
+    public synchronized boolean remove(int key, V value) {
+        V prev = get(key);
+        if (prev == null || prev != value) {
+            return false;
+        }
+
+        remove(key);
+        return true;
+    }
+
+    public synchronized void clear() {
+        table = new AtomicReferenceArray<>(table.length());
+        size = 0;
+        tombstones = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Iterates over the values that are present at the moment of the call.
+     *
+     * @param consumer value consumer
+     */
+    public void forEach(Consumer<? super V> consumer) {
+        AtomicReferenceArray<Node<V>> tab = table;
+        for (int i = 0; i < tab.length(); i++) {
+            Node<V> node = tab.get(i);
+            if (node != null && node != TOMBSTONE) {
+                consumer.accept(node.value);
+            }
+        }
+    }
+
+    public List<V> values() {
+        List<V> result = new ArrayList<>();
+        forEach(result::add);
+        return result;
+    }
+
+    private void insert(int key, V value) {
+        if ((size + tombstones + 1) * 2 > table.length()) {
+            resize();
+        }
+
+        AtomicReferenceArray<Node<V>> tab = table;
+        int mask = tab.length() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            Node<V> node = tab.get(index);
+            if (node == null || node == TOMBSTONE) {
+                if (node == TOMBSTONE) {
+                    tombstones--;
+                }
+                tab.set(index, new Node<>(key, value));
+                size++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void resize() {
+        AtomicReferenceArray<Node<V>> old = table;
+
+        // Grow only if live entries need it, otherwise just sweep tombstones out
+        int capacity = old.length();
+        if ((size + 1) * 2 > capacity / 2) {
+            capacity *= 2;
+        }
+
+        AtomicReferenceArray<Node<V>> tab = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.length(); i++) {
+            Node<V> node = old.get(i);
+            if (node == null || node == TOMBSTONE) {
+                continue;
+            }
+
+            int index = hash(node.key) & mask;
+            while (tab.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            tab.set(index, node);
+        }
+
+        tombstones = 0;
+        table = tab;
+    }
+
+    private static <V> int find(AtomicReferenceArray<Node<V>> tab, int key) {
+        int mask = tab.length() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            Node<V> node = tab.get(index);
+            if (node == null) {
+                return -1;
+            }
+            if (node != TOMBSTONE && node.key == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static int hash(int key) {
+        int hash = key * HASH_MULTIPLIER;
+        return hash ^ (hash >>> HASH_SHIFT);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        return Math.max(capacity, 2);
+    }
+
+    private static final class Node<V> {
+        private final int key;
+        private final V value;
+
+        Node(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package lv.sergluka.ib_client.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Layout of journal segments.
+ *
+ * <p>Segment is a sequence of fixed size little-endian records, a record with zero time marks the end of data.
+ * Writes to the mapping are plain ones, so there is no ordering between fields of a record for other readers.
+ */
+final class JournalFormat {
+
+    static final int RECORD_SIZE = 64;
+
+    static final int TIME = 0;
+    static final int TICKER = 8;
+    static final int KIND = 12;
+    static final int OPERATION = 13;
+    static final int SIDE = 14;
+    static final int TEXT_LENGTH = 15;
+    static final int FIELD = 16;
+    static final int SIZE = 20;
+    static final int VALUE = 24;
+
+    // Strings are ASCII, longer ones are truncated
+    static final int STRING_TEXT = 24;
+    static final int STRING_CAPACITY = 40;
+    static final int MARKET_MAKER_TEXT = 32;
+    static final int MARKET_MAKER_CAPACITY = 32;
+
+    static final TickJournal.Kind[] KINDS = TickJournal.Kind.values();
+
+    private static final int MAX_TEXT_LENGTH = 0xFF;
+    private static final int ASCII_LIMIT = 0x80;
+    private static final int NON_ASCII = '?';
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d+)\\.ticks");
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(long number) {
+        return String.format("%010d.ticks", number);
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    static long segmentNumber(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a journal segment: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Writes string without allocation.
+     */
+    static void writeText(ByteBuffer buffer, int record, int offset, int capacity, String text) {
+        if (text == null) {
+            buffer.put(record + TEXT_LENGTH, (byte) 0);
+            return;
+        }
+        int length = Math.min(text.length(), capacity);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            buffer.put(record + offset + i, (byte) (c < ASCII_LIMIT ? c : NON_ASCII));
+        }
+        buffer.put(record + TEXT_LENGTH, (byte) Math.min(text.length(), MAX_TEXT_LENGTH));
+    }
+
+    static String readText(ByteBuffer buffer, int record, int offset, int capacity) {
+        int length = Math.min(textLength(buffer, record), capacity);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer.get(record + offset + i);
+        }
+        return new String(chars);
+    }
+
+    static int textLength(ByteBuffer buffer, int record) {
+        return buffer.get(record + TEXT_LENGTH) & MAX_TEXT_LENGTH;
+    }
+}
@@ -0,0 +1,216 @@
+package lv.sergluka.ib_client.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static lv.sergluka.ib_client.journal.JournalFormat.FIELD;
+import static lv.sergluka.ib_client.journal.JournalFormat.KIND;
+import static lv.sergluka.ib_client.journal.JournalFormat.MARKET_MAKER_CAPACITY;
+import static lv.sergluka.ib_client.journal.JournalFormat.MARKET_MAKER_TEXT;
+import static lv.sergluka.ib_client.journal.JournalFormat.OPERATION;
+import static lv.sergluka.ib_client.journal.JournalFormat.RECORD_SIZE;
+import static lv.sergluka.ib_client.journal.JournalFormat.SIDE;
+import static lv.sergluka.ib_client.journal.JournalFormat.SIZE;
+import static lv.sergluka.ib_client.journal.JournalFormat.STRING_CAPACITY;
+import static lv.sergluka.ib_client.journal.JournalFormat.STRING_TEXT;
+import static lv.sergluka.ib_client.journal.JournalFormat.TICKER;
+import static lv.sergluka.ib_client.journal.JournalFormat.TIME;
+import static lv.sergluka.ib_client.journal.JournalFormat.VALUE;
+
+/**
+ * Journal of fixed size binary records in rolling memory-mapped segment files.
+ *
+ * <p>Records are written straight to the mapping of the current segment, so the hot path neither allocates nor
+ * makes system calls. Writes are serialized by the journal monitor, which is uncontended, as ticks come from the
+ * single TWS reader thread. A new segment is created and mapped when the current one is full. Segments are never
+ * synced explicitly, the OS writes them back, and the last one is synced on {@link #close()}. Time of a record is
+ * wall clock time in nanoseconds since the epoch, measured by {@link System#nanoTime()} since the journal start.
+ *
+ * <p>Recording continues in the next segment after the existing ones of the directory.
+ *
+ * <pre>{@code
+ * try (MappedTickJournal journal = new MappedTickJournal(Paths.get("journal"))) {
+ *     IbClient client = new IbClient(new IbClientOptions().tickJournal(journal));
+ *     ...
+ * }
+ * }</pre>
+ *
+ * @see TickJournalReader
+ */
+public class MappedTickJournal implements TickJournal, AutoCloseable {
+
+    /**
+     * 1M records.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = RECORD_SIZE * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(MappedTickJournal.class);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long epochBase;
+    private final long nanoBase;
+
+    private MappedByteBuffer segment;
+    private int writePosition;
+    private long nextSegment;
+    private volatile boolean closed;
+
+    public MappedTickJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates journal.
+     *
+     * @param directory   directory of segment files, is created if missing
+     * @param segmentSize size of the segment file, is rounded down to the record size
+     * @throws IOException if the first segment cannot be created
+     */
+    public MappedTickJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment should fit at least one record");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        epochBase = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        nanoBase = System.nanoTime();
+
+        Files.createDirectories(directory);
+        List<Path> existing = JournalFormat.segments(directory);
+        nextSegment = existing.isEmpty() ? 0 : JournalFormat.segmentNumber(existing.get(existing.size() - 1)) + 1;
+        roll();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void onTickPrice(int tickerId, int field, double price) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, field);
+        segment.putDouble(record + VALUE, price);
+        commit(record, tickerId, Kind.PRICE);
+    }
+
+    @Override
+    public synchronized void onTickSize(int tickerId, int field, int size) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, field);
+        segment.putInt(record + SIZE, size);
+        commit(record, tickerId, Kind.SIZE);
+    }
+
+    @Override
+    public synchronized void onTickGeneric(int tickerId, int field, double value) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, field);
+        segment.putDouble(record + VALUE, value);
+        commit(record, tickerId, Kind.GENERIC);
+    }
+
+    @Override
+    public synchronized void onTickString(int tickerId, int field, String value) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, field);
+        JournalFormat.writeText(segment, record, STRING_TEXT, STRING_CAPACITY, value);
+        commit(record, tickerId, Kind.STRING);
+    }
+
+    @Override
+    public synchronized void onMarketDepth(int tickerId, int position, String marketMaker, int operation, int side,
+                                           double price, int size) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, position);
+        segment.put(record + OPERATION, (byte) operation);
+        segment.put(record + SIDE, (byte) side);
+        segment.putInt(record + SIZE, size);
+        segment.putDouble(record + VALUE, price);
+        JournalFormat.writeText(segment, record, MARKET_MAKER_TEXT, MARKET_MAKER_CAPACITY, marketMaker);
+        commit(record, tickerId, Kind.DEPTH);
+    }
+
+    @Override
+    public synchronized void onSubscribe(int tickerId, int conid, boolean depth) {
+        int record = claim();
+        if (record < 0) {
+            return;
+        }
+        segment.putInt(record + FIELD, conid);
+        segment.put(record + SIDE, (byte) (depth ? 1 : 0));
+        commit(record, tickerId, Kind.SUBSCRIBE);
+    }
+
+    /**
+     * Reserves the next record.
+     *
+     * @return offset of the record in the segment, or -1 if the journal is closed or failed
+     */
+    private int claim() {
+        if (closed) {
+            return -1;
+        }
+        if (writePosition == segmentSize) {
+            try {
+                roll();
+            } catch (IOException e) {
+                log.error("Cannot create journal segment, recording is stopped", e);
+                closed = true;
+                return -1;
+            }
+        }
+        int record = writePosition;
+        writePosition += RECORD_SIZE;
+        return record;
+    }
+
+    private void commit(int record, int tickerId, Kind kind) {
+        segment.putInt(record + TICKER, tickerId);
+        segment.put(record + KIND, (byte) kind.ordinal());
+        segment.putLong(record + TIME, epochBase + System.nanoTime() - nanoBase);
+    }
+
+    private void roll() throws IOException {
+        Path path = directory.resolve(JournalFormat.segmentName(nextSegment));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            next.order(ByteOrder.LITTLE_ENDIAN);
+            segment = next;
+        }
+        nextSegment++;
+        writePosition = 0;
+        log.debug("Journal segment {} is started", path);
+    }
+}
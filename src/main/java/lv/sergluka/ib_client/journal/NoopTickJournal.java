@@ -0,0 +1,29 @@
+package lv.sergluka.ib_client.journal;
+
+final class NoopTickJournal implements TickJournal {
+
+    @Override
+    public void onTickPrice(int tickerId, int field, double price) {
+    }
+
+    @Override
+    public void onTickSize(int tickerId, int field, int size) {
+    }
+
+    @Override
+    public void onTickGeneric(int tickerId, int field, double value) {
+    }
+
+    @Override
+    public void onTickString(int tickerId, int field, String value) {
+    }
+
+    @Override
+    public void onMarketDepth(int tickerId, int position, String marketMaker, int operation, int side, double price,
+                              int size) {
+    }
+
+    @Override
+    public void onSubscribe(int tickerId, int conid, boolean depth) {
+    }
+}
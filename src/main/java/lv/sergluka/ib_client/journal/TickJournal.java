@@ -0,0 +1,90 @@
+package lv.sergluka.ib_client.journal;
+
+/**
+ * Sink of the raw market data feed, i.e. for post-trade analysis.
+ *
+ * <p>Tick methods are called by TWS reader thread for every received callback, before the client processes it, and
+ * must not allocate or block. Subscriptions are recorded from the subscribing thread, so the recorded ticker IDs
+ * can be bound to contracts at replay.
+ *
+ * @see MappedTickJournal
+ * @see TickJournalReader
+ */
+public interface TickJournal {
+
+    /**
+     * Journal that ignores everything, the default.
+     */
+    TickJournal NOOP = new NoopTickJournal();
+
+    /**
+     * Called on {@code EWrapper.tickPrice}.
+     *
+     * @param tickerId request ID
+     * @param field    tick type
+     * @param price    price
+     */
+    void onTickPrice(int tickerId, int field, double price);
+
+    /**
+     * Called on {@code EWrapper.tickSize}.
+     *
+     * @param tickerId request ID
+     * @param field    tick type
+     * @param size     size
+     */
+    void onTickSize(int tickerId, int field, int size);
+
+    /**
+     * Called on {@code EWrapper.tickGeneric}.
+     *
+     * @param tickerId request ID
+     * @param field    tick type
+     * @param value    value
+     */
+    void onTickGeneric(int tickerId, int field, double value);
+
+    /**
+     * Called on {@code EWrapper.tickString}.
+     *
+     * @param tickerId request ID
+     * @param field    tick type
+     * @param value    value
+     */
+    void onTickString(int tickerId, int field, String value);
+
+    /**
+     * Called on {@code EWrapper.updateMktDepth} and {@code EWrapper.updateMktDepthL2}.
+     *
+     * @param tickerId    request ID
+     * @param position    order book row
+     * @param marketMaker market maker, null for Level I depth
+     * @param operation   0 - insert, 1 - update, 2 - delete
+     * @param side        0 - ask, 1 - bid
+     * @param price       price
+     * @param size        size
+     */
+    void onMarketDepth(int tickerId, int position, String marketMaker, int operation, int side, double price,
+                       int size);
+
+    /**
+     * Called when Level I or Level II market data is requested.
+     *
+     * @param tickerId request ID
+     * @param conid    contract ID
+     * @param depth    true for market depth, false for ticks
+     */
+    void onSubscribe(int tickerId, int conid, boolean depth);
+
+    /**
+     * Kind of the journal record, matches the callback.
+     */
+    enum Kind {
+        PRICE,
+        SIZE,
+        GENERIC,
+        STRING,
+        DEPTH,
+        SUBSCRIBE,
+    }
+}
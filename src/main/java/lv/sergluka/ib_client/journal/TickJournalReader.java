@@ -0,0 +1,189 @@
+package lv.sergluka.ib_client.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static lv.sergluka.ib_client.journal.JournalFormat.FIELD;
+import static lv.sergluka.ib_client.journal.JournalFormat.KIND;
+import static lv.sergluka.ib_client.journal.JournalFormat.MARKET_MAKER_CAPACITY;
+import static lv.sergluka.ib_client.journal.JournalFormat.MARKET_MAKER_TEXT;
+import static lv.sergluka.ib_client.journal.JournalFormat.OPERATION;
+import static lv.sergluka.ib_client.journal.JournalFormat.RECORD_SIZE;
+import static lv.sergluka.ib_client.journal.JournalFormat.SIDE;
+import static lv.sergluka.ib_client.journal.JournalFormat.SIZE;
+import static lv.sergluka.ib_client.journal.JournalFormat.STRING_CAPACITY;
+import static lv.sergluka.ib_client.journal.JournalFormat.STRING_TEXT;
+import static lv.sergluka.ib_client.journal.JournalFormat.TICKER;
+import static lv.sergluka.ib_client.journal.JournalFormat.TIME;
+import static lv.sergluka.ib_client.journal.JournalFormat.VALUE;
+
+/**
+ * Sequential cursor over the records of {@link MappedTickJournal}.
+ *
+ * <p>Getters return fields of the current record, so iteration doesn't allocate. Segments existing at open are
+ * read. The journal should be closed before it is read, as a record being written may be seen partially.
+ *
+ * <pre>{@code
+ * try (TickJournalReader reader = TickJournalReader.open(Paths.get("journal"))) {
+ *     while (reader.next()) {
+ *         if (reader.getKind() == TickJournal.Kind.PRICE) {
+ *             prices.add(reader.getTickerId(), reader.getField(), reader.getPrice());
+ *         }
+ *     }
+ * }
+ * }</pre>
+ */
+public class TickJournalReader implements AutoCloseable {
+
+    private final List<Path> segments;
+    private int nextSegment;
+    private MappedByteBuffer buffer;
+    private int record = -RECORD_SIZE;
+
+    private TickJournalReader(List<Path> segments) {
+        this.segments = segments;
+    }
+
+    public static TickJournalReader open(Path directory) throws IOException {
+        return new TickJournalReader(JournalFormat.segments(directory));
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        nextSegment = segments.size();
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false if there are no more records
+     * @throws IOException if a segment cannot be mapped
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (buffer != null) {
+                int candidate = record + RECORD_SIZE;
+                if (candidate + RECORD_SIZE <= buffer.capacity() && buffer.getLong(candidate + TIME) != 0) {
+                    record = candidate;
+                    return true;
+                }
+            }
+            if (nextSegment >= segments.size()) {
+                return false;
+            }
+            buffer = map(segments.get(nextSegment++));
+            record = -RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Wall clock time of the record.
+     *
+     * @return nanoseconds since the epoch
+     */
+    public long getTime() {
+        return buffer.getLong(record + TIME);
+    }
+
+    public int getTickerId() {
+        return buffer.getInt(record + TICKER);
+    }
+
+    public TickJournal.Kind getKind() {
+        return JournalFormat.KINDS[buffer.get(record + KIND)];
+    }
+
+    /**
+     * Tick type, order book row for {@link TickJournal.Kind#DEPTH}, or contract ID for
+     * {@link TickJournal.Kind#SUBSCRIBE}.
+     *
+     * @return field
+     */
+    public int getField() {
+        return buffer.getInt(record + FIELD);
+    }
+
+    /**
+     * Price of {@link TickJournal.Kind#PRICE} and {@link TickJournal.Kind#DEPTH}, value of
+     * {@link TickJournal.Kind#GENERIC}.
+     *
+     * @return price
+     */
+    public double getPrice() {
+        return buffer.getDouble(record + VALUE);
+    }
+
+    /**
+     * Size of {@link TickJournal.Kind#SIZE} and {@link TickJournal.Kind#DEPTH}.
+     *
+     * @return size
+     */
+    public int getSize() {
+        return buffer.getInt(record + SIZE);
+    }
+
+    /**
+     * Value of {@link TickJournal.Kind#STRING}, or market maker of {@link TickJournal.Kind#DEPTH}.
+     *
+     * @return ASCII string, may be truncated, see {@link #isTruncated()}. Null for Level I depth
+     */
+    public String getText() {
+        if (getKind() == TickJournal.Kind.DEPTH) {
+            return JournalFormat.textLength(buffer, record) == 0
+                   ? null
+                   : JournalFormat.readText(buffer, record, MARKET_MAKER_TEXT, MARKET_MAKER_CAPACITY);
+        }
+        return JournalFormat.readText(buffer, record, STRING_TEXT, STRING_CAPACITY);
+    }
+
+    /**
+     * Whether {@link #getText()} is shorter than the original one.
+     *
+     * @return true if the text is truncated
+     */
+    public boolean isTruncated() {
+        int capacity = getKind() == TickJournal.Kind.DEPTH ? MARKET_MAKER_CAPACITY : STRING_CAPACITY;
+        return JournalFormat.textLength(buffer, record) > capacity;
+    }
+
+    /**
+     * Operation of {@link TickJournal.Kind#DEPTH}.
+     *
+     * @return 0 - insert, 1 - update, 2 - delete
+     */
+    public int getOperation() {
+        return buffer.get(record + OPERATION);
+    }
+
+    /**
+     * Side of {@link TickJournal.Kind#DEPTH}.
+     *
+     * @return 0 - ask, 1 - bid
+     */
+    public int getSide() {
+        return buffer.get(record + SIDE);
+    }
+
+    /**
+     * Whether {@link TickJournal.Kind#SUBSCRIBE} is for market depth.
+     *
+     * @return true for market depth, false for ticks
+     */
+    public boolean isDepth() {
+        return buffer.get(record + SIDE) != 0;
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            return mapping;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package lv.sergluka.ib_client.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Sink of internal client metrics.
+ *
+ * <p>Hot path methods are called by TWS reader thread for every message and must not allocate or block.
+ * Timings are measured in nanoseconds: the caller takes {@link #startTime()} before the measured section and passes
+ * it to the corresponding {@code on*} method after it, so disabled metrics don't even read the clock.
+ *
+ * @see IbMetricsRecorder
+ */
+public interface IbMetrics {
+
+    /**
+     * Metrics that ignore everything, the default.
+     */
+    IbMetrics NOOP = new NoopMetrics();
+
+    /**
+     * Start of a measured section.
+     *
+     * @return current {@link System#nanoTime()}, or any value if timings are not collected
+     */
+    long startTime();
+
+    /**
+     * Called after every {@code EReader.processMsgs} cycle of the reader thread.
+     *
+     * @param startTime value of {@link #startTime()} taken before the cycle
+     */
+    void onReaderCycle(long startTime);
+
+    /**
+     * Called after every handled TWS callback.
+     *
+     * @param callback  callback
+     * @param startTime value of {@link #startTime()} taken at the beginning of the callback
+     */
+    void onCallback(Callback callback, long startTime);
+
+    /**
+     * Called for every item dispatched to a request subscriber.
+     *
+     * @param type name of the request type, i.e. {@code EVENT_MARKET_DATA}. The same instance is passed for the same
+     *             type, so it can be used as a key without allocation
+     */
+    void onMessage(String type);
+
+    /**
+     * Registers gauge sampled at scrape time. Gauge with the same name replaces the previous one.
+     *
+     * @param name     gauge name
+     * @param supplier gauge value supplier, called by the scraping thread
+     */
+    void gauge(String name, LongSupplier supplier);
+
+    /**
+     * Measured TWS callbacks.
+     */
+    enum Callback {
+        TICK_PRICE,
+        TICK_SIZE,
+        TICK_GENERIC,
+        TICK_STRING,
+        TICK_SNAPSHOT_END,
+        MARKET_DEPTH,
+        MARKET_DEPTH_L2,
+        ORDER_STATUS,
+        OPEN_ORDER,
+        EXECUTION,
+        COMMISSION,
+        POSITION,
+        PORTFOLIO,
+        ACCOUNT_SUMMARY,
+        PNL,
+        HISTORICAL_DATA,
+        HISTORICAL_DATA_UPDATE,
+        HISTORICAL_TICKS,
+        ERROR,
+    }
+}
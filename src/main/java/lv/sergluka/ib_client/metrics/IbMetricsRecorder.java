@@ -0,0 +1,120 @@
+package lv.sergluka.ib_client.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory {@link IbMetrics} to be scraped by an application, i.e. periodically logged or exported to a monitoring
+ * system.
+ *
+ * <p>Keeps latency histograms of reader cycles and of every {@link IbMetrics.Callback}, and counters of
+ * dispatched messages per request type. Counters are cumulative, the scraper derives rates from the
+ * difference between two scrapes.
+ *
+ * <pre>{@code
+ * IbMetricsRecorder metrics = new IbMetricsRecorder();
+ * IbClient client = new IbClient(new IbClientOptions().metrics(metrics));
+ * ...
+ * log.info("tickPrice: {}", metrics.getCallbackLatency(IbMetrics.Callback.TICK_PRICE));
+ * log.info("Gauges: {}", metrics.getGauges());
+ * }</pre>
+ */
+public class IbMetricsRecorder implements IbMetrics {
+
+    private final LatencyHistogram readerLatency = new LatencyHistogram();
+    private final LatencyHistogram[] callbackLatencies = new LatencyHistogram[Callback.values().length];
+    private final Map<String, LongAdder> messages = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public IbMetricsRecorder() {
+        for (int i = 0; i < callbackLatencies.length; i++) {
+            callbackLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public long startTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void onReaderCycle(long startTime) {
+        readerLatency.record(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void onCallback(Callback callback, long startTime) {
+        callbackLatencies[callback.ordinal()].record(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void onMessage(String type) {
+        LongAdder counter = messages.get(type);
+        if (counter == null) {
+            counter = messages.computeIfAbsent(type, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Time spent by the reader thread in every {@code EReader.processMsgs} cycle, in nanoseconds.
+     *
+     * @return live histogram
+     */
+    public LatencyHistogram getReaderLatency() {
+        return readerLatency;
+    }
+
+    /**
+     * Time spent in the callback, in nanoseconds. Number of calls is {@link LatencyHistogram#getCount()}.
+     *
+     * @param callback callback
+     * @return live histogram
+     */
+    public LatencyHistogram getCallbackLatency(Callback callback) {
+        return callbackLatencies[callback.ordinal()];
+    }
+
+    /**
+     * Number of items dispatched to subscribers of the request type since start or {@link #reset()}.
+     *
+     * @param type name of the request type, i.e. {@code EVENT_MARKET_DATA}
+     * @return number of messages
+     */
+    public long getMessageCount(String type) {
+        LongAdder counter = messages.get(type);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Samples all the registered gauges.
+     *
+     * @return gauge values sorted by name
+     */
+    public SortedMap<String, Long> getGauges() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        gauges.forEach((name, supplier) -> result.put(name, supplier.getAsLong()));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * Resets histograms and counters, gauges stay registered.
+     */
+    public void reset() {
+        readerLatency.reset();
+        for (LatencyHistogram histogram : callbackLatencies) {
+            histogram.reset();
+        }
+        messages.values().forEach(LongAdder::reset);
+    }
+}
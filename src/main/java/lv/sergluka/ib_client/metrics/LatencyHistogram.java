@@ -0,0 +1,113 @@
+package lv.sergluka.ib_client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram of non-negative values, i.e. latencies in nanoseconds.
+ *
+ * <p>Values are grouped HdrHistogram-style: every power of two range is split into 32 linear sub-buckets, so a
+ * value is reported with relative error below 3% in the whole {@code long} range. Buckets are preallocated,
+ * recording is lock-free and doesn't allocate.
+ *
+ * <p>Statistics are read from live buckets, so when recording runs concurrently they are approximate.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final double PERCENT = 100.0;
+    private static final double MEDIAN = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long positive = Math.max(value, 0);
+
+        buckets.incrementAndGet(index(positive));
+        count.incrementAndGet();
+        sum.addAndGet(positive);
+
+        long current = max.get();
+        while (positive > current && !max.compareAndSet(current, positive)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    /**
+     * Value below which given percent of recorded values fall.
+     *
+     * @param percentile percentile, from 0 to 100
+     * @return the highest value equivalent to the bucket of the percentile, or 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, PERCENT) / PERCENT));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{count=%d, mean=%.1f, p50=%d, p99=%d, p99.9=%d, max=%d}",
+                             getCount(), getMean(), getValueAtPercentile(MEDIAN), getValueAtPercentile(P99),
+                             getValueAtPercentile(P999), getMax());
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,27 @@
+package lv.sergluka.ib_client.metrics;
+
+import java.util.function.LongSupplier;
+
+final class NoopMetrics implements IbMetrics {
+
+    @Override
+    public long startTime() {
+        return 0;
+    }
+
+    @Override
+    public void onReaderCycle(long startTime) {
+    }
+
+    @Override
+    public void onCallback(Callback callback, long startTime) {
+    }
+
+    @Override
+    public void onMessage(String type) {
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier supplier) {
+    }
+}
@@ -0,0 +1,231 @@
+package lv.sergluka.ib_client.metrics;
+
+import com.ib.client.Contract;
+import com.ib.client.Order;
+import com.ib.client.OrderStatus;
+import lv.sergluka.ib_client.impl.utils.ConcurrentIntMap;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies of the order lifecycle, from {@link lv.sergluka.ib_client.IbClient#placeOrder} to TWS callbacks.
+ *
+ * <p>Placement and cancel requests are stamped with {@link System#nanoTime()}, a batch of orders is stamped again when
+ * it is written. The first callback of each {@link Leg} of the order is matched to the stamp and recorded into the
+ * histogram of the leg, the order exchange and the order type. Histograms are resolved when the order is stamped, so
+ * callbacks record them lock-free and without allocation. Stamps of orders, which are filled, canceled, inactive,
+ * rejected or not sent, are dropped.
+ *
+ * <pre>{@code
+ * client.getOrderLatency().getHistograms().forEach((name, histogram) ->
+ *     log.info("{}: p50={}, p99={}", name, histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99)));
+ * }</pre>
+ */
+public class OrderLatencyTracker {
+
+    private static final Leg[] LEGS = Leg.values();
+
+    private final ConcurrentIntMap<Stamp> stamps = new ConcurrentIntMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    // Histograms of all the legs by exchange and order type
+    private final Map<String, Map<String, LatencyHistogram[]>> legs = new ConcurrentHashMap<>();
+
+    /**
+     * Stamps order placement, is called before the order is sent.
+     *
+     * @param orderId  order ID
+     * @param contract contract of the order
+     * @param order    order
+     */
+    public void onPlace(int orderId, Contract contract, Order order) {
+        String exchange = contract.exchange() != null ? contract.exchange() : "";
+        String type = order.getOrderType() != null ? order.getOrderType() : "";
+        stamps.put(orderId, new Stamp(resolve(exchange, type), System.nanoTime()));
+    }
+
+    /**
+     * Stamps placement again, is called right before the buffered order is written.
+     *
+     * @param orderId order ID
+     */
+    public void onSend(int orderId) {
+        Stamp stamp = stamps.get(orderId);
+        if (stamp != null) {
+            stamp.placed = System.nanoTime();
+        }
+    }
+
+    /**
+     * Drops the stamp of the order, which is rejected by TWS or is not sent.
+     *
+     * @param orderId order ID
+     */
+    public void onError(int orderId) {
+        stamps.remove(orderId);
+    }
+
+    /**
+     * Stamps order cancel, is called before the cancel is sent.
+     *
+     * @param orderId order ID
+     */
+    public void onCancel(int orderId) {
+        Stamp stamp = stamps.get(orderId);
+        if (stamp != null) {
+            stamp.canceled = System.nanoTime();
+        }
+    }
+
+    public void onOpenOrder(int orderId) {
+        Stamp stamp = stamps.get(orderId);
+        if (stamp != null) {
+            record(stamp, Leg.OPEN_ORDER, stamp.placed);
+        }
+    }
+
+    public void onStatus(int orderId, OrderStatus status) {
+        Stamp stamp = stamps.get(orderId);
+        if (stamp == null || status == null) {
+            return;
+        }
+
+        switch (status) {
+            case PreSubmitted:
+                record(stamp, Leg.PRE_SUBMITTED, stamp.placed);
+                break;
+            case Submitted:
+                record(stamp, Leg.SUBMITTED, stamp.placed);
+                break;
+            case Filled:
+                record(stamp, Leg.FILLED, stamp.placed);
+                stamps.remove(orderId, stamp);
+                break;
+            case Cancelled:
+            case ApiCancelled:
+                if (stamp.canceled != 0) {
+                    record(stamp, Leg.CANCELED, stamp.canceled);
+                }
+                stamps.remove(orderId, stamp);
+                break;
+            case Inactive:
+                stamps.remove(orderId, stamp);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Histogram of the leg for orders of the exchange and the type.
+     *
+     * @param leg       lifecycle leg
+     * @param exchange  exchange of the order contract, i.e. "SMART"
+     * @param orderType order type, i.e. "LMT"
+     * @return histogram of nanoseconds, or null if no order of the exchange and the type is placed
+     */
+    public LatencyHistogram getHistogram(Leg leg, String exchange, String orderType) {
+        return histograms.get(name(leg, exchange, orderType));
+    }
+
+    /**
+     * All the histograms by name {@code order.<leg>.<exchange>.<order type>}, i.e. {@code order.submitted.SMART.LMT}.
+     *
+     * @return live histograms of nanoseconds
+     */
+    public SortedMap<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * Number of orders, which are waiting for the final callback.
+     *
+     * @return number of stamped orders
+     */
+    public int getTracked() {
+        return stamps.size();
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    private LatencyHistogram[] resolve(String exchange, String type) {
+        Map<String, LatencyHistogram[]> types = legs.get(exchange);
+        if (types == null) {
+            types = legs.computeIfAbsent(exchange, key -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram[] resolved = types.get(type);
+        if (resolved == null) {
+            resolved = types.computeIfAbsent(type, key -> {
+                LatencyHistogram[] created = new LatencyHistogram[LEGS.length];
+                for (Leg leg : LEGS) {
+                    created[leg.ordinal()] = histograms.computeIfAbsent(name(leg, exchange, type),
+                                                                        unused -> new LatencyHistogram());
+                }
+                return created;
+            });
+        }
+        return resolved;
+    }
+
+    private static void record(Stamp stamp, Leg leg, long since) {
+        if (!stamp.recorded(leg)) {
+            stamp.histograms[leg.ordinal()].record(System.nanoTime() - since);
+        }
+    }
+
+    private static String name(Leg leg, String exchange, String orderType) {
+        return String.join(".", "order", leg.getName(), exchange, orderType);
+    }
+
+    /**
+     * Measured intervals. All of them start at {@code placeOrder}, except {@link #CANCELED}, which starts at
+     * {@code cancelOrder}.
+     */
+    public enum Leg {
+        OPEN_ORDER("open_order"),
+        PRE_SUBMITTED("pre_submitted"),
+        SUBMITTED("submitted"),
+        FILLED("filled"),
+        CANCELED("canceled");
+
+        private final String name;
+
+        Leg(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class Stamp {
+        private final LatencyHistogram[] histograms;
+        private volatile long placed;
+        private volatile long canceled;
+        private int legs;
+
+        private Stamp(LatencyHistogram[] histograms, long placed) {
+            this.histograms = histograms;
+            this.placed = placed;
+        }
+
+        /**
+         * Marks the leg as recorded. Callbacks come from TWS reader thread only.
+         *
+         * @param leg leg
+         * @return true if the leg has been recorded before
+         */
+        private boolean recorded(Leg leg) {
+            int bit = 1 << leg.ordinal();
+            boolean before = (legs & bit) != 0;
+            legs |= bit;
+            return before;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package lv.sergluka.ib_client.params;
+
+import reactor.util.context.Context;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Delivery of subscription items to subscribers.
+ *
+ * <p>By default items are delivered by TWS reader thread, so a slow subscriber stalls decoding of all the others.
+ * With an executor, TWS reader thread only puts items to a preallocated ring of the subscription, and the executor
+ * delivers them, one task at a time per subscription. The executor can be defined for all the subscriptions here, or
+ * per subscription via the subscriber context:
+ *
+ * <pre>{@code
+ * client.subscribeOnMarketData(contract)
+ *       .subscriberContext(DispatchOptions.deliverOn(executor))
+ *       .subscribe(tick -> ...);
+ * }</pre>
+ *
+ * <p>Number of queued items is reported as {@code requests.queued.<type>} gauge.
+ */
+public class DispatchOptions {
+
+    /**
+     * Subscriber context key of the {@link Executor} of the subscription.
+     */
+    public static final String EXECUTOR_KEY = DispatchOptions.class.getName() + ".executor";
+
+    private static final int DEFAULT_RING_SIZE = 1024;
+
+    private Executor executor;
+    private int ringSize = DEFAULT_RING_SIZE;
+
+    /**
+     * Context, which makes the subscription delivered by the executor.
+     *
+     * @param executor subscription executor
+     * @return subscriber context
+     */
+    public static Context deliverOn(Executor executor) {
+        return Context.of(EXECUTOR_KEY, executor);
+    }
+
+    /**
+     * Executor of the subscriptions, which don't define their own one. None by default.
+     *
+     * @param newExecutor executor, null to deliver by TWS reader thread
+     * @return this
+     */
+    public DispatchOptions executor(Executor newExecutor) {
+        executor = newExecutor;
+        return this;
+    }
+
+    /**
+     * Number of items of a subscription queued without allocation, 1024 by default. Items above are queued to an
+     * unbounded overflow queue.
+     *
+     * @param size power of two
+     * @return this
+     */
+    public DispatchOptions ringSize(int size) {
+        ringSize = size;
+        return this;
+    }
+
+    public void validate() {
+        if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size should be a power of two");
+        }
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getRingSize() {
+        return ringSize;
+    }
+}
@@ -0,0 +1,136 @@
+package lv.sergluka.ib_client.params;
+
+import lv.sergluka.ib_client.impl.Validators;
+
+import java.time.Duration;
+
+/**
+ * Limits of historical data requests, which are queued by the client to avoid IB pacing violations.
+ *
+ * <p>Defaults match IB limits for bars of 30 seconds or less and for historical ticks:
+ * <ul>
+ * <li>no more than 60 requests within any 10 minutes period;</li>
+ * <li>no more than 6 requests for the same contract and data type within 2 seconds;</li>
+ * <li>no identical requests within 15 seconds;</li>
+ * <li>no more than 50 simultaneous open requests.</li>
+ * </ul>
+ *
+ * @see <a href="https://interactivebrokers.github.io/tws-api/historical_limitations.html">
+ * TWS API: Historical Data Limitations</a>
+ */
+public class HistoricalPacingOptions {
+
+    private static final int DEFAULT_REQUESTS = 60;
+    private static final Duration DEFAULT_PERIOD = Duration.ofMinutes(10);
+    private static final int DEFAULT_CONTRACT_REQUESTS = 6;
+    private static final Duration DEFAULT_CONTRACT_PERIOD = Duration.ofSeconds(2);
+    private static final Duration DEFAULT_IDENTICAL_INTERVAL = Duration.ofSeconds(15);
+    private static final int DEFAULT_CONCURRENT_REQUESTS = 50;
+    private static final int DEFAULT_VIOLATION_RETRIES = 3;
+
+    private int requests = DEFAULT_REQUESTS;
+    private Duration period = DEFAULT_PERIOD;
+    private int contractRequests = DEFAULT_CONTRACT_REQUESTS;
+    private Duration contractPeriod = DEFAULT_CONTRACT_PERIOD;
+    private Duration identicalInterval = DEFAULT_IDENTICAL_INTERVAL;
+    private int concurrentRequests = DEFAULT_CONCURRENT_REQUESTS;
+    private int violationRetries = DEFAULT_VIOLATION_RETRIES;
+
+    /**
+     * Maximal number of requests within a sliding period, for all the contracts.
+     *
+     * @param count     number of requests
+     * @param newPeriod period
+     * @return this
+     */
+    public HistoricalPacingOptions maxRequests(int count, Duration newPeriod) {
+        requests = count;
+        period = newPeriod;
+        return this;
+    }
+
+    /**
+     * Maximal number of requests within a sliding period, for the same contract and data type.
+     *
+     * @param count     number of requests
+     * @param newPeriod period
+     * @return this
+     */
+    public HistoricalPacingOptions maxContractRequests(int count, Duration newPeriod) {
+        contractRequests = count;
+        contractPeriod = newPeriod;
+        return this;
+    }
+
+    /**
+     * Minimal interval between identical requests.
+     *
+     * @param interval interval
+     * @return this
+     */
+    public HistoricalPacingOptions identicalRequestInterval(Duration interval) {
+        identicalInterval = interval;
+        return this;
+    }
+
+    /**
+     * Maximal number of open requests, streaming subscriptions are not counted.
+     *
+     * @param count number of requests
+     * @return this
+     */
+    public HistoricalPacingOptions maxConcurrentRequests(int count) {
+        concurrentRequests = count;
+        return this;
+    }
+
+    /**
+     * Number of times the request is queued again after pacing violation error, i.e. because of requests of other
+     * clients of the same TWS. The whole queue is paused for identical request interval after the error.
+     *
+     * @param retries number of retries
+     * @return this
+     */
+    public HistoricalPacingOptions violationRetries(int retries) {
+        violationRetries = retries;
+        return this;
+    }
+
+    public void validate() {
+        Validators.intShouldBePositive(requests, "Number of requests should be positive");
+        Validators.durationShouldNotBeNegative(period, "Period should not be negative");
+        Validators.intShouldBePositive(contractRequests, "Number of contract requests should be positive");
+        Validators.durationShouldNotBeNegative(contractPeriod, "Contract period should not be negative");
+        Validators.durationShouldNotBeNegative(identicalInterval, "Identical request interval should not be negative");
+        Validators.intShouldBePositive(concurrentRequests, "Number of concurrent requests should be positive");
+        Validators.intShouldBePositiveOrZero(violationRetries, "Number of retries should not be negative");
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public int getContractRequests() {
+        return contractRequests;
+    }
+
+    public Duration getContractPeriod() {
+        return contractPeriod;
+    }
+
+    public Duration getIdenticalInterval() {
+        return identicalInterval;
+    }
+
+    public int getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    public int getViolationRetries() {
+        return violationRetries;
+    }
+}
@@ -0,0 +1,109 @@
+package lv.sergluka.ib_client.params;
+
+import lv.sergluka.ib_client.IbClient;
+import lv.sergluka.ib_client.impl.Validators;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Builds parameters for {@link IbClient#streamHistoricalTrades}, {@link IbClient#streamHistoricalBidAsks} and
+ * {@link IbClient#streamHistoricalMidpoints}.
+ *
+ * <p>Period is split to slices, which are downloaded in parallel by pages of 1000 ticks. Ticks are emitted in time
+ * order regardless of the number of slices in flight. Pages are paced with the other historical requests according
+ * to {@link IbClientOptions#historicalPacing}.
+ */
+public class HistoricalTicksParams {
+
+    private static final int DEFAULT_CONCURRENCY = 2;
+    private static final Duration DEFAULT_SLICE = Duration.ofHours(1);
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private ZoneId zone = ZoneId.systemDefault();
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private Duration slice = DEFAULT_SLICE;
+
+    /**
+     * Period of the ticks, mandatory.
+     *
+     * @param start Period start, inclusive. Uses TWS timezone specified at login
+     * @param end   Period end, exclusive. Uses TWS timezone specified at login
+     * @return this
+     */
+    public HistoricalTicksParams between(LocalDateTime start, LocalDateTime end) {
+        from = start;
+        to = end;
+        return this;
+    }
+
+    /**
+     * TWS timezone specified at login, system default by default.
+     *
+     * <p>Used to find the boundaries between pages, as IB returns tick time as UTC timestamp.
+     *
+     * @param newZone timezone
+     * @return this
+     */
+    public HistoricalTicksParams inZone(ZoneId newZone) {
+        zone = newZone;
+        return this;
+    }
+
+    /**
+     * Maximal number of slices downloaded at the same time, 2 by default.
+     *
+     * @param slices number of slices
+     * @return this
+     */
+    public HistoricalTicksParams withConcurrency(int slices) {
+        concurrency = slices;
+        return this;
+    }
+
+    /**
+     * Length of the slice downloaded by sequential pages, 1 hour by default.
+     *
+     * @param duration slice length, at least one second
+     * @return this
+     */
+    public HistoricalTicksParams withSlice(Duration duration) {
+        slice = duration;
+        return this;
+    }
+
+    public void validate() {
+        Validators.shouldNotBeNull(from, "Period start should be defined");
+        Validators.shouldNotBeNull(to, "Period end should be defined");
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Period start should be before its end");
+        }
+        Validators.shouldNotBeNull(zone, "Timezone should be defined");
+        Validators.intShouldBePositive(concurrency, "Concurrency should be positive");
+        if (slice == null || slice.getSeconds() < 1) {
+            throw new IllegalArgumentException("Slice should be at least one second");
+        }
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public Duration getSlice() {
+        return slice;
+    }
+}
@@ -1,12 +1,33 @@
 package lv.sergluka.ib_client.params;
 
+import lv.sergluka.ib_client.impl.Validators;
+import lv.sergluka.ib_client.journal.TickJournal;
+import lv.sergluka.ib_client.metrics.IbMetrics;
+
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.ZoneId;
 
 public class IbClientOptions {
 
     private static final int DEFAULT_DELAY_S = 10;
+    private static final int DEFAULT_MAX_FILLS = 100_000;
+    private static final Duration DEFAULT_MAX_FILL_AGE = Duration.ofDays(1);
 
     private Duration connectionDelay = Duration.ofSeconds(DEFAULT_DELAY_S);
+    private IbMetrics metrics = IbMetrics.NOOP;
+    private HistoricalPacingOptions historicalPacing = new HistoricalPacingOptions();
+    private MarketDataLineOptions marketDataLines = new MarketDataLineOptions();
+    private Path barStore;
+    private ZoneId twsZone = ZoneId.systemDefault();
+    private TickJournal tickJournal = TickJournal.NOOP;
+    private DispatchOptions dispatch = new DispatchOptions();
+    private WaitStrategy readerWaitStrategy = WaitStrategy.BLOCKING;
+    private ThreadAffinity threadAffinity = ThreadAffinity.NONE;
+    private boolean singleReaderThread;
+    private int orderStatusHistory;
+    private int maxFills = DEFAULT_MAX_FILLS;
+    private Duration maxFillAge = DEFAULT_MAX_FILL_AGE;
 
     /**
      * Delay before connection to TWS.
@@ -22,7 +43,216 @@ public class IbClientOptions {
         return this;
     }
 
+    /**
+     * Sink of internal metrics of reader thread, callbacks, requests and cache.
+     *
+     * <p>No metrics are collected by default. Use {@link lv.sergluka.ib_client.metrics.IbMetricsRecorder} to keep
+     * them in memory.
+     *
+     * @param newMetrics metrics sink
+     * @return this
+     */
+    public IbClientOptions metrics(IbMetrics newMetrics) {
+        this.metrics = newMetrics;
+        return this;
+    }
+
+    /**
+     * Limits of historical data requests, IB limits by default.
+     *
+     * @param pacing limits
+     * @return this
+     */
+    public IbClientOptions historicalPacing(HistoricalPacingOptions pacing) {
+        pacing.validate();
+        this.historicalPacing = pacing;
+        return this;
+    }
+
+    /**
+     * Budget of market data lines, IB minimal allotment by default.
+     *
+     * @param lines budget
+     * @return this
+     */
+    public IbClientOptions marketDataLines(MarketDataLineOptions lines) {
+        lines.validate();
+        this.marketDataLines = lines;
+        return this;
+    }
+
+    /**
+     * Directory of persistent cache of historical bars, which are requested by
+     * {@link lv.sergluka.ib_client.IbClient#reqHistoricalData}. Disabled by default.
+     *
+     * <p>Bars stored once are served from the cache, only the missing bars are requested from IB.
+     *
+     * @param directory cache directory, is created if missing
+     * @return this
+     */
+    public IbClientOptions barStore(Path directory) {
+        this.barStore = directory;
+        return this;
+    }
+
+    /**
+     * TWS timezone specified at login, system default by default.
+     *
+     * <p>Historical bar times are in it, so {@link #barStore} uses it to tell finished bars from the current one.
+     *
+     * @param zone timezone
+     * @return this
+     */
+    public IbClientOptions twsZone(ZoneId zone) {
+        Validators.shouldNotBeNull(zone, "Timezone should be defined");
+        this.twsZone = zone;
+        return this;
+    }
+
+    /**
+     * Sink of the raw market data feed: price, size, generic and string ticks and market depth updates.
+     *
+     * <p>Nothing is recorded by default. Use {@link lv.sergluka.ib_client.journal.MappedTickJournal} to record the
+     * feed to disk and {@link lv.sergluka.ib_client.journal.TickJournalReader} to read it back. The journal isn't
+     * closed by the client.
+     *
+     * @param journal journal
+     * @return this
+     */
+    public IbClientOptions tickJournal(TickJournal journal) {
+        this.tickJournal = journal;
+        return this;
+    }
+
+    /**
+     * Delivery of subscription items. By TWS reader thread by default.
+     *
+     * @param newDispatch delivery options
+     * @return this
+     */
+    public IbClientOptions dispatch(DispatchOptions newDispatch) {
+        newDispatch.validate();
+        this.dispatch = newDispatch;
+        return this;
+    }
+
+    /**
+     * How TWS reader thread waits for decoded messages, {@link WaitStrategy#BLOCKING} by default.
+     *
+     * @param strategy wait strategy
+     * @return this
+     */
+    public IbClientOptions readerWaitStrategy(WaitStrategy strategy) {
+        this.readerWaitStrategy = strategy;
+        return this;
+    }
+
+    /**
+     * Hook called on start of TWS reader threads, none by default.
+     *
+     * @param affinity hook
+     * @return this
+     */
+    public IbClientOptions threadAffinity(ThreadAffinity affinity) {
+        this.threadAffinity = affinity;
+        return this;
+    }
+
+    /**
+     * Whether the socket reader thread dispatches callbacks itself, false by default.
+     *
+     * <p>Saves the queue hop and the thread wake-up between TWS API reader thread and the processing thread, for
+     * the cost that slow callbacks delay reading of the socket. {@link #readerWaitStrategy} isn't used then.
+     *
+     * @param singleThread whether to read and dispatch by one thread
+     * @return this
+     */
+    public IbClientOptions singleReaderThread(boolean singleThread) {
+        this.singleReaderThread = singleThread;
+        return this;
+    }
+
+    /**
+     * Number of the last statuses kept per order, 0 by default. Only the latest status is kept then.
+     *
+     * @param size number of statuses
+     * @return this
+     * @see lv.sergluka.ib_client.types.IbOrder#getStatuses()
+     */
+    public IbClientOptions orderStatusHistory(int size) {
+        Validators.intShouldBePositiveOrZero(size, "History size should not be negative");
+        this.orderStatusHistory = size;
+        return this;
+    }
+
+    /**
+     * Retention of execution reports in the cache, 100000 reports within a day by default. Older reports are evicted.
+     *
+     * @param count maximal number of reports
+     * @param age   maximal age of a report since its arrival
+     * @return this
+     */
+    public IbClientOptions fillRetention(int count, Duration age) {
+        Validators.intShouldBePositive(count, "Number of fills should be positive");
+        Validators.durationShouldNotBeNegative(age, "Age should not be negative");
+        this.maxFills = count;
+        this.maxFillAge = age;
+        return this;
+    }
+
     public Duration getConnectionDelay() {
         return connectionDelay;
     }
+
+    public IbMetrics getMetrics() {
+        return metrics;
+    }
+
+    public HistoricalPacingOptions getHistoricalPacing() {
+        return historicalPacing;
+    }
+
+    public MarketDataLineOptions getMarketDataLines() {
+        return marketDataLines;
+    }
+
+    public Path getBarStore() {
+        return barStore;
+    }
+
+    public ZoneId getTwsZone() {
+        return twsZone;
+    }
+
+    public TickJournal getTickJournal() {
+        return tickJournal;
+    }
+
+    public DispatchOptions getDispatch() {
+        return dispatch;
+    }
+
+    public WaitStrategy getReaderWaitStrategy() {
+        return readerWaitStrategy;
+    }
+
+    public ThreadAffinity getThreadAffinity() {
+        return threadAffinity;
+    }
+
+    public boolean isSingleReaderThread() {
+        return singleReaderThread;
+    }
+
+    public int getOrderStatusHistory() {
+        return orderStatusHistory;
+    }
+
+    public int getMaxFills() {
+        return maxFills;
+    }
+
+    public Duration getMaxFillAge() {
+        return maxFillAge;
+    }
 }
@@ -0,0 +1,125 @@
+package lv.sergluka.ib_client.params;
+
+import lv.sergluka.ib_client.impl.Validators;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+/**
+ * Budget of market data lines, within which the client keeps market data requests to avoid IB error 101 "Max number
+ * of tickers has been reached".
+ *
+ * <p>Defaults match the minimal IB allotment of 100 market data lines and 3 simultaneous market depth requests.
+ * A request above the budget is queued until a line is released, higher priority first, then in order of arrival.
+ * Subscriptions have priority 0 and snapshots -1 by default, so a universe scanned by snapshots doesn't hold back
+ * subscriptions. Priority can be set per request via the subscriber context:
+ *
+ * <pre>{@code
+ * client.subscribeOnMarketData(contract)
+ *       .subscriberContext(MarketDataLineOptions.priority(10))
+ *       .subscribe(tick -> ...);
+ * }</pre>
+ *
+ * <p>If TWS rejects a request with error 101 anyway, i.e. because of the lines used by other clients of the account,
+ * the budget is lowered to the number of lines in use and the request is queued again. The lowered budget is raised
+ * by one line every recovery interval back to the configured number of lines. Numbers of used and queued
+ * lines are reported as {@code market_data.lines}, {@code market_data.queued}, {@code market_depth.lines} and
+ * {@code market_depth.queued} gauges.
+ *
+ * @see <a href="https://interactivebrokers.github.io/tws-api/market_data.html#market_lines">
+ * TWS API: Market Data Lines</a>
+ */
+public class MarketDataLineOptions {
+
+    /**
+     * Subscriber context key of the {@link Integer} priority of the request.
+     */
+    public static final String PRIORITY_KEY = MarketDataLineOptions.class.getName() + ".priority";
+
+    private static final int DEFAULT_LINES = 100;
+    private static final int DEFAULT_DEPTH_LINES = 3;
+    private static final Duration DEFAULT_RECOVERY_INTERVAL = Duration.ofMinutes(1);
+
+    private int lines = DEFAULT_LINES;
+    private int depthLines = DEFAULT_DEPTH_LINES;
+    private int maxQueued = Integer.MAX_VALUE;
+    private Duration recoveryInterval = DEFAULT_RECOVERY_INTERVAL;
+
+    /**
+     * Context, which sets priority of the request in the queue of market data lines.
+     *
+     * @param priority priority, higher is served first
+     * @return subscriber context
+     */
+    public static Context priority(int priority) {
+        return Context.of(PRIORITY_KEY, priority);
+    }
+
+    /**
+     * Number of simultaneous market data subscriptions and snapshots.
+     *
+     * @param count number of lines
+     * @return this
+     */
+    public MarketDataLineOptions maxLines(int count) {
+        lines = count;
+        return this;
+    }
+
+    /**
+     * Number of simultaneous market depth subscriptions.
+     *
+     * @param count number of lines
+     * @return this
+     */
+    public MarketDataLineOptions maxDepthLines(int count) {
+        depthLines = count;
+        return this;
+    }
+
+    /**
+     * Number of requests waiting for a line, unlimited by default. Requests above fail with
+     * {@link lv.sergluka.ib_client.IbExceptions.MarketDataLinesExceededError}.
+     *
+     * @param count number of requests, 0 to fail instead of queueing
+     * @return this
+     */
+    public MarketDataLineOptions maxQueued(int count) {
+        maxQueued = count;
+        return this;
+    }
+
+    /**
+     * Interval, after which the budget lowered by error 101 is raised by one line, 1 minute by default.
+     *
+     * @param interval interval
+     * @return this
+     */
+    public MarketDataLineOptions recoveryInterval(Duration interval) {
+        recoveryInterval = interval;
+        return this;
+    }
+
+    public void validate() {
+        Validators.intShouldBePositive(lines, "Number of lines should be positive");
+        Validators.intShouldBePositive(depthLines, "Number of depth lines should be positive");
+        Validators.intShouldBePositiveOrZero(maxQueued, "Number of queued requests should not be negative");
+        Validators.durationShouldNotBeNegative(recoveryInterval, "Recovery interval should not be negative");
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public int getDepthLines() {
+        return depthLines;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public Duration getRecoveryInterval() {
+        return recoveryInterval;
+    }
+}
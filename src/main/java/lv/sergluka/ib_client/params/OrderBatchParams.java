@@ -0,0 +1,82 @@
+package lv.sergluka.ib_client.params;
+
+import com.ib.client.Contract;
+import com.ib.client.Order;
+import lv.sergluka.ib_client.IbClient;
+import lv.sergluka.ib_client.impl.Validators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Builds a batch of orders for {@link IbClient#placeOrders(java.util.function.Consumer)}.
+ */
+public class OrderBatchParams {
+
+    private final List<Item> items = new ArrayList<>();
+
+    /**
+     * Adds an order to the batch.
+     *
+     * @param contract contract
+     * @param order    order. If {@link Order#orderId()} is 0, the ID is generated
+     * @return this
+     */
+    public OrderBatchParams add(Contract contract, Order order) {
+        Validators.shouldNotBeNull(contract, "Contract should be defined");
+        Validators.shouldNotBeNull(order, "Order should be defined");
+
+        items.add(new Item(contract, order));
+        return this;
+    }
+
+    public void validate() {
+        Validators.collectionShouldNotBeEmpty(items, "Orders should be defined");
+    }
+
+    /**
+     * Assigns IDs to orders without them from a single block.
+     *
+     * @param reserve reserves the number of IDs and returns the first one
+     */
+    public void assignIds(IntUnaryOperator reserve) {
+        int count = (int) items.stream().filter(item -> item.order.orderId() == 0).count();
+        if (count == 0) {
+            return;
+        }
+
+        int id = reserve.applyAsInt(count);
+        for (Item item : items) {
+            if (item.order.orderId() == 0) {
+                item.order.orderId(id++);
+            }
+        }
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Contract and order of the batch.
+     */
+    public static class Item {
+        private final Contract contract;
+        private final Order order;
+
+        private Item(Contract contract, Order order) {
+            this.contract = contract;
+            this.order = order;
+        }
+
+        public Contract getContract() {
+            return contract;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package lv.sergluka.ib_client.params;
+
+import lv.sergluka.ib_client.IbClient;
+
+/**
+ * Builds parameters for {@link IbClient#replay}.
+ *
+ * <p>By default the journal is replayed at the original speed, i.e. with the recorded gaps between callbacks.
+ */
+public class ReplayParams {
+
+    private double speed = 1;
+
+    /**
+     * Replays N times faster than the recording.
+     *
+     * @param multiplier speed multiplier, i.e. 10 to replay an hour in 6 minutes
+     * @return this
+     */
+    public ReplayParams speed(double multiplier) {
+        speed = multiplier;
+        return this;
+    }
+
+    /**
+     * Replays without gaps between callbacks.
+     *
+     * @return this
+     */
+    public ReplayParams asFastAsPossible() {
+        speed = Double.POSITIVE_INFINITY;
+        return this;
+    }
+
+    public void validate() {
+        if (Double.isNaN(speed) || speed <= 0) {
+            throw new IllegalArgumentException("Speed should be positive");
+        }
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+}
@@ -0,0 +1,26 @@
+package lv.sergluka.ib_client.params;
+
+/**
+ * Hook called by a client thread on its start, i.e. to pin it to a dedicated core with an affinity library.
+ *
+ * <pre>{@code
+ * new IbClientOptions().threadAffinity(name -> AffinityLock.acquireCore());
+ * }</pre>
+ *
+ * @see IbClientOptions#threadAffinity
+ */
+@FunctionalInterface
+public interface ThreadAffinity {
+
+    /**
+     * Hook, that does nothing, the default.
+     */
+    ThreadAffinity NONE = name -> { };
+
+    /**
+     * Called by the started thread.
+     *
+     * @param threadName name of the thread: "EReader" reads the socket, "IbReader" dispatches callbacks
+     */
+    void bind(String threadName);
+}
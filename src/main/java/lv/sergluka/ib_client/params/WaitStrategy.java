@@ -0,0 +1,24 @@
+package lv.sergluka.ib_client.params;
+
+/**
+ * How TWS reader thread waits for messages decoded from the socket.
+ *
+ * @see IbClientOptions#readerWaitStrategy
+ */
+public enum WaitStrategy {
+
+    /**
+     * Waits on a monitor, TWS API default. Costs a thread wake-up per message batch, but doesn't use CPU while idle.
+     */
+    BLOCKING,
+
+    /**
+     * Spins with {@link Thread#yield()}. Lower latency, while the core is shared with other threads.
+     */
+    YIELDING,
+
+    /**
+     * Spins without yielding. The lowest latency, occupies a whole core, so use it with dedicated cores only.
+     */
+    BUSY_SPIN,
+}
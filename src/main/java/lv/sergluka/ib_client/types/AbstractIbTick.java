@@ -0,0 +1,530 @@
+package lv.sergluka.ib_client.types;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import static lv.sergluka.ib_client.types.IbTickImpl.Types.*;
+
+/**
+ * Read API of a ticker state on top of the compact layout shared by {@link IbTickImpl} and {@link IbTickSnapshot}.
+ *
+ * <p>Numeric values are kept in a single {@code long[]}: a presence bitmask indexed by {@link IbTickImpl.Types}
+ * ordinal, followed by values of present types only, in ordinal order. Prices are stored as raw {@code double} bits,
+ * sizes as {@code long}. String values have a separate array. {@link BigDecimal} and {@link LocalDateTime} views are
+ * built only when a getter is called.
+ */
+public abstract class AbstractIbTick implements IbTick {
+
+    static final IbTickImpl.Types[] TYPES = IbTickImpl.Types.values();
+
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    // Layout of `slots`: presence bitmask words, followed by values of present types in ordinal order
+    static final int MASK_WORDS = 2;
+
+    // Position of each string type in `strings`, -1 for other types
+    static final int[] STRING_INDEX = new int[TYPES.length];
+    static final int STRINGS_COUNT;
+
+    private static final int WORD_SHIFT = 6;
+
+    // Difference between wall clock and `System.nanoTime()`, to convert update time on demand
+    private static final long WALL_CLOCK_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    static {
+        if (TYPES.length > MASK_WORDS * Long.SIZE) {
+            throw new IllegalStateException("Presence mask is too small for tick types");
+        }
+
+        int count = 0;
+        for (IbTickImpl.Types type : TYPES) {
+            STRING_INDEX[type.ordinal()] = type.getKind() == IbTickImpl.Kind.STRING ? count++ : -1;
+        }
+        STRINGS_COUNT = count;
+    }
+
+    AbstractIbTick() {
+    }
+
+    @Override
+    public boolean has(IbTickImpl.Types type) {
+        if (type.getKind() == IbTickImpl.Kind.STRING) {
+            return getString(type) != null;
+        }
+        return (slots()[word(type)] & bit(type)) != 0;
+    }
+
+    @Override
+    public double getPrice(IbTickImpl.Types type) {
+        long[] current = slots();
+        if ((current[word(type)] & bit(type)) == 0) {
+            return Double.NaN;
+        }
+
+        long raw = current[index(current, type)];
+        if (type.getKind() == IbTickImpl.Kind.SIZE) {
+            return raw;
+        }
+        return Double.longBitsToDouble(raw);
+    }
+
+    @Override
+    public long getSize(IbTickImpl.Types type) {
+        long[] current = slots();
+        if ((current[word(type)] & bit(type)) == 0) {
+            return 0;
+        }
+
+        long raw = current[index(current, type)];
+        if (type.getKind() == IbTickImpl.Kind.SIZE) {
+            return raw;
+        }
+        return (long) Double.longBitsToDouble(raw);
+    }
+
+    @Override
+    public String getString(IbTickImpl.Types type) {
+        String[] current = strings();
+        int index = STRING_INDEX[type.ordinal()];
+        if (current == null || index < 0) {
+            return null;
+        }
+        return current[index];
+    }
+
+    @Override
+    public Integer getBidSize() {
+        return integer(BID_SIZE);
+    }
+
+    @Override
+    public Integer getAskSize() {
+        return integer(ASK_SIZE);
+    }
+
+    @Override
+    public Integer getLastSize() {
+        return integer(LAST_SIZE);
+    }
+
+    @Override
+    public Integer getVolume() {
+        return integer(VOLUME);
+    }
+
+    @Override
+    public Integer getVolumeAverage() {
+        return integer(VOLUME_AVERAGE);
+    }
+
+    @Override
+    public Integer getOptionCallOpenInterest() {
+        return integer(OPTION_CALL_OPEN_INTEREST);
+    }
+
+    @Override
+    public Integer getOptionPutOpenInterest() {
+        return integer(OPTION_PUT_OPEN_INTEREST);
+    }
+
+    @Override
+    public Integer getOptionCallVolume() {
+        return integer(OPTION_CALL_VOLUME);
+    }
+
+    @Override
+    public Integer getOptionPutVolume() {
+        return integer(OPTION_PUT_VOLUME);
+    }
+
+    @Override
+    public Integer getActionVolume() {
+        return integer(ACTION_VOLUME);
+    }
+
+    @Override
+    public Integer getActionImbalance() {
+        return integer(ACTION_IMBALANCE);
+    }
+
+    @Override
+    public Integer getRegulatoryImbalance() {
+        return integer(REGULATORY_IMBALANCE);
+    }
+
+    @Override
+    public Integer getShortTermVolume3Min() {
+        return integer(SHORT_TERM_VOLUME3_MIN);
+    }
+
+    @Override
+    public Integer getShortTermVolume5Min() {
+        return integer(SHORT_TERM_VOLUME5_MIN);
+    }
+
+    @Override
+    public Integer getShortTermVolume10Min() {
+        return integer(SHORT_TERM_VOLUME10_MIN);
+    }
+
+    @Override
+    public Integer getDelayedBidSize() {
+        return integer(DELAYED_BID_SIZE);
+    }
+
+    @Override
+    public Integer getDelayedAskSize() {
+        return integer(DELAYED_ASK_SIZE);
+    }
+
+    @Override
+    public Integer getDelayedLastSize() {
+        return integer(DELAYED_LAST_SIZE);
+    }
+
+    @Override
+    public Integer getDelayedVolume() {
+        return integer(DELAYED_VOLUME);
+    }
+
+    @Override
+    public Integer getFuturesOpenInterest() {
+        return integer(FUTURES_OPEN_INTEREST);
+    }
+
+    @Override
+    public BigDecimal getBid() {
+        return decimal(BID);
+    }
+
+    @Override
+    public BigDecimal getAsk() {
+        return decimal(ASK);
+    }
+
+    @Override
+    public BigDecimal getLastPrice() {
+        return decimal(LAST);
+    }
+
+    @Override
+    public BigDecimal getHighPrice() {
+        return decimal(HIGH);
+    }
+
+    @Override
+    public BigDecimal getLowPrice() {
+        return decimal(LOW);
+    }
+
+    @Override
+    public BigDecimal getClosePrice() {
+        return decimal(CLOSE_PRICE);
+    }
+
+    @Override
+    public BigDecimal getOpenTick() {
+        return decimal(OPEN_TICK);
+    }
+
+    @Override
+    public BigDecimal getLow13Weeks() {
+        return decimal(LOW13_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getHigh13Weeks() {
+        return decimal(HIGH13_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getLow26Weeks() {
+        return decimal(LOW26_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getHigh26Weeks() {
+        return decimal(HIGH26_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getLow52Weeks() {
+        return decimal(LOW52_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getHigh52Weeks() {
+        return decimal(HIGH52_WEEKS);
+    }
+
+    @Override
+    public BigDecimal getAuctionPrice() {
+        return decimal(AUCTION_PRICE);
+    }
+
+    @Override
+    public BigDecimal getMarkPrice() {
+        return decimal(MARK_PRICE);
+    }
+
+    @Override
+    public BigDecimal getBidYield() {
+        return decimal(BID_YIELD);
+    }
+
+    @Override
+    public BigDecimal getAskYield() {
+        return decimal(ASK_YIELD);
+    }
+
+    @Override
+    public BigDecimal getLastYield() {
+        return decimal(LAST_YIELD);
+    }
+
+    @Override
+    public BigDecimal getLastRthTrade() {
+        return decimal(LAST_RTHTRADE);
+    }
+
+    @Override
+    public BigDecimal getDelayedBid() {
+        return decimal(DELAYED_BID);
+    }
+
+    @Override
+    public BigDecimal getDelayedAsk() {
+        return decimal(DELAYED_ASK);
+    }
+
+    @Override
+    public BigDecimal getDelayedLast() {
+        return decimal(DELAYED_LAST);
+    }
+
+    @Override
+    public BigDecimal getDelayedHighPrice() {
+        return decimal(DELAYED_HIGH_PRICE);
+    }
+
+    @Override
+    public BigDecimal getDelayedLowPrice() {
+        return decimal(DELAYED_LOW_PRICE);
+    }
+
+    @Override
+    public BigDecimal getDelayedClose() {
+        return decimal(DELAYED_CLOSE);
+    }
+
+    @Override
+    public BigDecimal getDelayedOpen() {
+        return decimal(DELAYED_OPEN);
+    }
+
+    @Override
+    public BigDecimal getCreditmanMarkPrice() {
+        return decimal(CREDITMAN_MARK_PRICE);
+    }
+
+    @Override
+    public BigDecimal getCreditmanSlowMarkPrice() {
+        return decimal(CREDITMAN_SLOW_MAR_KPRICE);
+    }
+
+    @Override
+    public BigDecimal getDelayedBidOption() {
+        return decimal(DELAYED_BID_OPTION);
+    }
+
+    @Override
+    public BigDecimal getDelayedAskOption() {
+        return decimal(DELAYED_ASK_OPTION);
+    }
+
+    @Override
+    public BigDecimal getDelayedLastOption() {
+        return decimal(DELAYED_LAST_OPTION);
+    }
+
+    @Override
+    public BigDecimal getDelayedModelOption() {
+        return decimal(DELAYED_MODEL_OPTION);
+    }
+
+    @Override
+    public String getBidExchange() {
+        return string(BID_EXCHANGE);
+    }
+
+    @Override
+    public String getAskExchange() {
+        return string(ASK_EXCHANGE);
+    }
+
+    @Override
+    public String getLastTimestamp() {
+        return string(LAST_TIMESTAMP);
+    }
+
+    @Override
+    public String getRtVolume() {
+        return string(RT_VOLUME);
+    }
+
+    @Override
+    public String getIbDividends() {
+        return string(IB_DIVIDENDS);
+    }
+
+    @Override
+    public String getNews() {
+        return string(NEWS);
+    }
+
+    @Override
+    public String getRtTradeVolume() {
+        return string(RT_TRADE_VOLUME);
+    }
+
+    @Override
+    public String getLastExchange() {
+        return string(LAST_EXCHANGE);
+    }
+
+    @Override
+    public String getLastRegulatoryTime() {
+        return string(LAST_REGULATORY_TIME);
+    }
+
+    @Override
+    public BigDecimal getOptionHistoricalVolatility() {
+        return decimal(OPTION_HISTORICAL_VOLATILITY);
+    }
+
+    @Override
+    public BigDecimal getOptionImpliedVolatility() {
+        return decimal(OPTION_IMPLIED_VOLATILITY);
+    }
+
+    @Override
+    public BigDecimal getIndexFuturePremium() {
+        return decimal(INDEX_FUTURE_PREMIUM);
+    }
+
+    @Override
+    public BigDecimal getShortable() {
+        return decimal(SHORTABLE);
+    }
+
+    @Override
+    public BigDecimal getHalted() {
+        return decimal(HALTED);
+    }
+
+    @Override
+    public BigDecimal getTradeCount() {
+        return decimal(TRADE_COUNT);
+    }
+
+    @Override
+    public BigDecimal getTradeRate() {
+        return decimal(TRADE_RATE);
+    }
+
+    @Override
+    public BigDecimal getVolumeRate() {
+        return decimal(VOLUME_RATE);
+    }
+
+    @Override
+    public BigDecimal getRtHistoricalVolatility() {
+        return decimal(RT_HISTORICAL_VOLATILITY);
+    }
+
+    @Override
+    public LocalDateTime getUpdateTime() {
+        long updateTimeNanos = getUpdateTimeNanos();
+        if (updateTimeNanos == NO_TIME) {
+            return null;
+        }
+
+        Instant instant = Instant.ofEpochSecond(0, WALL_CLOCK_OFFSET_NANOS + updateTimeNanos);
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder("{");
+        for (IbTickImpl.Types type : TYPES) {
+            if (type.getKind() == null || !has(type)) {
+                continue;
+            }
+
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(type).append('=');
+            if (type.getKind() == IbTickImpl.Kind.STRING) {
+                buffer.append('\'').append(getString(type)).append('\'');
+            } else if (type.getKind() == IbTickImpl.Kind.SIZE) {
+                buffer.append(getSize(type));
+            } else {
+                buffer.append(getPrice(type));
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    static long bit(IbTickImpl.Types type) {
+        // Shift distance of `long` is taken modulo 64, so it is a bit within the mask word
+        return 1L << type.ordinal();
+    }
+
+    static int word(IbTickImpl.Types type) {
+        return type.ordinal() >>> WORD_SHIFT;
+    }
+
+    // Position of the type value in `slots`: mask words plus count of present types with lower ordinal
+    static int index(long[] slots, IbTickImpl.Types type) {
+        int word = word(type);
+        int index = MASK_WORDS + Long.bitCount(slots[word] & (bit(type) - 1));
+        for (int i = 0; i < word; i++) {
+            index += Long.bitCount(slots[i]);
+        }
+        return index;
+    }
+
+    /**
+     * Numeric values with presence mask, see class description for the layout.
+     */
+    abstract long[] slots();
+
+    /**
+     * String values indexed by {@link #STRING_INDEX}, may be {@code null} if there is no string values.
+     */
+    abstract String[] strings();
+
+    private Integer integer(IbTickImpl.Types type) {
+        if (!has(type)) {
+            return null;
+        }
+        return (int) getSize(type);
+    }
+
+    private BigDecimal decimal(IbTickImpl.Types type) {
+        if (!has(type)) {
+            return null;
+        }
+        return BigDecimal.valueOf(getPrice(type));
+    }
+
+    private String string(IbTickImpl.Types type) {
+        return getString(type);
+    }
+}
@@ -40,6 +40,18 @@ public class IbBar {
         wap = BigDecimal.valueOf(bar.wap());
     }
 
+    public IbBar(LocalDateTime time, double open, double high, double low, double close,
+                 long volume, int count, double wap) {
+        this.time = time;
+        this.open = BigDecimal.valueOf(open);
+        this.high = BigDecimal.valueOf(high);
+        this.low = BigDecimal.valueOf(low);
+        this.close = BigDecimal.valueOf(close);
+        this.volume = volume;
+        this.count = count;
+        this.wap = BigDecimal.valueOf(wap);
+    }
+
     private IbBar() {
         time = null;
         open = null;
@@ -4,9 +4,18 @@ import com.ib.client.Contract;
 import com.ib.client.Order;
 import com.ib.client.OrderState;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Order with its latest status.
+ *
+ * <p>The latest status is swapped atomically, so it is read without locks. A status equal to the latest one, or with
+ * less filled quantity, is a repetition of TWS and is dropped in constant time. Optionally, the last statuses are kept
+ * in a bounded history.
+ */
 @SuppressWarnings("unused")
 public class IbOrder {
 
@@ -15,38 +24,82 @@ public class IbOrder {
     private final Order order;
     private final OrderState state;
 
-    private final LinkedList<IbOrderStatus> statuses = new LinkedList<>();
+    private final AtomicReference<IbOrderStatus> lastStatus = new AtomicReference<>();
+    private final StatusHistory history;
 
     public IbOrder(int orderId, Contract contract, Order order, OrderState state) {
+        this(orderId, contract, order, state, 0);
+    }
+
+    /**
+     * Creates order, which keeps the last statuses.
+     *
+     * @param statusHistory number of statuses, 0 to keep only the latest one
+     */
+    public IbOrder(int orderId, Contract contract, Order order, OrderState state, int statusHistory) {
         this.orderId = orderId;
         this.contract = contract;
         this.order = order;
         this.state = state;
+        history = statusHistory > 0 ? new StatusHistory(statusHistory) : null;
     }
 
-    // TODO: Hide
-    public synchronized boolean addStatus(IbOrderStatus status) {
-        if (!statuses.contains(status)) {
-            return statuses.add(status);
-        }
-
-        return false;
+    /**
+     * Creates the next instance of the order reissued by TWS, which takes over the statuses of the previous one.
+     *
+     * @param previous previous instance of the order
+     */
+    public IbOrder(IbOrder previous, Contract contract, Order order, OrderState state) {
+        orderId = previous.orderId;
+        this.contract = contract;
+        this.order = order;
+        this.state = state;
+        history = previous.history;
+        lastStatus.set(previous.lastStatus.get());
     }
 
-    public synchronized void addStatuses(List<IbOrderStatus> list) {
-        statuses.addAll(list);
+    // TODO: Hide
+    public boolean addStatus(IbOrderStatus status) {
+        IbOrderStatus last;
+        do {
+            last = lastStatus.get();
+            if (last != null && (status.equals(last) || status.isFilledLessThan(last))) {
+                return false;
+            }
+        } while (!lastStatus.compareAndSet(last, status));
+
+        StatusHistory statuses = history;
+        if (statuses != null) {
+            statuses.add(status);
+        }
+        return true;
     }
 
     public int getOrderId() {
         return orderId;
     }
 
-    public synchronized List<IbOrderStatus> getStatuses() {
-        return statuses;
+    /**
+     * Statuses of the order from the oldest to the latest one.
+     *
+     * @return copy of the status history, or the latest status if the history isn't kept
+     */
+    public List<IbOrderStatus> getStatuses() {
+        StatusHistory statuses = history;
+        if (statuses != null) {
+            return statuses.toList();
+        }
+        IbOrderStatus last = lastStatus.get();
+        return last == null ? Collections.emptyList() : Collections.singletonList(last);
     }
 
-    public synchronized IbOrderStatus getLastStatus() {
-        return statuses.getLast();
+    /**
+     * The latest status of the order.
+     *
+     * @return status, or null until TWS reports the first one
+     */
+    public IbOrderStatus getLastStatus() {
+        return lastStatus.get();
     }
 
     public Contract getContract() {
@@ -68,8 +121,33 @@ public class IbOrder {
         buffer.append(", contract=").append(contract);
         buffer.append(", order=").append(order);
         buffer.append(", state=").append(state);
-        buffer.append(", statuses=").append(statuses);
+        buffer.append(", lastStatus=").append(lastStatus.get());
         buffer.append('}');
         return buffer.toString();
     }
+
+    /**
+     * Ring of the last statuses. Appends are made by TWS reader thread only, so the monitor is uncontended.
+     */
+    private static final class StatusHistory {
+        private final IbOrderStatus[] statuses;
+        private long count;
+
+        private StatusHistory(int size) {
+            statuses = new IbOrderStatus[size];
+        }
+
+        private synchronized void add(IbOrderStatus status) {
+            statuses[(int) (count++ % statuses.length)] = status;
+        }
+
+        private synchronized List<IbOrderStatus> toList() {
+            int size = (int) Math.min(count, statuses.length);
+            List<IbOrderStatus> list = new ArrayList<>(size);
+            for (long i = count - size; i < count; i++) {
+                list.add(statuses[(int) (i % statuses.length)]);
+            }
+            return list;
+        }
+    }
 }
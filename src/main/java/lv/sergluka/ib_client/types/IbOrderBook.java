@@ -0,0 +1,445 @@
+package lv.sergluka.ib_client.types;
+
+import com.ib.client.Contract;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Order book (Market Depth Level II) of a single contract.
+ *
+ * <p>Every side is kept as position-indexed arrays of primitive prices and sizes, updated with TWS
+ * insert/update/delete-by-position semantics: insert shifts levels below the position down, delete shifts them up.
+ * So top of book is always at position 0 and depth queries are simple array reads.
+ *
+ * <p>The book is updated by TWS reader thread. Queries on another thread use optimistic reads and fall back to a
+ * read lock only if the book was updated in the middle of the query. Use {@link #snapshot()} to get a consistent
+ * copy of the whole book.
+ */
+public class IbOrderBook {
+
+    private static final int INITIAL_DEPTH = 16;
+    private static final int MAX_DEPTH = 1000;
+
+    private static final int OPERATION_INSERT = 0;
+    private static final int OPERATION_UPDATE = 1;
+    private static final int OPERATION_DELETE = 2;
+
+    private static final int SIDE_ASK = 0;
+    private static final int SIDE_BID = 1;
+
+    private final StampedLock lock = new StampedLock();
+    private final Levels asks;
+    private final Levels bids;
+
+    public IbOrderBook() {
+        asks = new Levels(INITIAL_DEPTH);
+        bids = new Levels(INITIAL_DEPTH);
+    }
+
+    private IbOrderBook(Levels asks, Levels bids) {
+        this.asks = asks;
+        this.bids = bids;
+    }
+
+    /**
+     * Applies TWS depth update.
+     *
+     * @param position    position of the level, 0 is the top of book
+     * @param operation   TWS operation code: 0 - insert, 1 - update, 2 - delete
+     * @param side        TWS side code: 0 - ask, 1 - bid
+     * @param price       price of the level
+     * @param size        size of the level
+     * @param marketMaker market maker or exchange, may be {@code null}
+     * @return {@code false} if update has been ignored, i.e. position is out of supported depth
+     */
+    public boolean update(int position, int operation, int side, double price, long size, String marketMaker) {
+        if (position < 0 || position >= MAX_DEPTH) {
+            return false;
+        }
+
+        Levels levels = levels(side);
+        long stamp = lock.writeLock();
+        try {
+            switch (operation) {
+                case OPERATION_INSERT:
+                    levels.insert(position, price, size, marketMaker);
+                    break;
+                case OPERATION_UPDATE:
+                    levels.set(position, price, size, marketMaker);
+                    break;
+                case OPERATION_DELETE:
+                    levels.delete(position);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unexpected operation: %d", operation));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return true;
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            asks.clear();
+            bids.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Best bid price.
+     *
+     * @return price or {@link Double#NaN} if there is no bids
+     */
+    public double getBestBid() {
+        return getPrice(IbMarketDepth.Side.BUY, 0);
+    }
+
+    /**
+     * Best ask price.
+     *
+     * @return price or {@link Double#NaN} if there is no asks
+     */
+    public double getBestAsk() {
+        return getPrice(IbMarketDepth.Side.SELL, 0);
+    }
+
+    public long getBestBidSize() {
+        return getSize(IbMarketDepth.Side.BUY, 0);
+    }
+
+    public long getBestAskSize() {
+        return getSize(IbMarketDepth.Side.SELL, 0);
+    }
+
+    /**
+     * Price of the level.
+     *
+     * @param side  book side
+     * @param level position, 0 is the top of book
+     * @return price or {@link Double#NaN} if there is no such level
+     */
+    public double getPrice(IbMarketDepth.Side side, int level) {
+        Levels levels = levels(side);
+        long stamp = lock.tryOptimisticRead();
+        double price = levels.price(level);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                price = levels.price(level);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return price;
+    }
+
+    /**
+     * Size of the level.
+     *
+     * @param side  book side
+     * @param level position, 0 is the top of book
+     * @return size or {@code 0} if there is no such level
+     */
+    public long getSize(IbMarketDepth.Side side, int level) {
+        Levels levels = levels(side);
+        long stamp = lock.tryOptimisticRead();
+        long size = levels.size(level);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = levels.size(level);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public String getMarketMaker(IbMarketDepth.Side side, int level) {
+        Levels levels = levels(side);
+        long stamp = lock.readLock();
+        try {
+            return levels.marketMaker(level);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Number of levels on the side.
+     *
+     * @param side book side
+     * @return depth
+     */
+    public int getDepth(IbMarketDepth.Side side) {
+        Levels levels = levels(side);
+        long stamp = lock.tryOptimisticRead();
+        int depth = levels.count;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                depth = levels.count;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Difference between best ask and best bid, taken from the same state of the book.
+     *
+     * @return spread or {@link Double#NaN} if one of sides is empty
+     */
+    public double getSpread() {
+        long stamp = lock.tryOptimisticRead();
+        double spread = asks.price(0) - bids.price(0);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                spread = asks.price(0) - bids.price(0);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return spread;
+    }
+
+    /**
+     * Volume imbalance of top levels: {@code (bidVolume - askVolume) / (bidVolume + askVolume)}.
+     *
+     * @param levels number of top levels of each side to take into account
+     * @return value in range [-1, 1], positive if bids dominate, or {@link Double#NaN} if the book is empty
+     */
+    public double getImbalance(int levels) {
+        long stamp = lock.tryOptimisticRead();
+        double imbalance = imbalance(levels);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                imbalance = imbalance(levels);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return imbalance;
+    }
+
+    /**
+     * Consistent copy of the whole book. The copy is never updated by TWS reader thread.
+     *
+     * @return copy of the book
+     */
+    public IbOrderBook snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        Levels asksCopy = new Levels(asks);
+        Levels bidsCopy = new Levels(bids);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                asksCopy = new Levels(asks);
+                bidsCopy = new Levels(bids);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return new IbOrderBook(asksCopy, bidsCopy);
+    }
+
+    /**
+     * Converts the book to the map of levels, as returned by {@link lv.sergluka.ib_client.CacheRepository}
+     * before.
+     *
+     * @param contract contract of the book
+     * @return map of levels by side and position
+     */
+    public Map<IbMarketDepth.Key, IbMarketDepth> toMap(Contract contract) {
+        IbOrderBook copy = snapshot();
+        Map<IbMarketDepth.Key, IbMarketDepth> result = new HashMap<>();
+        copy.asks.toMap(contract, SIDE_ASK, result);
+        copy.bids.toMap(contract, SIDE_BID, result);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        IbOrderBook copy = snapshot();
+        final StringBuilder buffer = new StringBuilder("{");
+        buffer.append("bids=");
+        copy.bids.append(buffer);
+        buffer.append(", asks=");
+        copy.asks.append(buffer);
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private double imbalance(int levels) {
+        long bidVolume = bids.volume(levels);
+        long askVolume = asks.volume(levels);
+        long total = bidVolume + askVolume;
+        if (total == 0) {
+            return Double.NaN;
+        }
+        return (double) (bidVolume - askVolume) / total;
+    }
+
+    private Levels levels(IbMarketDepth.Side side) {
+        return side == IbMarketDepth.Side.BUY ? bids : asks;
+    }
+
+    private Levels levels(int side) {
+        switch (side) {
+            case SIDE_ASK:
+                return asks;
+            case SIDE_BID:
+                return bids;
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected side: %d", side));
+        }
+    }
+
+    /**
+     * Levels of one side. Readers take array references once, so a concurrent growth of the arrays doesn't
+     * break bounds checks of an optimistic read.
+     */
+    private static final class Levels {
+        private double[] prices;
+        private long[] sizes;
+        private String[] marketMakers;
+        private int count;
+
+        Levels(int capacity) {
+            prices = new double[capacity];
+            sizes = new long[capacity];
+            marketMakers = new String[capacity];
+        }
+
+        Levels(Levels other) {
+            int depth = Math.min(other.count, other.prices.length);
+            prices = Arrays.copyOf(other.prices, depth);
+            sizes = Arrays.copyOf(other.sizes, depth);
+            marketMakers = Arrays.copyOf(other.marketMakers, depth);
+            count = depth;
+        }
+
+        void insert(int position, double price, long size, String marketMaker) {
+            if (position >= count) {
+                set(position, price, size, marketMaker);
+                return;
+            }
+
+            ensureCapacity(count + 1);
+            System.arraycopy(prices, position, prices, position + 1, count - position);
+            System.arraycopy(sizes, position, sizes, position + 1, count - position);
+            System.arraycopy(marketMakers, position, marketMakers, position + 1, count - position);
+            count++;
+            write(position, price, size, marketMaker);
+        }
+
+        void set(int position, double price, long size, String marketMaker) {
+            ensureCapacity(position + 1);
+            for (int i = count; i < position; i++) {
+                write(i, Double.NaN, 0, null);
+            }
+            write(position, price, size, marketMaker);
+            if (position >= count) {
+                count = position + 1;
+            }
+        }
+
+        void delete(int position) {
+            if (position >= count) {
+                return;
+            }
+
+            int tail = count - position - 1;
+            System.arraycopy(prices, position + 1, prices, position, tail);
+            System.arraycopy(sizes, position + 1, sizes, position, tail);
+            System.arraycopy(marketMakers, position + 1, marketMakers, position, tail);
+            count--;
+            marketMakers[count] = null;
+        }
+
+        void clear() {
+            Arrays.fill(marketMakers, null);
+            count = 0;
+        }
+
+        double price(int level) {
+            double[] values = prices;
+            if (level < 0 || level >= count || level >= values.length) {
+                return Double.NaN;
+            }
+            return values[level];
+        }
+
+        long size(int level) {
+            long[] values = sizes;
+            if (level < 0 || level >= count || level >= values.length) {
+                return 0;
+            }
+            return values[level];
+        }
+
+        String marketMaker(int level) {
+            if (level < 0 || level >= count) {
+                return null;
+            }
+            return marketMakers[level];
+        }
+
+        long volume(int levels) {
+            long[] values = sizes;
+            int depth = Math.min(Math.min(levels, count), values.length);
+            long volume = 0;
+            for (int i = 0; i < depth; i++) {
+                volume += values[i];
+            }
+            return volume;
+        }
+
+        void toMap(Contract contract, int side, Map<IbMarketDepth.Key, IbMarketDepth> result) {
+            for (int i = 0; i < count; i++) {
+                IbMarketDepth depth = new IbMarketDepth(contract, i, side, BigDecimal.valueOf(prices[i]),
+                                                        (int) sizes[i], marketMakers[i]);
+                result.put(depth.key(), depth);
+            }
+        }
+
+        void append(StringBuilder buffer) {
+            buffer.append('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+                buffer.append(sizes[i]).append('@').append(prices[i]);
+            }
+            buffer.append(']');
+        }
+
+        private void write(int position, double price, long size, String marketMaker) {
+            prices[position] = price;
+            sizes[position] = size;
+            marketMakers[position] = marketMaker;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= prices.length) {
+                return;
+            }
+
+            int newCapacity = Math.max(capacity, prices.length * 2);
+            prices = Arrays.copyOf(prices, newCapacity);
+            sizes = Arrays.copyOf(sizes, newCapacity);
+            marketMakers = Arrays.copyOf(marketMakers, newCapacity);
+        }
+    }
+}
@@ -5,19 +5,25 @@ import com.ib.client.OrderStatus;
 import java.math.BigDecimal;
 import java.util.Objects;
 
+/**
+ * Immutable order status.
+ *
+ * <p>Quantities and prices are kept as TWS sends them, as doubles, so statuses are compared without allocation. The
+ * {@link BigDecimal} getters convert them on every call.
+ */
 @SuppressWarnings("unused")
 public class IbOrderStatus {
     private final int orderId;
     private final OrderStatus status;
-    private final BigDecimal filled;
-    private final BigDecimal remaining;
-    private final BigDecimal avgFillPrice;
+    private final double filled;
+    private final double remaining;
+    private final double avgFillPrice;
     private final int permId;
     private final int parentId;
-    private final BigDecimal lastFillPrice;
+    private final double lastFillPrice;
     private final int clientId;
     private final String whyHeld;
-    private final BigDecimal mktCapPrice;
+    private final double mktCapPrice;
 
     public IbOrderStatus(final int orderId,
                          final String status,
@@ -30,6 +36,21 @@ public class IbOrderStatus {
                          final int clientId,
                          final String whyHeld,
                          final BigDecimal mktCapPrice) {
+        this(orderId, status, filled.doubleValue(), remaining.doubleValue(), avgFillPrice.doubleValue(), permId,
+             parentId, lastFillPrice.doubleValue(), clientId, whyHeld, mktCapPrice.doubleValue());
+    }
+
+    public IbOrderStatus(final int orderId,
+                         final String status,
+                         final double filled,
+                         final double remaining,
+                         final double avgFillPrice,
+                         final int permId,
+                         final int parentId,
+                         final double lastFillPrice,
+                         final int clientId,
+                         final String whyHeld,
+                         final double mktCapPrice) {
         this.orderId = orderId;
         this.status = OrderStatus.get(status);
         this.filled = filled;
@@ -52,15 +73,15 @@ public class IbOrderStatus {
     }
 
     public BigDecimal getFilled() {
-        return filled;
+        return BigDecimal.valueOf(filled);
     }
 
     public BigDecimal getRemaining() {
-        return remaining;
+        return BigDecimal.valueOf(remaining);
     }
 
     public BigDecimal getAvgFillPrice() {
-        return avgFillPrice;
+        return BigDecimal.valueOf(avgFillPrice);
     }
 
     public int getPermId() {
@@ -72,7 +93,7 @@ public class IbOrderStatus {
     }
 
     public BigDecimal getLastFillPrice() {
-        return lastFillPrice;
+        return BigDecimal.valueOf(lastFillPrice);
     }
 
     public int getClientId() {
@@ -84,7 +105,7 @@ public class IbOrderStatus {
     }
 
     public BigDecimal getMktCapPrice() {
-        return mktCapPrice;
+        return BigDecimal.valueOf(mktCapPrice);
     }
 
     @Override
@@ -119,15 +140,25 @@ public class IbOrderStatus {
                 permId == that.permId &&
                 parentId == that.parentId &&
                 clientId == that.clientId &&
-                that.filled.compareTo(filled) == 0 &&
-                that.remaining.compareTo(remaining) == 0 &&
-                that.avgFillPrice.compareTo(avgFillPrice) == 0 &&
-                that.lastFillPrice.compareTo(lastFillPrice) == 0 &&
-                that.mktCapPrice.compareTo(mktCapPrice) == 0 &&
-                Objects.equals(status, that.status) &&
+                Double.compare(that.filled, filled) == 0 &&
+                Double.compare(that.remaining, remaining) == 0 &&
+                Double.compare(that.avgFillPrice, avgFillPrice) == 0 &&
+                Double.compare(that.lastFillPrice, lastFillPrice) == 0 &&
+                Double.compare(that.mktCapPrice, mktCapPrice) == 0 &&
+                status == that.status &&
                 Objects.equals(whyHeld, that.whyHeld);
     }
 
+    /**
+     * Whether the status reports less filled quantity than the other one, i.e. it is a late repetition.
+     *
+     * @param other later status of the same order
+     * @return true if the status is older
+     */
+    public boolean isFilledLessThan(IbOrderStatus other) {
+        return filled < other.filled;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(orderId, status, filled, remaining, avgFillPrice, permId, parentId, lastFillPrice, clientId,
@@ -79,4 +79,51 @@ public interface IbTick {
     String getLastRegulatoryTime();
 
     LocalDateTime getUpdateTime();
+
+    /**
+     * Checks if TWS has sent a value of the tick type.
+     *
+     * @param type tick type
+     * @return {@code true} if value is present
+     */
+    boolean has(IbTickImpl.Types type);
+
+    /**
+     * Primitive access to a price or generic tick value, without {@link BigDecimal} allocation.
+     *
+     * @param type tick type
+     * @return value or {@link Double#NaN} if absent
+     */
+    double getPrice(IbTickImpl.Types type);
+
+    /**
+     * Primitive access to a size tick value, without boxing.
+     *
+     * @param type tick type
+     * @return value or {@code 0} if absent, use {@link #has} to distinguish
+     */
+    long getSize(IbTickImpl.Types type);
+
+    /**
+     * Access to a string tick value by its type.
+     *
+     * @param type tick type
+     * @return value or {@code null} if absent
+     */
+    String getString(IbTickImpl.Types type);
+
+    /**
+     * Time of the last update as {@link System#nanoTime()}, suitable for latency measurements.
+     *
+     * @return time in nanoseconds
+     */
+    long getUpdateTimeNanos();
+
+    /**
+     * Immutable copy of the current state. The live tick from {@link lv.sergluka.ib_client.CacheRepository} is
+     * updated by TWS reader thread, so a consumer on another thread can observe values from different updates.
+     *
+     * @return consistent view of the tick
+     */
+    IbTickSnapshot snapshot();
 }
@@ -0,0 +1,37 @@
+package lv.sergluka.ib_client.types;
+
+/**
+ * Immutable copy of a ticker state, taken by TWS reader thread at the moment of publishing.
+ */
+public final class IbTickSnapshot extends AbstractIbTick {
+
+    private final long[] slots;
+    private final String[] strings;
+    private final long updateTimeNanos;
+
+    IbTickSnapshot(long[] slots, String[] strings, long updateTimeNanos) {
+        this.slots = slots;
+        this.strings = strings;
+        this.updateTimeNanos = updateTimeNanos;
+    }
+
+    @Override
+    public long getUpdateTimeNanos() {
+        return updateTimeNanos;
+    }
+
+    @Override
+    public IbTickSnapshot snapshot() {
+        return this;
+    }
+
+    @Override
+    long[] slots() {
+        return slots;
+    }
+
+    @Override
+    String[] strings() {
+        return strings;
+    }
+}
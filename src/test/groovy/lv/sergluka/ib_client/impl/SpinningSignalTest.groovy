@@ -0,0 +1,44 @@
+package lv.sergluka.ib_client.impl
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+class SpinningSignalTest extends Specification {
+
+    @Timeout(5)
+    def "Signal issued before the wait should not be lost"() {
+        given:
+        def signal = new SpinningSignal(yield)
+
+        when:
+        signal.issueSignal()
+        signal.waitForSignal()
+
+        then:
+        noExceptionThrown()
+
+        where:
+        yield << [true, false]
+    }
+
+    @Timeout(5)
+    def "Wait should be woken by another thread and by interruption"() {
+        given:
+        def signal = new SpinningSignal(true)
+        def woken = 0
+        def waiter = Thread.start {
+            signal.waitForSignal()
+            woken++
+            signal.waitForSignal()
+        }
+
+        when:
+        signal.issueSignal()
+        Thread.sleep(100)
+        waiter.interrupt()
+        waiter.join()
+
+        then:
+        woken == 1
+    }
+}
@@ -25,6 +25,10 @@ class TerminalErrorHandlerTest extends Specification {
             void onFatalError() {
 
             }
+
+            @Override
+            void onRequestError(int id) {
+            }
         }
 
         when:
@@ -0,0 +1,87 @@
+package lv.sergluka.ib_client.impl
+
+import com.ib.client.TickAttrib
+import lv.sergluka.ib_client.IbClient
+import lv.sergluka.ib_client.impl.cache.CacheRepositoryImpl
+import lv.sergluka.ib_client.impl.request.RequestRepository
+import lv.sergluka.ib_client.types.IbTick
+import lv.sergluka.ib_client.types.IbTickImpl
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.UnaryOperator
+
+class TickSnapshotTest extends Specification {
+
+    static final int UPDATES = 20_000
+    static final int TICKER_ID = 1
+
+    def client = Stub(IbClient) {
+        isConnected() >> true
+    }
+    def idGenerator = new IdGenerator()
+    def requests = new RequestRepository(client, idGenerator)
+    def wrapper = new Wrapper(null, new CacheRepositoryImpl(), requests, idGenerator, null)
+    def attrib = new TickAttrib()
+
+    def "Snapshot should not change after publishing"() {
+        given:
+        def tick = new IbTickImpl()
+        tick.setPriceValue(TICKER_ID, IbTickImpl.Types.BID.getValue(), 1.0, attrib)
+
+        when:
+        def snapshot = tick.snapshot()
+        tick.setPriceValue(TICKER_ID, IbTickImpl.Types.BID.getValue(), 2.0, attrib)
+        tick.setPriceValue(TICKER_ID, IbTickImpl.Types.ASK.getValue(), 3.0, attrib)
+
+        then:
+        snapshot.getBid() == 1.0G
+        snapshot.getAsk() == null
+        snapshot.snapshot().is(snapshot)
+        tick.getBid() == 2.0G
+    }
+
+    def "Consumer on another thread should observe consistent snapshots"() {
+        given:
+        def violations = new AtomicInteger()
+        def received = new AtomicInteger()
+        def done = new CountDownLatch(1)
+
+        // Invariant of the feed below: ask <= bid <= ask + 1
+        publish(0)
+
+        requests.<IbTick> builder()
+                .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                .id(TICKER_ID)
+                .register({})
+                .copyOnPublish({ it.snapshot() } as UnaryOperator<IbTick>)
+                .subscribe()
+                .publishOn(Schedulers.parallel())
+                .subscribe({ tick ->
+                    def bid = tick.getPrice(IbTickImpl.Types.BID)
+                    Thread.yield()
+                    def ask = tick.getPrice(IbTickImpl.Types.ASK)
+                    if (ask > bid || bid > ask + 1 || tick.getPrice(IbTickImpl.Types.BID) != bid) {
+                        violations.incrementAndGet()
+                    }
+                    if (received.incrementAndGet() == UPDATES * 2) {
+                        done.countDown()
+                    }
+                })
+
+        when:
+        (1..UPDATES).each { publish(it) }
+
+        then:
+        done.await(30, TimeUnit.SECONDS)
+        violations.get() == 0
+    }
+
+    private void publish(int value) {
+        wrapper.tickPrice(TICKER_ID, IbTickImpl.Types.BID.getValue(), value, attrib)
+        wrapper.tickPrice(TICKER_ID, IbTickImpl.Types.ASK.getValue(), value, attrib)
+    }
+}
@@ -1,6 +1,11 @@
 package lv.sergluka.ib_client.impl.cache
 
 import com.ib.client.Contract
+import com.ib.client.Order
+import lv.sergluka.ib_client.metrics.IbMetrics
+import lv.sergluka.ib_client.params.IbClientOptions
+import lv.sergluka.ib_client.types.IbOrder
+import lv.sergluka.ib_client.types.IbOrderStatus
 import spock.lang.Specification
 
 class CacheRepositoryTest extends Specification {
@@ -18,4 +23,91 @@ class CacheRepositoryTest extends Specification {
         then:
         position == null
     }
+
+    def "Orders should be indexed"() {
+        given:
+        cache.addOrder(order(1, 100, "A", 0))
+        cache.addOrder(order(2, 100, "B", 1))
+        cache.addOrder(order(3, 200, "A", 1))
+
+        expect:
+        cache.getOrder(2).orderId == 2
+        cache.getOrders(contract(100))*.orderId.sort() == [1, 2]
+        cache.getOrders("A")*.orderId.sort() == [1, 3]
+        cache.getChildOrders(1)*.orderId.sort() == [2, 3]
+        cache.getOrderByPermId(1003).orderId == 3
+        cache.getOpenOrders()*.orderId.sort() == [1, 2, 3]
+    }
+
+    def "Closed order should leave open orders"() {
+        given:
+        cache.addOrder(order(1, 100, "A", 0))
+        cache.addOrder(order(2, 100, "A", 0))
+
+        when:
+        cache.addNewStatus(status(1, "Filled"))
+        cache.addNewStatus(status(2, "Submitted"))
+
+        then:
+        cache.getOpenOrders()*.orderId == [2]
+    }
+
+    def "Snapshot of orders should be shared until an order is added"() {
+        given:
+        cache.addOrder(order(1, 100, "A", 0))
+        def snapshot = cache.getOrders()
+
+        expect:
+        cache.getOrders().is(snapshot)
+
+        when:
+        cache.addNewStatus(status(1, "Submitted"))
+
+        then:
+        cache.getOrders().is(snapshot)
+        snapshot[1].lastStatus.status.toString() == "Submitted"
+
+        when:
+        cache.addOrder(order(2, 100, "A", 0))
+
+        then:
+        !cache.getOrders().is(snapshot)
+        cache.getOrders().keySet() == [1, 2] as Set
+        snapshot.keySet() == [1] as Set
+    }
+
+    def "Reissued order should take over statuses of the cached one"() {
+        given:
+        def cache = new CacheRepositoryImpl(IbMetrics.NOOP, new IbClientOptions().orderStatusHistory(5))
+        cache.addOrder(cache.newOrder(1, contract(100), new Order(), null))
+        cache.addNewStatus(status(1, "Submitted"))
+
+        when:
+        def reissued = cache.newOrder(1, contract(100), new Order(), null)
+        cache.addOrder(reissued)
+        cache.addNewStatus(status(1, "Filled"))
+
+        then:
+        cache.getOrder(1).is(reissued)
+        reissued.statuses*.status*.toString() == ["Submitted", "Filled"]
+    }
+
+    private static Contract contract(int conid) {
+        def contract = new Contract()
+        contract.conid(conid)
+        return contract
+    }
+
+    private static IbOrder order(int id, int conid, String account, int parentId) {
+        def order = new Order()
+        order.orderId(id)
+        order.account(account)
+        order.parentId(parentId)
+        order.permId(1000 + id)
+        return new IbOrder(id, contract(conid), order, null)
+    }
+
+    private static IbOrderStatus status(int id, String status) {
+        return new IbOrderStatus(id, status, 0, 1, 0, 1000 + id, 0, 0, 0, null, 0)
+    }
 }
@@ -0,0 +1,105 @@
+package lv.sergluka.ib_client.impl.cache
+
+import com.ib.client.CommissionReport
+import com.ib.client.Contract
+import com.ib.client.Execution
+import lv.sergluka.ib_client.types.IbCommissionReport
+import lv.sergluka.ib_client.types.IbContract
+import lv.sergluka.ib_client.types.IbExecution
+import spock.lang.Specification
+
+import java.time.Duration
+
+class FillStoreTest extends Specification {
+
+    def now = 0L
+    def store = new FillStore(3, Duration.ofSeconds(10), { now })
+
+    def "Commission report should be joined with the execution"() {
+        expect:
+        !store.addExecution(contract(100), execution("E1", 1, "A")).present
+
+        when:
+        def report = store.addCommission(commission("E1"))
+
+        then:
+        report.get().execution.execId == "E1"
+        report.get().commission.commission == 1.5
+    }
+
+    def "Commission report, which arrives first, should wait for the execution"() {
+        expect:
+        !store.addCommission(commission("E1")).present
+        store.get("E1") == null
+
+        when:
+        def report = store.addExecution(contract(100), execution("E1", 1, "A"))
+
+        then:
+        report.get().commission.execId == "E1"
+        store.get("E1").is(report.get())
+        store.getByOrder(1) == [report.get()]
+    }
+
+    def "Fills should be indexed"() {
+        given:
+        store.addExecution(contract(100), execution("E1", 1, "A"))
+        store.addExecution(contract(100), execution("E2", 2, "B"))
+        store.addExecution(contract(200), execution("E3", 1, "B"))
+
+        expect:
+        store.getByOrder(1)*.execution*.execId == ["E1", "E3"]
+        store.getByContract(100)*.execution*.execId == ["E1", "E2"]
+        store.getByAccount("B")*.execution*.execId == ["E2", "E3"]
+        store.getByOrder(3).empty
+    }
+
+    def "Oldest fills should be evicted by count"() {
+        when:
+        (1..5).each { store.addExecution(contract(100), execution("E$it", 1, "A")) }
+
+        then:
+        store.size() == 3
+        store.get("E2") == null
+        store.getByOrder(1)*.execution*.execId == ["E3", "E4", "E5"]
+    }
+
+    def "Old fills and unmatched commission reports should be evicted by age"() {
+        given:
+        store.addExecution(contract(100), execution("E1", 1, "A"))
+        store.addCommission(commission("E2"))
+        now = Duration.ofSeconds(5).toNanos()
+        store.addExecution(contract(100), execution("E3", 1, "A"))
+
+        when:
+        now = Duration.ofSeconds(12).toNanos()
+
+        then:
+        store.getByOrder(1)*.execution*.execId == ["E3"]
+        store.size() == 1
+        store.getByContract(100).size() == 1
+    }
+
+    private static IbContract contract(int conid) {
+        def contract = new Contract()
+        contract.conid(conid)
+        return new IbContract(contract)
+    }
+
+    private static IbExecution execution(String execId, int orderId, String account) {
+        def execution = new Execution()
+        execution.execId(execId)
+        execution.orderId(orderId)
+        execution.acctNumber(account)
+        execution.time("20200101  10:00:00")
+        return new IbExecution(execution)
+    }
+
+    private static IbCommissionReport commission(String execId) {
+        def report = new CommissionReport()
+        report.execId(execId)
+        report.commission(1.5)
+        report.currency("USD")
+        return new IbCommissionReport(report)
+    }
+}
@@ -0,0 +1,132 @@
+package lv.sergluka.ib_client.impl.connection
+
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
+class ConnectionMonitorTest extends Specification {
+
+    def requests = new CopyOnWriteArrayList<String>()
+    def conditions = new PollingConditions(timeout: 5)
+
+    ConnectionMonitor monitor
+    CountDownLatch connectBlocker
+
+    void cleanup() {
+        monitor?.close()
+    }
+
+    def "Commands should be handled in order"() {
+        given:
+        start(Duration.ZERO)
+
+        when:
+        monitor.connect()
+        monitor.confirmConnection()
+
+        then:
+        conditions.eventually {
+            assert monitor.status() == ConnectionMonitor.Status.CONNECTED
+            assert requests == ["connect", "afterConnect"]
+        }
+    }
+
+    def "Repeated command should be handled once"() {
+        given:
+        start(Duration.ZERO)
+        connectBlocker = new CountDownLatch(1)
+        monitor.connect()
+
+        when: "commands are queued while the monitor thread is busy"
+        monitor.reconnect()
+        monitor.reconnect()
+        connectBlocker.countDown()
+
+        then:
+        conditions.eventually {
+            assert requests == ["connect", "reconnect", "connect"]
+        }
+        sleep(100)
+        requests == ["connect", "reconnect", "connect"]
+    }
+
+    def "Connection should be confirmed after connection delay"() {
+        given:
+        start(Duration.ofMillis(200))
+        monitor.connect()
+
+        when:
+        monitor.confirmConnection()
+
+        then:
+        conditions.eventually {
+            assert monitor.status() == ConnectionMonitor.Status.SLEEP
+        }
+        conditions.eventually {
+            assert monitor.status() == ConnectionMonitor.Status.CONNECTED
+            // Status is set right before the callback
+            assert requests == ["connect", "afterConnect"]
+        }
+    }
+
+    def "New command should cancel delayed action"() {
+        given:
+        start(Duration.ofMillis(200))
+        monitor.connect()
+        monitor.confirmConnection()
+
+        when:
+        monitor.disconnect()
+        sleep(400)
+
+        then:
+        monitor.status() == ConnectionMonitor.Status.DISCONNECTED
+        requests == ["connect", "disconnect"]
+    }
+
+    def "Reconnect should connect again after connection delay"() {
+        given:
+        start(Duration.ofMillis(100))
+        monitor.connect()
+        monitor.confirmConnection()
+        conditions.eventually {
+            assert monitor.status() == ConnectionMonitor.Status.CONNECTED
+        }
+
+        when:
+        monitor.reconnect()
+
+        then:
+        conditions.eventually {
+            assert requests == ["connect", "afterConnect", "reconnect", "connect"]
+        }
+    }
+
+    private void start(Duration delay) {
+        monitor = new ConnectionMonitor(delay) {
+            @Override
+            protected void connectRequest() {
+                requests.add("connect")
+                connectBlocker?.await()
+            }
+
+            @Override
+            protected void disconnectRequest(boolean reconnect) {
+                requests.add(reconnect ? "reconnect" : "disconnect")
+            }
+
+            @Override
+            protected void afterConnect() {
+                requests.add("afterConnect")
+            }
+
+            @Override
+            protected void onConnectStatusChange(Boolean connected) {
+            }
+        }
+        monitor.start()
+    }
+}
@@ -0,0 +1,184 @@
+package lv.sergluka.ib_client.impl.history
+
+import com.ib.client.Contract
+import lv.sergluka.ib_client.IbClient
+import lv.sergluka.ib_client.types.IbBar
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.time.Clock
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.time.temporal.ChronoUnit
+
+class HistoricalBarStoreTest extends Specification {
+
+    static final LocalDateTime END = LocalDateTime.of(2020, 3, 2, 16, 0)
+
+    Path directory = Files.createTempDirectory("bars")
+    HistoricalBarStore store = new HistoricalBarStore(directory)
+    def fetches = []
+    IbClient.BarSize size = IbClient.BarSize.MIN_1
+    LocalDateTime now
+
+    void cleanup() {
+        store.close()
+        directory.toFile().deleteDir()
+    }
+
+    def "Stored period should be served from the file"() {
+        when:
+        def first = request(END, 1, IbClient.DurationUnit.Day)
+        def second = request(END, 1, IbClient.DurationUnit.Day)
+
+        then:
+        first.size() == 16 * 60
+        second == first
+        fetches.size() == 1
+    }
+
+    def "Only bars after the last stored one should be requested"() {
+        given:
+        request(END, 2 * 3600, IbClient.DurationUnit.Second)
+
+        when:
+        def bars = request(END.plusMinutes(30), 2 * 3600, IbClient.DurationUnit.Second)
+
+        then:
+        bars == tape(END.minusMinutes(90), END.plusMinutes(30))
+        fetches[1] == [END.plusMinutes(30), 60 * 30, IbClient.DurationUnit.Second]
+    }
+
+    def "Period before the stored one should be requested and merged"() {
+        given:
+        request(END, 1, IbClient.DurationUnit.Day)
+
+        when:
+        def bars = request(END, 2, IbClient.DurationUnit.Day)
+        def stored = request(END.minusDays(1), 1, IbClient.DurationUnit.Day)
+
+        then:
+        bars == tape(END.toLocalDate().minusDays(1).atStartOfDay(), END)
+        stored == tape(END.toLocalDate().minusDays(1).atStartOfDay(), END.minusDays(1))
+        fetches.size() == 2
+    }
+
+    def "Unfinished bar should be returned but not stored"() {
+        given:
+        def now = LocalDateTime.now()
+
+        when:
+        def live = request(null, 600, IbClient.DurationUnit.Second)
+
+        then:
+        live.size() == 10
+        readStored(now.minusHours(1), now.plusHours(1)).last().time == live.last().time.minusMinutes(1)
+    }
+
+    def "Now should be taken in TWS timezone"() {
+        given:
+        now = END.plusSeconds(30)
+        store = new HistoricalBarStore(directory, twsClock(now))
+        def first = request(null, 600, IbClient.DurationUnit.Second)
+
+        when:
+        store.close()
+        now = END.plusMinutes(5).plusSeconds(30)
+        store = new HistoricalBarStore(directory, twsClock(now))
+        def second = request(null, 600, IbClient.DurationUnit.Second)
+
+        then:
+        first == tape(END.minusSeconds(570), END.plusSeconds(30))
+        second == tape(now.minusSeconds(600), now)
+        fetches[1] == [null, 330, IbClient.DurationUnit.Second]
+    }
+
+    def "Top-up of small bars should be split into durations valid for the bar size"() {
+        given:
+        size = IbClient.BarSize.SEC_5
+        request(END, 1800, IbClient.DurationUnit.Second)
+
+        when:
+        def bars = request(END.plusHours(2), 1800, IbClient.DurationUnit.Second)
+
+        then:
+        bars == tape(END.plusMinutes(90), END.plusHours(2))
+        readStored(END.minusHours(1), END.plusHours(3)) == tape(END.minusMinutes(30), END.plusHours(2))
+        fetches.size() == 3
+        fetches.tail().every { it[1] <= 3600 && it[2] == IbClient.DurationUnit.Second }
+        fetches.last()[0] == END.plusHours(2)
+    }
+
+    def "Bars should survive reopening and partially written record should be discarded"() {
+        given:
+        def stored = request(END, 3600, IbClient.DurationUnit.Second)
+        store.close()
+        def file = Files.list(directory).findFirst().get()
+        Files.write(file, new byte[10], StandardOpenOption.APPEND)
+
+        when:
+        store = new HistoricalBarStore(directory)
+        def bars = request(END, 3600, IbClient.DurationUnit.Second)
+
+        then:
+        bars == stored
+        fetches.size() == 1
+        Files.size(file) % 64 == 32
+    }
+
+    private List<IbBar> request(LocalDateTime end, int duration, IbClient.DurationUnit unit) {
+        return store.request(contract(), end, duration, unit, size, IbClient.Type.TRADES,
+                             IbClient.TradingHours.Outside, this.&fetch)
+                    .collectList()
+                    .block()
+    }
+
+    private List<IbBar> readStored(LocalDateTime from, LocalDateTime to) {
+        def file = store.open(contract(), size, IbClient.Type.TRADES, IbClient.TradingHours.Outside)
+        return file.read(from, to).collectList().block()
+    }
+
+    /**
+     * IB with a bar of the bar size around the clock, a day is a calendar date.
+     */
+    private Flux<IbBar> fetch(LocalDateTime endDateTime, int duration, IbClient.DurationUnit unit) {
+        fetches << [endDateTime, duration, unit]
+        def end = endDateTime ?: (now ?: LocalDateTime.now())
+        def start = unit == IbClient.DurationUnit.Day
+                    ? end.minusNanos(1).toLocalDate().minusDays(duration - 1).atStartOfDay()
+                    : end.minusSeconds(duration)
+        return Flux.fromIterable(tape(start, end))
+    }
+
+    private List<IbBar> tape(LocalDateTime from, LocalDateTime to) {
+        def step = HistoricalBarStore.barSeconds(size)
+        def bars = []
+        def time = from.truncatedTo(ChronoUnit.MINUTES)
+        while (time.isBefore(from)) {
+            time = time.plusSeconds(step)
+        }
+        for (; time.isBefore(to); time = time.plusSeconds(step)) {
+            double price = 100 + time.toEpochSecond(ZoneOffset.UTC).intdiv(60) % 100 / 100
+            bars << new IbBar(time, price, price + 0.5, price - 0.5, price + 0.25, 10, 2, price)
+        }
+        return bars
+    }
+
+    /**
+     * Clock of TWS, which is far from the timezone of the JVM.
+     */
+    private static Clock twsClock(LocalDateTime time) {
+        def zone = ZoneId.of("Pacific/Kiritimati")
+        return Clock.fixed(time.atZone(zone).toInstant(), zone)
+    }
+
+    private static Contract contract() {
+        def contract = new Contract()
+        contract.conid(265598)
+        return contract
+    }
+}
@@ -0,0 +1,127 @@
+package lv.sergluka.ib_client.impl.history
+
+import lv.sergluka.ib_client.IbExceptions
+import lv.sergluka.ib_client.metrics.IbMetrics
+import lv.sergluka.ib_client.params.HistoricalPacingOptions
+import reactor.core.publisher.Flux
+import reactor.test.scheduler.VirtualTimeScheduler
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class HistoricalRequestPacerTest extends Specification {
+
+    def scheduler = VirtualTimeScheduler.create()
+    def sent = [:]
+
+    def "Requests should be sent within the global window"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions().maxRequests(3, Duration.ofSeconds(10)))
+
+        when:
+        (1..7).each { pacer.schedule("C$it", "R$it", true, request("R$it")).subscribe() }
+        scheduler.advanceTimeBy(Duration.ofSeconds(30))
+
+        then:
+        sent == [R1: 0, R2: 0, R3: 0, R4: 10, R5: 10, R6: 10, R7: 20]
+    }
+
+    def "Request limited by its contract should not block other contracts"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions().maxContractRequests(2, Duration.ofSeconds(2)))
+
+        when:
+        ["A1": "A", "A2": "A", "A3": "A", "B1": "B"].each { id, contract ->
+            pacer.schedule(contract, id, true, request(id)).subscribe()
+        }
+        scheduler.advanceTimeBy(Duration.ofSeconds(5))
+
+        then:
+        sent == [A1: 0, A2: 0, B1: 0, A3: 2]
+    }
+
+    def "Identical requests should be spaced"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions())
+
+        when:
+        pacer.schedule("A", "R", true, request("R1")).subscribe()
+        pacer.schedule("A", "R", true, request("R2")).subscribe()
+        scheduler.advanceTimeBy(Duration.ofSeconds(20))
+
+        then:
+        sent == [R1: 0, R2: 15]
+    }
+
+    def "Open requests should be limited"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions().maxConcurrentRequests(2))
+
+        when:
+        def first = pacer.schedule("A", "R1", true, request("R1").concatWith(Flux.never())).subscribe()
+        pacer.schedule("B", "R2", true, request("R2").concatWith(Flux.never())).subscribe()
+        pacer.schedule("C", "R3", true, request("R3")).subscribe()
+        pacer.schedule("D", "S1", false, request("S1").concatWith(Flux.never())).subscribe()
+
+        then: "subscription doesn't need a slot"
+        sent == [R1: 0, R2: 0, S1: 0]
+        pacer.running == 2
+        pacer.queued == 1
+
+        when:
+        scheduler.advanceTimeBy(Duration.ofSeconds(1))
+        first.dispose()
+
+        then:
+        sent == [R1: 0, R2: 0, S1: 0, R3: 1]
+        pacer.running == 1
+    }
+
+    def "Request should be queued again after pacing violation"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions().identicalRequestInterval(Duration.ofSeconds(15)))
+        def attempts = 0
+        def flaky = Flux.defer {
+            attempts++
+            sent["R$attempts"] = scheduler.now(TimeUnit.SECONDS)
+            attempts == 1 ? Flux.error(new IbExceptions.PacingViolationError(1, "pacing violation"))
+                          : Flux.just("bar")
+        }
+        def result = []
+
+        when:
+        pacer.schedule("A", "R", true, flaky).subscribe { result << it }
+        pacer.schedule("B", "Q", true, request("Q")).subscribe()
+        scheduler.advanceTimeBy(Duration.ofSeconds(30))
+
+        then: "all the queue is paused"
+        sent == [R1: 0, R2: 15, Q: 15]
+        result == ["bar"]
+    }
+
+    def "Cancelled request should leave the queue"() {
+        given:
+        def pacer = pacer(new HistoricalPacingOptions().maxRequests(1, Duration.ofSeconds(10)))
+        pacer.schedule("A", "R1", true, request("R1")).subscribe()
+
+        when:
+        pacer.schedule("B", "R2", true, request("R2")).subscribe().dispose()
+        scheduler.advanceTimeBy(Duration.ofSeconds(20))
+
+        then:
+        sent == [R1: 0]
+        pacer.queued == 0
+    }
+
+    private HistoricalRequestPacer pacer(HistoricalPacingOptions options) {
+        return new HistoricalRequestPacer(options, scheduler, IbMetrics.NOOP)
+    }
+
+    private Flux<String> request(String id) {
+        return Flux.defer {
+            sent[id] = scheduler.now(TimeUnit.SECONDS)
+            Flux.just(id)
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package lv.sergluka.ib_client.impl.history
+
+import lv.sergluka.ib_client.params.HistoricalTicksParams
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.LocalDateTime
+import java.time.ZoneOffset
+import java.util.concurrent.atomic.AtomicInteger
+
+class HistoricalTicksPaginatorTest extends Specification {
+
+    static final LocalDateTime FROM = LocalDateTime.of(2020, 3, 2, 10, 0)
+    static final long FROM_SECOND = FROM.toEpochSecond(ZoneOffset.UTC)
+
+    def fetches = new AtomicInteger()
+
+    def "Dense second should be emitted up to the page size"() {
+        given: "tape with a tick every second and 1500 ticks at the 10th second"
+        def tape = { long second -> second == FROM_SECOND + 10 ? 1500 : 1 }
+
+        when:
+        def ticks = paginator(tape, params(Duration.ofMinutes(1))).stream().collectList().block()
+
+        then:
+        ticks.count { it == FROM_SECOND + 10 } == HistoricalTicksPaginator.PAGE_SIZE
+        ticks.toUnique().size() == 60
+        ticks == ticks.toSorted()
+    }
+
+    def "Pages should be requested as ticks are consumed"() {
+        given:
+        def tape = { long second -> 10 }
+
+        when:
+        def ticks = paginator(tape, params(Duration.ofDays(1)).withConcurrency(1)).stream().take(10).collectList().block()
+
+        then:
+        ticks.size() == 10
+        fetches.get() <= 2
+    }
+
+    def "Period should be validated"() {
+        when:
+        new HistoricalTicksParams().between(FROM, FROM).validate()
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static HistoricalTicksParams params(Duration period) {
+        return new HistoricalTicksParams().between(FROM, FROM.plus(period))
+                                          .inZone(ZoneOffset.UTC)
+                                          .withSlice(Duration.ofMinutes(10))
+    }
+
+    /**
+     * Fetcher answers like IB: whole seconds of the tape starting from the requested one, until the page is full.
+     */
+    private HistoricalTicksPaginator<Long> paginator(Closure<Integer> tape, HistoricalTicksParams params) {
+        def fetcher = { LocalDateTime start ->
+            Mono.fromCallable {
+                fetches.incrementAndGet()
+                List<Long> page = []
+                long second = start.toEpochSecond(ZoneOffset.UTC)
+                while (page.size() < HistoricalTicksPaginator.PAGE_SIZE) {
+                    int count = Math.min(tape(second), HistoricalTicksPaginator.PAGE_SIZE)
+                    count.times { page << second }
+                    second++
+                }
+                return page
+            }
+        }
+        return new HistoricalTicksPaginator<Long>(params, fetcher, { Long tick -> tick })
+    }
+}
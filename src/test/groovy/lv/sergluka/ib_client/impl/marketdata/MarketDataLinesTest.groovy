@@ -0,0 +1,156 @@
+package lv.sergluka.ib_client.impl.marketdata
+
+import lv.sergluka.ib_client.IbExceptions
+import lv.sergluka.ib_client.metrics.IbMetrics
+import lv.sergluka.ib_client.params.MarketDataLineOptions
+import reactor.core.publisher.Flux
+import reactor.test.StepVerifier
+import reactor.test.scheduler.VirtualTimeScheduler
+import spock.lang.Specification
+
+import java.time.Duration
+
+class MarketDataLinesTest extends Specification {
+
+    def scheduler = VirtualTimeScheduler.create()
+    def sent = []
+
+    def "Requests above the budget should wait for a free line"() {
+        given:
+        def lines = lines(2, Integer.MAX_VALUE)
+
+        when:
+        def first = lines.schedule(0, request("A")).subscribe()
+        lines.schedule(0, request("B")).subscribe()
+        lines.schedule(0, request("C")).subscribe()
+
+        then:
+        sent == ["A", "B"]
+        lines.used == 2
+        lines.queued == 1
+
+        when:
+        first.dispose()
+
+        then:
+        sent == ["A", "B", "C"]
+        lines.used == 2
+        lines.queued == 0
+    }
+
+    def "Queued requests should be served by priority"() {
+        given:
+        def lines = lines(1, Integer.MAX_VALUE)
+        def first = lines.schedule(0, request("A")).subscribe()
+
+        when:
+        lines.schedule(MarketDataLines.SNAPSHOT_PRIORITY, request("S1").take(1)).subscribe()
+        lines.schedule(MarketDataLines.SNAPSHOT_PRIORITY, request("S2").take(1)).subscribe()
+        lines.schedule(0, request("B").take(1)).subscribe()
+        lines.schedule(0, request("C").take(1)).subscriberContext(MarketDataLineOptions.priority(1)).subscribe()
+        first.dispose()
+
+        then:
+        sent == ["A", "C", "B", "S1", "S2"]
+    }
+
+    def "Request above the queue limit should be rejected"() {
+        given:
+        def lines = lines(1, 0)
+        lines.schedule(0, request("A")).subscribe()
+
+        expect:
+        StepVerifier.create(lines.schedule(0, request("B")))
+                .expectError(IbExceptions.MarketDataLinesExceededError)
+                .verify()
+        sent == ["A"]
+    }
+
+    def "Request rejected by TWS should lower the budget and wait for a free line"() {
+        given:
+        def lines = lines(3, Integer.MAX_VALUE)
+        def first = lines.schedule(0, request("A")).subscribe()
+        lines.schedule(0, request("B")).subscribe()
+        def attempts = 0
+        def rejected = Flux.defer {
+            sent << "C"
+            attempts++ == 0 ? Flux.error(new IbExceptions.MaxNumberOfTickersError(3, "Max number of tickers"))
+                            : Flux.never()
+        }
+
+        when:
+        lines.schedule(0, rejected).subscribe()
+
+        then:
+        sent == ["A", "B", "C"]
+        lines.limit == 2
+        lines.queued == 1
+
+        when:
+        first.dispose()
+
+        then:
+        sent == ["A", "B", "C", "C"]
+        lines.used == 2
+    }
+
+    def "The only request rejected by TWS should fail"() {
+        given:
+        def lines = lines(3, Integer.MAX_VALUE)
+
+        expect:
+        StepVerifier.create(lines.schedule(0, Flux.error(new IbExceptions.MaxNumberOfTickersError(1, "Max"))))
+                .expectError(IbExceptions.MaxNumberOfTickersError)
+                .verify()
+        lines.used == 0
+    }
+
+    def "Lowered budget should recover to the configured limit"() {
+        given:
+        def lines = lines(3, Integer.MAX_VALUE)
+        lines.schedule(0, request("A")).subscribe()
+        lines.schedule(0, request("B")).subscribe()
+        def attempts = 0
+        def rejected = Flux.defer {
+            sent << "C"
+            attempts++ == 0 ? Flux.error(new IbExceptions.MaxNumberOfTickersError(3, "Max number of tickers"))
+                            : Flux.never()
+        }
+        lines.schedule(0, rejected).subscribe()
+
+        expect:
+        lines.limit == 2
+        sent == ["A", "B", "C"]
+
+        when:
+        scheduler.advanceTimeBy(Duration.ofSeconds(30))
+
+        then:
+        lines.limit == 2
+
+        when:
+        scheduler.advanceTimeBy(Duration.ofSeconds(30))
+
+        then:
+        lines.limit == 3
+        sent == ["A", "B", "C", "C"]
+        lines.used == 3
+
+        when:
+        scheduler.advanceTimeBy(Duration.ofMinutes(10))
+
+        then:
+        lines.limit == 3
+    }
+
+    private MarketDataLines lines(int limit, int maxQueued) {
+        return new MarketDataLines("market_data", limit, maxQueued, Duration.ofMinutes(1), scheduler, IbMetrics.NOOP)
+    }
+
+    private Flux<String> request(String id) {
+        return Flux.defer {
+            sent << id
+            Flux.just(id).concatWith(Flux.never())
+        }
+    }
+}
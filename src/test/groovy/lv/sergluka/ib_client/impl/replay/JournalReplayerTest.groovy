@@ -0,0 +1,86 @@
+package lv.sergluka.ib_client.impl.replay
+
+import com.ib.client.EWrapper
+import lv.sergluka.ib_client.journal.MappedTickJournal
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class JournalReplayerTest extends Specification {
+
+    static final int RECORDED_ID = 7
+    static final int OTHER_ID = 8
+    static final int LIVE_ID = 42
+    static final int CONID = 265598
+    static final int OTHER_CONID = 8314
+    static final Duration TIMEOUT = Duration.ofSeconds(10)
+
+    Path directory = Files.createTempDirectory("journal")
+    EWrapper wrapper = Mock()
+    JournalReplayer replayer = new JournalReplayer(directory, wrapper)
+
+    void cleanup() {
+        replayer.close()
+        directory.toFile().deleteDir()
+    }
+
+    def "Records should be dispatched to the current subscriptions of the same contracts"() {
+        given:
+        record { journal ->
+            journal.onSubscribe(RECORDED_ID, CONID, false)
+            journal.onSubscribe(OTHER_ID, OTHER_CONID, false)
+            journal.onTickPrice(RECORDED_ID, 1, 100.5)
+            journal.onTickPrice(OTHER_ID, 1, 5.0)
+            journal.onTickSize(RECORDED_ID, 0, 300)
+            journal.onTickString(RECORDED_ID, 45, "1587000000")
+            journal.onMarketDepth(RECORDED_ID, 0, "NSDQ", 0, 1, 100.25, 10)
+        }
+        replayer.subscribe(LIVE_ID, CONID, false)
+
+        when:
+        replayer.replay(Double.POSITIVE_INFINITY).block(TIMEOUT)
+
+        then:
+        1 * wrapper.tickPrice(LIVE_ID, 1, 100.5, _)
+
+        then:
+        1 * wrapper.tickSize(LIVE_ID, 0, 300)
+
+        then:
+        1 * wrapper.tickString(LIVE_ID, 45, "1587000000")
+        0 * wrapper._
+    }
+
+    def "Records should be replayed with recorded gaps divided by speed"() {
+        given:
+        record { journal ->
+            journal.onSubscribe(RECORDED_ID, CONID, true)
+            journal.onMarketDepth(RECORDED_ID, 0, null, 0, 1, 100.25, 10)
+            Thread.sleep(400)
+            journal.onMarketDepth(RECORDED_ID, 0, null, 1, 1, 100.5, 10)
+        }
+        replayer.subscribe(LIVE_ID, CONID, true)
+
+        when:
+        def started = System.nanoTime()
+        replayer.replay(2).block(TIMEOUT)
+        def elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+
+        then:
+        2 * wrapper.updateMktDepth(LIVE_ID, 0, _, 1, _, 10)
+        elapsed >= 200
+        elapsed < 400
+    }
+
+    private void record(Closure closure) {
+        def journal = new MappedTickJournal(directory)
+        try {
+            closure(journal)
+        } finally {
+            journal.close()
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package lv.sergluka.ib_client.impl.request
+
+import lv.sergluka.ib_client.IbClient
+import lv.sergluka.ib_client.impl.IdGenerator
+import lv.sergluka.ib_client.metrics.IbMetrics
+import lv.sergluka.ib_client.params.DispatchOptions
+import reactor.core.publisher.Flux
+import reactor.core.publisher.FluxSink
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DispatchRingTest extends Specification {
+
+    static final int RING_SIZE = 4
+    static final int ITEMS = 10
+    static final int TICKER_ID = 1
+
+    List<Runnable> tasks = []
+    Executor executor = { tasks << it } as Executor
+
+    def "Items overflowing the ring should be delivered in order before completion"() {
+        given:
+        def received = []
+        def completed = false
+        DispatchRing<Integer> ring = null
+        Flux.<Integer> create({ ring = new DispatchRing<>(RING_SIZE, executor, it) }, FluxSink.OverflowStrategy.BUFFER)
+            .subscribe({ received << it }, {}, { completed = true })
+
+        when:
+        (0..<ITEMS).each { ring.onNext(it) }
+        ring.onComplete()
+
+        then:
+        received.isEmpty()
+        tasks.size() == 1
+        ring.size() == ITEMS
+
+        when:
+        tasks.remove(0).run()
+
+        then:
+        received == (0..<ITEMS).toList()
+        completed
+        ring.size() == 0
+    }
+
+    def "Error should be delivered after the queued items"() {
+        given:
+        def received = []
+        Throwable error = null
+        DispatchRing<Integer> ring = null
+        Flux.<Integer> create({ ring = new DispatchRing<>(RING_SIZE, executor, it) }, FluxSink.OverflowStrategy.BUFFER)
+            .subscribe({ received << it }, { error = it })
+
+        when:
+        ring.onNext(1)
+        ring.onError(new IllegalStateException())
+        tasks.remove(0).run()
+
+        then:
+        received == [1]
+        error instanceof IllegalStateException
+    }
+
+    def "Slow subscriber should not block TWS reader thread"() {
+        given:
+        def client = Stub(IbClient) {
+            isConnected() >> true
+        }
+        def repository = new RequestRepository(client, new IdGenerator(), IbMetrics.NOOP, new DispatchOptions())
+        def subscriberExecutor = Executors.newSingleThreadExecutor()
+        def release = new CountDownLatch(1)
+        def received = Collections.synchronizedList([])
+
+        repository.<Integer> builder()
+                .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                .id(TICKER_ID)
+                .register({})
+                .subscribe()
+                .subscriberContext(DispatchOptions.deliverOn(subscriberExecutor))
+                .subscribe {
+                    release.await()
+                    received << it
+                }
+
+        when:
+        (0..<ITEMS).each { repository.onNext(RequestRepository.Type.EVENT_MARKET_DATA, TICKER_ID, it, true) }
+
+        then:
+        received.isEmpty()
+
+        when:
+        release.countDown()
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert received == (0..<ITEMS).toList()
+        }
+
+        cleanup:
+        subscriberExecutor.shutdown()
+        subscriberExecutor.awaitTermination(5, TimeUnit.SECONDS)
+    }
+}
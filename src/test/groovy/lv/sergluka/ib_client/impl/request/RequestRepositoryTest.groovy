@@ -3,6 +3,7 @@ package lv.sergluka.ib_client.impl.request
 import lv.sergluka.ib_client.IbClient
 import lv.sergluka.ib_client.IbExceptions
 import lv.sergluka.ib_client.impl.IdGenerator
+import reactor.core.publisher.FluxSink
 import reactor.test.StepVerifier
 import spock.lang.Specification
 import spock.lang.Subject
@@ -135,6 +136,27 @@ class RequestRepositoryTest extends Specification {
         unregisterCalled.await()
     }
 
+    def "Request without id can be repeated right after completion"() {
+        given:
+        client.isConnected() >> true
+        def results = []
+        def request = repository.<Long> builder()
+                .type(RequestRepository.Type.REQ_CURRENT_TIME)
+                .register({} as Runnable)
+                .subscribe()
+                .single()
+
+        when:
+        request.subscribe({ results << it }, { results << it }, {
+            request.subscribe({ results << it }, { results << it })
+        })
+        repository.onNextAndComplete(RequestRepository.Type.REQ_CURRENT_TIME, null, 1L, true)
+        repository.onNextAndComplete(RequestRepository.Type.REQ_CURRENT_TIME, null, 2L, true)
+
+        then:
+        results == [1L, 2L]
+    }
+
     def "Add request without id and complete with error"() {
         given:
         def registerCalled = new AsyncConditions()
@@ -160,4 +182,81 @@ class RequestRepositoryTest extends Specification {
         registerCalled.await()
         unregisterCalled.await()
     }
+
+    def "Requests of different types can share same id"() {
+        given:
+        4 * client.isConnected() >> true
+        0 * idGenerator._
+        0 * client._
+
+        def place = repository.builder()
+                .type(RequestRepository.Type.REQ_ORDER_PLACE)
+                .id(42)
+                .register({})
+                .subscribe()
+        def cancel = repository.builder()
+                .type(RequestRepository.Type.REQ_ORDER_CANCEL)
+                .id(42)
+                .register({})
+                .subscribe()
+
+        expect:
+        StepVerifier.create(place)
+                .then {
+                    StepVerifier.create(cancel)
+                            .then { repository.onNextAndComplete(RequestRepository.Type.REQ_ORDER_CANCEL, 42, "Cancel", true) }
+                            .expectNext("Cancel")
+                            .verifyComplete()
+                }
+                .then { repository.onNextAndComplete(RequestRepository.Type.REQ_ORDER_PLACE, 42, "Place", true) }
+                .expectNext("Place")
+                .verifyComplete()
+    }
+
+    def "Request without type is dispatched by id only"() {
+        given:
+        2 * client.isConnected() >> true
+        0 * idGenerator._
+        0 * client._
+
+        def observer = repository.builder()
+                .type(RequestRepository.Type.REQ_MARKET_DATA)
+                .id(7)
+                .register({})
+                .subscribe()
+
+        expect:
+        StepVerifier.create(observer)
+                .then { repository.onNext(RequestRepository.Type.REQ_HISTORICAL_DATA, 7, "Wrong", false) }
+                .then { repository.onError(7, new IllegalStateException()) }
+                .expectError(IllegalStateException)
+                .verify()
+    }
+
+    def "Request with LATEST overflow strategy should deliver only the latest item to a slow consumer"() {
+        given:
+        2 * client.isConnected() >> true
+        0 * idGenerator._
+        0 * client._
+
+        def observer = repository.builder()
+                .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                .id(1)
+                .register({})
+                .overflowStrategy(FluxSink.OverflowStrategy.LATEST)
+                .subscribe()
+
+        expect:
+        StepVerifier.create(observer, 0)
+                .then { (1..1000).each { repository.onNext(RequestRepository.Type.EVENT_MARKET_DATA, 1, it, true) } }
+                .thenRequest(1)
+                .expectNext(1000)
+                .then { repository.onNext(RequestRepository.Type.EVENT_MARKET_DATA, 1, 1001, true) }
+                .thenRequest(1)
+                .expectNext(1001)
+                .thenRequest(1)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5))
+    }
 }
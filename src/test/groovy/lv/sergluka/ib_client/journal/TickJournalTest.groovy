@@ -0,0 +1,120 @@
+package lv.sergluka.ib_client.journal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+class TickJournalTest extends Specification {
+
+    static final int SEGMENT_RECORDS = 4
+
+    Path directory = Files.createTempDirectory("journal")
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "Records of all kinds should be read back in order"() {
+        given:
+        def started = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis())
+
+        when:
+        def journal = new MappedTickJournal(directory)
+        journal.onTickPrice(1, 2, 100.5)
+        journal.onTickSize(1, 3, 200)
+        journal.onTickGeneric(2, 49, 0.25)
+        journal.onTickString(2, 45, "1587000000")
+        journal.onMarketDepth(3, 4, "NSDQ", 1, 0, 99.75, 300)
+        journal.onMarketDepth(3, 5, null, 2, 1, 99.5, 100)
+        journal.close()
+        def records = read()
+
+        then:
+        records*.kind == [TickJournal.Kind.PRICE, TickJournal.Kind.SIZE, TickJournal.Kind.GENERIC,
+                          TickJournal.Kind.STRING, TickJournal.Kind.DEPTH, TickJournal.Kind.DEPTH]
+        records[0].subMap("tickerId", "field", "price") == [tickerId: 1, field: 2, price: 100.5d]
+        records[1].subMap("tickerId", "field", "size") == [tickerId: 1, field: 3, size: 200]
+        records[2].subMap("tickerId", "field", "price") == [tickerId: 2, field: 49, price: 0.25d]
+        records[3].subMap("tickerId", "field", "text") == [tickerId: 2, field: 45, text: "1587000000"]
+        records[4].subMap("field", "text", "operation", "side", "price", "size") ==
+            [field: 4, text: "NSDQ", operation: 1, side: 0, price: 99.75d, size: 300]
+        records[5].subMap("field", "text", "operation", "side") == [field: 5, text: null, operation: 2, side: 1]
+
+        records*.time.every { it >= started }
+        records*.time == records*.time.sort(false)
+    }
+
+    def "Long strings should be truncated"() {
+        given:
+        def journal = new MappedTickJournal(directory)
+        def news = "x" * 100
+
+        when:
+        journal.onTickString(1, 62, news)
+        journal.close()
+        def record = read()[0]
+
+        then:
+        record.text == "x" * 40
+        record.truncated
+    }
+
+    def "Journal should roll over to new segments"() {
+        given:
+        def journal = new MappedTickJournal(directory, 64 * SEGMENT_RECORDS + 10)
+
+        when:
+        (0..<10).each { journal.onTickPrice(it, 1, it) }
+        journal.close()
+
+        then:
+        Files.list(directory).count() == 3
+        read()*.tickerId == (0..<10)
+    }
+
+    def "Reopened journal should continue in a new segment"() {
+        given:
+        def first = new MappedTickJournal(directory, 64 * SEGMENT_RECORDS)
+        first.onTickPrice(1, 1, 1)
+        first.close()
+
+        when:
+        def second = new MappedTickJournal(directory, 64 * SEGMENT_RECORDS)
+        second.onTickPrice(2, 1, 2)
+        second.close()
+
+        then:
+        Files.list(directory).count() == 2
+        read()*.tickerId == [1, 2]
+    }
+
+    def "Closed journal should drop records"() {
+        given:
+        def journal = new MappedTickJournal(directory)
+        journal.close()
+
+        when:
+        journal.onTickPrice(1, 1, 1)
+
+        then:
+        read().isEmpty()
+    }
+
+    private List<Map> read() {
+        def records = []
+        def reader = TickJournalReader.open(directory)
+        try {
+            while (reader.next()) {
+                records << [time     : reader.time, tickerId: reader.tickerId, kind: reader.kind,
+                            field    : reader.field, price: reader.price, size: reader.size,
+                            text     : reader.text, truncated: reader.truncated,
+                            operation: reader.operation, side: reader.side]
+            }
+        } finally {
+            reader.close()
+        }
+        return records
+    }
+}
@@ -0,0 +1,122 @@
+package lv.sergluka.ib_client.metrics
+
+import lv.sergluka.ib_client.IbClient
+import lv.sergluka.ib_client.impl.IdGenerator
+import lv.sergluka.ib_client.impl.cache.CacheRepositoryImpl
+import lv.sergluka.ib_client.impl.request.RequestRepository
+import reactor.core.publisher.BaseSubscriber
+import spock.lang.Specification
+import spock.lang.Subject
+
+class IbMetricsRecorderTest extends Specification {
+
+    @Subject
+    def metrics = new IbMetricsRecorder()
+
+    def "Histogram should report percentiles with bounded error"() {
+        given:
+        def histogram = new LatencyHistogram()
+
+        when:
+        (1..10_000).each { histogram.record(it * 1000L) }
+
+        then:
+        histogram.count == 10_000
+        histogram.max == 10_000_000
+        histogram.mean == 5_000_500.0d
+        Math.abs(histogram.getValueAtPercentile(50) - 5_000_000) <= 5_000_000 * 0.03
+        Math.abs(histogram.getValueAtPercentile(99) - 9_900_000) <= 9_900_000 * 0.03
+        histogram.getValueAtPercentile(100) == 10_000_000
+    }
+
+    def "Histogram should keep small values exactly and survive extreme ones"() {
+        given:
+        def histogram = new LatencyHistogram()
+
+        when:
+        histogram.record(-5)
+        histogram.record(7)
+        histogram.record(Long.MAX_VALUE)
+
+        then:
+        histogram.getValueAtPercentile(0) == 0
+        histogram.getValueAtPercentile(50) == 7
+        histogram.getValueAtPercentile(100) == Long.MAX_VALUE
+
+        when:
+        histogram.reset()
+
+        then:
+        histogram.count == 0
+        histogram.getValueAtPercentile(99) == 0
+    }
+
+    def "Callback timings should be recorded per callback"() {
+        when:
+        3.times { metrics.onCallback(IbMetrics.Callback.TICK_PRICE, metrics.startTime()) }
+        metrics.onReaderCycle(metrics.startTime())
+
+        then:
+        metrics.getCallbackLatency(IbMetrics.Callback.TICK_PRICE).count == 3
+        metrics.getCallbackLatency(IbMetrics.Callback.TICK_SIZE).count == 0
+        metrics.readerLatency.count == 1
+
+        when:
+        metrics.reset()
+
+        then:
+        metrics.getCallbackLatency(IbMetrics.Callback.TICK_PRICE).count == 0
+    }
+
+    def "Request repository should report messages, live requests and backlog"() {
+        given:
+        def client = Mock(IbClient) {
+            isConnected() >> true
+        }
+        def repository = new RequestRepository(client, new IdGenerator(), metrics)
+        def subscriber = new BaseSubscriber<String>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription subscription) {
+                request(2)
+            }
+        }
+
+        when:
+        repository.builder()
+                  .type(RequestRepository.Type.EVENT_MARKET_DATA)
+                  .register(10, {})
+                  .subscribe()
+                  .subscribe(subscriber)
+        5.times { repository.onNext(RequestRepository.Type.EVENT_MARKET_DATA, 10, "tick", true) }
+
+        then:
+        metrics.getMessageCount("EVENT_MARKET_DATA") == 5
+        metrics.gauges["requests.live.EVENT_MARKET_DATA"] == 1
+        metrics.gauges["requests.backlog.EVENT_MARKET_DATA"] == 3
+
+        when:
+        subscriber.request(10)
+
+        then:
+        metrics.gauges["requests.backlog.EVENT_MARKET_DATA"] == 0
+
+        when:
+        subscriber.dispose()
+
+        then:
+        metrics.gauges["requests.live.EVENT_MARKET_DATA"] == 0
+    }
+
+    def "Cache should report its sizes"() {
+        given:
+        def cache = new CacheRepositoryImpl(metrics)
+
+        when:
+        cache.updateTick(1)
+        cache.updateTick(2)
+
+        then:
+        metrics.gauges["cache.ticks"] == 2
+        metrics.gauges["cache.orders"] == 0
+    }
+}
@@ -0,0 +1,111 @@
+package lv.sergluka.ib_client.metrics
+
+import com.ib.client.Contract
+import com.ib.client.Order
+import com.ib.client.OrderStatus
+import spock.lang.Specification
+import spock.lang.Subject
+
+import static lv.sergluka.ib_client.metrics.OrderLatencyTracker.Leg
+
+class OrderLatencyTrackerTest extends Specification {
+
+    @Subject
+    def tracker = new OrderLatencyTracker()
+
+    def "Every leg should be recorded into the histogram of the exchange and the order type"() {
+        given:
+        tracker.onPlace(1, contract("SMART"), order("LMT"))
+        tracker.onPlace(2, contract("ISLAND"), order("MKT"))
+
+        when:
+        tracker.onOpenOrder(1)
+        tracker.onStatus(1, OrderStatus.PreSubmitted)
+        tracker.onStatus(1, OrderStatus.Submitted)
+        tracker.onStatus(1, OrderStatus.Filled)
+        tracker.onStatus(2, OrderStatus.Submitted)
+
+        then:
+        [Leg.OPEN_ORDER, Leg.PRE_SUBMITTED, Leg.SUBMITTED, Leg.FILLED].every {
+            tracker.getHistogram(it, "SMART", "LMT").count == 1
+        }
+        tracker.getHistogram(Leg.CANCELED, "SMART", "LMT").count == 0
+        tracker.getHistogram(Leg.SUBMITTED, "ISLAND", "MKT").count == 1
+        tracker.getHistogram(Leg.SUBMITTED, "IDEALPRO", "LMT") == null
+        tracker.histograms.containsKey("order.submitted.SMART.LMT")
+    }
+
+    def "Only the first callback of a leg should be recorded"() {
+        given:
+        tracker.onPlace(1, contract("SMART"), order("LMT"))
+
+        when:
+        3.times {
+            tracker.onOpenOrder(1)
+            tracker.onStatus(1, OrderStatus.Submitted)
+        }
+
+        then:
+        tracker.getHistogram(Leg.OPEN_ORDER, "SMART", "LMT").count == 1
+        tracker.getHistogram(Leg.SUBMITTED, "SMART", "LMT").count == 1
+    }
+
+    def "Cancel should be measured from the cancel request"() {
+        given:
+        tracker.onPlace(1, contract("SMART"), order("LMT"))
+        tracker.onPlace(2, contract("SMART"), order("LMT"))
+        tracker.onCancel(1)
+
+        when:
+        tracker.onStatus(1, OrderStatus.Cancelled)
+        tracker.onStatus(2, OrderStatus.Cancelled)
+
+        then:
+        tracker.getHistogram(Leg.CANCELED, "SMART", "LMT").count == 1
+        tracker.tracked == 0
+    }
+
+    def "Stamp should be dropped when the order is done, rejected or not sent"() {
+        given:
+        (1..4).each { tracker.onPlace(it, contract("SMART"), order("LMT")) }
+
+        when:
+        tracker.onStatus(1, OrderStatus.Filled)
+        tracker.onStatus(2, OrderStatus.Inactive)
+        tracker.onError(3)
+
+        then:
+        tracker.tracked == 1
+
+        when:
+        tracker.onOpenOrder(3)
+
+        then:
+        tracker.getHistogram(Leg.OPEN_ORDER, "SMART", "LMT").count == 0
+    }
+
+    def "Written order should be measured from the write"() {
+        given:
+        tracker.onPlace(1, contract("SMART"), order("LMT"))
+        Thread.sleep(50)
+
+        when:
+        tracker.onSend(1)
+        tracker.onOpenOrder(1)
+
+        then:
+        tracker.getHistogram(Leg.OPEN_ORDER, "SMART", "LMT").max < 50_000_000
+    }
+
+    private static Contract contract(String exchange) {
+        def contract = new Contract()
+        contract.exchange(exchange)
+        return contract
+    }
+
+    private static Order order(String type) {
+        def order = new Order()
+        order.orderType(type)
+        return order
+    }
+}
@@ -0,0 +1,460 @@
+package lv.sergluka.ib_client.simulator
+
+import com.ib.client.Contract
+import com.ib.client.Order
+import com.ib.client.OrderStatus
+import com.ib.client.OrderType
+import com.ib.client.Types
+import lv.sergluka.ib_client.IbClient
+import lv.sergluka.ib_client.IbClientPool
+import lv.sergluka.ib_client.IbExceptions
+import lv.sergluka.ib_client.journal.MappedTickJournal
+import lv.sergluka.ib_client.metrics.OrderLatencyTracker
+import lv.sergluka.ib_client.params.HistoricalPacingOptions
+import lv.sergluka.ib_client.params.IbClientOptions
+import lv.sergluka.ib_client.params.MarketDataLineOptions
+import lv.sergluka.ib_client.types.IbMarketDepth
+import lv.sergluka.ib_client.types.IbOrder
+import lv.sergluka.ib_client.types.IbTick
+import lv.sergluka.ib_client.types.IbTickImpl
+import reactor.core.publisher.Flux
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.time.Duration
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+import java.util.function.Predicate
+
+class TwsSimulatorTest extends Specification {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(10)
+
+    TwsSimulator simulator
+    IbClient client
+
+    void cleanup() {
+        client?.close()
+        simulator?.close()
+    }
+
+    def "Client should connect and receive managed accounts"() {
+        when:
+        connect(new SimulatorOptions().accounts("DU1,DU2").nextValidId(100))
+
+        then:
+        client.isConnected()
+        client.getManagedAccounts() == ["DU1", "DU2"] as Set
+        client.nextOrderId() == 100
+        client.getCurrentTime().block(TIMEOUT) != null
+        simulator.getSessions() == 1
+    }
+
+    def "Client should reconnect after connection loss"() {
+        given:
+        connect(new SimulatorOptions())
+
+        when:
+        simulator.dropClients()
+
+        then:
+        new PollingConditions(timeout: TIMEOUT.seconds).eventually {
+            assert simulator.getSessions() == 1
+            assert client.isConnected()
+            assert client.getCurrentTime().block(TIMEOUT) != null
+        }
+    }
+
+    def "Market data should be streamed"() {
+        given:
+        connect(new SimulatorOptions().tickRate(0))
+
+        when:
+        def ticks = client.subscribeOnMarketData(contract()).take(1000).map { it.snapshot() }.collectList().block(TIMEOUT)
+
+        then:
+        ticks.size() == 1000
+        ticks.last().getPrice(IbTickImpl.Types.BID) > 0
+        ticks.last().getPrice(IbTickImpl.Types.ASK) > 0
+    }
+
+    def "Single reader thread should dispatch responses and market data"() {
+        given:
+        connect(new SimulatorOptions().tickRate(0), new IbClientOptions().singleReaderThread(true))
+
+        when:
+        def ticks = client.subscribeOnMarketData(contract()).take(1000).collectList().block(TIMEOUT)
+
+        then:
+        ticks.size() == 1000
+        client.getCurrentTime().block(TIMEOUT) != null
+        client.placeOrder(contract(), order()).block(TIMEOUT).orderId > 0
+    }
+
+    def "Pool should shard market data by contract and pin orders to the order client"() {
+        given:
+        simulator = new TwsSimulator(new SimulatorOptions().tickRate(0))
+        def pool = new IbClientPool(3, { new IbClientOptions().connectionDelay(Duration.ZERO) })
+        pool.connect(simulator.getHost(), simulator.getPort(), 0).block(TIMEOUT)
+        def contracts = (1..12).collect { contract(it) }
+
+        when:
+        def ticks = Flux.fromIterable(contracts)
+                        .flatMap { pool.subscribeOnMarketData(it).take(10).count() }
+                        .collectList()
+                        .block(TIMEOUT)
+        def order = pool.placeOrder(contract(), order()).block(TIMEOUT)
+
+        then:
+        pool.isConnected()
+        simulator.getSessions() == 3
+        ticks == [10L] * 12
+        contracts.collect { pool.getClient(it) }.toSet().size() == 3
+        order.orderId > 0
+
+        cleanup:
+        pool?.close()
+    }
+
+    def "Pool clients should share market data lines of the account"() {
+        given:
+        simulator = new TwsSimulator(new SimulatorOptions().tickRate(0))
+        def pool = new IbClientPool(2, {
+            new IbClientOptions().connectionDelay(Duration.ZERO)
+                                 .marketDataLines(new MarketDataLineOptions().maxLines(1).maxQueued(0))
+        })
+        pool.connect(simulator.getHost(), simulator.getPort(), 0).block(TIMEOUT)
+        def contracts = (1..12).collect { contract(it) }
+        def first = contracts.find { pool.getClient(it).is(pool.getOrderClient()) }
+        def second = contracts.find { !pool.getClient(it).is(pool.getOrderClient()) }
+        def subscription = pool.subscribeOnMarketData(first).subscribe()
+
+        when:
+        pool.subscribeOnMarketData(second).blockFirst(TIMEOUT)
+
+        then:
+        thrown(IbExceptions.MarketDataLinesExceededError)
+
+        cleanup:
+        subscription?.dispose()
+        pool?.close()
+    }
+
+    def "Recorded market data should be replayed the same"() {
+        given:
+        def directory = Files.createTempDirectory("journal")
+        def journal = new MappedTickJournal(directory)
+        connect(new SimulatorOptions().tickRate(0), new IbClientOptions().tickJournal(journal))
+        def live = client.subscribeOnMarketData(contract()).take(1000).map { quote(it) }.collectList().block(TIMEOUT)
+        client.close()
+        journal.close()
+
+        when:
+        client = new IbClient()
+        client.connectToJournal(directory).block(TIMEOUT)
+        def replayed = []
+        client.subscribeOnMarketData(contract()).subscribe { replayed << quote(it) }
+        client.replay { it.asFastAsPossible() }.block(TIMEOUT)
+
+        then:
+        replayed.size() >= live.size()
+        replayed.subList(0, live.size()) == live
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "Requests other than market data should fail in replay"() {
+        given:
+        def directory = Files.createTempDirectory("journal")
+        client = new IbClient()
+        client.connectToJournal(directory).block(TIMEOUT)
+
+        when:
+        client.setMarketDataType(IbClient.MarketDataType.DELAYED)
+        client.subscribeOnPositionChange().blockFirst(TIMEOUT)
+
+        then:
+        thrown(IbExceptions.NotAvailableInReplayError)
+
+        when:
+        client.placeOrder(contract(), order()).block(TIMEOUT)
+
+        then:
+        thrown(IbExceptions.NotAvailableInReplayError)
+
+        when:
+        client.reqMarketData(contract()).block(TIMEOUT)
+
+        then:
+        thrown(IbExceptions.NotAvailableInReplayError)
+        client.isConnected()
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "Market data snapshot should be completed"() {
+        given:
+        connect(new SimulatorOptions())
+
+        when:
+        def tick = client.reqMarketData(contract()).block(TIMEOUT)
+
+        then:
+        tick.has(IbTickImpl.Types.LAST)
+        tick.getSize(IbTickImpl.Types.VOLUME) > 0
+    }
+
+    def "Order book should be built from depth stream"() {
+        given:
+        connect(new SimulatorOptions().depthLevels(5))
+
+        when:
+        def book = client.subscribeOnOrderBook(contract(), 5).skip(100).blockFirst(TIMEOUT)
+
+        then:
+        book.getDepth(IbMarketDepth.Side.BUY) == 5
+        book.getDepth(IbMarketDepth.Side.SELL) == 5
+        book.getSpread() > 0
+    }
+
+    def "Depth subscriptions of the same contract should build separate order books"() {
+        given:
+        connect(new SimulatorOptions().depthLevels(5))
+        def levels = client.subscribeOnMarketDepth(contract(), 5).skip(100).next().toFuture()
+
+        when:
+        def book = client.subscribeOnOrderBook(contract(), 5).skip(100).blockFirst(TIMEOUT)
+        levels.get(TIMEOUT.seconds, java.util.concurrent.TimeUnit.SECONDS)
+        def resubscribed = client.subscribeOnOrderBook(contract(), 5).skip(100).blockFirst(TIMEOUT)
+
+        then:
+        book.getDepth(IbMarketDepth.Side.BUY) == 5
+        book.getDepth(IbMarketDepth.Side.SELL) == 5
+        !resubscribed.is(book)
+        resubscribed.getDepth(IbMarketDepth.Side.BUY) == 5
+        resubscribed.getDepth(IbMarketDepth.Side.SELL) == 5
+        client.getCache().getBook(contract()) == null
+    }
+
+    def "Placed order should be filled"() {
+        given:
+        connect(new SimulatorOptions().orderFills(3))
+        def statuses = client.subscribeOnOrderNewStatus()
+                             .takeUntil({ it.getStatus() == OrderStatus.Filled } as Predicate)
+                             .collectList()
+                             .toFuture()
+
+        when:
+        def order = client.placeOrder(contract(), order()).block(TIMEOUT)
+
+        then:
+        order.getContract().symbol() == "AAPL"
+        order.getOrder().totalQuantity() == 100.0d
+        order.getState().status() == OrderStatus.Submitted
+
+        and:
+        def result = statuses.get(TIMEOUT.seconds, java.util.concurrent.TimeUnit.SECONDS)
+        result*.getStatus() == [OrderStatus.Submitted, OrderStatus.Submitted, OrderStatus.Submitted,
+                                OrderStatus.Filled]
+        result.last().getFilled() == 100.0G
+
+        and:
+        def latency = client.getOrderLatency()
+        latency.getHistogram(OrderLatencyTracker.Leg.OPEN_ORDER, "SMART", "LMT").count == 1
+        latency.getHistogram(OrderLatencyTracker.Leg.SUBMITTED, "SMART", "LMT").count == 1
+        latency.getHistogram(OrderLatencyTracker.Leg.FILLED, "SMART", "LMT").count == 1
+        latency.getHistograms().keySet().every { it.startsWith("order.") }
+        latency.tracked == 0
+    }
+
+    def "Order should be cancelled"() {
+        given:
+        connect(new SimulatorOptions())
+        def order = client.placeOrder(contract(), order()).block(TIMEOUT)
+
+        when:
+        client.cancelOrder(order.getOrderId()).block(TIMEOUT)
+
+        then:
+        client.getCache().getOrders().get(order.getOrderId()).getLastStatus().isCanceled()
+        client.getOrderLatency().getHistogram(OrderLatencyTracker.Leg.CANCELED, "SMART", "LMT").count == 1
+    }
+
+    def "Order without status should be cancelled"() {
+        given:
+        connect(new SimulatorOptions())
+        def placed = client.placeOrder(contract(), order()).block(TIMEOUT)
+        // As if only openOrder has arrived so far
+        client.getCache().addOrder(new IbOrder(placed.getOrderId(), placed.getContract(), placed.getOrder(), null))
+
+        when:
+        client.cancelOrder(placed.getOrderId()).block(TIMEOUT)
+
+        then:
+        client.getCache().getOrder(placed.getOrderId()).getLastStatus().isCanceled()
+    }
+
+    def "All orders without status should be cancelled"() {
+        given:
+        connect(new SimulatorOptions())
+        def placed = client.placeOrder(contract(), order()).block(TIMEOUT)
+        client.getCache().addOrder(new IbOrder(placed.getOrderId(), placed.getContract(), placed.getOrder(), null))
+
+        when:
+        client.cancelAll().block(TIMEOUT)
+
+        then:
+        client.getCache().getOrder(placed.getOrderId()).getLastStatus().isCanceled()
+    }
+
+    def "Batch of orders should be placed with IDs from one block"() {
+        given:
+        connect(new SimulatorOptions())
+        def preset = order()
+        preset.orderId(client.nextOrderId())
+
+        when:
+        def orders = client.placeOrders { batch ->
+            batch.add(contract(), preset)
+            3.times { batch.add(contract(), order()) }
+        }.collectList().block(TIMEOUT)
+
+        then:
+        orders*.getOrderId().sort() == (preset.orderId()..preset.orderId() + 3).toList()
+        orders.every { it.getState().status() == OrderStatus.Submitted }
+        simulator.getRequests(3) == 4
+        client.nextOrderId() == preset.orderId() + 4
+    }
+
+    def "Order of another thread should not overtake an open batch"() {
+        given:
+        connect(new SimulatorOptions())
+        def single = new AtomicReference<CompletableFuture<IbOrder>>()
+        def batchContract = new Contract() {
+            @Override
+            String exchange() {
+                // Read at registration of the first order, while the batch is not written yet
+                if (single.compareAndSet(null, new CompletableFuture<IbOrder>())) {
+                    client.placeOrder(contract(), order()).subscribeOn(Schedulers.elastic()).subscribe(
+                            { single.get().complete(it) }, { single.get().completeExceptionally(it) })
+                    Thread.sleep(500)
+                }
+                return super.exchange()
+            }
+        }
+        batchContract.conid(265598)
+        batchContract.symbol("AAPL")
+        batchContract.secType(Types.SecType.STK)
+        batchContract.exchange("SMART")
+        batchContract.currency("USD")
+
+        when:
+        def orders = client.placeOrders { batch ->
+            3.times { batch.add(batchContract, order()) }
+        }.collectList().block(TIMEOUT)
+        def order = single.get().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+
+        then:
+        orders.every { it.getState().status() == OrderStatus.Submitted }
+        order.getState().status() == OrderStatus.Submitted
+        order.getOrderId() > orders*.getOrderId().max()
+        simulator.getRequests(3) == 4
+    }
+
+    def "Historical bars should be returned"() {
+        given:
+        connect(new SimulatorOptions().historicalBars(50))
+
+        when:
+        def bars = client.reqHistoricalData(contract(), null, 1, IbClient.DurationUnit.Day, IbClient.BarSize.MIN_1,
+                                            IbClient.Type.TRADES, IbClient.TradingHours.Within)
+                         .collectList()
+                         .block(TIMEOUT)
+
+        then:
+        bars.size() == 50
+        bars.first().getTime() < bars.last().getTime()
+    }
+
+    def "Historical ticks should be streamed by pages without gaps and duplicates"() {
+        given:
+        def pacing = new HistoricalPacingOptions().maxContractRequests(100, Duration.ofSeconds(1))
+        connect(new SimulatorOptions().historicalTicksPerSecond(3), new IbClientOptions().historicalPacing(pacing))
+        def from = LocalDateTime.of(2020, 3, 2, 10, 0)
+
+        when:
+        def ticks = client.streamHistoricalTrades(contract()) {
+            it.between(from, from.plusHours(2)).withSlice(Duration.ofMinutes(30))
+        }.collectList().block(TIMEOUT)
+
+        then: "every second has all its ticks once, in order"
+        ticks.size() == 2 * 3600 * 3
+        ticks.first().time() == from.atZone(ZoneId.systemDefault()).toEpochSecond()
+        ticks.withIndex().every { tick, i ->
+            tick.time() == ticks.first().time() + i.intdiv(3) && tick.size() == i % 3 + 1
+        }
+
+        and: "about 1000 ticks per page"
+        simulator.getRequests(96) <= 2 * 3600 * 3 / 900
+    }
+
+    def "Historical requests should be paced"() {
+        given:
+        def pacing = new HistoricalPacingOptions().maxRequests(5, Duration.ofMillis(500))
+        connect(new SimulatorOptions().historicalBars(10), new IbClientOptions().historicalPacing(pacing))
+
+        when:
+        long started = System.nanoTime()
+        def bars = Flux.range(0, 15).flatMap { i ->
+            def contract = contract()
+            contract.conid(i)
+            client.reqHistoricalData(contract, null, 1, IbClient.DurationUnit.Day, IbClient.BarSize.MIN_1,
+                                     IbClient.Type.TRADES, IbClient.TradingHours.Within)
+        }.collectList().block(TIMEOUT)
+
+        then:
+        bars.size() == 15 * 10
+        simulator.getRequests(20) == 15
+        System.nanoTime() - started >= Duration.ofMillis(1000).toNanos()
+    }
+
+    private void connect(SimulatorOptions options) {
+        connect(options, new IbClientOptions())
+    }
+
+    private void connect(SimulatorOptions options, IbClientOptions clientOptions) {
+        simulator = new TwsSimulator(options)
+        client = new IbClient(clientOptions.connectionDelay(Duration.ZERO))
+        client.connect(simulator.getHost(), simulator.getPort(), 0).block(TIMEOUT)
+    }
+
+    private static List<Double> quote(IbTick tick) {
+        return [tick.getPrice(IbTickImpl.Types.BID), tick.getPrice(IbTickImpl.Types.ASK)]
+    }
+
+    private static Contract contract(int conid = 265598) {
+        def contract = new Contract()
+        contract.conid(conid)
+        contract.symbol("AAPL")
+        contract.secType(Types.SecType.STK)
+        contract.exchange("SMART")
+        contract.currency("USD")
+        return contract
+    }
+
+    private static Order order() {
+        def order = new Order()
+        order.action(Types.Action.BUY)
+        order.orderType(OrderType.LMT)
+        order.totalQuantity(100)
+        order.lmtPrice(150.5)
+        return order
+    }
+}
@@ -0,0 +1,110 @@
+package lv.sergluka.ib_client.types
+
+import com.ib.client.Contract
+import spock.lang.Specification
+
+class IbOrderBookTest extends Specification {
+
+    static final int INSERT = 0
+    static final int UPDATE = 1
+    static final int DELETE = 2
+    static final int ASK = 0
+    static final int BID = 1
+
+    def book = new IbOrderBook()
+
+    def "Empty book should have no top of book"() {
+        expect:
+        Double.isNaN(book.getBestBid())
+        Double.isNaN(book.getBestAsk())
+        Double.isNaN(book.getSpread())
+        Double.isNaN(book.getImbalance(5))
+        book.getBestBidSize() == 0
+        book.getDepth(IbMarketDepth.Side.BUY) == 0
+    }
+
+    def "Insert should shift levels down and delete should shift them up"() {
+        when:
+        book.update(0, INSERT, BID, 10.0, 100, "A")
+        book.update(1, INSERT, BID, 9.0, 200, "B")
+        book.update(0, INSERT, BID, 10.5, 50, "C")
+
+        then:
+        book.getDepth(IbMarketDepth.Side.BUY) == 3
+        book.getBestBid() == 10.5d
+        book.getPrice(IbMarketDepth.Side.BUY, 1) == 10.0d
+        book.getPrice(IbMarketDepth.Side.BUY, 2) == 9.0d
+        book.getMarketMaker(IbMarketDepth.Side.BUY, 2) == "B"
+
+        when:
+        book.update(0, DELETE, BID, 0, 0, null)
+
+        then:
+        book.getDepth(IbMarketDepth.Side.BUY) == 2
+        book.getBestBid() == 10.0d
+        book.getSize(IbMarketDepth.Side.BUY, 1) == 200
+        Double.isNaN(book.getPrice(IbMarketDepth.Side.BUY, 2))
+    }
+
+    def "Update should replace level in place"() {
+        when:
+        book.update(0, INSERT, ASK, 11.0, 100, null)
+        book.update(1, INSERT, ASK, 12.0, 100, null)
+        book.update(1, UPDATE, ASK, 12.5, 300, null)
+
+        then:
+        book.getDepth(IbMarketDepth.Side.SELL) == 2
+        book.getPrice(IbMarketDepth.Side.SELL, 1) == 12.5d
+        book.getSize(IbMarketDepth.Side.SELL, 1) == 300
+    }
+
+    def "Spread and imbalance should be computed from top levels"() {
+        when:
+        book.update(0, INSERT, BID, 10.0, 300, null)
+        book.update(1, INSERT, BID, 9.0, 100, null)
+        book.update(0, INSERT, ASK, 10.5, 100, null)
+        book.update(1, INSERT, ASK, 11.0, 500, null)
+
+        then:
+        book.getSpread() == 0.5d
+        book.getImbalance(1) == 0.5d
+        book.getImbalance(2) == -0.2d
+    }
+
+    def "Snapshot should not follow updates of the book"() {
+        given:
+        book.update(0, INSERT, BID, 10.0, 100, null)
+        def snapshot = book.snapshot()
+
+        when:
+        book.update(0, UPDATE, BID, 11.0, 100, null)
+        book.update(1, INSERT, BID, 9.0, 100, null)
+
+        then:
+        snapshot.getBestBid() == 10.0d
+        snapshot.getDepth(IbMarketDepth.Side.BUY) == 1
+        book.getBestBid() == 11.0d
+    }
+
+    def "Book should be converted to map of levels"() {
+        given:
+        def contract = new Contract()
+        contract.conid(1)
+        book.update(0, INSERT, BID, 10.0, 100, null)
+        book.update(0, INSERT, ASK, 10.5, 200, null)
+
+        when:
+        def map = book.toMap(contract)
+
+        then:
+        map.size() == 2
+        map.values().find { it.side == IbMarketDepth.Side.BUY }.price == 10.0G
+        map.values().find { it.side == IbMarketDepth.Side.SELL }.size == 200
+    }
+
+    def "Position out of supported depth should be ignored"() {
+        expect:
+        !book.update(100_000, INSERT, BID, 10.0, 100, null)
+        book.getDepth(IbMarketDepth.Side.BUY) == 0
+    }
+}
@@ -0,0 +1,65 @@
+package lv.sergluka.ib_client.types
+
+import com.ib.client.Contract
+import com.ib.client.Order
+import spock.lang.Specification
+
+class IbOrderTest extends Specification {
+
+    def order = new IbOrder(1, new Contract(), new Order(), null)
+
+    def "Repeated status should be dropped"() {
+        expect:
+        order.addStatus(status("Submitted", 0))
+        !order.addStatus(status("Submitted", 0))
+        order.addStatus(status("Submitted", 10))
+        order.addStatus(status("Cancelled", 10))
+        order.lastStatus.canceled
+        order.statuses == [status("Cancelled", 10)]
+    }
+
+    def "Late status with less filled quantity should be dropped"() {
+        given:
+        order.addStatus(status("Submitted", 20))
+
+        expect:
+        !order.addStatus(status("Submitted", 10))
+        order.lastStatus.filled == 20
+    }
+
+    def "History should keep the last statuses"() {
+        given:
+        def order = new IbOrder(1, new Contract(), new Order(), null, 3)
+
+        when:
+        (1..5).each { order.addStatus(status("Submitted", it)) }
+
+        then:
+        order.statuses*.filled == [3, 4, 5]
+
+        when:
+        def statuses = order.statuses
+        order.addStatus(status("Submitted", 6))
+
+        then:
+        statuses*.filled == [3, 4, 5]
+    }
+
+    def "Next instance of the order should inherit statuses"() {
+        given:
+        def order = new IbOrder(1, new Contract(), new Order(), null, 3)
+        order.addStatus(status("Submitted", 1))
+
+        when:
+        def next = new IbOrder(order, new Contract(), new Order(), null)
+        next.addStatus(status("Filled", 2))
+
+        then:
+        next.statuses*.filled == [1, 2]
+        next.lastStatus.isFilled()
+    }
+
+    private static IbOrderStatus status(String status, double filled) {
+        return new IbOrderStatus(1, status, filled, 100 - filled, 1.5, 1, 0, 1.5, 0, null, 0)
+    }
+}
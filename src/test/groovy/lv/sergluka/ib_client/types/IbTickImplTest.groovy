@@ -0,0 +1,67 @@
+package lv.sergluka.ib_client.types
+
+import com.ib.client.TickAttrib
+import spock.lang.Specification
+
+class IbTickImplTest extends Specification {
+
+    def tick = new IbTickImpl()
+
+    def "Absent values should be null"() {
+        expect:
+        tick.getBid() == null
+        tick.getBidSize() == null
+        tick.getBidExchange() == null
+        tick.getUpdateTime() == null
+    }
+
+    def "Values should be stored by TWS tick type"() {
+        when:
+        tick.refreshUpdateTime()
+        tick.setPriceValue(1, IbTickImpl.Types.BID.getValue(), 10.25, new TickAttrib())
+        tick.setIntValue(1, IbTickImpl.Types.BID_SIZE.getValue(), 300)
+        tick.setStringValue(1, IbTickImpl.Types.BID_EXCHANGE.getValue(), "ARCA")
+        tick.setGenericValue(1, IbTickImpl.Types.HALTED.getValue(), 0)
+
+        then:
+        tick.getBid() == 10.25G
+        tick.getBidSize() == 300
+        tick.getBidExchange() == "ARCA"
+        tick.getHalted() == 0G
+        tick.getUpdateTime() != null
+    }
+
+    def "Unknown or mismatched tick type should be ignored"() {
+        when:
+        tick.setPriceValue(1, 1000, 10.25, new TickAttrib())
+        tick.setPriceValue(1, IbTickImpl.Types.BID_SIZE.getValue(), 10.25, new TickAttrib())
+
+        then:
+        tick.getBidSize() == null
+        tick.toString() == "{}"
+    }
+
+    def "Typed accessors should keep values of types set in any order"() {
+        given:
+        def types = [IbTickImpl.Types.SHORTABLE_SHARES, IbTickImpl.Types.BID, IbTickImpl.Types.VOLUME,
+                     IbTickImpl.Types.DELAYED_MODEL_OPTION, IbTickImpl.Types.ASK]
+
+        when:
+        tick.setIntValue(1, IbTickImpl.Types.SHORTABLE_SHARES.getValue(), 5000)
+        tick.setPriceValue(1, IbTickImpl.Types.ASK.getValue(), 1.5, new TickAttrib())
+        tick.setIntValue(1, IbTickImpl.Types.VOLUME.getValue(), 700)
+        tick.setPriceValue(1, IbTickImpl.Types.DELAYED_MODEL_OPTION.getValue(), 2.5, new TickAttrib())
+        tick.setPriceValue(1, IbTickImpl.Types.BID.getValue(), 1.25, new TickAttrib())
+        tick.setPriceValue(1, IbTickImpl.Types.ASK.getValue(), 1.75, new TickAttrib())
+
+        then:
+        types.every { tick.has(it) }
+        !tick.has(IbTickImpl.Types.LAST)
+        tick.getSize(IbTickImpl.Types.SHORTABLE_SHARES) == 5000
+        tick.getSize(IbTickImpl.Types.VOLUME) == 700
+        tick.getPrice(IbTickImpl.Types.BID) == 1.25d
+        tick.getPrice(IbTickImpl.Types.ASK) == 1.75d
+        tick.getPrice(IbTickImpl.Types.DELAYED_MODEL_OPTION) == 2.5d
+        Double.isNaN(tick.getPrice(IbTickImpl.Types.LAST))
+    }
+}
@@ -0,0 +1,85 @@
+package lv.sergluka.ib_client.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoder of TWS API v100+ messages: 4 bytes big-endian length, then null-terminated text fields.
+ *
+ * <p>Not thread-safe, the owner serializes access.
+ */
+final class MessageWriter {
+
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int position;
+    private long messages;
+
+    MessageWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    MessageWriter begin(int messageId) {
+        position = LENGTH_SIZE;
+        return add(messageId);
+    }
+
+    MessageWriter add(String value) {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(bytes.length + 1);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        } else {
+            ensureCapacity(1);
+        }
+        buffer[position++] = 0;
+        return this;
+    }
+
+    MessageWriter add(int value) {
+        return add(Integer.toString(value));
+    }
+
+    MessageWriter add(long value) {
+        return add(Long.toString(value));
+    }
+
+    MessageWriter add(double value) {
+        return add(Double.toString(value));
+    }
+
+    MessageWriter addEmpty(int count) {
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            buffer[position++] = 0;
+        }
+        return this;
+    }
+
+    void end() throws IOException {
+        ByteBuffer.wrap(buffer).putInt(0, position - LENGTH_SIZE);
+        out.write(buffer, 0, position);
+        messages++;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    long getMessages() {
+        return messages;
+    }
+
+    private void ensureCapacity(int size) {
+        if (position + size > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + size));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package lv.sergluka.ib_client.simulator;
+
+/**
+ * Traffic profile of {@link TwsSimulator}.
+ *
+ * <p>Rates are in messages per second per subscription, {@code 0} means "as fast as the socket accepts".
+ */
+public class SimulatorOptions {
+
+    private static final int DEFAULT_RATE = 1_000;
+    private static final int DEFAULT_DEPTH_LEVELS = 10;
+    private static final int DEFAULT_HISTORICAL_BARS = 100;
+    private static final int DEFAULT_HISTORICAL_TICKS_PER_SECOND = 3;
+
+    private String accounts = "DU0000001";
+    private int nextValidId = 1;
+    private int tickRate = DEFAULT_RATE;
+    private int depthRate = DEFAULT_RATE;
+    private int depthLevels = DEFAULT_DEPTH_LEVELS;
+    private int orderFills;
+    private int orderStatusRate = DEFAULT_RATE;
+    private int historicalBars = DEFAULT_HISTORICAL_BARS;
+    private int barUpdateRate = 1;
+    private int historicalTicksPerSecond = DEFAULT_HISTORICAL_TICKS_PER_SECOND;
+
+    /**
+     * Accounts reported by {@code managedAccounts} right after the handshake.
+     *
+     * @param list comma separated accounts
+     * @return this
+     */
+    public SimulatorOptions accounts(String list) {
+        accounts = list;
+        return this;
+    }
+
+    /**
+     * First order ID reported by {@code nextValidId}.
+     *
+     * @param id order ID
+     * @return this
+     */
+    public SimulatorOptions nextValidId(int id) {
+        nextValidId = id;
+        return this;
+    }
+
+    /**
+     * Rate of {@code tickPrice}/{@code tickSize} messages of every market data subscription.
+     *
+     * @param rate messages per second, 0 - unthrottled
+     * @return this
+     */
+    public SimulatorOptions tickRate(int rate) {
+        tickRate = rate;
+        return this;
+    }
+
+    /**
+     * Rate of {@code updateMktDepth} messages of every market depth subscription.
+     *
+     * @param rate messages per second, 0 - unthrottled
+     * @return this
+     */
+    public SimulatorOptions depthRate(int rate) {
+        depthRate = rate;
+        return this;
+    }
+
+    /**
+     * Number of levels of every side of a simulated order book.
+     *
+     * @param levels number of levels
+     * @return this
+     */
+    public SimulatorOptions depthLevels(int levels) {
+        depthLevels = levels;
+        return this;
+    }
+
+    /**
+     * Number of partial fills reported for every placed order before the final "Filled" status.
+     *
+     * <p>With 0 (default) orders stay "Submitted" until they are cancelled.
+     *
+     * @param fills number of partial fills
+     * @return this
+     */
+    public SimulatorOptions orderFills(int fills) {
+        orderFills = fills;
+        return this;
+    }
+
+    /**
+     * Rate of {@code orderStatus} messages of every order being filled.
+     *
+     * @param rate messages per second, 0 - unthrottled
+     * @return this
+     */
+    public SimulatorOptions orderStatusRate(int rate) {
+        orderStatusRate = rate;
+        return this;
+    }
+
+    /**
+     * Number of bars returned for every historical data request.
+     *
+     * @param bars number of bars
+     * @return this
+     */
+    public SimulatorOptions historicalBars(int bars) {
+        historicalBars = bars;
+        return this;
+    }
+
+    /**
+     * Rate of {@code historicalDataUpdate} messages of every "keep up to date" historical data subscription.
+     *
+     * @param rate messages per second, 0 - unthrottled
+     * @return this
+     */
+    public SimulatorOptions barUpdateRate(int rate) {
+        barUpdateRate = rate;
+        return this;
+    }
+
+    /**
+     * Number of historical ticks at every second of the simulated tape.
+     *
+     * @param ticks ticks per second
+     * @return this
+     */
+    public SimulatorOptions historicalTicksPerSecond(int ticks) {
+        historicalTicksPerSecond = ticks;
+        return this;
+    }
+
+    public String getAccounts() {
+        return accounts;
+    }
+
+    public int getNextValidId() {
+        return nextValidId;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getDepthRate() {
+        return depthRate;
+    }
+
+    public int getDepthLevels() {
+        return depthLevels;
+    }
+
+    public int getOrderFills() {
+        return orderFills;
+    }
+
+    public int getOrderStatusRate() {
+        return orderStatusRate;
+    }
+
+    public int getHistoricalBars() {
+        return historicalBars;
+    }
+
+    public int getBarUpdateRate() {
+        return barUpdateRate;
+    }
+
+    public int getHistoricalTicksPerSecond() {
+        return historicalTicksPerSecond;
+    }
+}
@@ -0,0 +1,675 @@
+package lv.sergluka.ib_client.simulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Single client connection of {@link TwsSimulator}.
+ *
+ * <p>Reader thread performs the handshake and answers requests. Feed thread emits streams of active subscriptions
+ * at configured rates. Both write through the same {@link MessageWriter}, serialized on it.
+ *
+ * <p>Message layouts match server version {@value #SERVER_VERSION} as decoded by {@code com.ib.client.EDecoder}.
+ */
+final class SimulatorSession implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulatorSession.class);
+
+    private static final int SERVER_VERSION = 155;
+    private static final byte[] API_PREFIX = "API\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_MESSAGE_LENGTH = 0xFFFFFF;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int CLOSE_TIMEOUT_MS = 1000;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int FEED_BURST = 64;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd HH:mm:ss");
+    private static final DateTimeFormatter BAR_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd  HH:mm:ss");
+    private static final LocalDateTime FIRST_BAR_TIME = LocalDateTime.of(2020, 1, 2, 9, 30);
+
+    // Client messages
+    private static final int REQ_MKT_DATA = 1;
+    private static final int CANCEL_MKT_DATA = 2;
+    private static final int PLACE_ORDER = 3;
+    private static final int CANCEL_ORDER = 4;
+    private static final int REQ_OPEN_ORDERS = 5;
+    private static final int REQ_IDS = 8;
+    private static final int REQ_MKT_DEPTH = 10;
+    private static final int CANCEL_MKT_DEPTH = 11;
+    private static final int REQ_ALL_OPEN_ORDERS = 16;
+    private static final int REQ_HISTORICAL_DATA = 20;
+    private static final int CANCEL_HISTORICAL_DATA = 25;
+    private static final int REQ_CURRENT_TIME = 49;
+    private static final int REQ_GLOBAL_CANCEL = 58;
+    private static final int START_API = 71;
+    private static final int REQ_HISTORICAL_TICKS = 96;
+
+    // Server messages
+    private static final int TICK_PRICE = 1;
+    private static final int TICK_SIZE = 2;
+    private static final int ORDER_STATUS = 3;
+    private static final int ERR_MSG = 4;
+    private static final int OPEN_ORDER = 5;
+    private static final int NEXT_VALID_ID = 9;
+    private static final int MARKET_DEPTH = 12;
+    private static final int MANAGED_ACCOUNTS = 15;
+    private static final int HISTORICAL_DATA = 17;
+    private static final int CURRENT_TIME = 49;
+    private static final int OPEN_ORDER_END = 53;
+    private static final int TICK_SNAPSHOT_END = 57;
+    private static final int HISTORICAL_DATA_UPDATE = 90;
+    private static final int HISTORICAL_TICKS = 96;
+    private static final int HISTORICAL_TICKS_BID_ASK = 97;
+    private static final int HISTORICAL_TICKS_LAST = 98;
+
+    // Field positions of client messages: request ID goes after message ID, or after version for old messages
+    private static final int ID_FIELD = 1;
+    private static final int VERSIONED_ID_FIELD = 2;
+    private static final int SNAPSHOT_FIELD_FROM_END = 3;
+    private static final int KEEP_UP_TO_DATE_FIELD_FROM_END = 2;
+    private static final int TICKS_START_FIELD_FROM_END = 7;
+    private static final int TICKS_END_FIELD_FROM_END = 6;
+    private static final int TICKS_COUNT_FIELD_FROM_END = 5;
+    private static final int TICKS_WHAT_TO_SHOW_FIELD_FROM_END = 4;
+    private static final int ORDER_CONTRACT_ID_FIELD = 2;
+    private static final int ORDER_SYMBOL_FIELD = 3;
+    private static final int ORDER_SEC_TYPE_FIELD = 4;
+    private static final int ORDER_EXCHANGE_FIELD = 9;
+    private static final int ORDER_CURRENCY_FIELD = 11;
+    private static final int ORDER_ACTION_FIELD = 16;
+    private static final int ORDER_QUANTITY_FIELD = 17;
+    private static final int ORDER_TYPE_FIELD = 18;
+    private static final int ORDER_LIMIT_PRICE_FIELD = 19;
+
+    // Layout of "open order" message: fields between limit price and order state status are left empty
+    private static final int OPEN_ORDER_FIELDS_BEFORE_STATUS = 69;
+    private static final int OPEN_ORDER_FIELDS_AFTER_STATUS = 33;
+
+    private static final int TICK_VERSION = 3;
+    private static final int TICK_BID = 1;
+    private static final int TICK_ASK = 2;
+    private static final int TICK_LAST = 4;
+    private static final int TICK_VOLUME = 8;
+    private static final int[] TICK_CYCLE = {TICK_BID, TICK_ASK, TICK_LAST, TICK_VOLUME};
+    private static final int TICK_SIZE_MODULO = 100;
+
+    private static final int DEPTH_INSERT = 0;
+    private static final int DEPTH_UPDATE = 1;
+    private static final int SIDES = 2;
+
+    private static final double BASE_PRICE = 100.0;
+    private static final double PRICE_STEP = 0.01;
+    private static final int PRICE_MODULO = 200;
+    private static final long BAR_VOLUME = 1000;
+    private static final int BAR_COUNT = 10;
+
+    private static final int ERR_MSG_VERSION = 2;
+    private static final int DUPLICATE_ORDER_ID = 103;
+
+    private static final String STATUS_SUBMITTED = "Submitted";
+    private static final String STATUS_FILLED = "Filled";
+    private static final String STATUS_CANCELLED = "Cancelled";
+
+    private enum Kind {
+        TICKS,
+        DEPTH,
+        FILLS,
+        BARS,
+    }
+
+    private final Socket socket;
+    private final SimulatorOptions options;
+    private final DataInputStream in;
+    private final MessageWriter writer;
+    private final ConcurrentMap<Integer, LongAdder> requests;
+    private final Consumer<SimulatorSession> onClose;
+    private final List<Stream> streams = new CopyOnWriteArrayList<>();
+    private final Map<Integer, SimulatedOrder> orders = new LinkedHashMap<>();
+    private final Thread readerThread;
+    private final Thread feedThread;
+
+    private volatile boolean running = true;
+    private int nextValidId;
+    private int lastOrderId;
+
+    SimulatorSession(Socket socket,
+                     SimulatorOptions options,
+                     ConcurrentMap<Integer, LongAdder> requests,
+                     Consumer<SimulatorSession> onClose) throws IOException {
+        this.socket = socket;
+        this.options = options;
+        this.requests = requests;
+        this.onClose = onClose;
+
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        writer = new MessageWriter(new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE));
+        nextValidId = options.getNextValidId();
+
+        readerThread = new Thread(this::read);
+        readerThread.setName("TWS simulator reader");
+        readerThread.setDaemon(true);
+
+        feedThread = new Thread(this::feed);
+        feedThread.setName("TWS simulator feed");
+        feedThread.setDaemon(true);
+    }
+
+    void start() {
+        readerThread.start();
+        feedThread.start();
+    }
+
+    long getMessagesSent() {
+        synchronized (writer) {
+            return writer.getMessages();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Fail to close socket: {}", e.getMessage());
+        }
+
+        feedThread.interrupt();
+        join(readerThread);
+        join(feedThread);
+    }
+
+    private void read() {
+        try {
+            handshake();
+            while (running) {
+                dispatch(readMessage());
+            }
+        } catch (EOFException | SocketException e) {
+            log.debug("Client disconnected: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Simulator session failed: {}", e.getMessage(), e);
+        } finally {
+            running = false;
+            onClose.accept(this);
+        }
+    }
+
+    private void handshake() throws IOException {
+        byte[] prefix = new byte[API_PREFIX.length];
+        in.readFully(prefix);
+        if (!Arrays.equals(prefix, API_PREFIX)) {
+            throw new IOException("Unexpected handshake prefix: " + Arrays.toString(prefix));
+        }
+
+        String versions = readMessage()[0];
+        log.debug("Client API versions: {}", versions);
+
+        synchronized (writer) {
+            // The first message has no message ID: it is server version followed by connection time
+            writer.begin(SERVER_VERSION).add(LocalDateTime.now().format(TIME_FORMAT) + " UTC").end();
+            writer.flush();
+        }
+    }
+
+    private String[] readMessage() throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_MESSAGE_LENGTH) {
+            throw new IOException("Invalid message length: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == 0) {
+                fields.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            fields.add(new String(bytes, start, length - start, StandardCharsets.UTF_8));
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private void dispatch(String[] fields) throws IOException {
+        int messageId = Integer.parseInt(fields[0]);
+        requests.computeIfAbsent(messageId, key -> new LongAdder()).increment();
+
+        synchronized (writer) {
+            switch (messageId) {
+                case START_API:
+                    writer.begin(NEXT_VALID_ID).add(1).add(nextValidId).end();
+                    writer.begin(MANAGED_ACCOUNTS).add(1).add(options.getAccounts()).end();
+                    break;
+                case REQ_IDS:
+                    writer.begin(NEXT_VALID_ID).add(1).add(nextValidId).end();
+                    break;
+                case REQ_CURRENT_TIME:
+                    writer.begin(CURRENT_TIME).add(1).add(System.currentTimeMillis() / TimeUnit.SECONDS.toMillis(1))
+                          .end();
+                    break;
+                case REQ_MKT_DATA:
+                    onMarketData(fields);
+                    break;
+                case CANCEL_MKT_DATA:
+                    cancel(Kind.TICKS, intField(fields, VERSIONED_ID_FIELD));
+                    break;
+                case REQ_MKT_DEPTH:
+                    onMarketDepth(intField(fields, VERSIONED_ID_FIELD));
+                    break;
+                case CANCEL_MKT_DEPTH:
+                    cancel(Kind.DEPTH, intField(fields, VERSIONED_ID_FIELD));
+                    break;
+                case REQ_HISTORICAL_DATA:
+                    onHistoricalData(fields);
+                    break;
+                case CANCEL_HISTORICAL_DATA:
+                    cancel(Kind.BARS, intField(fields, VERSIONED_ID_FIELD));
+                    break;
+                case REQ_HISTORICAL_TICKS:
+                    onHistoricalTicks(fields);
+                    break;
+                case PLACE_ORDER:
+                    onPlaceOrder(fields);
+                    break;
+                case CANCEL_ORDER:
+                    onCancelOrder(intField(fields, VERSIONED_ID_FIELD));
+                    break;
+                case REQ_GLOBAL_CANCEL:
+                    for (Integer orderId : new ArrayList<>(orders.keySet())) {
+                        onCancelOrder(orderId);
+                    }
+                    break;
+                case REQ_OPEN_ORDERS:
+                case REQ_ALL_OPEN_ORDERS:
+                    for (SimulatedOrder order : orders.values()) {
+                        openOrder(order);
+                    }
+                    writer.begin(OPEN_ORDER_END).add(1).end();
+                    break;
+                default:
+                    log.trace("Ignoring client message {}", messageId);
+                    return;
+            }
+            writer.flush();
+        }
+    }
+
+    private void onMarketData(String[] fields) throws IOException {
+        int tickerId = intField(fields, VERSIONED_ID_FIELD);
+        boolean snapshot = "1".equals(fields[fields.length - SNAPSHOT_FIELD_FROM_END]);
+        if (!snapshot) {
+            streams.add(new TickStream(tickerId, options.getTickRate()));
+            return;
+        }
+
+        for (int i = 0; i < TICK_CYCLE.length; i++) {
+            tick(tickerId, TICK_CYCLE[i], i);
+        }
+        writer.begin(TICK_SNAPSHOT_END).add(1).add(tickerId).end();
+    }
+
+    private void onMarketDepth(int tickerId) throws IOException {
+        for (int side = 0; side < SIDES; side++) {
+            for (int position = 0; position < options.getDepthLevels(); position++) {
+                depth(tickerId, position, DEPTH_INSERT, side, position);
+            }
+        }
+        streams.add(new DepthStream(tickerId, options.getDepthRate()));
+    }
+
+    private void onHistoricalData(String[] fields) throws IOException {
+        int reqId = intField(fields, ID_FIELD);
+        int count = options.getHistoricalBars();
+
+        writer.begin(HISTORICAL_DATA).add(reqId)
+              .add(FIRST_BAR_TIME.format(BAR_TIME_FORMAT))
+              .add(FIRST_BAR_TIME.plusMinutes(count).format(BAR_TIME_FORMAT))
+              .add(count);
+        for (int i = 0; i < count; i++) {
+            double open = price(i);
+            writer.add(FIRST_BAR_TIME.plusMinutes(i).format(BAR_TIME_FORMAT))
+                  .add(open).add(open + PRICE_STEP).add(open - PRICE_STEP).add(price(i + 1))
+                  .add(BAR_VOLUME).add(open).add(BAR_COUNT);
+        }
+        writer.end();
+
+        if ("1".equals(fields[fields.length - KEEP_UP_TO_DATE_FIELD_FROM_END])) {
+            streams.add(new BarStream(reqId, options.getBarUpdateRate(), count));
+        }
+    }
+
+    /**
+     * Answers with whole seconds of the tape, like IB does: the last second is completed even if it exceeds the
+     * requested number of ticks.
+     */
+    private void onHistoricalTicks(String[] fields) throws IOException {
+        int reqId = intField(fields, ID_FIELD);
+        String start = fields[fields.length - TICKS_START_FIELD_FROM_END];
+        String end = fields[fields.length - TICKS_END_FIELD_FROM_END];
+        int count = intField(fields, fields.length - TICKS_COUNT_FIELD_FROM_END);
+        String whatToShow = fields[fields.length - TICKS_WHAT_TO_SHOW_FIELD_FROM_END];
+
+        int perSecond = options.getHistoricalTicksPerSecond();
+        long seconds = (count + perSecond - 1) / perSecond;
+        long firstSecond = start.isEmpty() ? epochSecond(end) - seconds : epochSecond(start);
+
+        int messageId;
+        switch (whatToShow) {
+            case "BID_ASK":
+                messageId = HISTORICAL_TICKS_BID_ASK;
+                break;
+            case "TRADES":
+                messageId = HISTORICAL_TICKS_LAST;
+                break;
+            default:
+                messageId = HISTORICAL_TICKS;
+                break;
+        }
+
+        writer.begin(messageId).add(reqId).add(seconds * perSecond);
+        for (long second = firstSecond; second < firstSecond + seconds; second++) {
+            for (int i = 0; i < perSecond; i++) {
+                // Tick size is its position in the second, so tests can check for gaps and duplicates
+                double price = price(second);
+                writer.add(second);
+                switch (messageId) {
+                    case HISTORICAL_TICKS_BID_ASK:
+                        writer.add(0).add(price).add(price + PRICE_STEP).add(i + 1).add(i + 1);
+                        break;
+                    case HISTORICAL_TICKS_LAST:
+                        writer.add(0).add(price).add(i + 1).add("SMART").add("");
+                        break;
+                    default:
+                        writer.add(0).add(price).add(i + 1);
+                        break;
+                }
+            }
+        }
+        writer.add(1).end();
+    }
+
+    private void onPlaceOrder(String[] fields) throws IOException {
+        SimulatedOrder order = new SimulatedOrder();
+        order.orderId = intField(fields, ID_FIELD);
+        order.contractId = fields[ORDER_CONTRACT_ID_FIELD];
+        order.symbol = fields[ORDER_SYMBOL_FIELD];
+        order.secType = fields[ORDER_SEC_TYPE_FIELD];
+        order.exchange = fields[ORDER_EXCHANGE_FIELD];
+        order.currency = fields[ORDER_CURRENCY_FIELD];
+        order.action = fields[ORDER_ACTION_FIELD];
+        order.quantity = Double.parseDouble(fields[ORDER_QUANTITY_FIELD]);
+        order.orderType = fields[ORDER_TYPE_FIELD];
+        order.limitPrice = fields[ORDER_LIMIT_PRICE_FIELD];
+        order.status = STATUS_SUBMITTED;
+
+        // As TWS does, a new order should have an ID greater than any order before
+        if (!orders.containsKey(order.orderId) && order.orderId <= lastOrderId) {
+            writer.begin(ERR_MSG).add(ERR_MSG_VERSION).add(order.orderId).add(DUPLICATE_ORDER_ID)
+                  .add("Duplicate order id").end();
+            return;
+        }
+        lastOrderId = Math.max(lastOrderId, order.orderId);
+
+        orders.put(order.orderId, order);
+        nextValidId = Math.max(nextValidId, order.orderId + 1);
+
+        openOrder(order);
+        orderStatus(order);
+        if (options.getOrderFills() > 0) {
+            streams.add(new FillStream(order, options.getOrderStatusRate()));
+        }
+    }
+
+    private void onCancelOrder(int orderId) throws IOException {
+        SimulatedOrder order = orders.remove(orderId);
+        if (order == null) {
+            return;
+        }
+
+        cancel(Kind.FILLS, orderId);
+        order.status = STATUS_CANCELLED;
+        orderStatus(order);
+    }
+
+    private void cancel(Kind kind, int id) {
+        streams.removeIf(stream -> stream.kind == kind && stream.id == id);
+    }
+
+    private void feed() {
+        while (running) {
+            long now = System.nanoTime();
+            long nextDue = now + MAX_PARK_NANOS;
+            boolean sent = false;
+
+            try {
+                synchronized (writer) {
+                    for (Stream stream : streams) {
+                        for (int i = 0; i < FEED_BURST && stream.due <= now; i++) {
+                            sent = true;
+                            if (!stream.emit()) {
+                                streams.remove(stream);
+                                break;
+                            }
+                            stream.due += stream.period;
+                        }
+                        // Don't accumulate a backlog if the client is slower than the rate
+                        stream.due = Math.max(stream.due, now - stream.period);
+                        nextDue = Math.min(nextDue, stream.due);
+                    }
+                    if (sent) {
+                        writer.flush();
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Feed has been stopped: {}", e.getMessage());
+                return;
+            }
+
+            if (!sent) {
+                LockSupport.parkNanos(nextDue - now);
+            }
+        }
+    }
+
+    private void tick(int tickerId, int type, long sequence) throws IOException {
+        if (type == TICK_VOLUME) {
+            writer.begin(TICK_SIZE).add(1).add(tickerId).add(type).add(sequence).end();
+            return;
+        }
+
+        double price = type == TICK_ASK ? price(sequence) + PRICE_STEP : price(sequence);
+        writer.begin(TICK_PRICE).add(TICK_VERSION).add(tickerId).add(type).add(price)
+              .add(1 + sequence % TICK_SIZE_MODULO).add(0).end();
+    }
+
+    private void depth(int tickerId, int position, int operation, int side, long sequence) throws IOException {
+        double offset = (position + 1) * PRICE_STEP;
+        double price = side == 0 ? BASE_PRICE + offset : BASE_PRICE - offset;
+        writer.begin(MARKET_DEPTH).add(1).add(tickerId).add(position).add(operation).add(side).add(price)
+              .add(1 + sequence % TICK_SIZE_MODULO).end();
+    }
+
+    private void openOrder(SimulatedOrder order) throws IOException {
+        writer.begin(OPEN_ORDER)
+              .add(order.orderId)
+              .add(order.contractId).add(order.symbol).add(order.secType)
+              .add(null).add(null).add(null).add(null)
+              .add(order.exchange).add(order.currency).add(null).add(null)
+              .add(order.action).add(order.quantity).add(order.orderType).add(order.limitPrice)
+              .addEmpty(OPEN_ORDER_FIELDS_BEFORE_STATUS)
+              .add(order.status)
+              .addEmpty(OPEN_ORDER_FIELDS_AFTER_STATUS)
+              .end();
+    }
+
+    private void orderStatus(SimulatedOrder order) throws IOException {
+        writer.begin(ORDER_STATUS)
+              .add(order.orderId).add(order.status)
+              .add(order.filled).add(order.quantity - order.filled).add(order.averagePrice)
+              .add(order.orderId).add(0).add(order.averagePrice).add(0).add("").add(0.0)
+              .end();
+    }
+
+    private static double price(long sequence) {
+        return BASE_PRICE + (sequence % PRICE_MODULO) * PRICE_STEP;
+    }
+
+    private static long epochSecond(String time) {
+        return LocalDateTime.parse(time, TIME_FORMAT).atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static int intField(String[] fields, int index) {
+        return Integer.parseInt(fields[index]);
+    }
+
+    private static void join(Thread thread) {
+        if (thread == Thread.currentThread()) {
+            return;
+        }
+        try {
+            thread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class SimulatedOrder {
+        private int orderId;
+        private String contractId;
+        private String symbol;
+        private String secType;
+        private String exchange;
+        private String currency;
+        private String action;
+        private double quantity;
+        private String orderType;
+        private String limitPrice;
+        private String status;
+        private double filled;
+        private double averagePrice;
+    }
+
+    /**
+     * Subscription that emits a message every period.
+     */
+    private abstract static class Stream {
+        protected final int id;
+        private final Kind kind;
+        private final long period;
+        private long due = System.nanoTime();
+        private long sequence;
+
+        Stream(Kind kind, int id, int rate) {
+            this.kind = kind;
+            this.id = id;
+            this.period = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        }
+
+        /**
+         * Emits next message.
+         *
+         * @return {@code false} if the stream is finished
+         */
+        boolean emit() throws IOException {
+            return emit(sequence++);
+        }
+
+        abstract boolean emit(long number) throws IOException;
+    }
+
+    private final class TickStream extends Stream {
+        TickStream(int tickerId, int rate) {
+            super(Kind.TICKS, tickerId, rate);
+        }
+
+        @Override
+        boolean emit(long number) throws IOException {
+            tick(id, TICK_CYCLE[(int) (number % TICK_CYCLE.length)], number);
+            return true;
+        }
+    }
+
+    private final class DepthStream extends Stream {
+        DepthStream(int tickerId, int rate) {
+            super(Kind.DEPTH, tickerId, rate);
+        }
+
+        @Override
+        boolean emit(long number) throws IOException {
+            int position = (int) (number / SIDES % options.getDepthLevels());
+            depth(id, position, DEPTH_UPDATE, (int) (number % SIDES), number);
+            return true;
+        }
+    }
+
+    private final class BarStream extends Stream {
+        private final int bars;
+
+        BarStream(int reqId, int rate, int bars) {
+            super(Kind.BARS, reqId, rate);
+            this.bars = bars;
+        }
+
+        @Override
+        boolean emit(long number) throws IOException {
+            double open = price(bars);
+            writer.begin(HISTORICAL_DATA_UPDATE).add(id).add(BAR_COUNT)
+                  .add(FIRST_BAR_TIME.plusMinutes(bars).format(BAR_TIME_FORMAT))
+                  .add(open).add(price(bars + number)).add(open + PRICE_STEP).add(open - PRICE_STEP)
+                  .add(open).add(BAR_VOLUME + number).end();
+            return true;
+        }
+    }
+
+    private final class FillStream extends Stream {
+        private final SimulatedOrder order;
+
+        FillStream(SimulatedOrder order, int rate) {
+            super(Kind.FILLS, order.orderId, rate);
+            this.order = order;
+        }
+
+        @Override
+        boolean emit(long number) throws IOException {
+            int fills = options.getOrderFills();
+            order.filled = Math.min(order.quantity, Math.ceil(order.quantity * (number + 1) / fills));
+            order.averagePrice = price(order.orderId);
+            boolean last = number + 1 >= fills;
+            if (last) {
+                order.filled = order.quantity;
+                order.status = STATUS_FILLED;
+                orders.remove(order.orderId);
+            }
+            orderStatus(order);
+            return !last;
+        }
+    }
+}
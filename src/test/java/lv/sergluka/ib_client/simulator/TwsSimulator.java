@@ -0,0 +1,151 @@
+package lv.sergluka.ib_client.simulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for TWS/Gateway speaking TWS API wire protocol.
+ *
+ * <p>Accepts connections of {@code EClientSocket} on a loopback port, performs the handshake, reports
+ * {@code nextValidId} and {@code managedAccounts}, and then serves synthetic traffic described by
+ * {@link SimulatorOptions}:
+ * <ul>
+ * <li>market data - stream of bid/ask/last prices and volume, or a single round of ticks for snapshots;</li>
+ * <li>market depth - initial book of configured depth and then stream of level updates;</li>
+ * <li>orders - placed orders are acknowledged with "open order" and "Submitted" status, then optionally filled
+ * with a stream of partial fills; cancel, global cancel and open orders requests are supported;</li>
+ * <li>historical data - fixed number of bars, and stream of bar updates for "keep up to date" requests;</li>
+ * <li>historical ticks - endless tape with fixed number of ticks every second;</li>
+ * <li>current time.</li>
+ * </ul>
+ *
+ * <p>Other requests are ignored. Prices and sizes are deterministic, so tests can reproduce the load exactly.
+ */
+public class TwsSimulator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TwsSimulator.class);
+
+    private static final int CLOSE_TIMEOUT_MS = 1000;
+
+    private final SimulatorOptions options;
+    private final List<SimulatorSession> sessions = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Integer, LongAdder> requests = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+
+    private volatile long closedMessages;
+
+    public TwsSimulator() throws IOException {
+        this(new SimulatorOptions());
+    }
+
+    public TwsSimulator(SimulatorOptions options) throws IOException {
+        this.options = options;
+
+        serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::accept);
+        acceptThread.setName("TWS simulator");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        log.info("TWS simulator is listening on port {}", getPort());
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of connected clients.
+     *
+     * @return number of sessions
+     */
+    public int getSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Total number of messages sent to all the clients, including closed ones.
+     *
+     * @return number of messages
+     */
+    public long getMessagesSent() {
+        long result = closedMessages;
+        for (SimulatorSession session : sessions) {
+            result += session.getMessagesSent();
+        }
+        return result;
+    }
+
+    /**
+     * Number of client messages of given type received from all the clients.
+     *
+     * @param messageId TWS API outgoing message ID, i.e. 96 for {@code reqHistoricalTicks}
+     * @return number of messages
+     */
+    public long getRequests(int messageId) {
+        LongAdder counter = requests.get(messageId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Closes connections of all the clients, but keeps listening, like a restart of TWS or Gateway.
+     */
+    public void dropClients() {
+        sessions.forEach(SimulatorSession::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Fail to close server socket: {}", e.getMessage());
+        }
+
+        sessions.forEach(SimulatorSession::close);
+        try {
+            acceptThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                log.debug("Client connected from {}", socket.getRemoteSocketAddress());
+
+                SimulatorSession session = new SimulatorSession(socket, options, requests, this::onSessionClosed);
+                sessions.add(session);
+                session.start();
+            } catch (SocketException e) {
+                log.debug("Simulator has been stopped: {}", e.getMessage());
+            } catch (IOException e) {
+                log.error("Fail to accept connection: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private synchronized void onSessionClosed(SimulatorSession session) {
+        if (sessions.remove(session)) {
+            closedMessages += session.getMessagesSent();
+        }
+    }
+}